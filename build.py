@@ -201,6 +201,7 @@ CTX.INPUT['common'] = """
  SegvException.cpp
  SerializableEEException.cpp
  SQLException.cpp
+ StringDictionary.cpp
  StringRef.cpp
  tabletuple.cpp
  TupleSchema.cpp
@@ -280,6 +281,7 @@ CTX.INPUT['plannodes'] = """
  seqscannode.cpp
  unionnode.cpp
  updatenode.cpp
+ upsertnode.cpp
 """
 
 CTX.INPUT['indexes'] = """
@@ -375,6 +377,7 @@ if whichtests in ("${eetestsuite}", "common"):
      nvalue_test
      pool_test
      tabletuple_test
+     string_dictionary_test
      elastic_hashinator_test
     """
 
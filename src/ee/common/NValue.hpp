@@ -37,6 +37,7 @@
 #include "common/FatalException.hpp"
 #include "common/Pool.hpp"
 #include "common/SQLException.h"
+#include "common/StringDictionary.h"
 #include "common/StringRef.h"
 #include "common/ThreadLocalPool.h"
 #include "common/debuglog.h"
@@ -201,6 +202,7 @@ inline void streamSQLFloatFormat(std::stringstream& streamOut, double floatValue
 class NValue {
     friend class ValuePeeker;
     friend class ValueFactory;
+    friend class StringDictionary;
 
   public:
     /* Create a default NValue */
@@ -220,6 +222,10 @@ class NValue {
     /* Reveal the contained pointer for type values  */
     void* castAsAddress() const;
 
+    /* The shared copy of a string read from a dictionary encoded
+       column, or NULL for any other value */
+    const StringRef* getDictionaryEntry() const;
+
     /* Create a boolean true NValue */
     static NValue getTrue();
 
@@ -252,10 +258,11 @@ class NValue {
     /* Serialize the scalar this NValue represents to the provided
        storage area. If the scalar is an Object type that is not
        inlined then the provided data pool or the heap will be used to
-       allocated storage for a copy of the object. */
+       allocated storage for a copy of the object, or, given a
+       dictionary, the dictionary's shared copy is referenced. */
     void serializeToTupleStorageAllocateForObjects(
         void *storage, const bool isInlined, const int32_t maxLength,
-        Pool *dataPool) const;
+        Pool *dataPool, StringDictionary *dictionary = NULL) const;
 
     /* Serialize the scalar this NValue represents to the storage area
        provided. If the scalar is an Object type then the object will
@@ -269,10 +276,12 @@ class NValue {
        SerializeInput directly into the tuple storage area
        provided. This function will perform memory allocations for
        Object types as necessary using the provided data pool or the
-       heap. This is used to deserialize tables. */
+       heap, or references the dictionary's copy of a string given a
+       dictionary. This is used to deserialize tables. */
     static void deserializeFrom(
         SerializeInput &input, const ValueType type, char *storage,
-        bool isInlined, const int32_t maxLength, Pool *dataPool);
+        bool isInlined, const int32_t maxLength, Pool *dataPool,
+        StringDictionary *dictionary = NULL);
 
         // TODO: no callers use the first form; Should combine these
         // eliminate the potential NValue copy.
@@ -1593,6 +1602,12 @@ class NValue {
                                data_exception_most_specific_type_mismatch,
                                message);
         }
+        // Two references to one dictionary entry are equal without
+        // looking at the string bytes.
+        const StringRef* entry = getDictionaryEntry();
+        if (entry != NULL && entry == rhs.getDictionaryEntry()) {
+            return VALUE_COMPARE_EQUAL;
+        }
         const char* left = reinterpret_cast<const char*>(getObjectValue());
         const char* right = reinterpret_cast<const char*>(rhs.getObjectValue());
         if (isNull()) {
@@ -2347,7 +2362,8 @@ inline const NValue NValue::deserializeFromTupleStorage(const void *storage,
  * allocated storage for a copy of the object.
  */
 inline void NValue::serializeToTupleStorageAllocateForObjects(void *storage, const bool isInlined,
-                                                       const int32_t maxLength, Pool *dataPool) const
+                                                       const int32_t maxLength, Pool *dataPool,
+                                                       StringDictionary *dictionary) const
 {
     const ValueType type = getValueType();
     int32_t length = 0;
@@ -2397,6 +2413,11 @@ inline void NValue::serializeToTupleStorageAllocateForObjects(void *storage, con
                         msg);
 
                 }
+                if (dictionary != NULL) {
+                    *reinterpret_cast<StringRef**>(storage) =
+                        dictionary->intern(reinterpret_cast<const char*>(getObjectValue()), length);
+                    break;
+                }
                 StringRef* sref = StringRef::create(minlength, dataPool);
                 char *copy = sref->get();
                 setObjectLengthToLocation(length, copy);
@@ -2487,7 +2508,8 @@ inline void NValue::serializeToTupleStorage(void *storage, const bool isInlined,
  * heap. This is used to deserialize tables.
  */
 inline void NValue::deserializeFrom(SerializeInput &input, const ValueType type,
-                             char *storage, bool isInlined, const int32_t maxLength, Pool *dataPool) {
+                             char *storage, bool isInlined, const int32_t maxLength, Pool *dataPool,
+                             StringDictionary *dictionary) {
     switch (type) {
       case VALUE_TYPE_BIGINT:
       case VALUE_TYPE_TIMESTAMP:
@@ -2532,6 +2554,10 @@ inline void NValue::deserializeFrom(SerializeInput &input, const ValueType type,
                   return;
               }
               const char *data = reinterpret_cast<const char*>(input.getRawPointer(length));
+              if (dictionary != NULL) {
+                  *reinterpret_cast<StringRef**>(storage) = dictionary->intern(data, length);
+                  break;
+              }
               const int32_t minlength = lengthLength + length;
               StringRef* sref = StringRef::create(minlength, dataPool);
               char* copy = sref->get();
@@ -2882,6 +2908,9 @@ inline void NValue::hashCombine(std::size_t &seed) const {
       case VALUE_TYPE_VARCHAR: {
         if (getObjectValue() == NULL) {
             boost::hash_combine( seed, std::string(""));
+        } else if (getDictionaryEntry() != NULL) {
+            // the dictionary hashed the string's bytes the same way boost hashes a std::string
+            boost::hash_combine( seed, StringDictionary::getHash(getDictionaryEntry()));
         } else {
             const int32_t length = getObjectLength();
             boost::hash_combine( seed, std::string( reinterpret_cast<const char*>(getObjectValue()), length ));
@@ -2961,6 +2990,15 @@ inline void* NValue::castAsAddress() const {
     }
 }
 
+inline const StringRef* NValue::getDictionaryEntry() const {
+    if (getValueType() != VALUE_TYPE_VARCHAR || m_sourceInlined ||
+        getObjectValue() == NULL) {
+        return NULL;
+    }
+    const StringRef* sref = *reinterpret_cast<const StringRef* const*>(m_data);
+    return sref->isInterned() ? sref : NULL;
+}
+
 inline NValue NValue::op_increment() const {
         const ValueType type = getValueType();
         NValue retval(type);
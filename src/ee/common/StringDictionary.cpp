@@ -0,0 +1,150 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#include "StringDictionary.h"
+
+#include "NValue.hpp"
+#include "ThreadLocalPool.h"
+
+#include <boost/functional/hash.hpp>
+#include <cassert>
+#include <cstring>
+
+using namespace voltdb;
+using namespace std;
+
+// the last version handed out to any dictionary, sites share it
+static int64_t s_lastVersion = 0;
+
+int64_t
+StringDictionary::nextVersion()
+{
+    return __sync_add_and_fetch(&s_lastVersion, 1);
+}
+
+StringDictionary::StringDictionary()
+    : m_bytesAllocated(0), m_version(nextVersion()), m_orphaned(false)
+{
+}
+
+StringDictionary::~StringDictionary()
+{
+    assert(m_entries.empty());
+}
+
+StringRef*
+StringDictionary::intern(const char* value, int32_t length)
+{
+    const size_t hash = boost::hash_range(value, value + length);
+    Entry* entry = lookup(value, length, hash);
+    if (entry == NULL)
+    {
+        // the entry holds the string in tuple storage format, length first
+        const int8_t lengthLength = NValue::getAppropriateObjectLengthLength(length);
+        const size_t size = lengthLength + length;
+#ifdef MEMCHECK
+        entry = new Entry(this, size, hash);
+#else
+        entry = new(ThreadLocalPool::get(sizeof(Entry))->malloc()) Entry(this, size, hash);
+#endif
+        entry->m_interned = true;
+        char* storage = entry->get();
+        NValue::setObjectLengthToLocation(length, storage);
+        ::memcpy(storage + lengthLength, value, length);
+
+        m_entries.insert(EntryMap::value_type(hash, entry));
+        m_bytesAllocated += sizeof(Entry) +
+            ThreadLocalPool::getAllocationSizeForObject(size + sizeof(StringRef*));
+        m_version = nextVersion();
+    }
+    ++entry->m_refCount;
+    return entry;
+}
+
+const StringRef*
+StringDictionary::find(const char* value, int32_t length) const
+{
+    return lookup(value, length, boost::hash_range(value, value + length));
+}
+
+void
+StringDictionary::orphan()
+{
+    m_orphaned = true;
+    if (m_entries.empty())
+    {
+        delete this;
+    }
+}
+
+void
+StringDictionary::release(StringRef* sref)
+{
+    Entry* entry = static_cast<Entry*>(sref);
+    assert(entry->m_refCount > 0);
+    if (--entry->m_refCount > 0)
+    {
+        return;
+    }
+    StringDictionary* dictionary = entry->m_dictionary;
+    dictionary->remove(entry);
+    if (dictionary->m_orphaned && dictionary->m_entries.empty())
+    {
+        delete dictionary;
+    }
+}
+
+StringDictionary::Entry*
+StringDictionary::lookup(const char* value, int32_t length, size_t hash) const
+{
+    pair<EntryMap::const_iterator, EntryMap::const_iterator> range = m_entries.equal_range(hash);
+    for (EntryMap::const_iterator iter = range.first; iter != range.second; ++iter)
+    {
+        const char* storage = iter->second->get();
+        if (NValue::getObjectLengthFromLocation(storage) == length &&
+            ::memcmp(storage + NValue::getAppropriateObjectLengthLength(length), value, length) == 0)
+        {
+            return iter->second;
+        }
+    }
+    return NULL;
+}
+
+void
+StringDictionary::remove(Entry* entry)
+{
+    pair<EntryMap::iterator, EntryMap::iterator> range = m_entries.equal_range(entry->m_hash);
+    for (EntryMap::iterator iter = range.first; iter != range.second; ++iter)
+    {
+        if (iter->second == entry)
+        {
+            m_entries.erase(iter);
+            break;
+        }
+    }
+    const int32_t length = NValue::getObjectLengthFromLocation(entry->get());
+    const size_t size = NValue::getAppropriateObjectLengthLength(length) + length;
+    m_bytesAllocated -= sizeof(Entry) +
+        ThreadLocalPool::getAllocationSizeForObject(size + sizeof(StringRef*));
+    m_version = nextVersion();
+#ifdef MEMCHECK
+    delete entry;
+#else
+    entry->~Entry();
+    ThreadLocalPool::get(sizeof(Entry))->free(entry);
+#endif
+}
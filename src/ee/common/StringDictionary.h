@@ -0,0 +1,122 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#ifndef _EE_COMMON_STRINGDICTIONARY_H_
+#define _EE_COMMON_STRINGDICTIONARY_H_
+
+#include "common/StringRef.h"
+
+#include <boost/unordered_map.hpp>
+#include <cstddef>
+#include <stdint.h>
+
+namespace voltdb
+{
+    /// Storage for the out-of-line strings of a dictionary encoded
+    /// column.  Each distinct string is stored once, in a StringRef
+    /// that every tuple holding the string points to, so the pointer
+    /// is the string's code: two strings from one dictionary are
+    /// equal exactly when they are the same entry.  Entries are
+    /// reference counted by the tuples that hold them and are freed
+    /// with their last reference, their string memory going back to
+    /// the compacting string pool.
+    class StringDictionary
+    {
+    public:
+        StringDictionary();
+
+        /// Return the entry for the given string, adding it if no
+        /// tuple holds the string yet, and take a reference to it.
+        /// StringRef::destroy() gives the reference back.
+        StringRef* intern(const char* value, int32_t length);
+
+        /// Return the entry for the given string without taking a
+        /// reference, or NULL if no tuple holds the string.
+        const StringRef* find(const char* value, int32_t length) const;
+
+        /// Called by the owner instead of deleting the dictionary.
+        /// Undo actions may still hold entries, so the dictionary is
+        /// deleted when its last entry is released.
+        void orphan();
+
+        /// The number of distinct strings held
+        std::size_t size() const { return m_entries.size(); }
+
+        /// Memory used by the entries and their strings
+        std::size_t getBytesAllocated() const { return m_bytesAllocated; }
+
+        /// Changes whenever an entry is added or freed, so that a
+        /// remembered find() result can tell when it may be stale.
+        /// Versions come from one process wide sequence, so a
+        /// dictionary allocated where another was freed never reports
+        /// a version the freed one had.
+        int64_t getVersion() const { return m_version; }
+
+        /// Give back a reference taken by intern()
+        static void release(StringRef* sref);
+
+        /// The dictionary holding an interned string
+        static const StringDictionary* getDictionary(const StringRef* sref);
+
+        /// The hash of an interned string's value, the same as
+        /// boost::hash_range() over its bytes.
+        static std::size_t getHash(const StringRef* sref);
+
+    private:
+        class Entry;
+        typedef boost::unordered_multimap<std::size_t, Entry*> EntryMap;
+
+        ~StringDictionary();
+
+        Entry* lookup(const char* value, int32_t length, std::size_t hash) const;
+        void remove(Entry* entry);
+
+        static int64_t nextVersion();
+
+        EntryMap m_entries;
+        std::size_t m_bytesAllocated;
+        int64_t m_version;
+        bool m_orphaned;
+    };
+
+    class StringDictionary::Entry : public StringRef
+    {
+    public:
+        Entry(StringDictionary* dictionary, std::size_t size, std::size_t hash)
+            : StringRef(size), m_dictionary(dictionary), m_hash(hash), m_refCount(0)
+        {
+        }
+
+        StringDictionary* const m_dictionary;
+        const std::size_t m_hash;
+        int32_t m_refCount;
+    };
+
+    inline const StringDictionary*
+    StringDictionary::getDictionary(const StringRef* sref)
+    {
+        return static_cast<const Entry*>(sref)->m_dictionary;
+    }
+
+    inline std::size_t
+    StringDictionary::getHash(const StringRef* sref)
+    {
+        return static_cast<const Entry*>(sref)->m_hash;
+    }
+}
+
+#endif // _EE_COMMON_STRINGDICTIONARY_H_
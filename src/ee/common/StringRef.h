@@ -40,6 +40,7 @@ namespace voltdb
         static std::size_t computeStringMemoryUsed(std::size_t length);
 
         friend class CompactingStringPool;
+        friend class StringDictionary;
         /// Create and return a new StringRef object which points to an
         /// allocated memory block of the requested size.  The caller
         /// may provide an optional Pool from which the memory (and
@@ -53,17 +54,24 @@ namespace voltdb
         /// any, allocated from pools to store the object.
         /// sref must have been allocated and returned by a call to
         /// StringRef::create() and must not have been created in a
-        /// temporary Pool
+        /// temporary Pool.  An interned sref instead gives back the
+        /// reference its tuple held on the dictionary's copy.
         static void destroy(StringRef* sref);
 
         char* get();
         const char* get() const;
 
-    private:
+        /// True if the string is an entry of a StringDictionary, shared
+        /// by every tuple in its column that holds the same string.
+        bool isInterned() const { return m_interned; }
+
+    protected:
         StringRef(std::size_t size);
-        StringRef(std::size_t size, Pool* dataPool);
         ~StringRef();
 
+    private:
+        StringRef(std::size_t size, Pool* dataPool);
+
         /// Callback used via the back-pointer in order to update the
         /// pointer to the memory backing this string reference
         void updateStringLocation(void* location);
@@ -72,6 +80,7 @@ namespace voltdb
 
         std::size_t m_size;
         bool m_tempPool;
+        bool m_interned;
         char* m_stringPtr;
     };
 }
@@ -19,6 +19,7 @@
 #include <cstdio>
 #include "common/TupleSchema.h"
 #include "common/NValue.hpp"
+#include "common/StringDictionary.h"
 
 namespace voltdb {
 
@@ -72,6 +73,11 @@ TupleSchema* TupleSchema::createTupleSchema(const TupleSchema *schema) {
     // clear all the offset values
     memcpy(retval, schema, memSize);
 
+    // the dictionaries belong to the original
+    for (uint16_t ii = 0; ii < retval->m_columnCount; ii++) {
+        retval->getColumnInfo(ii)->dictionary = NULL;
+    }
+
     return retval;
 }
 
@@ -142,9 +148,40 @@ TupleSchema::createTupleSchema(const TupleSchema *first,
 }
 
 void TupleSchema::freeTupleSchema(TupleSchema *schema) {
+    if (schema == NULL) {
+        return;
+    }
+    for (uint16_t ii = 0; ii < schema->m_columnCount; ii++) {
+        StringDictionary *dictionary = schema->getColumnInfo(ii)->dictionary;
+        if (dictionary != NULL) {
+            // undo actions may still hold strings from the dictionary
+            dictionary->orphan();
+        }
+    }
     delete[] reinterpret_cast<char*>(schema);
 }
 
+void TupleSchema::setColumnDictionaryEncoded(int index) {
+    assert(index < m_columnCount);
+    ColumnInfo *columnInfo = getColumnInfo(index);
+    if (columnInfo->type != VALUE_TYPE_VARCHAR || columnInfo->inlined ||
+        columnInfo->dictionary != NULL) {
+        return;
+    }
+    columnInfo->dictionary = new StringDictionary();
+}
+
+size_t TupleSchema::getDictionaryMemorySize() const {
+    size_t bytes = 0;
+    for (uint16_t ii = 0; ii < m_columnCount; ii++) {
+        const StringDictionary *dictionary = getColumnInfo(ii)->dictionary;
+        if (dictionary != NULL) {
+            bytes += dictionary->getBytesAllocated();
+        }
+    }
+    return bytes;
+}
+
 void TupleSchema::setColumnMetaData(uint16_t index, ValueType type, const int32_t length, bool allowNull,
                                     uint16_t &uninlinedObjectColumnIndex)
 {
@@ -198,7 +235,11 @@ std::string TupleSchema::debug() const {
     for (uint16_t i = 0; i < columnCount(); i++) {
         buffer << " column " << i << ": type = " << getTypeName(columnType(i));
         buffer << ", length = " << columnLength(i) << ", nullable = ";
-        buffer << (columnAllowNull(i) ? "true" : "false") << ", isInlined = " << columnIsInlined(i) <<  std::endl;
+        buffer << (columnAllowNull(i) ? "true" : "false") << ", isInlined = " << columnIsInlined(i);
+        if (columnDictionary(i) != NULL) {
+            buffer << ", dictionary encoded";
+        }
+        buffer << std::endl;
     }
 
     std::string ret(buffer.str());
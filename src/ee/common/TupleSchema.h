@@ -31,6 +31,8 @@
 
 namespace voltdb {
 
+class StringDictionary;
+
 /**
  * Represents the shcema of a tuple or table row. Used to define table rows, as
  * well as index keys. Note: due to arbitrary size embedded array data, this class
@@ -92,6 +94,16 @@ public:
         strings will be the maximum length specified or 8 if string is
         not inlined. */
     inline uint32_t columnLength(int index) const;
+    /** Get the dictionary holding the strings of a dictionary encoded
+        column, or NULL if the column's strings are stored per tuple. */
+    inline StringDictionary* columnDictionary(int index) const;
+
+    /** Store the strings of the given column once per distinct value in
+        a dictionary owned by this schema. Only non-inlined VARCHAR
+        columns can be encoded; other columns are left as they are. */
+    void setColumnDictionaryEncoded(int index);
+    /** Return the number of bytes held by the schema's dictionaries */
+    size_t getDictionaryMemorySize() const;
 
     /** Return the number of columns in the schema for the tuple. */
     inline uint16_t columnCount() const;
@@ -118,6 +130,7 @@ private:
         char type;
         char allowNull;
         bool inlined;      // Stored inside the tuple or outside the tuple.
+        StringDictionary* dictionary; // Shared storage for a dictionary encoded column
     };
 
     /*
@@ -200,6 +213,12 @@ inline uint32_t TupleSchema::columnLength(const int index) const {
     return columnInfo->length;
 }
 
+inline StringDictionary* TupleSchema::columnDictionary(const int index) const {
+    assert(index < m_columnCount);
+    const ColumnInfo *columnInfo = getColumnInfo(index);
+    return columnInfo->dictionary;
+}
+
 inline uint32_t TupleSchema::columnLengthPrivate(const int index) const {
     assert(index < m_columnCount);
     const ColumnInfo *columnInfo = getColumnInfo(index);
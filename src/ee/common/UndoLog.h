@@ -145,6 +145,12 @@ namespace voltdb
             }
         }
 
+        /** true when every undo quantum has been released or undone */
+        bool isEmpty() const
+        {
+            return m_undoQuantums.empty();
+        }
+
         int64_t getSize() const
         {
             int64_t total = 0;
@@ -17,6 +17,7 @@
 #include "common/executorcontext.hpp"
 
 #include "common/debuglog.h"
+#include "common/TheHashinator.h"
 
 #include <pthread.h>
 
@@ -40,8 +41,8 @@ ExecutorContext::ExecutorContext(int64_t siteId,
                 std::string hostname,
                 CatalogId hostId) :
     m_topEnd(topend), m_tempStringPool(tempStringPool),
-    m_undoQuantum(undoQuantum), m_spHandle(0),
-    m_lastCommittedSpHandle(0),
+    m_undoQuantum(undoQuantum), m_undoLog(NULL), m_undoToken(0), m_spHandle(0),
+    m_hashinator(NULL), m_lastCommittedSpHandle(0),
     m_siteId(siteId), m_partitionId(partitionId),
     m_hostname(hostname), m_hostId(hostId),
     m_exportEnabled(exportEnabled), m_epoch(0) // set later
@@ -69,6 +70,12 @@ ExecutorContext::~ExecutorContext() {
     pthread_setspecific( static_key, NULL);
 }
 
+bool ExecutorContext::isLocalSite(const NValue& value) const
+{
+    assert(m_hashinator != NULL);
+    return m_hashinator->hashinate(value) == m_partitionId;
+}
+
 ExecutorContext* ExecutorContext::getExecutorContext() {
     (void)pthread_once(&static_keyOnce, createThreadLocalKey);
     return static_cast<ExecutorContext*>(pthread_getspecific( static_key));
@@ -20,9 +20,13 @@
 
 #include "Topend.h"
 #include "common/UndoQuantum.h"
+#include "common/UndoLog.h"
 
 namespace voltdb {
 
+class NValue;
+class TheHashinator;
+
 /*
  * EE site global data required by executors at runtime.
  *
@@ -60,12 +64,50 @@ class ExecutorContext {
         m_epoch = epoch;
     }
 
+    // owned by the engine, which replaces it when the cluster topology changes
+    void setHashinator(TheHashinator* hashinator) {
+        m_hashinator = hashinator;
+    }
+
+    /** Does the value hash to the partition of this site */
+    bool isLocalSite(const NValue& value) const;
+
     // helper to configure the context for a new jni call
+    void setupForPlanFragments(int64_t spHandle,
+                               int64_t lastCommittedSpHandle,
+                               int64_t uniqueId)
+    {
+        m_spHandle = spHandle;
+        m_lastCommittedSpHandle = lastCommittedSpHandle;
+        m_currentTxnTimestamp = (m_uniqueId >> 23) + m_epoch;
+        m_uniqueId = uniqueId;
+    }
+
+    /*
+     * Changes made from here on are undone or released with undoToken.
+     * Its quantum is only generated when the first undo action is
+     * registered, so work that changes nothing leaves nothing in the
+     * undo log. A NULL undoLog turns undo off.
+     */
+    void setupForUndo(UndoLog *undoLog, int64_t undoToken)
+    {
+        m_undoLog = undoLog;
+        m_undoToken = undoToken;
+        m_undoQuantum = NULL;
+    }
+
+    /** true if a quantum was generated since the last setupForUndo() */
+    bool hasUndoQuantum() const {
+        return m_undoQuantum != NULL;
+    }
+
+    // for test, with an explicit undo quantum
     void setupForPlanFragments(UndoQuantum *undoQuantum,
                                int64_t spHandle,
                                int64_t lastCommittedSpHandle,
                                int64_t uniqueId)
     {
+        m_undoLog = NULL;
         m_undoQuantum = undoQuantum;
         m_spHandle = spHandle;
         m_lastCommittedSpHandle = lastCommittedSpHandle;
@@ -84,17 +126,15 @@ class ExecutorContext {
         m_lastCommittedSpHandle = lastCommittedSpHandle;
     }
 
-    // for test (VoltDBEngine::getExecutorContext())
-    void setupForPlanFragments(UndoQuantum *undoQuantum) {
-        m_undoQuantum = undoQuantum;
-    }
-
     UndoQuantum *getCurrentUndoQuantum() {
+        if (m_undoQuantum == NULL && m_undoLog != NULL) {
+            m_undoQuantum = m_undoLog->generateUndoQuantum(m_undoToken);
+        }
         return m_undoQuantum;
     }
 
     static UndoQuantum *currentUndoQuantum() {
-        return getExecutorContext()->m_undoQuantum;
+        return getExecutorContext()->getCurrentUndoQuantum();
     }
 
     Topend* getTopend() {
@@ -134,9 +174,12 @@ class ExecutorContext {
     Topend *m_topEnd;
     Pool *m_tempStringPool;
     UndoQuantum *m_undoQuantum;
+    UndoLog *m_undoLog;
+    int64_t m_undoToken;
     int64_t m_spHandle;
     int64_t m_uniqueId;
     int64_t m_currentTxnTimestamp;
+    TheHashinator *m_hashinator;
   public:
     int64_t m_lastCommittedSpHandle;
     int64_t m_siteId;
@@ -191,8 +191,9 @@ public:
             for (int i = 0; i < cols; ++i)
             {
                 // peekObjectLength is unhappy with non-varchar
+                // dictionary strings are counted once, by their dictionary
                 if (((getType(i) == VALUE_TYPE_VARCHAR) || (getType(i) == VALUE_TYPE_VARBINARY)) &&
-                    !m_schema->columnIsInlined(i))
+                    !m_schema->columnIsInlined(i) && m_schema->columnDictionary(i) == NULL)
                 {
                     if (!getNValue(i).isNull())
                     {
@@ -511,8 +512,10 @@ inline void TableTuple::setNValueAllocateForObjectCopies(const int idx,
     const bool isInlined = m_schema->columnIsInlined(idx);
     char *dataPtr = getDataPtr(idx);
     const int32_t columnLength = m_schema->columnLength(idx);
+    // only persistent storage shares the strings of a dictionary encoded column
+    StringDictionary *dictionary = dataPool == NULL ? m_schema->columnDictionary(idx) : NULL;
     value.serializeToTupleStorageAllocateForObjects(dataPtr, isInlined,
-                                                    columnLength, dataPool);
+                                                    columnLength, dataPool, dictionary);
 }
 
 /*
@@ -704,7 +707,8 @@ inline void TableTuple::deserializeFrom(voltdb::SerializeInput &tupleIn, Pool *d
         const bool isInlined = m_schema->columnIsInlined(j);
         char *dataPtr = getDataPtr(j);
         const int32_t columnLength = m_schema->columnLength(j);
-        NValue::deserializeFrom(tupleIn, type, dataPtr, isInlined, columnLength, dataPool);
+        StringDictionary *dictionary = dataPool == NULL ? m_schema->columnDictionary(j) : NULL;
+        NValue::deserializeFrom(tupleIn, type, dataPtr, isInlined, columnLength, dataPool, dictionary);
     }
 }
 
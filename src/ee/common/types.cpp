@@ -352,6 +352,9 @@ string planNodeToString(PlanNodeType type)
     case PLAN_NODE_TYPE_DELETE: {
         return "DELETE";
     }
+    case PLAN_NODE_TYPE_UPSERT: {
+        return "UPSERT";
+    }
     case PLAN_NODE_TYPE_SEND: {
         return "SEND";
     }
@@ -411,6 +414,8 @@ PlanNodeType stringToPlanNode(string str )
         return PLAN_NODE_TYPE_INSERT;
     } else if (str == "DELETE") {
         return PLAN_NODE_TYPE_DELETE;
+    } else if (str == "UPSERT") {
+        return PLAN_NODE_TYPE_UPSERT;
     } else if (str == "SEND") {
         return PLAN_NODE_TYPE_SEND;
     } else if (str == "RECEIVE") {
@@ -542,6 +547,9 @@ string expressionToString(ExpressionType type)
     case EXPRESSION_TYPE_HASH_RANGE: {
         return "HASH_RANGE";
     }
+    case EXPRESSION_TYPE_PARTITION_SLICE: {
+        return "PARTITION_SLICE";
+    }
     }
     return "INVALID";
 }
@@ -616,6 +624,8 @@ ExpressionType stringToExpression(string str )
         return EXPRESSION_TYPE_INLISTBUILDER;
     } else if (str == "HASH_RANGE") {
         return EXPRESSION_TYPE_HASH_RANGE;
+    } else if (str == "PARTITION_SLICE") {
+        return EXPRESSION_TYPE_PARTITION_SLICE;
     }
 
     return EXPRESSION_TYPE_INVALID;
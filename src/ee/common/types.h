@@ -192,6 +192,7 @@ enum PlanNodeType {
     PLAN_NODE_TYPE_UPDATE           = 30,
     PLAN_NODE_TYPE_INSERT           = 31,
     PLAN_NODE_TYPE_DELETE           = 32,
+    PLAN_NODE_TYPE_UPSERT           = 33,
 
     //
     // Communication Nodes
@@ -308,6 +309,7 @@ enum ExpressionType {
     // Internals added for Elastic
     // -----------------------------
     EXPRESSION_TYPE_HASH_RANGE                      = 200,
+    EXPRESSION_TYPE_PARTITION_SLICE                 = 201,
 
 };
 
@@ -113,8 +113,10 @@ namespace voltdb {
 const int64_t AD_HOC_FRAG_ID = -1;
 
 VoltDBEngine::VoltDBEngine(Topend *topend, LogProxy *logProxy)
-    : m_currentUndoQuantum(NULL),
+    : m_hasUndoToken(false),
+      m_currentUndoToken(0),
       m_hashinator(NULL),
+      m_lastCompactedTableId(-1),
       m_staticParams(MAX_PARAM_COUNT),
       m_currentOutputDepId(-1),
       m_currentInputDepId(-1),
@@ -207,7 +209,7 @@ VoltDBEngine::initialize(int32_t clusterIndex,
     // required for catalog loading.
     m_executorContext = new ExecutorContext(siteId,
                                             m_partitionId,
-                                            m_currentUndoQuantum,
+                                            NULL,
                                             getTopend(),
                                             &m_stringPool,
                                             m_isELEnabled,
@@ -225,6 +227,7 @@ VoltDBEngine::initialize(int32_t clusterIndex,
         throwFatalException("Unknown hashinator type %d", hashinatorType);
         break;
     }
+    m_executorContext->setHashinator(m_hashinator.get());
 
     return true;
 }
@@ -338,8 +341,7 @@ int VoltDBEngine::executeQuery(int64_t planfragmentId,
     size_t numResultDependenciesCountOffset = m_resultOutput.reserveBytes(4);
 
     // configure the execution context.
-    m_executorContext->setupForPlanFragments(getCurrentUndoQuantum(),
-                                             spHandle,
+    m_executorContext->setupForPlanFragments(spHandle,
                                              lastCommittedSpHandle,
                                              uniqueId);
 
@@ -419,8 +421,9 @@ int VoltDBEngine::executeQuery(int64_t planfragmentId,
     //Write the number of result dependencies if necessary.
     m_resultOutput.writeIntAt(numResultDependenciesCountOffset, m_numResultDependencies);
 
-    // if a fragment modifies any tuples, the whole batch is dirty
-    if (m_tuplesModified > 0)
+    // if a fragment modifies any tuples, the whole batch is dirty. Java
+    // only releases the undo token of a transaction with a dirty batch.
+    if (m_tuplesModified > 0 || m_executorContext->hasUndoQuantum())
         m_dirtyFragmentBatch = true;
 
     // write dirty-ness of the batch and number of dependencies output to the FRONT of
@@ -604,6 +607,13 @@ VoltDBEngine::hasSameSchema(catalog::Table *t1, voltdb::Table *t2) {
                 return false;
             }
         }
+
+        // a change of string storage rebuilds the table to re-encode its strings
+        bool dictionaryEncoded = outerIter->second->dictionaryencoded() &&
+            (type == VALUE_TYPE_VARCHAR) && !t2->schema()->columnIsInlined(index);
+        if ((t2->schema()->columnDictionary(index) != NULL) != dictionaryEncoded) {
+            return false;
+        }
     }
 
     return true;
@@ -908,8 +918,7 @@ VoltDBEngine::loadTable(int32_t tableId,
     //The spHandle and lastCommittedSpHandle aren't really used in load table
     //since their only purpose as of writing this (1/2013) they are only used
     //for export data and we don't technically support loading into an export table
-    m_executorContext->setupForPlanFragments(getCurrentUndoQuantum(),
-                                             spHandle,
+    m_executorContext->setupForPlanFragments(spHandle,
                                              -1,
                                              lastCommittedSpHandle);
 
@@ -1201,17 +1210,41 @@ void VoltDBEngine::printReport() {
 
 bool VoltDBEngine::isLocalSite(const NValue& value)
 {
-    int index = m_hashinator->hashinate(value);
-    return index == m_partitionId;
+    return m_executorContext->isLocalSite(value);
 }
 
 /** Perform once per second, non-transactional work. */
-void VoltDBEngine::tick(int64_t timeInMillis, int64_t lastCommittedSpHandle) {
+void VoltDBEngine::tick(int64_t timeInMillis, int64_t lastCommittedSpHandle,
+                        int64_t compactionBudgetMicros) {
     m_executorContext->setupForTick(lastCommittedSpHandle);
     typedef pair<string, Table*> TablePair;
     BOOST_FOREACH (TablePair table, m_exportingTables) {
         table.second->flushOldTuples(timeInMillis);
     }
+    compactTables(compactionBudgetMicros);
+}
+
+void VoltDBEngine::compactTables(int64_t budgetMicros) {
+    // a multi-partition transaction can be in flight between fragments
+    if (budgetMicros <= 0 || !m_undoLog.isEmpty() || m_tables.empty()) {
+        return;
+    }
+    map<CatalogId, Table*>::iterator start = m_tables.upper_bound(m_lastCompactedTableId);
+    map<CatalogId, Table*>::iterator iter = start;
+    do {
+        if (iter == m_tables.end()) {
+            iter = m_tables.begin();
+            if (iter == start) {
+                break;
+            }
+        }
+        PersistentTable *table = dynamic_cast<PersistentTable*>(iter->second);
+        if (table != NULL) {
+            budgetMicros -= table->doIncrementalCompaction(budgetMicros);
+            m_lastCompactedTableId = iter->first;
+        }
+        ++iter;
+    } while (budgetMicros > 0 && iter != start);
 }
 
 /** For now, bring the Export system to a steady state with no buffers with content */
@@ -1339,18 +1372,10 @@ int VoltDBEngine::getStats(int selector, int locators[], int numLocators,
 }
 
 
-void VoltDBEngine::setCurrentUndoQuantum(voltdb::UndoQuantum* undoQuantum)
-{
-    m_currentUndoQuantum = undoQuantum;
-    m_executorContext->setupForPlanFragments(m_currentUndoQuantum);
-}
-
-
 /*
  * Exists to transition pre-existing unit test cases.
  */
 ExecutorContext * VoltDBEngine::getExecutorContext() {
-    m_executorContext->setupForPlanFragments(m_currentUndoQuantum);
     return m_executorContext;
 }
 
@@ -1606,6 +1631,7 @@ void VoltDBEngine::updateHashinator(HashinatorType type, const char *config) {
         throwFatalException("Unknown hashinator type %d", type);
         break;
     }
+    m_executorContext->setHashinator(m_hashinator.get());
 }
 
 }
@@ -69,6 +69,7 @@
 #include "common/SerializableEEException.h"
 #include "common/Topend.h"
 #include "common/DefaultTupleSerializer.h"
+#include "common/executorcontext.hpp"
 #include "common/TupleOutputStream.h"
 #include "common/TheHashinator.h"
 #include "execution/FragmentManager.h"
@@ -107,7 +108,6 @@ class PersistentTable;
 class Table;
 class CatalogDelegate;
 class PlanNodeFragment;
-class ExecutorContext;
 class RecoveryProtoMsg;
 
 const int64_t DEFAULT_TEMP_TABLE_MEMORY = 1024 * 1024 * 100;
@@ -126,8 +126,10 @@ class __attribute__((visibility("default"))) VoltDBEngine {
 
         /** Constructor for test code: this does not enable JNI callbacks. */
         VoltDBEngine() :
-          m_currentUndoQuantum(NULL),
+          m_hasUndoToken(false),
+          m_currentUndoToken(0),
           m_hashinator(NULL),
+          m_lastCompactedTableId(-1),
           m_staticParams(MAX_PARAM_COUNT),
           m_currentOutputDepId(-1),
           m_currentInputDepId(-1),
@@ -230,8 +232,12 @@ class __attribute__((visibility("default"))) VoltDBEngine {
         // Non-transactional work methods
         // -------------------------------------------------
 
-        /** Perform once per second, non-transactional work. */
-        void tick(int64_t timeInMillis, int64_t lastCommittedSpHandle);
+        /**
+         * Perform once per second, non-transactional work. Up to
+         * compactionBudgetMicros of it is spent compacting fragmented tables.
+         */
+        void tick(int64_t timeInMillis, int64_t lastCommittedSpHandle,
+                  int64_t compactionBudgetMicros);
 
         /** flush active work (like EL buffers) */
         void quiesce(int64_t lastCommittedSpHandle);
@@ -302,29 +308,39 @@ class __attribute__((visibility("default"))) VoltDBEngine {
             return &m_logManager;
         }
 
+        /*
+         * Read only work passes INT64_MAX and registers no undo. The
+         * quantum for any other token is generated by the executor context
+         * when the first change is made under it.
+         */
         inline void setUndoToken(int64_t nextUndoToken) {
             if (nextUndoToken == INT64_MAX) { return; }
-            if (m_currentUndoQuantum != NULL) {
-                if (m_currentUndoQuantum->getUndoToken() == nextUndoToken) {
+            if (m_hasUndoToken) {
+                if (m_currentUndoToken == nextUndoToken) {
                     return;
                 }
-                assert(nextUndoToken > m_currentUndoQuantum->getUndoToken());
+                assert(nextUndoToken > m_currentUndoToken);
             }
-            setCurrentUndoQuantum(m_undoLog.generateUndoQuantum(nextUndoToken));
+            m_hasUndoToken = true;
+            m_currentUndoToken = nextUndoToken;
+            m_executorContext->setupForUndo(&m_undoLog, nextUndoToken);
         }
 
         inline void releaseUndoToken(int64_t undoToken) {
-            if (m_currentUndoQuantum != NULL && m_currentUndoQuantum->getUndoToken() == undoToken) {
-                m_currentUndoQuantum = NULL;
+            if (m_hasUndoToken && m_currentUndoToken <= undoToken) {
+                clearUndoToken();
             }
             m_undoLog.release(undoToken);
         }
         inline void undoUndoToken(int64_t undoToken) {
             m_undoLog.undo(undoToken);
-            m_currentUndoQuantum = NULL;
+            clearUndoToken();
         }
 
-        inline voltdb::UndoQuantum* getCurrentUndoQuantum() { return m_currentUndoQuantum; }
+        /** The quantum for the current undo token, generated if need be */
+        inline voltdb::UndoQuantum* getCurrentUndoQuantum() {
+            return m_executorContext->getCurrentUndoQuantum();
+        }
 
         inline Topend* getTopend() { return m_topend; }
 
@@ -392,7 +408,10 @@ class __attribute__((visibility("default"))) VoltDBEngine {
 
     private:
 
-        void setCurrentUndoQuantum(voltdb::UndoQuantum* undoQuantum);
+        inline void clearUndoToken() {
+            m_hasUndoToken = false;
+            m_executorContext->setupForUndo(NULL, 0);
+        }
 
         std::string getClusterNameFromTable(voltdb::Table *table);
         std::string getDatabaseNameFromTable(voltdb::Table *table);
@@ -412,6 +431,14 @@ class __attribute__((visibility("default"))) VoltDBEngine {
 
         bool hasSameSchema(catalog::Table *t1, voltdb::Table *t2);
 
+        /**
+         * Spend up to budgetMicros compacting persistent tables. Tables take
+         * turns across ticks, starting after the one compacted last. Nothing
+         * is moved while undo is outstanding, since undo actions refer to
+         * tuples by address.
+         */
+        void compactTables(int64_t budgetMicros);
+
         void printReport();
 
         /**
@@ -459,7 +486,8 @@ class __attribute__((visibility("default"))) VoltDBEngine {
         ExecutorVector *getExecutorVectorForFragmentId(const int64_t fragId);
 
         voltdb::UndoLog m_undoLog;
-        voltdb::UndoQuantum *m_currentUndoQuantum;
+        bool m_hasUndoToken;
+        int64_t m_currentUndoToken;
 
         // -------------------------------------------------
         // Data Members
@@ -480,6 +508,9 @@ class __attribute__((visibility("default"))) VoltDBEngine {
         // map catalog table id to table pointers
         std::map<CatalogId, Table*> m_tables;
 
+        // table the last tick's compaction stopped at
+        CatalogId m_lastCompactedTableId;
+
         // map catalog table name to table pointers
         std::map<std::string, Table*> m_tablesByName;
 
@@ -99,8 +99,8 @@ bool DeleteExecutor::p_execute(const NValueArray &params) {
         // count the truncated tuples as deleted
         modified_tuples = m_targetTable->activeTupleCount();
 
-        // actually delete all the tuples
-        m_targetTable->deleteAllTuples(true);
+        // drop all the tuples at once, undone as a whole
+        m_targetTable->truncateTable();
     }
     else
     {
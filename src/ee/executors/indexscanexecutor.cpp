@@ -182,6 +182,19 @@ bool IndexScanExecutor::p_init(AbstractPlanNode *abstractNode,
 
     m_tuple = TableTuple(m_targetTable->schema());
 
+    //
+    // INDEX ONLY
+    // When the output and predicates need only indexed columns and the
+    // index can reproduce them from its keys, skip reading the tuples.
+    //
+    m_indexOnly = m_node->isIndexOnly() && m_projectionNode != NULL &&
+        m_index->canCopyKeyToTuple();
+    if (m_indexOnly)
+    {
+        m_keyTupleStorage.init(m_targetTable->schema());
+        m_keyTuple = m_keyTupleStorage;
+    }
+
     if (m_node->getEndExpression() != NULL)
     {
         m_needsSubstituteEndExpression =
@@ -343,6 +356,12 @@ bool IndexScanExecutor::p_execute(const NValueArray &params)
     assert (m_index);
     assert (m_index == m_targetTable->index(m_node->getTargetIndexName()));
 
+    int limit = -1;
+    int offset = -1;
+    if (limit_node != NULL) {
+        limit_node->getLimitAndOffsetByReference(params, limit, offset);
+    }
+
     //
     // An index scan has three parts:
     //  (1) Lookup tuples using the search key
@@ -374,16 +393,21 @@ bool IndexScanExecutor::p_execute(const NValueArray &params)
         }
     } else {
         bool toStartActually = (localSortDirection != SORT_DIRECTION_TYPE_DESC);
-        m_index->moveToEnd(toStartActually);
+        if (offset > 0 && end_expression == NULL && post_expression == NULL &&
+            m_index->isCountableIndex())
+        {
+            // Every entry counts toward the offset, so the counts kept in
+            // the index can pass over them without visiting each one.
+            m_index->moveToRank(offset, toStartActually);
+            offset = 0;
+        }
+        else {
+            m_index->moveToEnd(toStartActually);
+        }
     }
 
     int tuple_ctr = 0;
     int tuples_skipped = 0;     // for offset
-    int limit = -1;
-    int offset = -1;
-    if (limit_node != NULL) {
-        limit_node->getLimitAndOffsetByReference(params, limit, offset);
-    }
 
     //
     // We have to different nextValue() methods for different lookup types
@@ -393,12 +417,17 @@ bool IndexScanExecutor::p_execute(const NValueArray &params)
              !(m_tuple = m_index->nextValueAtKey()).isNullTuple()) ||
            ((localLookupType != INDEX_LOOKUP_TYPE_EQ || activeNumOfSearchKeys == 0) &&
             !(m_tuple = m_index->nextValue()).isNullTuple()))) {
+        if (m_indexOnly)
+        {
+            m_index->copyLastKeyToTuple(m_keyTuple);
+            m_tuple = m_keyTuple;
+        }
         VOLT_TRACE("LOOPING in indexscan: tuple: '%s'\n", m_tuple.debug("tablename").c_str());
         //
         // First check whether the end_expression is now false
         //
         if (end_expression != NULL &&
-            end_expression->eval(&m_tuple, NULL).isFalse())
+            !end_expression->evalPredicate(&m_tuple, NULL))
         {
             VOLT_TRACE("End Expression evaluated to false, stopping scan");
             break;
@@ -407,7 +436,7 @@ bool IndexScanExecutor::p_execute(const NValueArray &params)
         // Then apply our post-predicate to do further filtering
         //
         if (post_expression == NULL ||
-            post_expression->eval(&m_tuple, NULL).isTrue())
+            post_expression->evalPredicate(&m_tuple, NULL))
         {
             //
             // INLINE OFFSET
@@ -72,6 +72,7 @@ public:
         : AbstractExecutor(engine, abstractNode), m_searchKeyBackingStore(NULL)
     {
         m_projectionExpressions = NULL;
+        m_indexOnly = false;
     }
     ~IndexScanExecutor();
 
@@ -112,6 +113,10 @@ private:
     TableTuple m_dummy;
     TableTuple m_tuple;
 
+    // Index-only scans evaluate against a copy of each index key
+    bool m_indexOnly;
+    TableTuple m_keyTuple;
+
     // arrange the memory mgmt aids at the bottom to try to maximize
     // cache hits (by keeping them out of the way of useful runtime data)
     boost::shared_array<bool> m_needsSubstituteSearchKeyPtr;
@@ -121,6 +126,7 @@ private:
         m_searchKeyBeforeSubstituteArrayPtr;
     // So Valgrind doesn't complain:
     char* m_searchKeyBackingStore;
+    StandAloneTupleStorage m_keyTupleStorage;
 };
 
 }
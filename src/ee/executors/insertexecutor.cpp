@@ -51,6 +51,7 @@
 #include "common/FatalException.hpp"
 #include "common/types.h"
 #include "plannodes/insertnode.h"
+#include "plannodes/upsertnode.h"
 #include "execution/VoltDBEngine.h"
 #include "storage/persistenttable.h"
 #include "storage/streamedtable.h"
@@ -59,12 +60,43 @@
 #include "storage/tableutil.h"
 #include "storage/temptable.h"
 #include "storage/ConstraintFailureException.h"
+#include "indexes/tableindex.h"
 
+#include <algorithm>
 #include <vector>
 
 using namespace std;
 using namespace voltdb;
 
+namespace {
+
+/**
+ * Orders the addresses of input rows by a list of their columns.
+ */
+class RowAddressLess {
+public:
+    RowAddressLess(const TupleSchema *schema, const vector<int> &columns)
+        : m_schema(schema), m_columns(columns) {}
+
+    bool operator()(char *lhs, char *rhs) const {
+        TableTuple left(lhs, m_schema);
+        TableTuple right(rhs, m_schema);
+        for (int ii = 0; ii < m_columns.size(); ii++) {
+            int cmp = left.getNValue(m_columns[ii]).compare(right.getNValue(m_columns[ii]));
+            if (cmp != 0) {
+                return cmp < 0;
+            }
+        }
+        return false;
+    }
+
+private:
+    const TupleSchema *m_schema;
+    const vector<int> &m_columns;
+};
+
+}
+
 bool InsertExecutor::p_init(AbstractPlanNode* abstractNode,
                             TempTableLimits* limits)
 {
@@ -102,6 +134,43 @@ bool InsertExecutor::p_init(AbstractPlanNode* abstractNode,
     }
 
     m_multiPartition = m_node->isMultiPartition();
+
+    // Rows of a batch go into a tree primary key in key order, so each
+    // insert walks down next to the last one instead of across the tree.
+    m_batchOrderColumns.clear();
+    if (persistentTarget) {
+        TableIndex *pkeyIndex = persistentTarget->primaryKeyIndex();
+        if (pkeyIndex && pkeyIndex->isOrderedIndex() && pkeyIndex->getIndexedExpressions().empty()) {
+            m_batchOrderColumns = pkeyIndex->getColumnIndices();
+        }
+    }
+
+    // An UPSERT finds the row to replace with a single probe of the primary
+    // key. The probe's key never changes, so only the other indexes on the
+    // overwritten columns can need updating.
+    m_isUpsert = (m_node->getPlanNodeType() == PLAN_NODE_TYPE_UPSERT);
+    m_upsertKeyIndex = NULL;
+    m_upsertColumns.clear();
+    m_upsertIndexes.clear();
+    if (m_isUpsert) {
+        assert(persistentTarget);
+        m_upsertKeyIndex = persistentTarget->primaryKeyIndex();
+        assert(m_upsertKeyIndex);
+        m_upsertColumns = static_cast<UpsertPlanNode*>(m_node)->getUpdateColumns();
+        vector<TableIndex*> indexes = persistentTarget->allIndexes();
+        for (vector<TableIndex*>::iterator iter = indexes.begin(); iter != indexes.end(); ++iter) {
+            if (*iter == m_upsertKeyIndex) {
+                continue;
+            }
+            const vector<int> &indexColumns = (*iter)->getColumnIndices();
+            for (int ii = 0; ii < indexColumns.size(); ii++) {
+                if (find(m_upsertColumns.begin(), m_upsertColumns.end(), indexColumns[ii]) != m_upsertColumns.end()) {
+                    m_upsertIndexes.push_back(*iter);
+                    break;
+                }
+            }
+        }
+    }
     return true;
 }
 
@@ -136,51 +205,27 @@ bool InsertExecutor::p_execute(const NValueArray &params) {
     // and insert any tuple that we find into our m_targetTable. It doesn't get any easier than that!
     //
     assert (m_tuple.sizeInValues() == m_inputTable->columnCount());
-    TableIterator iterator = m_inputTable->iterator();
-    while (iterator.next(m_tuple)) {
-        VOLT_TRACE("Inserting tuple '%s' into target table '%s' with table schema: %s",
-                   m_tuple.debug(m_targetTable->name()).c_str(), m_targetTable->name().c_str(),
-                   m_targetTable->schema()->debug().c_str());
-
-        // if there is a partition column for the target table
-        if (m_partitionColumn != -1) {
-
-            // get the value for the partition column
-            NValue value = m_tuple.getNValue(m_partitionColumn);
-            bool isLocal = m_engine->isLocalSite(value);
-
-            // if it doesn't map to this site
-            if (!isLocal) {
-                if (!m_multiPartition) {
-                    throw ConstraintFailureException(
-                            dynamic_cast<PersistentTable*>(m_targetTable),
-                            m_tuple,
-                            "Mispartitioned tuple in single-partition insert statement.");
-                }
-
-                // don't insert
-                continue;
+    if (m_isStreamed || m_inputTable->activeTupleCount() == 1) {
+        TableIterator iterator = m_inputTable->iterator();
+        while (iterator.next(m_tuple)) {
+            if (!insertRow(m_tuple, modifiedTuples)) {
+                return false;
             }
         }
-
-        // for multi partition export tables,
-        //  only insert them into one place (the partition with hash(0))
-        if (m_isStreamed && m_multiPartition) {
-            bool isLocal = m_engine->isLocalSite(ValueFactory::getBigIntValue(0));
-            if (!isLocal) continue;
-        }
-
-        // try to put the tuple into the target table
-        if (!m_targetTable->insertTuple(m_tuple)) {
-            VOLT_ERROR("Failed to insert tuple from input table '%s' into"
-                       " target table '%s'",
-                       m_inputTable->name().c_str(),
-                       m_targetTable->name().c_str());
-            return false;
+    }
+    else {
+        // A batch from a multi-row VALUES list or a SELECT. Grow the
+        // indexes once for all of it, then insert in primary key order.
+        // The batch holds addresses into this run's input table, so it
+        // must not outlive the run, even when an insert throws.
+        vector<char*> batch;
+        orderBatch(batch);
+        for (vector<char*>::iterator iter = batch.begin(); iter != batch.end(); ++iter) {
+            m_tuple.move(*iter);
+            if (!insertRow(m_tuple, modifiedTuples)) {
+                return false;
+            }
         }
-
-        // successfully inserted
-        modifiedTuples++;
     }
 
     TableTuple& count_tuple = outputTable->tempTuple();
@@ -199,3 +244,116 @@ bool InsertExecutor::p_execute(const NValueArray &params) {
     VOLT_DEBUG("Finished inserting tuple");
     return true;
 }
+
+/*
+ * Collect the input rows into batch, sorted by the primary key when
+ * that helps, and make room in the target's indexes for those that
+ * this site will keep.
+ */
+void InsertExecutor::orderBatch(vector<char*> &batch) {
+    PersistentTable *persistentTarget = static_cast<PersistentTable*>(m_targetTable);
+    int64_t batchSize = m_inputTable->activeTupleCount();
+
+    batch.reserve(batchSize);
+    TableIterator iterator = m_inputTable->iterator();
+    while (iterator.next(m_tuple)) {
+        batch.push_back(m_tuple.address());
+    }
+    if (!m_batchOrderColumns.empty()) {
+        std::sort(batch.begin(), batch.end(),
+                  RowAddressLess(m_inputTable->schema(), m_batchOrderColumns));
+    }
+
+    // a multi-partition insert into a partitioned table keeps only its
+    // share of the rows, so there is no telling how many to make room for
+    if (!m_multiPartition || m_partitionColumn == -1) {
+        uint32_t capacity = static_cast<uint32_t>(persistentTarget->activeTupleCount() + batchSize);
+        vector<TableIndex*> indexes = persistentTarget->allIndexes();
+        for (vector<TableIndex*>::iterator iter = indexes.begin(); iter != indexes.end(); ++iter) {
+            (*iter)->ensureCapacity(capacity);
+        }
+    }
+}
+
+/*
+ * Insert one input row into the target table, counting it if it belongs
+ * here. Returns false if the target table rejected it.
+ */
+bool InsertExecutor::insertRow(TableTuple &tuple, int &modifiedTuples) {
+    VOLT_TRACE("Inserting tuple '%s' into target table '%s' with table schema: %s",
+               tuple.debug(m_targetTable->name()).c_str(), m_targetTable->name().c_str(),
+               m_targetTable->schema()->debug().c_str());
+
+    // if there is a partition column for the target table
+    if (m_partitionColumn != -1) {
+
+        // get the value for the partition column
+        NValue value = tuple.getNValue(m_partitionColumn);
+        bool isLocal = m_engine->isLocalSite(value);
+
+        // if it doesn't map to this site
+        if (!isLocal) {
+            if (!m_multiPartition) {
+                throw ConstraintFailureException(
+                        dynamic_cast<PersistentTable*>(m_targetTable),
+                        tuple,
+                        "Mispartitioned tuple in single-partition insert statement.");
+            }
+
+            // don't insert
+            return true;
+        }
+    }
+
+    // for multi partition export tables,
+    //  only insert them into one place (the partition with hash(0))
+    if (m_isStreamed && m_multiPartition) {
+        bool isLocal = m_engine->isLocalSite(ValueFactory::getBigIntValue(0));
+        if (!isLocal) return true;
+    }
+
+    if (m_isUpsert) {
+        TableTuple existing = m_upsertKeyIndex->uniqueMatchingTuple(tuple);
+        if (!existing.isNullTuple()) {
+            if (!updateRow(existing, tuple)) {
+                return false;
+            }
+            modifiedTuples++;
+            return true;
+        }
+    }
+
+    // try to put the tuple into the target table
+    if (!m_targetTable->insertTuple(tuple)) {
+        VOLT_ERROR("Failed to insert tuple from input table '%s' into"
+                   " target table '%s'",
+                   m_inputTable->name().c_str(),
+                   m_targetTable->name().c_str());
+        return false;
+    }
+
+    // successfully inserted
+    modifiedTuples++;
+    return true;
+}
+
+/*
+ * Overwrite the UPSERT's columns of the row with the same primary key as
+ * the input row. The row is rewritten where it is, so index entries on
+ * unchanged keys stay as they are.
+ */
+bool InsertExecutor::updateRow(TableTuple &existing, TableTuple &tuple) {
+    PersistentTable *persistentTarget = static_cast<PersistentTable*>(m_targetTable);
+    TableTuple &tempTuple = persistentTarget->getTempTupleInlined(existing);
+    for (int ii = 0; ii < m_upsertColumns.size(); ii++) {
+        tempTuple.setNValue(m_upsertColumns[ii], tuple.getNValue(m_upsertColumns[ii]));
+    }
+    if (!persistentTarget->updateTupleWithSpecificIndexes(existing, tempTuple, m_upsertIndexes)) {
+        VOLT_ERROR("Failed to update tuple from input table '%s' in"
+                   " target table '%s'",
+                   m_inputTable->name().c_str(),
+                   m_targetTable->name().c_str());
+        return false;
+    }
+    return true;
+}
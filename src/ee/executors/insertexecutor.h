@@ -51,9 +51,12 @@
 #include "common/tabletuple.h"
 #include "executors/abstractexecutor.h"
 
+#include <vector>
+
 namespace voltdb {
 
 class InsertPlanNode;
+class TableIndex;
 class TempTable;
 
 /**
@@ -80,6 +83,10 @@ public:
 
         virtual bool needsOutputTableClear() { return true; };
 
+        bool insertRow(TableTuple &tuple, int &modifiedTuples);
+        bool updateRow(TableTuple &existing, TableTuple &tuple);
+        void orderBatch(std::vector<char*> &batch);
+
         InsertPlanNode* m_node;
 
         TempTable* m_inputTable;
@@ -91,6 +98,17 @@ public:
         bool m_multiPartition;
         bool m_isStreamed;
 
+        // the target's primary key columns, when its primary key index is
+        // ordered and a batch of rows is best inserted in that order
+        std::vector<int> m_batchOrderColumns;
+
+        // an UPSERT updates the row its primary key finds, if any
+        bool m_isUpsert;
+        TableIndex* m_upsertKeyIndex;
+        // the target columns an UPSERT overwrites and the indexes on them
+        std::vector<int> m_upsertColumns;
+        std::vector<TableIndex*> m_upsertIndexes;
+
         /** reference to the engine/context to store the number of modified tuples */
         VoltDBEngine* m_engine;
 };
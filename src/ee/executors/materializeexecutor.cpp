@@ -128,10 +128,8 @@ bool MaterializeExecutor::p_execute(const NValueArray &params) {
         }
     }
 
-    // For now a MaterializePlanNode can make at most one new tuple We
-    // should think about whether we would ever want to materialize
-    // more than one tuple and whether such a thing is possible with
-    // the AbstractExpression scheme
+    // The first tuple comes from the output columns' expressions, any
+    // others from the node's additional rows.
     TableTuple &temp_tuple = output_table->tempTuple();
     if (all_param_array != NULL) {
         VOLT_TRACE("sweet, all params\n");
@@ -151,6 +149,19 @@ bool MaterializeExecutor::p_execute(const NValueArray &params) {
     // Add tuple to the output
     output_table->insertTupleNonVirtual(temp_tuple);
 
+    // the remaining rows of a multi-row VALUES list
+    const std::vector<std::vector<AbstractExpression*> > &additionalRows = node->getAdditionalRows();
+    for (int row = 0; row < additionalRows.size(); row++) {
+        assert(additionalRows[row].size() == m_columnCount);
+        TableTuple dummy;
+        for (int ctr = m_columnCount - 1; ctr >= 0; --ctr) {
+            AbstractExpression *expr = additionalRows[row][ctr];
+            expr->substitute(params);
+            temp_tuple.setNValue(ctr, expr->eval(&dummy, NULL));
+        }
+        output_table->insertTupleNonVirtual(temp_tuple);
+    }
+
     return true;
 }
 
@@ -269,7 +269,7 @@ bool NestLoopExecutor::p_execute(const NValueArray &params) {
         // For outer joins if outer tuple fails pre-join predicate
         // (join expression based on the outer table only)
         // it can't match any of inner tuples
-        if (preJoinPredicate == NULL || preJoinPredicate->eval(&outer_tuple, NULL).isTrue()) {
+        if (preJoinPredicate == NULL || preJoinPredicate->evalPredicate(&outer_tuple, NULL)) {
 
             // populate output table's temp tuple with outer table's values
             // probably have to do this at least once - avoid doing it many
@@ -280,10 +280,10 @@ bool NestLoopExecutor::p_execute(const NValueArray &params) {
             while (iterator1.next(inner_tuple)) {
                 // Apply join filter to produce matches for each outer that has them,
                 // then pad unmatched outers, then filter them all
-                if (joinPredicate == NULL || joinPredicate->eval(&outer_tuple, &inner_tuple).isTrue()) {
+                if (joinPredicate == NULL || joinPredicate->evalPredicate(&outer_tuple, &inner_tuple)) {
                     match = true;
                     // Filter the joined tuple
-                    if (wherePredicate == NULL || wherePredicate->eval(&outer_tuple, &inner_tuple).isTrue()) {
+                    if (wherePredicate == NULL || wherePredicate->evalPredicate(&outer_tuple, &inner_tuple)) {
                         // Matched! Complete the joined tuple with the inner column values.
                         joined.setNValues(outer_cols, inner_tuple, 0, inner_cols);
                         output_table->insertTupleNonVirtual(joined);
@@ -296,7 +296,7 @@ bool NestLoopExecutor::p_execute(const NValueArray &params) {
         //
         if (join_type == JOIN_TYPE_LEFT && !match) {
             // Still needs to pass the filter
-            if (wherePredicate == NULL || wherePredicate->eval(&outer_tuple, &null_tuple).isTrue()) {
+            if (wherePredicate == NULL || wherePredicate->evalPredicate(&outer_tuple, &null_tuple)) {
                 joined.setNValues(outer_cols, null_tuple, 0, inner_cols);
                 output_table->insertTupleNonVirtual(joined);
             }
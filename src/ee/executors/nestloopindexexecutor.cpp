@@ -247,6 +247,12 @@ bool NestLoopIndexExecutor::p_init(AbstractPlanNode* abstractNode,
         m_null_tuple.init(inner_out_table->schema());
     }
 
+    // The inner columns all come from the index keys
+    m_index_only = inline_node->isIndexOnly() && index->canCopyKeyToTuple();
+    if (m_index_only) {
+        m_index_key_tuple.init(inner_table->schema());
+    }
+
     index_values = TableTuple(index->getKeySchema());
     index_values_backing_store = new char[index->getKeySchema()->tupleLength()];
     index_values.move( index_values_backing_store - TUPLE_HEADER_SIZE);
@@ -376,7 +382,7 @@ bool NestLoopIndexExecutor::p_execute(const NValueArray &params)
         // For outer joins if outer tuple fails pre-join predicate
         // (join expression based on the outer table only)
         // it can't match any of inner tuples
-        if (prejoin_expression == NULL || prejoin_expression->eval(&outer_tuple, NULL).isTrue()) {
+        if (prejoin_expression == NULL || prejoin_expression->evalPredicate(&outer_tuple, NULL)) {
 
             int activeNumOfSearchKeys = num_of_searchkeys;
             VOLT_TRACE ("<Nested Loop Index exec, WHILE-LOOP...> Number of searchKeys: %d \n", num_of_searchkeys);
@@ -511,6 +517,10 @@ bool NestLoopIndexExecutor::p_execute(const NValueArray &params)
                        ((localLookupType != INDEX_LOOKUP_TYPE_EQ || num_of_searchkeys == 0) &&
                         !(inner_tuple = index->nextValue()).isNullTuple()))
                 {
+                    if (m_index_only) {
+                        inner_tuple = m_index_key_tuple;
+                        index->copyLastKeyToTuple(inner_tuple);
+                    }
                     VOLT_TRACE("inner_tuple:%s",
                                inner_tuple.debug(inner_table->name()).c_str());
 
@@ -518,7 +528,7 @@ bool NestLoopIndexExecutor::p_execute(const NValueArray &params)
                     // First check whether the end_expression is now false
                     //
                     if (end_expression != NULL &&
-                        end_expression->eval(&outer_tuple, &inner_tuple).isFalse())
+                        !end_expression->evalPredicate(&outer_tuple, &inner_tuple))
                     {
                         VOLT_TRACE("End Expression evaluated to false, stopping scan");
                         break;
@@ -527,11 +537,11 @@ bool NestLoopIndexExecutor::p_execute(const NValueArray &params)
                     // Then apply our post-predicate to do further filtering
                     //
                     if (post_expression == NULL ||
-                        post_expression->eval(&outer_tuple, &inner_tuple).isTrue())
+                        post_expression->evalPredicate(&outer_tuple, &inner_tuple))
                     {
                         match = true;
                         // Still need to pass where filtering
-                        if (where_expression == NULL || where_expression->eval(&outer_tuple, &inner_tuple).isTrue()) {
+                        if (where_expression == NULL || where_expression->evalPredicate(&outer_tuple, &inner_tuple)) {
                             //
                             // Try to put the tuple into our output table
                             // Append the inner values to the end of our join tuple
@@ -561,7 +571,7 @@ bool NestLoopIndexExecutor::p_execute(const NValueArray &params)
         // Left Outer Join
         //
         if (join_type == JOIN_TYPE_LEFT && !match ) {
-            if (where_expression == NULL || where_expression->eval(&outer_tuple, &null_tuple).isTrue()) {
+            if (where_expression == NULL || where_expression->evalPredicate(&outer_tuple, &null_tuple)) {
                 join_tuple.setNValues(num_of_outer_cols, m_null_tuple, 0, num_of_inner_cols);
                 output_table->insertTupleNonVirtual(join_tuple);
             }
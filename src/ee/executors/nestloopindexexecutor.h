@@ -84,6 +84,7 @@ public:
         index = NULL;
         outer_table = NULL;
         m_lookupType = INDEX_LOOKUP_TYPE_INVALID;
+        m_index_only = false;
     }
 
     ~NestLoopIndexExecutor();
@@ -105,6 +106,9 @@ protected:
     std::vector<AbstractExpression*> m_outputExpressions;
     SortDirectionType m_sortDirection;
     StandAloneTupleStorage m_null_tuple;
+    // inner tuple stand-in for index-only scans
+    StandAloneTupleStorage m_index_key_tuple;
+    bool m_index_only;
 
     //So valgrind doesn't report the data as lost.
     char *index_values_backing_store;
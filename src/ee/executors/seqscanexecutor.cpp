@@ -60,6 +60,9 @@
 
 using namespace voltdb;
 
+// tuples taken from the table and filtered at a time
+static const int SCAN_BATCH_SIZE = 1024;
+
 bool SeqScanExecutor::p_init(AbstractPlanNode* abstract_node,
                              TempTableLimits* limits)
 {
@@ -176,18 +179,41 @@ bool SeqScanExecutor::p_execute(const NValueArray &params) {
             limit_node->getLimitAndOffsetByReference(params, limit, offset);
         }
 
+        //
+        // Work through the table a block of tuples at a time. The predicate
+        // is applied to the whole batch first, leaving the positions of the
+        // tuples that pass in a selection vector, and only those are then
+        // projected and inserted into the output table.
+        //
+        char *batch[SCAN_BATCH_SIZE];
+        int selected[SCAN_BATCH_SIZE];
         int tuple_ctr = 0;
         int tuple_skipped = 0;
-        while ((limit == -1 || tuple_ctr < limit) && iterator.next(tuple))
+        int batch_size;
+        while ((limit == -1 || tuple_ctr < limit) &&
+               (batch_size = iterator.nextBatch(batch, SCAN_BATCH_SIZE)) > 0)
         {
-            VOLT_TRACE("INPUT TUPLE: %s, %d/%d\n",
-                       tuple.debug(target_table->name()).c_str(), tuple_ctr,
-                       (int)target_table->activeTupleCount());
-            //
-            // For each tuple we need to evaluate it against our predicate
-            //
-            if (predicate == NULL || predicate->eval(&tuple, NULL).isTrue())
+            int selected_count = 0;
+            if (predicate == NULL) {
+                for (int ii = 0; ii < batch_size; ii++) {
+                    selected[ii] = ii;
+                }
+                selected_count = batch_size;
+            } else {
+                for (int ii = 0; ii < batch_size; ii++) {
+                    tuple.move(batch[ii]);
+                    // no branch on the outcome, a failing tuple's slot is overwritten
+                    selected[selected_count] = ii;
+                    selected_count += predicate->evalPredicate(&tuple, NULL);
+                }
+            }
+
+            for (int ii = 0; ii < selected_count && (limit == -1 || tuple_ctr < limit); ii++)
             {
+                tuple.move(batch[selected[ii]]);
+                VOLT_TRACE("INPUT TUPLE: %s, %d/%d\n",
+                           tuple.debug(target_table->name()).c_str(), tuple_ctr,
+                           (int)target_table->activeTupleCount());
                 // Check if we have to skip this tuple because of offset
                 if (tuple_skipped < offset) {
                     tuple_skipped++;
@@ -46,6 +46,7 @@
 #include "abstractexpression.h"
 
 #include "common/debuglog.h"
+#include "common/NValue.hpp"
 #include "common/serializeio.h"
 #include "common/types.h"
 #include "expressions/expressionutil.h"
@@ -106,6 +107,12 @@ AbstractExpression::substitute(const NValueArray &params)
     }
 }
 
+bool
+AbstractExpression::evalPredicate(const TableTuple *tuple1, const TableTuple *tuple2) const
+{
+    return eval(tuple1, tuple2).isTrue();
+}
+
 bool
 AbstractExpression::hasParameter() const
 {
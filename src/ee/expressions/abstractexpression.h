@@ -76,6 +76,10 @@ class AbstractExpression {
 
     virtual NValue eval(const TableTuple *tuple1 = NULL, const TableTuple *tuple2 = NULL) const = 0;
 
+    /** evaluate as a predicate. Comparisons and conjunctions answer
+        without building boolean NValues along the way */
+    virtual bool evalPredicate(const TableTuple *tuple1 = NULL, const TableTuple *tuple2 = NULL) const;
+
     /** set parameter values for this node and its descendents */
     virtual void substitute(const NValueArray &params);
 
@@ -63,35 +63,43 @@ namespace voltdb {
 class CmpEq {
 public:
     inline NValue cmp(NValue l, NValue r) const { return l.op_equals(r);}
+    inline bool test(const NValue &l, const NValue &r) const { return l.compare(r) == 0;}
 };
 class CmpNe {
 public:
     inline NValue cmp(NValue l, NValue r) const { return l.op_notEquals(r);}
+    inline bool test(const NValue &l, const NValue &r) const { return l.compare(r) != 0;}
 };
 class CmpLt {
 public:
     inline NValue cmp(NValue l, NValue r) const { return l.op_lessThan(r);}
+    inline bool test(const NValue &l, const NValue &r) const { return l.compare(r) < 0;}
 };
 class CmpGt {
 public:
     inline NValue cmp(NValue l, NValue r) const { return l.op_greaterThan(r);}
+    inline bool test(const NValue &l, const NValue &r) const { return l.compare(r) > 0;}
 };
 class CmpLte {
 public:
     inline NValue cmp(NValue l, NValue r) const { return l.op_lessThanOrEqual(r);}
+    inline bool test(const NValue &l, const NValue &r) const { return l.compare(r) <= 0;}
 };
 class CmpGte {
 public:
     inline NValue cmp(NValue l, NValue r) const { return l.op_greaterThanOrEqual(r);}
+    inline bool test(const NValue &l, const NValue &r) const { return l.compare(r) >= 0;}
 };
 class CmpLike {
 public:
     inline NValue cmp(NValue l, NValue r) const { return l.like(r);}
+    inline bool test(const NValue &l, const NValue &r) const { return l.like(r).isTrue();}
 };
 class CmpIn {
 public:
     inline NValue cmp(NValue l, NValue r) const
     { return l.inList(r) ? NValue::getTrue() : NValue::getFalse(); }
+    inline bool test(const NValue &l, const NValue &r) const { return l.inList(r);}
 };
 
 template <typename C>
@@ -122,6 +130,12 @@ public:
             this->m_right->eval(tuple1, tuple2));
     }
 
+    bool evalPredicate(const TableTuple *tuple1, const TableTuple *tuple2) const {
+        return this->compare.test(
+            this->m_left->eval(tuple1, tuple2),
+            this->m_right->eval(tuple1, tuple2));
+    }
+
     std::string debugInfo(const std::string &spacer) const {
         return (spacer + "ComparisonExpression\n");
     }
@@ -132,6 +146,11 @@ private:
     C compare;
 };
 
+/*
+ * A comparison of columns, constants and parameters, the common shapes of
+ * scan predicates. The operands' concrete types are known, so their evals
+ * are called directly and inlined rather than dispatched.
+ */
 template <typename C, typename L, typename R>
 class InlinedComparisonExpression : public AbstractExpression {
 public:
@@ -140,9 +159,7 @@ public:
                                          AbstractExpression *right)
         : AbstractExpression(type, left, right)
     {
-        this->m_left = left;
         this->m_leftTyped = dynamic_cast<L*>(left);
-        this->m_right = right;
         this->m_rightTyped = dynamic_cast<R*>(right);
 
         assert (m_leftTyped != NULL);
@@ -151,8 +168,14 @@ public:
 
     inline NValue eval(const TableTuple *tuple1, const TableTuple *tuple2 ) const {
         return this->compare.cmp(
-            this->m_left->eval(tuple1, tuple2),
-            this->m_right->eval(tuple1, tuple2));
+            this->m_leftTyped->L::eval(tuple1, tuple2),
+            this->m_rightTyped->R::eval(tuple1, tuple2));
+    }
+
+    inline bool evalPredicate(const TableTuple *tuple1, const TableTuple *tuple2) const {
+        return this->compare.test(
+            this->m_leftTyped->L::eval(tuple1, tuple2),
+            this->m_rightTyped->R::eval(tuple1, tuple2));
     }
 
     std::string debugInfo(const std::string &spacer) const {
@@ -165,5 +188,90 @@ public:
     C compare;
 };
 
+/*
+ * An equality or inequality of a string column with a constant or
+ * parameter. When the column is dictionary encoded the operand is looked
+ * up in the column's dictionary once and each row compares its entry
+ * pointer with the one found instead of comparing string bytes. The
+ * remembered lookup is keyed by the dictionary's version, which no other
+ * dictionary ever reports, and is dropped when the dictionary changes and
+ * when parameters are substituted.
+ */
+template <typename R>
+class DictionaryEqualityExpression : public AbstractExpression {
+public:
+    DictionaryEqualityExpression(ExpressionType type,
+                                 AbstractExpression *left,
+                                 AbstractExpression *right)
+        : AbstractExpression(type, left, right),
+          m_negate(type == EXPRESSION_TYPE_COMPARE_NOTEQUAL),
+          m_version(0), m_entry(NULL)
+    {
+        this->m_leftTyped = dynamic_cast<TupleValueExpression*>(left);
+        this->m_rightTyped = dynamic_cast<R*>(right);
+
+        assert (m_leftTyped != NULL);
+        assert (m_rightTyped != NULL);
+    };
+
+    inline NValue eval(const TableTuple *tuple1, const TableTuple *tuple2 ) const {
+        const NValue left = this->m_leftTyped->TupleValueExpression::eval(tuple1, tuple2);
+        const NValue right = this->m_rightTyped->R::eval(tuple1, tuple2);
+        return m_negate ? left.op_notEquals(right) : left.op_equals(right);
+    }
+
+    inline bool evalPredicate(const TableTuple *tuple1, const TableTuple *tuple2) const {
+        const NValue left = this->m_leftTyped->TupleValueExpression::eval(tuple1, tuple2);
+        const StringRef *entry = left.getDictionaryEntry();
+        if (entry != NULL) {
+            const StringDictionary *dictionary = StringDictionary::getDictionary(entry);
+            if (dictionary->getVersion() == m_version ||
+                lookupRight(dictionary, tuple1, tuple2)) {
+                // a string the dictionary lacks, or NULL, matches no entry
+                return (entry == m_entry) != m_negate;
+            }
+        }
+        const NValue right = this->m_rightTyped->R::eval(tuple1, tuple2);
+        return (left.compare(right) == 0) != m_negate;
+    }
+
+    void substitute(const NValueArray &params) {
+        // no dictionary has version 0
+        m_version = 0;
+        AbstractExpression::substitute(params);
+    }
+
+    std::string debugInfo(const std::string &spacer) const {
+        return (spacer + "DictionaryEqualityExpression\n");
+    }
+
+  private:
+    /*
+     * Find the right operand in the dictionary. Returns false when the
+     * operand is not a string and has to be compared by value.
+     */
+    bool lookupRight(const StringDictionary *dictionary,
+                     const TableTuple *tuple1, const TableTuple *tuple2) const {
+        const NValue right = this->m_rightTyped->R::eval(tuple1, tuple2);
+        if (ValuePeeker::peekValueType(right) != VALUE_TYPE_VARCHAR) {
+            return false;
+        }
+        m_entry = NULL;
+        if ( ! right.isNull()) {
+            m_entry = dictionary->find(static_cast<const char*>(ValuePeeker::peekObjectValue(right)),
+                                       ValuePeeker::peekObjectLength(right));
+        }
+        m_version = dictionary->getVersion();
+        return true;
+    }
+
+    TupleValueExpression *m_leftTyped;
+    R *m_rightTyped;
+    const bool m_negate;
+    // the remembered lookup of the right operand
+    mutable int64_t m_version;
+    mutable const StringRef *m_entry;
+};
+
 }
 #endif
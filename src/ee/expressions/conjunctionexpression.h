@@ -72,7 +72,11 @@ class ConjunctionExpression : public AbstractExpression
         this->m_right = right;
     }
 
-    NValue eval(const TableTuple *tuple1, const TableTuple *tuple2) const;
+    NValue eval(const TableTuple *tuple1, const TableTuple *tuple2) const {
+        return evalPredicate(tuple1, tuple2) ? NValue::getTrue() : NValue::getFalse();
+    }
+
+    bool evalPredicate(const TableTuple *tuple1, const TableTuple *tuple2) const;
 
     std::string debugInfo(const std::string &spacer) const {
         return (spacer + "ConjunctionExpression\n");
@@ -82,18 +86,20 @@ class ConjunctionExpression : public AbstractExpression
     AbstractExpression *m_right;
 };
 
-template<> inline NValue
-ConjunctionExpression<ConjunctionAnd>::eval(const TableTuple *tuple1,
-                                            const TableTuple *tuple2) const
+// Both short circuit, the right side is only evaluated when it decides
+// the result.
+template<> inline bool
+ConjunctionExpression<ConjunctionAnd>::evalPredicate(const TableTuple *tuple1,
+                                                     const TableTuple *tuple2) const
 {
-    return m_left->eval(tuple1, tuple2).op_and(m_right->eval(tuple1, tuple2));
+    return m_left->evalPredicate(tuple1, tuple2) && m_right->evalPredicate(tuple1, tuple2);
 }
 
-template<> inline NValue
-ConjunctionExpression<ConjunctionOr>::eval(const TableTuple *tuple1,
-                                           const TableTuple *tuple2) const
+template<> inline bool
+ConjunctionExpression<ConjunctionOr>::evalPredicate(const TableTuple *tuple1,
+                                                    const TableTuple *tuple2) const
 {
-    return m_left->eval(tuple1, tuple2).op_or(m_right->eval(tuple1, tuple2));
+    return m_left->evalPredicate(tuple1, tuple2) || m_right->evalPredicate(tuple1, tuple2);
 }
 
 }
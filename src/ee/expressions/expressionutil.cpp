@@ -143,6 +143,15 @@ getMoreSpecialized(ExpressionType c, L* l, R* r)
     }
 }
 
+/** is the comparison a string equality of a column, which can compare
+ *  the entries of a dictionary encoded column? */
+static bool
+isStringEquality(ExpressionType c, const TupleValueExpression* tuple)
+{
+    return (c == EXPRESSION_TYPE_COMPARE_EQUAL || c == EXPRESSION_TYPE_COMPARE_NOTEQUAL) &&
+        tuple->getValueType() == VALUE_TYPE_VARCHAR;
+}
+
 /** convert the enumerated value type into a concrete c type for the
  * comparison helper templates. */
 AbstractExpression *
@@ -170,15 +179,38 @@ ExpressionUtil::comparisonFactory(ExpressionType et, AbstractExpression *lc, Abs
     TupleValueExpression *r_tuple =
       dynamic_cast<TupleValueExpression*>(rc);
 
+    ParameterValueExpression *l_param =
+      dynamic_cast<ParameterValueExpression*>(lc);
+
+    ParameterValueExpression *r_param =
+      dynamic_cast<ParameterValueExpression*>(rc);
+
     // this will inline getValue(), hooray!
     if (l_const != NULL && r_const != NULL) { // CONST-CONST can it happen?
         return getMoreSpecialized<ConstantValueExpression, ConstantValueExpression>(et, l_const, r_const);
     } else if (l_const != NULL && r_tuple != NULL) { // CONST-TUPLE
+        if (isStringEquality(et, r_tuple)) {
+            // symmetric, so the column can go on the left
+            return new DictionaryEqualityExpression<ConstantValueExpression>(et, r_tuple, l_const);
+        }
         return getMoreSpecialized<ConstantValueExpression, TupleValueExpression>(et, l_const, r_tuple);
     } else if (l_tuple != NULL && r_const != NULL) { // TUPLE-CONST
+        if (isStringEquality(et, l_tuple)) {
+            return new DictionaryEqualityExpression<ConstantValueExpression>(et, l_tuple, r_const);
+        }
         return getMoreSpecialized<TupleValueExpression, ConstantValueExpression >(et, l_tuple, r_const);
     } else if (l_tuple != NULL && r_tuple != NULL) { // TUPLE-TUPLE
         return getMoreSpecialized<TupleValueExpression, TupleValueExpression>(et, l_tuple, r_tuple);
+    } else if (l_tuple != NULL && r_param != NULL) { // TUPLE-PARAM
+        if (isStringEquality(et, l_tuple)) {
+            return new DictionaryEqualityExpression<ParameterValueExpression>(et, l_tuple, r_param);
+        }
+        return getMoreSpecialized<TupleValueExpression, ParameterValueExpression>(et, l_tuple, r_param);
+    } else if (l_param != NULL && r_tuple != NULL) { // PARAM-TUPLE
+        if (isStringEquality(et, r_tuple)) {
+            return new DictionaryEqualityExpression<ParameterValueExpression>(et, r_tuple, l_param);
+        }
+        return getMoreSpecialized<ParameterValueExpression, TupleValueExpression>(et, l_param, r_tuple);
     }
 
     //okay, still getTypedValue is beneficial.
@@ -461,6 +493,9 @@ ExpressionUtil::expressionFactory(PlannerDomValue obj,
     case (EXPRESSION_TYPE_HASH_RANGE):
         ret = hashRangeFactory(obj);
         break;
+    case (EXPRESSION_TYPE_PARTITION_SLICE):
+        ret = new PartitionSliceExpression(obj.valueForKey("HASH_COLUMN").asInt());
+        break;
         // must handle all known expressions in this factory
     default:
 
@@ -16,7 +16,9 @@
  */
 
 #include "expressions/abstractexpression.h"
+#include "expressions/constantvalueexpression.h"
 #include "expressions/expressionutil.h"
+#include "expressions/parametervalueexpression.h"
 #include "common/ValueFactory.hpp"
 
 namespace voltdb {
@@ -30,9 +32,20 @@ namespace voltdb {
 class InListBuilderExpression : public AbstractExpression {
 public:
     InListBuilderExpression(ValueType elementType, const std::vector<AbstractExpression *>& arguments)
-        : AbstractExpression(EXPRESSION_TYPE_INLISTBUILDER), m_args(arguments)
+        : AbstractExpression(EXPRESSION_TYPE_INLISTBUILDER), m_args(arguments), m_fixedList(true)
     {
         m_inList = ValueFactory::getArrayValueFromSizeAndType(arguments.size(), elementType);
+        // A list of constants and parameters is the same for every tuple, build it
+        // now and again whenever the parameters are substituted, not on every eval.
+        for (size_t i = 0; i < m_args.size(); i++) {
+            if (dynamic_cast<ConstantValueExpression*>(m_args[i]) == NULL &&
+                dynamic_cast<ParameterValueExpression*>(m_args[i]) == NULL) {
+                m_fixedList = false;
+            }
+        }
+        if (m_fixedList) {
+            buildList(NULL, NULL);
+        }
     }
 
     virtual ~InListBuilderExpression()
@@ -67,9 +80,26 @@ public:
             VOLT_TRACE("Substituting parameters for arg at index %d...", static_cast<int>(i));
             m_args[i]->substitute(params);
         }
+        if (m_fixedList) {
+            buildList(NULL, NULL);
+        }
     }
 
     NValue eval(const TableTuple *tuple1, const TableTuple *tuple2) const
+    {
+        if (m_fixedList) {
+            return m_inList;
+        }
+        return buildList(tuple1, tuple2);
+    }
+
+    std::string debugInfo(const std::string &spacer) const
+    {
+        return spacer + "InListBuilderExpression\n";
+    }
+
+private:
+    NValue buildList(const TableTuple *tuple1, const TableTuple *tuple2) const
     {
         //TODO: Could make this vector a member, if the memory management implications
         // (of the NValue internal state) were clear -- is there a penalty for longer-lived
@@ -82,14 +112,9 @@ public:
         return m_inList;
     }
 
-    std::string debugInfo(const std::string &spacer) const
-    {
-        return spacer + "InListBuilderExpression\n";
-    }
-
-private:
     const std::vector<AbstractExpression *>& m_args;
     NValue m_inList;
+    bool m_fixedList;
 };
 
 AbstractExpression*
@@ -62,14 +62,15 @@ class ParameterValueExpression : public AbstractExpression {
 public:
 
     ParameterValueExpression(int value_idx)
-        : AbstractExpression(EXPRESSION_TYPE_VALUE_PARAMETER)
+        : AbstractExpression(EXPRESSION_TYPE_VALUE_PARAMETER),
+          m_paramValue(&m_unboundValue)
     {
         VOLT_TRACE("ParameterValueExpression %d", value_idx);
         this->m_valueIdx = value_idx;
     };
 
-    voltdb::NValue eval(const TableTuple *tuple1, const TableTuple *tuple2) const {
-        return this->m_paramValue;
+    inline voltdb::NValue eval(const TableTuple *tuple1, const TableTuple *tuple2) const {
+        return *m_paramValue;
     }
 
     bool hasParameter() const {
@@ -77,9 +78,14 @@ public:
         return true;
     }
 
+    /**
+     * Bind to the parameter for this execution of the fragment. The
+     * parameter array outlives the execution, so the value is read from it
+     * in place rather than copied into the tree.
+     */
     void substitute(const NValueArray &params) {
         assert (this->m_valueIdx < params.size());
-        m_paramValue = params[this->m_valueIdx];
+        m_paramValue = &params[this->m_valueIdx];
     }
 
     std::string debugInfo(const std::string &spacer) const {
@@ -94,7 +100,8 @@ public:
 
   private:
     int m_valueIdx;
-    voltdb::NValue m_paramValue;
+    const voltdb::NValue *m_paramValue;
+    voltdb::NValue m_unboundValue;
 };
 
 }
@@ -0,0 +1,70 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+#ifndef VOLTDBPARTITIONSLICEEXPRESSION_H
+#define VOLTDBPARTITIONSLICEEXPRESSION_H
+
+#include "expressions/abstractexpression.h"
+#include "common/executorcontext.hpp"
+#include "common/tabletuple.h"
+
+#include <string>
+#include <sstream>
+
+namespace voltdb {
+
+/*
+ * True for the tuples whose value in the slice column hashes to the
+ * partition executing the expression. Every partition holds the same rows of
+ * a replicated table, so a scan filtered this way at each partition reads a
+ * disjoint slice and the slices together cover the table.
+ */
+class PartitionSliceExpression : public AbstractExpression {
+public:
+    PartitionSliceExpression(int value_idx)
+        : AbstractExpression(EXPRESSION_TYPE_PARTITION_SLICE), value_idx(value_idx)
+    {
+        VOLT_TRACE("PartitionSliceExpression %d %d", m_type, value_idx);
+    }
+
+    virtual voltdb::NValue eval(const TableTuple *tuple1, const TableTuple *tuple2) const {
+        assert(tuple1);
+        if ( ! tuple1 ) {
+            throw SerializableEEException(VOLT_EE_EXCEPTION_TYPE_SQL,
+                    "PartitionSliceExpression::"
+                    "eval:"
+                    " Couldn't find tuple 1 (possible index scan planning error)");
+        }
+        if (ExecutorContext::getExecutorContext()->isLocalSite(tuple1->getNValue(value_idx))) {
+            return NValue::getTrue();
+        }
+        return NValue::getFalse();
+    }
+
+    std::string debugInfo(const std::string &spacer) const {
+        std::ostringstream buffer;
+        buffer << spacer << "Partition slice expression on column[" << this->value_idx << "]\n";
+        return (buffer.str());
+    }
+
+    int getColumnId() const {return this->value_idx;}
+
+private:
+    const int value_idx;           // which (offset) column of the tuple
+};
+
+}
+#endif
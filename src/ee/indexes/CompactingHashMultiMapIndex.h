@@ -135,6 +135,7 @@ class CompactingHashMultiMapIndex : public TableIndex
             return m_match;
         }
         TableTuple retval = m_match;
+        m_lastKey = &m_keyIter.key();
         m_keyIter.moveNext();
         if (m_keyIter.isEnd()) {
             m_match.move(NULL);
@@ -144,12 +145,32 @@ class CompactingHashMultiMapIndex : public TableIndex
         return retval;
     }
 
+    bool canCopyKeyToTuple() const
+    {
+        return KeyType::keyHoldsColumnValues() && m_scheme.indexedExpressions.empty();
+    }
+
+    void copyLastKeyToTuple(TableTuple &tuple) const
+    {
+        assert(m_lastKey);
+        m_lastKey->copyToTuple(tuple, m_scheme.columnIndices, m_keySchema);
+    }
+
     bool hasKey(const TableTuple *searchKey) {
         return ! findKey(searchKey).isEnd();
     }
 
+    void clear()
+    {
+        m_entries.clear();
+        m_keyIter = MapIterator();
+        m_match.move(NULL);
+    }
+
     size_t getSize() const { return m_entries.size(); }
 
+    void ensureCapacity(uint32_t capacity) { m_entries.reserve(capacity); }
+
     int64_t getMemoryEstimate() const
     {
         return m_entries.bytesAllocated();
@@ -179,6 +200,8 @@ class CompactingHashMultiMapIndex : public TableIndex
     // iteration stuff
     MapIterator m_keyIter;
     TableTuple m_match;
+    // key of the entry last returned by nextValueAtKey()
+    const KeyType *m_lastKey;
 
     // comparison stuff
    KeyEqualityChecker m_eq;
@@ -188,6 +211,7 @@ public:
         TableIndex(keySchema, scheme),
         m_entries(false, KeyHasher(keySchema), KeyEqualityChecker(keySchema)),
         m_match(getTupleSchema()),
+        m_lastKey(NULL),
         m_eq(keySchema)
     {}
 
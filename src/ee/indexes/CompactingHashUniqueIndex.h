@@ -127,10 +127,24 @@ class CompactingHashUniqueIndex : public TableIndex
 
     TableTuple nextValueAtKey() {
         TableTuple retval = m_match;
+        if (! m_match.isNullTuple()) {
+            m_lastKey = &m_keyIter.key();
+        }
         m_match.move(NULL);
         return retval;
     }
 
+    bool canCopyKeyToTuple() const
+    {
+        return KeyType::keyHoldsColumnValues() && m_scheme.indexedExpressions.empty();
+    }
+
+    void copyLastKeyToTuple(TableTuple &tuple) const
+    {
+        assert(m_lastKey);
+        m_lastKey->copyToTuple(tuple, m_scheme.columnIndices, m_keySchema);
+    }
+
     TableTuple uniqueMatchingTuple(const TableTuple &searchTuple)
     {
         ++m_lookups;
@@ -146,8 +160,17 @@ class CompactingHashUniqueIndex : public TableIndex
         return ! findKey(searchKey).isEnd();
     }
 
+    void clear()
+    {
+        m_entries.clear();
+        m_keyIter = MapIterator();
+        m_match.move(NULL);
+    }
+
     size_t getSize() const { return m_entries.size(); }
 
+    void ensureCapacity(uint32_t capacity) { m_entries.reserve(capacity); }
+
     int64_t getMemoryEstimate() const
     {
         return m_entries.bytesAllocated();
@@ -182,6 +205,8 @@ class CompactingHashUniqueIndex : public TableIndex
     // iteration stuff
     MapIterator m_keyIter;
     TableTuple m_match;
+    // key of the entry last returned by nextValueAtKey()
+    const KeyType *m_lastKey;
 
     // comparison stuff
    KeyEqualityChecker m_eq;
@@ -191,6 +216,7 @@ public:
         TableIndex(keySchema, scheme),
         m_entries(true, KeyHasher(keySchema), KeyEqualityChecker(keySchema)),
         m_match(getTupleSchema()),
+        m_lastKey(NULL),
         m_eq(keySchema)
     {}
 };
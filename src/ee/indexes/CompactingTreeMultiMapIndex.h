@@ -160,12 +160,25 @@ class CompactingTreeMultiMapIndex : public TableIndex
             m_keyIter = m_entries.rbegin();
     }
 
+    bool moveToRank(int64_t position, bool begin)
+    {
+        if (!hasRank) {
+            throwFatalException("Invoked moveToRank on an index that does not keep counts");
+        }
+        ++m_lookups;
+        m_begin = begin;
+        // ranks count from 1 at the lowest key
+        m_keyIter = m_entries.findRank(begin ? position + 1 : m_entries.size() - position);
+        return !m_keyIter.isEnd();
+    }
+
     TableTuple nextValue()
     {
         TableTuple retval(getTupleSchema());
 
         if (! m_keyIter.isEnd()) {
             retval.move(const_cast<void*>(m_keyIter.value()));
+            m_lastKey = &m_keyIter.key();
             if (m_begin) {
                 m_keyIter.moveNext();
             } else {
@@ -182,6 +195,7 @@ class CompactingTreeMultiMapIndex : public TableIndex
             return m_match;
         }
         TableTuple retval = m_match;
+        m_lastKey = &m_keyIter.key();
         m_keyIter.moveNext();
         if (m_keyIter.equals(m_keyEndIter)) {
             m_match.move(NULL);
@@ -191,6 +205,17 @@ class CompactingTreeMultiMapIndex : public TableIndex
         return retval;
     }
 
+    bool canCopyKeyToTuple() const
+    {
+        return KeyType::keyHoldsColumnValues() && m_scheme.indexedExpressions.empty();
+    }
+
+    void copyLastKeyToTuple(TableTuple &tuple) const
+    {
+        assert(m_lastKey);
+        m_lastKey->copyToTuple(tuple, m_scheme.columnIndices, m_keySchema);
+    }
+
     bool advanceToNextKey()
     {
         if (m_keyEndIter.isEnd()) {
@@ -260,6 +285,16 @@ class CompactingTreeMultiMapIndex : public TableIndex
         }
     }
 
+    void clear()
+    {
+        m_entries.clear();
+        m_keyIter = MapIterator();
+        m_keyEndIter = MapIterator();
+        m_match.move(NULL);
+    }
+
+    bool isOrderedIndex() const { return true; }
+
     size_t getSize() const { return m_entries.size(); }
 
     int64_t getMemoryEstimate() const
@@ -267,6 +302,44 @@ class CompactingTreeMultiMapIndex : public TableIndex
         return m_entries.bytesAllocated();
     }
 
+    // Count the keys in a run of entries from each end of the tree and
+    // scale the keys per entry up to the whole index. Exact for indexes
+    // no larger than the two runs.
+    int64_t getDistinctKeyEstimate() const
+    {
+        const size_t size = m_entries.size();
+        if (size == 0) {
+            return 0;
+        }
+        size_t sampled = 0;
+        size_t keys = 0;
+        if (size <= 2 * DISTINCT_KEY_SAMPLE_RUN) {
+            countKeysInRun(m_entries.begin(), true, size, sampled, keys);
+        } else {
+            countKeysInRun(m_entries.begin(), true, DISTINCT_KEY_SAMPLE_RUN, sampled, keys);
+            countKeysInRun(m_entries.rbegin(), false, DISTINCT_KEY_SAMPLE_RUN, sampled, keys);
+        }
+        return static_cast<int64_t>((static_cast<double>(keys) / sampled) * size + 0.5);
+    }
+
+    void countKeysInRun(MapIterator iter, bool forward, size_t limit,
+                        size_t &sampled, size_t &keys) const
+    {
+        MapIterator last;
+        for (size_t ii = 0; ii < limit && !iter.isEnd(); ++ii) {
+            if (ii == 0 || m_cmp(last.key(), iter.key()) != 0) {
+                ++keys;
+            }
+            ++sampled;
+            last = iter;
+            if (forward) {
+                iter.moveNext();
+            } else {
+                iter.movePrev();
+            }
+        }
+    }
+
     std::string debug() const
     {
         std::ostringstream buffer;
@@ -314,20 +387,29 @@ class CompactingTreeMultiMapIndex : public TableIndex
     MapIterator m_keyIter;
     MapIterator m_keyEndIter;
     TableTuple m_match;
+    // key of the entry last returned by nextValue() or nextValueAtKey()
+    const KeyType *m_lastKey;
 
     // comparison stuff
     KeyComparator m_cmp;
 
+    // entries visited at each end of the tree by getDistinctKeyEstimate
+    static const size_t DISTINCT_KEY_SAMPLE_RUN = 512;
+
 public:
     CompactingTreeMultiMapIndex(const TupleSchema *keySchema, const TableIndexScheme &scheme) :
         TableIndex(keySchema, scheme),
         m_entries(false, KeyComparator(keySchema)),
         m_begin(true),
         m_match(getTupleSchema()),
+        m_lastKey(NULL),
         m_cmp(keySchema)
     {}
 };
 
+template<typename KeyType, bool hasRank>
+const size_t CompactingTreeMultiMapIndex<KeyType, hasRank>::DISTINCT_KEY_SAMPLE_RUN;
+
 }
 
 #endif // COMPACTINGTREEMULTIMAPINDEX_H_
@@ -155,12 +155,25 @@ class CompactingTreeUniqueIndex : public TableIndex
             m_keyIter = m_entries.rbegin();
     }
 
+    bool moveToRank(int64_t position, bool begin)
+    {
+        if (!hasRank) {
+            throwFatalException("Invoked moveToRank on an index that does not keep counts");
+        }
+        ++m_lookups;
+        m_begin = begin;
+        // ranks count from 1 at the lowest key
+        m_keyIter = m_entries.findRank(begin ? position + 1 : m_entries.size() - position);
+        return !m_keyIter.isEnd();
+    }
+
     TableTuple nextValue()
     {
         TableTuple retval(getTupleSchema());
 
         if (! m_keyIter.isEnd()) {
             retval.move(const_cast<void*>(m_keyIter.value()));
+            m_lastKey = &m_keyIter.key();
             if (m_begin) {
                 m_keyIter.moveNext();
             } else {
@@ -174,10 +187,24 @@ class CompactingTreeUniqueIndex : public TableIndex
     TableTuple nextValueAtKey()
     {
         TableTuple retval = m_match;
+        if (! m_match.isNullTuple()) {
+            m_lastKey = &m_keyIter.key();
+        }
         m_match.move(NULL);
         return retval;
     }
 
+    bool canCopyKeyToTuple() const
+    {
+        return KeyType::keyHoldsColumnValues() && m_scheme.indexedExpressions.empty();
+    }
+
+    void copyLastKeyToTuple(TableTuple &tuple) const
+    {
+        assert(m_lastKey);
+        m_lastKey->copyToTuple(tuple, m_scheme.columnIndices, m_keySchema);
+    }
+
     bool advanceToNextKey()
     {
         if (m_begin) {
@@ -248,6 +275,15 @@ class CompactingTreeUniqueIndex : public TableIndex
         return m_entries.rankAsc(mapIter.key());
     }
 
+    void clear()
+    {
+        m_entries.clear();
+        m_keyIter = MapIterator();
+        m_match.move(NULL);
+    }
+
+    bool isOrderedIndex() const { return true; }
+
     size_t getSize() const { return m_entries.size(); }
 
     int64_t getMemoryEstimate() const
@@ -298,6 +334,8 @@ class CompactingTreeUniqueIndex : public TableIndex
     bool m_begin;
     typename MapType::iterator m_keyIter;
     TableTuple m_match;
+    // key of the entry last returned by nextValue() or nextValueAtKey()
+    const KeyType *m_lastKey;
 
     // comparison stuff
     KeyComparator m_cmp;
@@ -308,6 +346,7 @@ public:
         m_entries(true, KeyComparator(keySchema)),
         m_begin(true),
         m_match(getTupleSchema()),
+        m_lastKey(NULL),
         m_cmp(keySchema)
     {}
 };
@@ -46,6 +46,7 @@
 #ifndef INDEXKEY_H
 #define INDEXKEY_H
 
+#include "common/ValueFactory.hpp"
 #include "common/ValuePeeker.hpp"
 #include "common/tabletuple.h"
 
@@ -132,6 +133,7 @@ struct IntsKey
 
     static inline bool keyDependsOnTupleAddress() { return false; }
     static inline bool keyUsesNonInlinedMemory() { return false; }
+    static inline bool keyHoldsColumnValues() { return true; }
 
     /*
      * Take a value that is part of the key (already converted to a uint64_t) and inserts it into the
@@ -225,6 +227,48 @@ struct IntsKey
         return std::string(buffer.str());
     }
 
+    /*
+     * Unpack the key into the indexed columns of a table-schema tuple.
+     */
+    void copyToTuple(TableTuple &tuple, const std::vector<int> &indices,
+                     const voltdb::TupleSchema *keySchema) const {
+        int keyOffset = 0;
+        int intraKeyOffset = sizeof(uint64_t) - 1;
+        const int columnCount = keySchema->columnCount();
+        for (int ii = 0; ii < columnCount; ii++) {
+            switch(keySchema->columnType(ii)) {
+            case voltdb::VALUE_TYPE_BIGINT: {
+                const uint64_t keyValue = extractKeyValue<uint64_t>(keyOffset, intraKeyOffset);
+                tuple.setNValue(indices[ii], ValueFactory::getBigIntValue(
+                        convertUnsignedValueToSignedValue< int64_t, INT64_MAX>(keyValue)));
+                break;
+            }
+            case voltdb::VALUE_TYPE_INTEGER: {
+                const uint64_t keyValue = extractKeyValue<uint32_t>(keyOffset, intraKeyOffset);
+                tuple.setNValue(indices[ii], ValueFactory::getIntegerValue(
+                        convertUnsignedValueToSignedValue< int32_t, INT32_MAX>(keyValue)));
+                break;
+            }
+            case voltdb::VALUE_TYPE_SMALLINT: {
+                const uint64_t keyValue = extractKeyValue<uint16_t>(keyOffset, intraKeyOffset);
+                tuple.setNValue(indices[ii], ValueFactory::getSmallIntValue(
+                        convertUnsignedValueToSignedValue< int16_t, INT16_MAX>(keyValue)));
+                break;
+            }
+            case voltdb::VALUE_TYPE_TINYINT: {
+                const uint64_t keyValue = extractKeyValue<uint8_t>(keyOffset, intraKeyOffset);
+                tuple.setNValue(indices[ii], ValueFactory::getTinyIntValue(
+                        convertUnsignedValueToSignedValue< int8_t, INT8_MAX>(keyValue)));
+                break;
+            }
+            default:
+                throwFatalException("We currently only support a specific set of column index types/sizes for IntsKeys [%s]",
+                                    getTypeName(keySchema->columnType(ii)).c_str());
+                break;
+            }
+        }
+    }
+
     IntsKey() {}
 
     IntsKey(const TableTuple *tuple) {
@@ -427,6 +471,21 @@ struct GenericKey
 
     static inline bool keyDependsOnTupleAddress() { return false; }
     static inline bool keyUsesNonInlinedMemory() { return true; } // maybe
+    static inline bool keyHoldsColumnValues() { return true; }
+
+    /*
+     * Copy the key into the indexed columns of a table-schema tuple.
+     * Non-inlined values are shared with the indexed tuple, not copied.
+     */
+    void copyToTuple(TableTuple &tuple, const std::vector<int> &indices,
+                     const TupleSchema *keySchema) const {
+        TableTuple keyTuple(keySchema);
+        keyTuple.moveToReadOnlyTuple(reinterpret_cast<const void*>(data));
+        const int columnCount = keySchema->columnCount();
+        for (int ii = 0; ii < columnCount; ++ii) {
+            tuple.setNValue(indices[ii], keyTuple.getNValue(ii));
+        }
+    }
 
     GenericKey() {}
 
@@ -677,6 +736,13 @@ struct TupleKey
 
     static inline bool keyDependsOnTupleAddress() { return true; }
     static inline bool keyUsesNonInlinedMemory() { return true; } // maybe
+    // The key is the indexed tuple itself, there is nothing to save by reading it.
+    static inline bool keyHoldsColumnValues() { return false; }
+
+    void copyToTuple(TableTuple &tuple, const std::vector<int> &indices,
+                     const TupleSchema *keySchema) const {
+        throwFatalException("TupleKey can not be copied to a tuple");
+    }
 
     // Set a key from a key-schema tuple.
     TupleKey(const TableTuple *tuple) {
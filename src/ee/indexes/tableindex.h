@@ -198,6 +198,12 @@ public:
      */
     virtual bool deleteEntry(const TableTuple *tuple) = 0;
 
+    /**
+     * removes every entry at once, used when the whole table is
+     * truncated. Any iteration in progress is ended.
+     */
+    virtual void clear() = 0;
+
     /**
      * Update in place an index entry with a new tuple address
      */
@@ -279,6 +285,21 @@ public:
         throwFatalException("Invoked TableIndex virtual method moveToEnd which has no implementation");
     }
 
+    /**
+     * This method moves past the first entries from the beginning or
+     * the end of a countable index without visiting them.
+     * Use this with nextValue().
+     *
+     * @see position the number of entries to pass over.
+     * @see begin true to count from the beginning, false from the end.
+     * @return true if any entry follows, false if the index has no
+     * more than position entries.
+     */
+    virtual bool moveToRank(int64_t position, bool begin)
+    {
+        throwFatalException("Invoked TableIndex virtual method moveToRank which has no implementation");
+    }
+
     /**
      * sets the tuple to point the entry found by
      * moveToKeyOrGreater().  calls this repeatedly to get all entries
@@ -320,6 +341,26 @@ public:
         throwFatalException("Invoked TableIndex virtual method advanceToNextKey which has no implementation");
     };
 
+    /**
+     * @return true if the index keys hold the values of the indexed
+     * columns, so copyLastKeyToTuple() can stand in for reading the
+     * indexed columns of the tuples the index returns.
+     */
+    virtual bool canCopyKeyToTuple() const
+    {
+        return false;
+    }
+
+    /**
+     * writes the key of the entry last returned by nextValue() or
+     * nextValueAtKey() into the indexed columns of a tuple with the
+     * table's schema. The other columns of the tuple are left alone.
+     */
+    virtual void copyLastKeyToTuple(TableTuple &tuple) const
+    {
+        throwFatalException("Invoked TableIndex virtual method copyLastKeyToTuple which has no implementation");
+    };
+
     /** retrieves from a primary key index the persistent tuple matching the given temp tuple */
     virtual TableTuple uniqueMatchingTuple(const TableTuple &searchTuple)
     {
@@ -350,6 +391,12 @@ public:
         return m_scheme.countable;
     }
 
+    /**
+     * Keeps its entries in key order, so keys inserted in that order
+     * land next to each other.
+     */
+    virtual bool isOrderedIndex() const { return false; }
+
     virtual bool hasKey(const TableTuple *searchKey) = 0;
 
     /**
@@ -390,6 +437,14 @@ public:
     // index.
     virtual int64_t getMemoryEstimate() const = 0;
 
+    // Return an estimate of the number of distinct keys in this index,
+    // or -1 if the index can't make one cheaply. A unique index has one
+    // key per entry.
+    virtual int64_t getDistinctKeyEstimate() const
+    {
+        return isUniqueIndex() ? static_cast<int64_t>(getSize()) : -1;
+    }
+
     const std::vector<int>& getColumnIndices() const
     {
         return m_scheme.columnIndices;
@@ -87,6 +87,13 @@ SortDirectionType IndexScanPlanNode::getSortDirection() const {
     return sort_direction;
 }
 
+void IndexScanPlanNode::setIndexOnly(bool val) {
+    this->index_only = val;
+}
+bool IndexScanPlanNode::isIndexOnly() const {
+    return index_only;
+}
+
 void IndexScanPlanNode::setTargetIndexName(std::string name) {
     this->target_index_name = name;
 }
@@ -124,6 +131,7 @@ std::string IndexScanPlanNode::debugInfo(const std::string &spacer) const {
     buffer << spacer << "EnableKeyIteration[" << std::boolalpha << this->key_iterate << "]\n";
     buffer << spacer << "IndexLookupType[" << this->lookup_type << "]\n";
     buffer << spacer << "SortDirection[" << this->sort_direction << "]\n";
+    buffer << spacer << "IndexOnly[" << std::boolalpha << this->index_only << "]\n";
 
     buffer << spacer << "SearchKey Expressions:\n";
     for (int ctr = 0, cnt = (int)this->searchkey_expressions.size(); ctr < cnt; ctr++) {
@@ -159,6 +167,10 @@ void IndexScanPlanNode::loadFromJSONObject(PlannerDomValue obj) {
 
     target_index_name = obj.valueForKey("TARGET_INDEX_NAME").asStr();
 
+    if (obj.hasNonNullKey("INDEX_ONLY")) {
+        index_only = obj.valueForKey("INDEX_ONLY").asBool();
+    }
+
     if (obj.hasNonNullKey("END_EXPRESSION")) {
         PlannerDomValue exprValue = obj.valueForKey("END_EXPRESSION");
         end_expression = AbstractExpression::buildExpressionTree(exprValue);
@@ -63,12 +63,14 @@ class IndexScanPlanNode : public AbstractScanPlanNode {
             this->lookup_type = INDEX_LOOKUP_TYPE_EQ;
             this->sort_direction = SORT_DIRECTION_TYPE_INVALID;
             this->end_expression = NULL;
+            this->index_only = false;
         }
         IndexScanPlanNode() : AbstractScanPlanNode() {
             this->key_iterate = false;
             this->lookup_type = INDEX_LOOKUP_TYPE_EQ;
             this->sort_direction = SORT_DIRECTION_TYPE_INVALID;
             this->end_expression = NULL;
+            this->index_only = false;
         }
         ~IndexScanPlanNode();
         virtual PlanNodeType getPlanNodeType() const { return (PLAN_NODE_TYPE_INDEXSCAN); }
@@ -82,6 +84,9 @@ class IndexScanPlanNode : public AbstractScanPlanNode {
         void setSortDirection(SortDirectionType val);
         SortDirectionType getSortDirection() const;
 
+        void setIndexOnly(bool val);
+        bool isIndexOnly() const;
+
         void setTargetIndexName(std::string name);
         std::string getTargetIndexName() const;
 
@@ -120,6 +125,11 @@ class IndexScanPlanNode : public AbstractScanPlanNode {
         // Sorting Direction
         //
         SortDirectionType sort_direction;
+        //
+        // Every table column the scan refers to is in the index key,
+        // so output can be produced from index keys alone
+        //
+        bool index_only;
 };
 
 }
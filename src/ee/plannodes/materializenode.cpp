@@ -57,12 +57,18 @@ namespace voltdb {
 MaterializePlanNode::~MaterializePlanNode() {
     delete getOutputTable();
     setOutputTable(NULL);
+    for (int ii = 0; ii < m_additionalRows.size(); ii++) {
+        for (int jj = 0; jj < m_additionalRows[ii].size(); jj++) {
+            delete m_additionalRows[ii][jj];
+        }
+    }
 }
 
 std::string MaterializePlanNode::debugInfo(const std::string &spacer) const {
     std::ostringstream buffer;
     buffer << this->ProjectionPlanNode::debugInfo(spacer);
     buffer << spacer << "batched: " << (this->batched ? "true" : "false") << "\n";
+    buffer << spacer << "additional rows: " << m_additionalRows.size() << "\n";
     return (buffer.str());
 }
 
@@ -70,6 +76,18 @@ void MaterializePlanNode::loadFromJSONObject(PlannerDomValue obj) {
     ProjectionPlanNode::loadFromJSONObject(obj);
 
     batched = obj.valueForKey("BATCHED").asBool();
+
+    if (obj.hasNonNullKey("ADDITIONAL_ROWS")) {
+        PlannerDomValue rowsArray = obj.valueForKey("ADDITIONAL_ROWS");
+        for (int i = 0; i < rowsArray.arrayLen(); i++) {
+            PlannerDomValue rowArray = rowsArray.valueAtIndex(i);
+            std::vector<AbstractExpression*> row;
+            for (int j = 0; j < rowArray.arrayLen(); j++) {
+                row.push_back(AbstractExpression::buildExpressionTree(rowArray.valueAtIndex(j)));
+            }
+            m_additionalRows.push_back(row);
+        }
+    }
 }
 
 }
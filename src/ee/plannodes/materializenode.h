@@ -49,6 +49,8 @@
 #include "projectionnode.h"
 #include "expressions/abstractexpression.h"
 
+#include <vector>
+
 namespace voltdb {
 
 class Table;
@@ -80,9 +82,18 @@ class MaterializePlanNode : public ProjectionPlanNode {
 
         bool isBatched() const { return batched; }
         void setBatched(bool batched) { this->batched = batched; }
+
+        /**
+         * The rows after the first of a multi-row VALUES list, one
+         * expression per output column. The first row is the output schema.
+         */
+        const std::vector<std::vector<AbstractExpression*> >& getAdditionalRows() const {
+            return m_additionalRows;
+        }
     protected:
         virtual void loadFromJSONObject(PlannerDomValue obj);
         bool batched;
+        std::vector<std::vector<AbstractExpression*> > m_additionalRows;
 };
 
 }
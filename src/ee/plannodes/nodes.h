@@ -67,5 +67,6 @@
 #include "plannodes/seqscannode.h"
 #include "plannodes/unionnode.h"
 #include "plannodes/updatenode.h"
+#include "plannodes/upsertnode.h"
 
 #endif
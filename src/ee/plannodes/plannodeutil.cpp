@@ -111,6 +111,12 @@ voltdb::AbstractPlanNode* getEmptyPlanNode(voltdb::PlanNodeType type) {
             ret = new voltdb::DeletePlanNode();
             break;
         // ------------------------------------------------------------------
+        // Upsert
+        // ------------------------------------------------------------------
+        case (voltdb::PLAN_NODE_TYPE_UPSERT):
+            ret = new voltdb::UpsertPlanNode();
+            break;
+        // ------------------------------------------------------------------
         // Aggregate
         // ------------------------------------------------------------------
         case (voltdb::PLAN_NODE_TYPE_HASHAGGREGATE):
@@ -235,6 +241,12 @@ std::string getTypeName(voltdb::PlanNodeType type) {
             ret = "DELETE";
             break;
         // ------------------------------------------------------------------
+        // Upsert
+        // ------------------------------------------------------------------
+        case (voltdb::PLAN_NODE_TYPE_UPSERT):
+            ret = "UPSERT";
+            break;
+        // ------------------------------------------------------------------
         // Send
         // ------------------------------------------------------------------
         case (voltdb::PLAN_NODE_TYPE_SEND):
@@ -0,0 +1,44 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#include <sstream>
+#include "upsertnode.h"
+#include "common/common.h"
+
+namespace voltdb {
+
+std::string UpsertPlanNode::debugInfo(const std::string &spacer) const {
+    std::ostringstream buffer;
+    buffer << this->InsertPlanNode::debugInfo(spacer);
+    buffer << spacer << "Update Columns[" << m_updateColumns.size() << "]:";
+    for (int ctr = 0; ctr < m_updateColumns.size(); ctr++) {
+        buffer << " " << m_updateColumns[ctr];
+    }
+    buffer << "\n";
+    return (buffer.str());
+}
+
+void UpsertPlanNode::loadFromJSONObject(PlannerDomValue obj) {
+    InsertPlanNode::loadFromJSONObject(obj);
+
+    PlannerDomValue updateColumnsArray = obj.valueForKey("UPDATE_COLUMNS");
+    for (int i = 0; i < updateColumnsArray.arrayLen(); i++) {
+        m_updateColumns.push_back(updateColumnsArray.valueAtIndex(i).asInt());
+    }
+}
+
+}
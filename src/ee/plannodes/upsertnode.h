@@ -0,0 +1,57 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#ifndef HSTOREUPSERTNODE_H
+#define HSTOREUPSERTNODE_H
+
+#include <vector>
+#include "insertnode.h"
+
+namespace voltdb {
+
+/**
+ * Inserts each of its input rows, or, when the target table already holds
+ * a row with the same primary key, updates that row in place instead.
+ */
+class UpsertPlanNode : public InsertPlanNode {
+    public:
+        UpsertPlanNode(CatalogId id) : InsertPlanNode(id) {
+            // Do nothing
+        }
+        UpsertPlanNode() : InsertPlanNode() {
+            // Do nothing
+        }
+
+        virtual PlanNodeType getPlanNodeType() const { return (PLAN_NODE_TYPE_UPSERT); }
+
+        std::string debugInfo(const std::string &spacer) const;
+
+        /**
+         * The target columns an update of an existing row overwrites. The
+         * other columns of the input only take effect when the row is new.
+         */
+        const std::vector<int>& getUpdateColumns() const { return m_updateColumns; }
+
+    protected:
+        virtual void loadFromJSONObject(PlannerDomValue obj);
+
+        std::vector<int> m_updateColumns;
+};
+
+}
+
+#endif
@@ -166,7 +166,7 @@ void MaterializedViewMetadata::parsePredicate(catalog::MaterializedViewInfo *met
 void MaterializedViewMetadata::processTupleInsert(TableTuple &newTuple, bool fallible) {
     // don't change the view if this tuple doesn't match the predicate
     if (m_filterPredicate
-        && (m_filterPredicate->eval(&newTuple, NULL).isFalse()))
+        && (!m_filterPredicate->evalPredicate(&newTuple, NULL)))
         return;
 
     bool exists = findExistingTuple(newTuple);
@@ -233,7 +233,7 @@ void MaterializedViewMetadata::processTupleInsert(TableTuple &newTuple, bool fal
 
 void MaterializedViewMetadata::processTupleDelete(TableTuple &oldTuple, bool fallible) {
     // don't change the view if this tuple doesn't match the predicate
-    if (m_filterPredicate && (m_filterPredicate->eval(&oldTuple, NULL).isFalse()))
+    if (m_filterPredicate && (!m_filterPredicate->evalPredicate(&oldTuple, NULL)))
         return;
 
     // this will assert if the tuple isn't there as param expected is true
@@ -0,0 +1,68 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+#ifndef PERSISTENTTABLEUNDOTRUNCATEACTION_H_
+#define PERSISTENTTABLEUNDOTRUNCATEACTION_H_
+
+#include "common/UndoAction.h"
+#include "storage/TupleBlock.h"
+
+namespace voltdb {
+
+class PersistentTable;
+
+/*
+ * Holds the storage a truncated table had, so the whole truncate is
+ * a single undo action however many tuples it removed.
+ */
+class PersistentTableUndoTruncateAction: public UndoAction {
+    friend class PersistentTable;
+public:
+    inline PersistentTableUndoTruncateAction(PersistentTable *table)
+        : m_table(table), m_tupleCount(0), m_nonInlinedMemorySize(0)
+    {}
+
+private:
+    virtual ~PersistentTableUndoTruncateAction() { }
+
+    /*
+     * Undo whatever this undo action was created to undo. In this case put
+     * the old blocks back in the table and rebuild its indexes from them.
+     */
+    virtual void undo() { m_table->truncateTableForUndo(*this); }
+
+    /*
+     * Release any resources held by the undo action. It will not need to be undone in the future.
+     * In this case free the strings of the old tuples. The blocks go with the action.
+     */
+    virtual void release() { m_table->truncateTableRelease(*this); }
+
+private:
+    PersistentTable *m_table;
+
+    // the storage of the table before it was truncated
+    TBMap m_data;
+    TBBucketMap m_blocksNotPendingSnapshotLoad;
+    boost::unordered_set<TBPtr> m_blocksNotPendingSnapshot;
+    stx::btree_set<TBPtr> m_blocksWithSpace;
+    uint32_t m_tupleCount;
+    int64_t m_nonInlinedMemorySize;
+};
+
+}
+
+#endif /* PERSISTENTTABLEUNDOTRUNCATEACTION_H_ */
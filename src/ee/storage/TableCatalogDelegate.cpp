@@ -68,6 +68,7 @@ TupleSchema *TableCatalogDelegate::createTupleSchema(catalog::Table const &catal
     vector<bool> columnAllowNull(numColumns);
     map<string, catalog::Column*>::const_iterator col_iterator;
     vector<string> columnNames(numColumns);
+    vector<int> dictionaryEncodedColumns;
     for (col_iterator = catalogTable.columns().begin();
          col_iterator != catalogTable.columns().end(); col_iterator++) {
         const catalog::Column *catalog_column = col_iterator->second;
@@ -80,11 +81,19 @@ TupleSchema *TableCatalogDelegate::createTupleSchema(catalog::Table const &catal
         const int32_t length = varlength ? size : static_cast<int32_t>(NValue::getTupleStorageSize(type));
         columnLengths[columnIndex] = length;
         columnAllowNull[columnIndex] = catalog_column->nullable();
+        if (catalog_column->dictionaryencoded()) {
+            dictionaryEncodedColumns.push_back(columnIndex);
+        }
     }
 
-    return TupleSchema::createTupleSchema(columnTypes,
-                                          columnLengths,
-                                          columnAllowNull, true);
+    TupleSchema *schema = TupleSchema::createTupleSchema(columnTypes,
+                                                         columnLengths,
+                                                         columnAllowNull, true);
+    // inlined strings are cheaper than codes and are left as they are
+    for (int ii = 0; ii < dictionaryEncodedColumns.size(); ii++) {
+        schema->setColumnDictionaryEncoded(dictionaryEncodedColumns[ii]);
+    }
+    return schema;
 }
 
 bool TableCatalogDelegate::getIndexScheme(catalog::Table const &catalogTable,
@@ -36,6 +36,8 @@ vector<string> TableStats::generateTableStatsColumnNames() {
     columnNames.push_back("TUPLE_ALLOCATED_MEMORY");
     columnNames.push_back("TUPLE_DATA_MEMORY");
     columnNames.push_back("STRING_DATA_MEMORY");
+    columnNames.push_back("COMPACTED_MEMORY");
+    columnNames.push_back("COMPACTION_TIME");
     return columnNames;
 }
 
@@ -50,6 +52,8 @@ void TableStats::populateTableStatsSchema(
     types.push_back(VALUE_TYPE_INTEGER); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_INTEGER)); allowNull.push_back(false);
     types.push_back(VALUE_TYPE_INTEGER); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_INTEGER)); allowNull.push_back(false);
     types.push_back(VALUE_TYPE_INTEGER); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_INTEGER)); allowNull.push_back(false);
+    types.push_back(VALUE_TYPE_INTEGER); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_INTEGER)); allowNull.push_back(false);
+    types.push_back(VALUE_TYPE_BIGINT); columnLengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_BIGINT)); allowNull.push_back(false);
 }
 
 Table*
@@ -84,7 +88,8 @@ TableStats::generateEmptyTableStatsTable()
 TableStats::TableStats(Table* table)
     : StatsSource(), m_table(table), m_lastTupleCount(0),
       m_lastAllocatedTupleMemory(0), m_lastOccupiedTupleMemory(0),
-      m_lastStringDataMemory(0)
+      m_lastStringDataMemory(0), m_lastCompactedMemory(0),
+      m_lastCompactionTime(0)
 {
 }
 
@@ -129,6 +134,8 @@ void TableStats::updateStatsTuple(TableTuple *tuple) {
         occupied_tuple_mem_kb = m_table->occupiedTupleMemory() / 1024;
     }
     int64_t string_data_mem_kb = m_table->nonInlinedMemorySize() / 1024;
+    int64_t compacted_mem_kb = m_table->compactedMemory() / 1024;
+    int64_t compactionTime = m_table->compactionTime();
 
     if (interval()) {
         tupleCount = tupleCount - m_lastTupleCount;
@@ -142,6 +149,11 @@ void TableStats::updateStatsTuple(TableTuple *tuple) {
         string_data_mem_kb =
             string_data_mem_kb - (m_lastStringDataMemory / 1024);
         m_lastStringDataMemory = m_table->nonInlinedMemorySize();
+        compacted_mem_kb =
+            compacted_mem_kb - (m_lastCompactedMemory / 1024);
+        m_lastCompactedMemory = m_table->compactedMemory();
+        compactionTime = compactionTime - m_lastCompactionTime;
+        m_lastCompactionTime = m_table->compactionTime();
     }
 
     if (string_data_mem_kb > INT32_MAX)
@@ -156,6 +168,10 @@ void TableStats::updateStatsTuple(TableTuple *tuple) {
     {
         occupied_tuple_mem_kb = -1;
     }
+    if (compacted_mem_kb > INT32_MAX)
+    {
+        compacted_mem_kb = -1;
+    }
 
     tuple->setNValue(
             StatsSource::m_columnName2Index["TUPLE_COUNT"],
@@ -169,6 +185,11 @@ void TableStats::updateStatsTuple(TableTuple *tuple) {
     tuple->setNValue( StatsSource::m_columnName2Index["STRING_DATA_MEMORY"],
                       ValueFactory::
                       getIntegerValue(static_cast<int32_t>(string_data_mem_kb)));
+    tuple->setNValue(StatsSource::m_columnName2Index["COMPACTED_MEMORY"],
+                     ValueFactory::
+                     getIntegerValue(static_cast<int32_t>(compacted_mem_kb)));
+    tuple->setNValue(StatsSource::m_columnName2Index["COMPACTION_TIME"],
+                     ValueFactory::getBigIntValue(compactionTime));
 }
 
 /**
@@ -46,6 +46,7 @@
 #include <sstream>
 #include <cassert>
 #include <cstdio>
+#include <sys/time.h>
 #include <boost/foreach.hpp>
 #include <boost/scoped_ptr.hpp>
 #include "storage/persistenttable.h"
@@ -70,6 +71,7 @@
 #include "storage/PersistentTableUndoInsertAction.h"
 #include "storage/PersistentTableUndoDeleteAction.h"
 #include "storage/PersistentTableUndoUpdateAction.h"
+#include "storage/PersistentTableUndoTruncateAction.h"
 #include "storage/ConstraintFailureException.h"
 #include "storage/MaterializedViewMetadata.h"
 #include "storage/CopyOnWriteContext.h"
@@ -84,6 +86,12 @@ TableTuple keyTuple;
 
 #define TABLE_BLOCKSIZE 2097152
 
+static int64_t currentTimeMicros() {
+    timeval tv;
+    gettimeofday(&tv, NULL);
+    return static_cast<int64_t>(tv.tv_sec) * 1000000 + tv.tv_usec;
+}
+
 PersistentTable::PersistentTable(int partitionColumn) :
     Table(TABLE_BLOCKSIZE),
     m_iter(this, m_data.begin()),
@@ -202,6 +210,85 @@ void PersistentTable::deleteAllTuples(bool freeAllocatedStrings) {
     }
 }
 
+void PersistentTable::truncateTable() {
+    if (m_tupleCount == 0) {
+        return;
+    }
+
+    // A snapshot or recovery scan walks the blocks and undo actions of
+    // earlier deletes refer to tuples in them, so leave those to the
+    // tuple at a time path.
+    UndoQuantum *uq = ExecutorContext::currentUndoQuantum();
+    if (uq == NULL || m_tuplesPinnedByUndo != 0 || isCopyOnWriteActive() || isRecoveryActive()) {
+        deleteAllTuples(true);
+        return;
+    }
+
+    // nothing left to aggregate, so every view empties too
+    for (int i = 0; i < m_views.size(); i++) {
+        m_views[i]->targetTable()->truncateTable();
+    }
+
+    PersistentTableUndoTruncateAction *truncated = new (*uq) PersistentTableUndoTruncateAction(this);
+    for (int ii = 0; ii < TUPLE_BLOCK_NUM_BUCKETS; ii++) {
+        truncated->m_blocksNotPendingSnapshotLoad.push_back(TBBucketPtr(new TBBucket()));
+    }
+    swapTruncatedStorage(*truncated);
+    BOOST_FOREACH(TableIndex *index, m_indexes) {
+        index->clear();
+    }
+    uq->registerUndoAction(truncated);
+}
+
+/*
+ * Trade the blocks and counts of the table for the ones held by the
+ * truncate undo action.
+ */
+void PersistentTable::swapTruncatedStorage(PersistentTableUndoTruncateAction &truncated) {
+    m_data.swap(truncated.m_data);
+    m_blocksNotPendingSnapshotLoad.swap(truncated.m_blocksNotPendingSnapshotLoad);
+    m_blocksNotPendingSnapshot.swap(truncated.m_blocksNotPendingSnapshot);
+    m_blocksWithSpace.swap(truncated.m_blocksWithSpace);
+    std::swap(m_tupleCount, truncated.m_tupleCount);
+    std::swap(m_nonInlinedMemorySize, truncated.m_nonInlinedMemorySize);
+}
+
+/*
+ * Put back the storage from before a truncate. Whatever was inserted
+ * after the truncate has been undone already, so the table is empty.
+ * The indexes were emptied by the truncate and are rebuilt here.
+ */
+void PersistentTable::truncateTableForUndo(PersistentTableUndoTruncateAction &truncated) {
+    assert(m_tupleCount == 0);
+    swapTruncatedStorage(truncated);
+
+    TableIterator ti(this, m_data.begin());
+    TableTuple tuple(m_schema);
+    while (ti.next(tuple)) {
+        insertIntoAllIndexes(&tuple);
+    }
+}
+
+/*
+ * The truncate is final. Free the strings of the old tuples, the old
+ * blocks are freed along with the undo action.
+ */
+void PersistentTable::truncateTableRelease(PersistentTableUndoTruncateAction &truncated) {
+    if (m_schema->getUninlinedObjectColumnCount() == 0) {
+        return;
+    }
+    TableTuple tuple(m_schema);
+    for (TBMapI iter = truncated.m_data.begin(); iter != truncated.m_data.end(); ++iter) {
+        TBPtr block = iter.data();
+        for (uint32_t ii = 0; ii < block->unusedTupleBoundry(); ii++) {
+            tuple.move(block->address() + ii * m_tupleLength);
+            if (tuple.isActive()) {
+                tuple.freeObjectColumns();
+            }
+        }
+    }
+}
+
 void setSearchKeyFromTuple(TableTuple &source) {
     keyTuple.setNValue(0, source.getNValue(1));
     keyTuple.setNValue(1, source.getNValue(2));
@@ -535,7 +622,7 @@ bool PersistentTable::deleteTuple(TableTuple &target, bool fallible) {
             target.setPendingDeleteOnUndoReleaseTrue();
             m_tuplesPinnedByUndo++;
             // Create and register an undo action.
-            uq->registerUndoAction(new (*uq) PersistentTableUndoDeleteAction(target.address(), this), this);
+            uq->registerUndoAction(new (*uq) PersistentTableUndoDeleteAction(target.address(), this));
             return true;
         }
     }
@@ -1123,6 +1210,7 @@ bool PersistentTable::doCompactionWithinSubset(TBBucketMap *bucketMap) {
         }
 
         if (lightest->isEmpty()) {
+            m_compactedMemory += m_tableAllocationSize;
             notifyBlockWasCompactedAway(lightest);
             m_data.erase(lightest->address());
             m_blocksWithSpace.erase(lightest);
@@ -1155,12 +1243,38 @@ void PersistentTable::doIdleCompaction() {
     }
 }
 
+int64_t PersistentTable::doIncrementalCompaction(int64_t budgetMicros) {
+    if (isRecoveryActive() || !compactionPredicate()) {
+        return 0;
+    }
+    const int64_t start = currentTimeMicros();
+    int64_t elapsed = 0;
+    do {
+        bool hadWork = false;
+        if (!m_blocksNotPendingSnapshot.empty()) {
+            hadWork = doCompactionWithinSubset(&m_blocksNotPendingSnapshotLoad);
+        }
+        if (!m_blocksPendingSnapshot.empty()) {
+            hadWork = doCompactionWithinSubset(&m_blocksPendingSnapshotLoad) || hadWork;
+        }
+        elapsed = currentTimeMicros() - start;
+        if (!hadWork) {
+            // see doForcedCompaction, blocks missing from the load buckets
+            // are picked up again as their load changes
+            break;
+        }
+    } while (elapsed < budgetMicros && compactionPredicate());
+    m_compactionTime += elapsed;
+    return elapsed;
+}
+
 void PersistentTable::doForcedCompaction() {
     if (m_tableStreamer.get() != NULL && m_tableStreamer->isRecoveryActive()) {
         LogManager::getThreadLogger(LOGGERID_SQL)->log(LOGLEVEL_INFO,
             "Deferring compaction until recovery is complete.");
         return;
     }
+    const int64_t start = currentTimeMicros();
     bool hadWork1 = true;
     bool hadWork2 = true;
 
@@ -1221,6 +1335,7 @@ void PersistentTable::doForcedCompaction() {
     }
 
     assert(!compactionPredicate());
+    m_compactionTime += currentTimeMicros() - start;
     snprintf(msg, sizeof(msg), "Finished forced compaction with allocated tuple count %zd",
              ((intmax_t)allocatedTupleCount()));
     LogManager::getThreadLogger(LOGGERID_SQL)->log(LOGLEVEL_INFO, msg);
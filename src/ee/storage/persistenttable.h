@@ -59,12 +59,12 @@
 #include "storage/TableStreamer.h"
 #include "storage/PersistentTableStats.h"
 #include "storage/RecoveryContext.h"
-#include "common/UndoQuantumReleaseInterest.h"
 #include "common/ThreadLocalPool.h"
 
 class CopyOnWriteTest_CopyOnWriteIterator;
 class CompactionTest_BasicCompaction;
 class CompactionTest_CompactionWithCopyOnWrite;
+class CompactionTest_IncrementalCompaction;
 
 namespace catalog {
 class MaterializedViewInfo;
@@ -83,6 +83,7 @@ class MaterializedViewMetadata;
 class RecoveryProtoMsg;
 class TupleOutputStreamProcessor;
 class ReferenceSerializeInput;
+class PersistentTableUndoTruncateAction;
 
 /**
  * Represents a non-temporary table which permanently resides in
@@ -110,7 +111,7 @@ class ReferenceSerializeInput;
  * policy because we expect reverting rarely occurs.
  */
 
-class PersistentTable : public Table, public UndoQuantumReleaseInterest {
+class PersistentTable : public Table {
     friend class CopyOnWriteContext;
     friend class CopyOnWriteIterator;
     friend class TableFactory;
@@ -120,9 +121,11 @@ class PersistentTable : public Table, public UndoQuantumReleaseInterest {
     friend class PersistentTableUndoDeleteAction;
     friend class PersistentTableUndoInsertAction;
     friend class PersistentTableUndoUpdateAction;
+    friend class PersistentTableUndoTruncateAction;
     friend class ::CopyOnWriteTest_CopyOnWriteIterator;
     friend class ::CompactionTest_BasicCompaction;
     friend class ::CompactionTest_CompactionWithCopyOnWrite;
+    friend class ::CompactionTest_IncrementalCompaction;
 
   private:
     // no default ctor, no copy, no assignment
@@ -136,12 +139,6 @@ class PersistentTable : public Table, public UndoQuantumReleaseInterest {
   public:
     virtual ~PersistentTable();
 
-    void notifyQuantumRelease() {
-        if (compactionPredicate()) {
-            doForcedCompaction();
-        }
-    }
-
     // Return a table iterator by reference
     TableIterator& iterator() {
         m_iter.reset(m_data.begin());
@@ -189,6 +186,16 @@ class PersistentTable : public Table, public UndoQuantumReleaseInterest {
     // ------------------------------------------------------------------
     void deleteTupleForSchemaChange(TableTuple &target);
 
+    /**
+     * Delete every tuple in one step. The blocks and counts move to a
+     * single undo action and the indexes are emptied in place, their
+     * contents being rebuilt only if the truncate is undone. Target
+     * tables of views are truncated along with it. Falls back to
+     * deleteAllTuples while a snapshot or recovery stream is active or
+     * tuples are pinned by earlier undo actions.
+     */
+    void truncateTable();
+
     void insertPersistentTuple(TableTuple &source, bool fallible);
 
     /*
@@ -253,6 +260,16 @@ class PersistentTable : public Table, public UndoQuantumReleaseInterest {
     }
 
     void doIdleCompaction();
+
+    /**
+     * Compact for roughly budgetMicros, a block merge at a time, stopping
+     * once the table is no longer fragmented enough to need it. Progress is
+     * kept in the load buckets, so the next call carries on where this one
+     * stopped. Must not be called while undo actions refer to tuples.
+     * @return the microseconds spent
+     */
+    int64_t doIncrementalCompaction(int64_t budgetMicros);
+
     void printBucketInfo();
 
     void increaseStringMemCount(size_t bytes)
@@ -326,6 +343,9 @@ class PersistentTable : public Table, public UndoQuantumReleaseInterest {
                             char* sourceTupleWithNewValues,
                             bool revertIndexes);
     void deleteTupleForUndo(char* tupleData, bool skipLookup = false);
+    void truncateTableForUndo(PersistentTableUndoTruncateAction &truncated);
+    void truncateTableRelease(PersistentTableUndoTruncateAction &truncated);
+    void swapTruncatedStorage(PersistentTableUndoTruncateAction &truncated);
     void deleteTupleRelease(char* tuple);
     void deleteTupleFinalize(TableTuple &tuple);
     /**
@@ -75,6 +75,8 @@ Table::Table(int tableAllocationTargetSize) :
     m_columnCount(0),
     m_tuplesPerBlock(0),
     m_nonInlinedMemorySize(0),
+    m_compactedMemory(0),
+    m_compactionTime(0),
     m_databaseId(-1),
     m_name(""),
     m_ownsTupleSchema(true),
@@ -204,7 +204,17 @@ class Table {
 
     // Only counts persistent table usage, currently
     int64_t nonInlinedMemorySize() const {
-        return m_nonInlinedMemorySize;
+        return m_nonInlinedMemorySize + m_schema->getDictionaryMemorySize();
+    }
+
+    // Block memory freed by compaction since the table was created
+    int64_t compactedMemory() const {
+        return m_compactedMemory;
+    }
+
+    // Microseconds spent compacting since the table was created
+    int64_t compactionTime() const {
+        return m_compactionTime;
     }
 
     // ------------------------------------------------------------------
@@ -416,6 +426,8 @@ protected:
     uint32_t m_tuplesPerBlock;
     uint32_t m_tupleLength;
     int64_t m_nonInlinedMemorySize;
+    int64_t m_compactedMemory;
+    int64_t m_compactionTime;
 
     // identity information
     CatalogId m_databaseId;
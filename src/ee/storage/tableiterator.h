@@ -81,6 +81,15 @@ public:
      * @return true if succeeded. false if no more active tuple is there.
     */
     bool next(TableTuple &out);
+
+    /**
+     * Fills tuples with the addresses of up to maxTuples of the next tuples.
+     * A batch never spans blocks, so callers can work through the table's
+     * storage one block at a time.
+     * @return the number of addresses filled in, 0 when no tuples remain.
+     */
+    int nextBatch(char **tuples, int maxTuples);
+
     bool hasNext();
     int getLocation() const;
 
@@ -187,6 +196,18 @@ inline bool TableIterator::next(TableTuple &out) {
     }
 }
 
+inline int TableIterator::nextBatch(char **tuples, int maxTuples) {
+    TableTuple tuple(m_table->schema());
+    int count = 0;
+    while (count < maxTuples && next(tuple)) {
+        tuples[count++] = tuple.address();
+        if (m_blockOffset >= m_currentBlock->unusedTupleBoundry()) {
+            break;
+        }
+    }
+    return count;
+}
+
 inline bool TableIterator::persistentNext(TableTuple &out) {
     while (m_foundTuples < m_activeTuples) {
         if (m_currentBlock == NULL ||
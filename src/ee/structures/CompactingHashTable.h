@@ -167,6 +167,10 @@ namespace voltdb {
         bool erase(const Key &key, const Data &value);
         /** delete from iterator */
         bool erase(iterator &iter);
+        /** delete everything, shrinking back to the initial bucket count */
+        void clear();
+        /** grow the bucket array once to hold count keys without resizing */
+        void reserve(size_t count);
         /** STL-ish size() method */
         size_t size() const { return m_count; }
 
@@ -192,6 +196,8 @@ namespace voltdb {
 
         /** see if the hash needs to grow or shrink */
         void checkLoadFactor();
+        /** see if the hash needs to grow, never shrinking a reserved table */
+        void checkLoadFactorForInsert();
         /** grow/shrink the hash table */
         void resize(int newSizeIndex);
     };
@@ -280,6 +286,37 @@ namespace voltdb {
         // free the memory used for nodes
     }
 
+    template<class K, class T, class H, class EK, class ET>
+    void CompactingHashTable<K, T, H, EK, ET>::clear() {
+        // nodes live contiguously in the allocator, so run their
+        // destructors in place rather than unlinking them one at a time
+        for (size_t i = 0; i < TABLE_SIZES[m_sizeIndex]; ++i) {
+            HashNode *node = m_buckets[i];
+            while (node) {
+                HashNode *nextInBucket = node->nextInBucket;
+                while (node) {
+                    HashNode *nextWithKey = m_unique ? NULL : node->nextWithKey;
+                    (reinterpret_cast<HashNodeSmall*>(node))->~HashNodeSmall();
+                    node = nextWithKey;
+                }
+                node = nextInBucket;
+            }
+        }
+        m_allocator.clear();
+        m_count = 0;
+        m_uniqueCount = 0;
+
+        // start over with an empty table of the initial size
+        if (m_sizeIndex != BUCKET_INITIAL_INDEX) {
+            munmap(m_buckets, sizeof(HashNode*) * TABLE_SIZES[m_sizeIndex]);
+            m_sizeIndex = BUCKET_INITIAL_INDEX;
+            void *memory = mmap(NULL, sizeof(HashNode*) * TABLE_SIZES[m_sizeIndex], PROT_WRITE, MAP_PRIVATE | MAP_ANON, -1, 0);
+            assert(memory);
+            m_buckets = reinterpret_cast<HashNode**>(memory);
+        }
+        memset(m_buckets, 0, sizeof(HashNode*) * TABLE_SIZES[m_sizeIndex]);
+    }
+
     template<class K, class T, class H, class EK, class ET>
     typename CompactingHashTable<K, T, H, EK, ET>::iterator CompactingHashTable<K, T, H, EK, ET>::find(const Key &key) const {
         uint64_t hash = m_hasher(key);
@@ -421,7 +458,7 @@ namespace voltdb {
             m_uniqueCount++;
         }
 
-        checkLoadFactor();
+        checkLoadFactorForInsert();
         return true;
     }
 
@@ -605,6 +642,27 @@ namespace voltdb {
         }
     }
 
+    template<class K, class T, class H, class EK, class ET>
+    void CompactingHashTable<K, T, H, EK, ET>::checkLoadFactorForInsert() {
+        // an insert only raises the load, so anything under the minimum
+        // is room set aside by reserve() and is left for erase to reclaim
+        uint64_t lf = (m_uniqueCount * 100) / TABLE_SIZES[m_sizeIndex];
+        if (lf > MAX_LOAD_FACTOR) {
+            resize(m_sizeIndex + 1);
+        }
+    }
+
+    template<class K, class T, class H, class EK, class ET>
+    void CompactingHashTable<K, T, H, EK, ET>::reserve(size_t count) {
+        int newSizeIndex = m_sizeIndex;
+        while (((count * 100) / TABLE_SIZES[newSizeIndex]) > MAX_LOAD_FACTOR) {
+            newSizeIndex++;
+        }
+        if (newSizeIndex != m_sizeIndex) {
+            resize(newSizeIndex);
+        }
+    }
+
     template<class K, class T, class H, class EK, class ET>
     void CompactingHashTable<K, T, H, EK, ET>::resize(int newSizeIndex) {
         //std::cout << "SIZING BUFFER" << std::endl;
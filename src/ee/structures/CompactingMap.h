@@ -128,6 +128,8 @@ public:
     bool insert(const Key &key, const Data &data) { return insert(std::pair<Key, Data>(key, data)); }
     bool erase(const Key &key);
     bool erase(iterator &iter);
+    // remove every entry at once, invalidating all iterators
+    void clear();
     iterator find(const Key &key) { return iterator(this, lookup(key)); }
     iterator findRank(int64_t ith) { return iterator(this, lookupRank(ith)); }
     int64_t size() const { return m_count; }
@@ -214,6 +216,19 @@ CompactingMap<Key, Data, Compare, hasRank>::~CompactingMap() {
     }
 }
 
+template<typename Key, typename Data, typename Compare, bool hasRank>
+void CompactingMap<Key, Data, Compare, hasRank>::clear() {
+    iterator iter = begin();
+    while (!iter.isEnd()) {
+        iter.key().~Key();
+        iter.value().~Data();
+        iter.moveNext();
+    }
+    m_allocator.clear();
+    m_root = &NIL;
+    m_count = 0;
+}
+
 template<typename Key, typename Data, typename Compare, bool hasRank>
 bool CompactingMap<Key, Data, Compare, hasRank>::erase(const Key &key) {
     TreeNode *node = lookup(key);
@@ -261,8 +276,9 @@ bool CompactingMap<Key, Data, Compare, hasRank>::insert(std::pair<Key, Data> val
         // create a new node
         void *memory = m_allocator.alloc();
         assert(memory);
-        // placement new
-        TreeNode *z = new(memory) TreeNode();
+        // placement new, not value-initialized: without rank the
+        // allocation stops short of subct, which must not be written
+        TreeNode *z = new(memory) TreeNode;
         z->key = value.first;
         z->value = value.second;
         z->left = z->right = &NIL;
@@ -283,8 +299,9 @@ bool CompactingMap<Key, Data, Compare, hasRank>::insert(std::pair<Key, Data> val
         // create a new node as root
         void *memory = m_allocator.alloc();
         assert(memory);
-        // placement new
-        TreeNode *z = new(memory) TreeNode();
+        // placement new, not value-initialized: without rank the
+        // allocation stops short of subct, which must not be written
+        TreeNode *z = new(memory) TreeNode;
         z->key = value.first;
         z->value = value.second;
         z->left = z->right = &NIL;
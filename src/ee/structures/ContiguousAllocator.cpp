@@ -25,11 +25,17 @@ ContiguousAllocator::ContiguousAllocator(int32_t allocSize, int32_t chunkSize)
 : m_count(0), m_allocSize(allocSize), m_chunkSize(chunkSize), m_tail(NULL), m_blockCount(0) {}
 
 ContiguousAllocator::~ContiguousAllocator() {
+    clear();
+}
+
+void ContiguousAllocator::clear() {
     while (m_tail) {
         Buffer *buf = m_tail->prev;
         free(m_tail);
         m_tail = buf;
     }
+    m_count = 0;
+    m_blockCount = 0;
 }
 
 void *ContiguousAllocator::alloc() {
@@ -52,6 +52,8 @@ public:
     void *alloc();
     void *last() const;
     void trim();
+    /** Free every buffer, leaving the allocator as constructed. */
+    void clear();
     int64_t count() const { return m_count; }
 
     size_t bytesAllocated() const;
@@ -521,6 +521,7 @@ int8_t VoltDBIPC::tick(struct ipc_command *cmd) {
         struct ipc_command cmd;
         int64_t time;
         int64_t lastSpHandle;
+        int64_t compactionBudgetMicros;
     }__attribute__((packed));
 
     struct tick * cs = (struct tick*) cmd;
@@ -528,7 +529,8 @@ int8_t VoltDBIPC::tick(struct ipc_command *cmd) {
 
     try {
         // no return code. can't fail!
-        m_engine->tick(ntohll(cs->time), ntohll(cs->lastSpHandle));
+        m_engine->tick(ntohll(cs->time), ntohll(cs->lastSpHandle),
+                       ntohll(cs->compactionBudgetMicros));
     } catch (const FatalException &e) {
         crashVoltDB(e);
     }
@@ -754,7 +754,7 @@ SHAREDLIB_JNIEXPORT jlong JNICALL Java_org_voltcore_utils_DBBPool_getMurmur3128_
 /*
  * Class:     org_voltdb_jni_ExecutionEngine
  * Method:    nativeTick
- * Signature: (JJJ)V
+ * Signature: (JJJJ)V
  *
  * Called roughly every 1 second by the Java Runtime to allow the EE to do
  * periodic non-transactional work.
@@ -764,14 +764,16 @@ SHAREDLIB_JNIEXPORT jlong JNICALL Java_org_voltcore_utils_DBBPool_getMurmur3128_
  * @param engine_ptr Pointer to a VoltDBEngine instance
  * @param timeInMillis The current java timestamp (System.currentTimeMillis());
  * @param lastCommittedSpHandle The id of the last committed transaction.
+ * @param compactionBudgetMicros Time the EE may spend compacting tables.
  */
 SHAREDLIB_JNIEXPORT void JNICALL Java_org_voltdb_jni_ExecutionEngine_nativeTick
-  (JNIEnv *env, jobject obj, jlong engine_ptr, jlong timeInMillis, jlong lastCommittedSpHandle) {
+  (JNIEnv *env, jobject obj, jlong engine_ptr, jlong timeInMillis, jlong lastCommittedSpHandle,
+   jlong compactionBudgetMicros) {
     VoltDBEngine *engine = castToEngine(engine_ptr);
     Topend *topend = static_cast<JNITopend*>(engine->getTopend())->updateJNIEnv(env);
     try {
         updateJNILogProxy(engine); //JNIEnv pointer can change between calls, must be updated
-        engine->tick(timeInMillis, lastCommittedSpHandle);
+        engine->tick(timeInMillis, lastCommittedSpHandle, compactionBudgetMicros);
     } catch (const FatalException &e) {
         topend->crashVoltDB(e);
     }
@@ -22,18 +22,22 @@ import java.nio.ByteBuffer;
 import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.SelectionKey;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.DeferredSerialization;
+import org.voltcore.utils.DirectDeferredSerialization;
 import org.voltcore.utils.EstTime;
 import org.voltcore.utils.DBBPool.BBContainer;
 
 /**
 *
 *  Provide a queue for ByteBuffers and DeferredSerializations and drain them to gathering ByteChannel.
-*  Uses a thread local memory pool for serializing messages that are < MAX_GATHERING_WRITE size and HeapByteBuffers
-*  otherwise. Jumps through serious hoops to avoid ever writing large HeapByteBuffers to the channel
-*  because Java will allocate a DirectByteBuffer and copy ALL the data into the DirectByteBuffer even if only
+*  Serialized messages are packed back to back into buffers from a thread local memory pool and all the
+*  buffers filled during a selector pass are handed to the channel in one gathering write.
+*  DirectDeferredSerializations that fit in a pool buffer are serialized in place, everything else
+*  is serialized to HeapByteBuffers and copied in. Jumps through serious hoops to avoid ever writing large
+*  HeapByteBuffers to the channel because Java will allocate a DirectByteBuffer and copy ALL the data into the DirectByteBuffer even if only
 *  a small fraction can reasonably be written to the channel. This wastes time in copying data that can never possibly
 *  make it into the channel in non blocking mode and space because the DirectByteBuffer is never released unlike
 *  the pool which shrinks after a long time without usage.
@@ -55,12 +59,37 @@ public class NIOWriteStream implements WriteStream {
 
     private boolean m_isShutdown = false;
 
-    private BBContainer m_currentWriteBuffer = null;
+    /**
+     * Upper bound on the number of pooled buffers handed to a single gathering write.
+     * Keeps the iovec count well under the platform limit.
+     */
+    static final int MAX_GATHERING_BUFFERS = 64;
 
     /**
-     * Contains serialized buffers ready to write to the socket
+     * A pooled buffer along with the number of messages whose final byte was
+     * serialized into it. The message count is credited once the buffer is
+     * completely written to the channel.
      */
-    private final ArrayDeque<BBContainer> m_queuedBuffers = new ArrayDeque<BBContainer>();
+    private static final class QueuedBuffer {
+        private final BBContainer m_cont;
+        private int m_messages = 0;
+
+        private QueuedBuffer(BBContainer cont) {
+            m_cont = cont;
+        }
+    }
+
+    /**
+     * Contains serialized buffers that are still being filled by swapAndSerializeQueuedWrites
+     */
+    private final ArrayDeque<QueuedBuffer> m_queuedBuffers = new ArrayDeque<QueuedBuffer>();
+
+    /**
+     * Contains flipped buffers ready to be handed to a gathering write
+     */
+    private final ArrayDeque<QueuedBuffer> m_writeBuffers = new ArrayDeque<QueuedBuffer>();
+
+    private final ByteBuffer m_gatherArray[] = new ByteBuffer[MAX_GATHERING_BUFFERS];
 
     /**
      * Contains messages waiting to be serialized and written to the socket
@@ -82,6 +111,7 @@ public class NIOWriteStream implements WriteStream {
 
     private long m_bytesWritten = 0;
     private long m_messagesWritten = 0;
+    private long m_writeCalls = 0;
 
     /*
      * Used to provide incremental reads of the amount of
@@ -91,17 +121,25 @@ public class NIOWriteStream implements WriteStream {
      */
     private long m_lastBytesWritten = 0;
     private long m_lastMessagesWritten = 0;
+    private long m_lastWriteCalls = 0;
 
-    long[] getBytesAndMessagesWritten(boolean interval) {
+    /**
+     * Returns bytes written, messages written and the number of write calls made
+     * against the channel. Messages per write call is the coalescing factor.
+     */
+    long[] getWriteStats(boolean interval) {
         if (interval) {
             final long bytesWrittenThisTime = m_bytesWritten - m_lastBytesWritten;
             m_lastBytesWritten = m_bytesWritten;
 
             final long messagesWrittenThisTime = m_messagesWritten - m_lastMessagesWritten;
             m_lastMessagesWritten = m_messagesWritten;
-            return new long[] { bytesWrittenThisTime, messagesWrittenThisTime };
+
+            final long writeCallsThisTime = m_writeCalls - m_lastWriteCalls;
+            m_lastWriteCalls = m_writeCalls;
+            return new long[] { bytesWrittenThisTime, messagesWrittenThisTime, writeCallsThisTime };
         } else {
-            return new long[] {m_bytesWritten, m_messagesWritten};
+            return new long[] {m_bytesWritten, m_messagesWritten, m_writeCalls};
         }
     }
 
@@ -134,13 +172,13 @@ public class NIOWriteStream implements WriteStream {
     @Override
     synchronized public int getOutstandingMessageCount()
     {
-        return m_queuedWrites.size() + m_queuedBuffers.size();
+        return m_queuedWrites.size() + m_queuedBuffers.size() + m_writeBuffers.size();
     }
 
     @Override
     synchronized public boolean isEmpty()
     {
-        return m_queuedBuffers.isEmpty() && m_queuedWrites.isEmpty() && m_currentWriteBuffer == null;
+        return m_queuedBuffers.isEmpty() && m_queuedWrites.isEmpty() && m_writeBuffers.isEmpty();
     }
 
     /**
@@ -190,23 +228,28 @@ public class NIOWriteStream implements WriteStream {
     private volatile boolean m_hadBackPressure = false;
 
     /**
-     * Does the work of queueing addititional buffers that have been serialized
-     * and choosing between gathering and regular writes to the channel. Also splits up very large
-     * writes of HeapByteBuffers into many smaller writes so Java doesn't allocate a monster DirectByteBuffer
-     * that will never be freed
+     * Flips every buffer filled since the last call and drains as many of them as the
+     * channel will accept, using one gathering write for up to MAX_GATHERING_BUFFERS
+     * buffers at a time. All buffers come from the network pool so they are direct and
+     * Java doesn't allocate a temporary DirectByteBuffer to perform the write.
      * @param channel
-     * @param additional
      * @return
      * @throws IOException
      */
     int drainTo (final GatheringByteChannel channel) throws IOException {
+        QueuedBuffer filled = null;
+        while ((filled = m_queuedBuffers.poll()) != null) {
+            filled.m_cont.b.flip();
+            m_writeBuffers.offer(filled);
+        }
+
         int bytesWritten = 0;
         long rc = 0;
         do {
             /*
              * Nothing to write
              */
-            if (m_currentWriteBuffer == null && m_queuedBuffers.isEmpty()) {
+            if (m_writeBuffers.isEmpty()) {
                 if (m_hadBackPressure && m_queuedWrites.size() <= m_maxQueuedWritesBeforeBackpressure) {
                     backpressureEnded();
                 }
@@ -216,26 +259,29 @@ public class NIOWriteStream implements WriteStream {
                 return bytesWritten;
             }
 
-            ByteBuffer buffer = null;
-            if (m_currentWriteBuffer == null) {
-                m_currentWriteBuffer = m_queuedBuffers.poll();
-                buffer = (ByteBuffer) m_currentWriteBuffer.b.flip();
-            } else {
-                buffer = m_currentWriteBuffer.b;
+            int count = 0;
+            for (QueuedBuffer qb : m_writeBuffers) {
+                m_gatherArray[count++] = qb.m_cont.b;
+                if (count == MAX_GATHERING_BUFFERS) {
+                    break;
+                }
             }
 
-            rc = 0;
-            rc = channel.write(buffer);
-
-            //Discard the buffer back to a pool if no data remains
-            if (buffer.hasRemaining()) {
-                if (!m_hadBackPressure) {
-                    backpressureStarted();
-                }
-            } else {
-                m_currentWriteBuffer.discard();
-                m_currentWriteBuffer = null;
-                m_messagesWritten++;
+            rc = channel.write(m_gatherArray, 0, count);
+            m_writeCalls++;
+            Arrays.fill(m_gatherArray, 0, count, null);
+
+            //Discard the buffers back to the pool if no data remains
+            int drained = 0;
+            QueuedBuffer head = null;
+            while (drained < count && !(head = m_writeBuffers.peek()).m_cont.b.hasRemaining()) {
+                m_writeBuffers.poll();
+                m_messagesWritten += head.m_messages;
+                head.m_cont.discard();
+                drained++;
+            }
+            if (drained < count && !m_hadBackPressure) {
+                backpressureStarted();
             }
             bytesWritten += rc;
 
@@ -245,7 +291,7 @@ public class NIOWriteStream implements WriteStream {
         //has to be queued in the above loop resulting in rc == 0. Since rc == 0
         //it won't loop around a last time and see that there are no more queued buffers
         //and thus no backpressure
-        if (m_queuedBuffers.isEmpty() && m_hadBackPressure && m_queuedWrites.size() <= m_maxQueuedWritesBeforeBackpressure) {
+        if (m_writeBuffers.isEmpty() && m_hadBackPressure && m_queuedWrites.size() <= m_maxQueuedWritesBeforeBackpressure) {
             backpressureEnded();
         }
 
@@ -353,32 +399,67 @@ public class NIOWriteStream implements WriteStream {
         DeferredSerialization ds = null;
         int bytesQueued = 0;
         while ((ds = oldlist.poll()) != null) {
-            ByteBuffer data[] = ds.serialize();
+            ByteBuffer data[];
+            if (ds instanceof DirectDeferredSerialization) {
+                final DirectDeferredSerialization dds = (DirectDeferredSerialization)ds;
+                final int size = dds.getSerializedSize();
+                if (size == 0) {
+                    continue;
+                }
+                if (size <= NetworkDBBPool.BUFFER_SIZE) {
+                    // Pack the message into the tail buffer, only taking a fresh one if it won't fit
+                    QueuedBuffer out = m_queuedBuffers.peekLast();
+                    if (out == null || out.m_cont.b.remaining() < size) {
+                        out = acquireBuffer(pool);
+                    }
+                    final int startPosition = out.m_cont.b.position();
+                    dds.serialize(out.m_cont.b);
+                    assert(out.m_cont.b.position() - startPosition == size);
+                    out.m_messages++;
+                    bytesQueued += size;
+                    continue;
+                }
+                // Too big for a pool buffer, serialize to the heap and copy it in below
+                data = new ByteBuffer[] { ByteBuffer.allocate(size) };
+                dds.serialize(data[0]);
+            } else {
+                data = ds.serialize();
+            }
+            QueuedBuffer out = null;
             for (ByteBuffer buf : data) {
                 assert(buf.limit() == buf.capacity());//No sloppy serialization, we can allow it later if necessary
                 buf.clear();
                 bytesQueued += buf.remaining();
                 while (buf.hasRemaining()) {
-                    BBContainer outCont = m_queuedBuffers.peekLast();
-                    if (outCont == null || !outCont.b.hasRemaining()) {
-                        outCont = pool.acquire();
-                        outCont.b.clear();
-                        m_queuedBuffers.offer(outCont);
+                    out = m_queuedBuffers.peekLast();
+                    if (out == null || !out.m_cont.b.hasRemaining()) {
+                        out = acquireBuffer(pool);
                     }
-                    if (outCont.b.remaining() >= buf.remaining()) {
-                        outCont.b.put(buf);
+                    if (out.m_cont.b.remaining() >= buf.remaining()) {
+                        out.m_cont.b.put(buf);
                     } else {
                         final int oldLimit = buf.limit();
-                        buf.limit(buf.position() + outCont.b.remaining());
-                        outCont.b.put(buf);
+                        buf.limit(buf.position() + out.m_cont.b.remaining());
+                        out.m_cont.b.put(buf);
                         buf.limit(oldLimit);
                     }
                 }
             }
+            if (out != null) {
+                out.m_messages++;
+            }
         }
         updateQueued(bytesQueued, true);
     }
 
+    private QueuedBuffer acquireBuffer(final NetworkDBBPool pool) {
+        final BBContainer cont = pool.acquire();
+        cont.b.clear();
+        final QueuedBuffer out = new QueuedBuffer(cont);
+        m_queuedBuffers.offer(out);
+        return out;
+    }
+
     /**
      * Free the pool resources that are held by this WriteStream. The pool itself is thread local
      * and will be freed when the thread terminates.
@@ -386,10 +467,14 @@ public class NIOWriteStream implements WriteStream {
     synchronized void shutdown() {
         int bytesReleased = 0;
         m_isShutdown = true;
-        BBContainer c = null;
-        while ((c = m_queuedBuffers.poll()) != null) {
-            bytesReleased += c.b.remaining();
-            c.discard();
+        QueuedBuffer qb = null;
+        while ((qb = m_writeBuffers.poll()) != null) {
+            bytesReleased += qb.m_cont.b.remaining();
+            qb.m_cont.discard();
+        }
+        while ((qb = m_queuedBuffers.poll()) != null) {
+            bytesReleased += qb.m_cont.b.position();
+            qb.m_cont.discard();
         }
         updateQueued(-bytesReleased, false);
         DeferredSerialization ds = null;
@@ -24,12 +24,18 @@ import org.voltcore.utils.DBBPool.BBContainer;
 
 public class NetworkDBBPool {
 
+    /**
+     * Size of each pooled buffer. Messages no larger than this can be serialized
+     * directly into a pooled buffer.
+     */
+    static final int BUFFER_SIZE = 1024 * 32;
+
     private final ArrayDeque<BBContainer> m_buffers = new ArrayDeque<BBContainer>();
 
     BBContainer acquire() {
        final BBContainer cont = m_buffers.poll();
        if (cont == null) {
-           final BBContainer originContainer = DBBPool.allocateDirect(1024 * 32);
+           final BBContainer originContainer = DBBPool.allocateDirect(BUFFER_SIZE);
            return new BBContainer(originContainer.b, 0) {
                 @Override
                 public void discard() {
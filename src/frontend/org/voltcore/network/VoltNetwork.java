@@ -422,14 +422,16 @@ class VoltNetwork implements Runnable
             long totalMessagesRead = 0;
             long totalWritten = 0;
             long totalMessagesWritten = 0;
+            long totalWriteCalls = 0;
             for (VoltPort p : m_ports) {
                 final long read = p.readStream().getBytesRead(interval);
-                final long writeInfo[] = p.writeStream().getBytesAndMessagesWritten(interval);
+                final long writeInfo[] = p.writeStream().getWriteStats(interval);
                 final long messagesRead = p.getMessagesRead(interval);
                 totalRead += read;
                 totalMessagesRead += messagesRead;
                 totalWritten += writeInfo[0];
                 totalMessagesWritten += writeInfo[1];
+                totalWriteCalls += writeInfo[2];
                 retval.put(
                         p.connectionId(),
                         Pair.of(
@@ -438,7 +440,8 @@ class VoltNetwork implements Runnable
                                         read,
                                         messagesRead,
                                         writeInfo[0],
-                                        writeInfo[1] }));
+                                        writeInfo[1],
+                                        writeInfo[2] }));
             }
             retval.put(
                     -1L,
@@ -448,7 +451,8 @@ class VoltNetwork implements Runnable
                                     totalRead,
                                     totalMessagesRead,
                                     totalWritten,
-                                    totalMessagesWritten }));
+                                    totalMessagesWritten,
+                                    totalWriteCalls }));
             return retval;
     }
 
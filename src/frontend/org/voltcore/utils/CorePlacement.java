@@ -0,0 +1,209 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.voltcore.utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.voltcore.logging.VoltLogger;
+
+/**
+ * NUMA aware assignment of threads to cores. The node to cpu map is read from
+ * sysfs and bindings are handed out as affinity strings in the format
+ * PosixJNAAffinity accepts. Consumers are dealt round robin across nodes so
+ * each node gets an even share, sites from the low cores of a node and network
+ * threads from the high cores. Once a node has no free core left, further
+ * threads are bound to the node as a whole, which still keeps them and the
+ * memory they first touch on one socket.
+ */
+public class CorePlacement {
+    private static final VoltLogger hostLog = new VoltLogger("HOST");
+
+    private static final String NODE_DIR = "/sys/devices/system/node";
+
+    private final int[] m_nodeIds;
+    private final List<List<Integer>> m_nodeCores;
+    private final int[] m_nextLow;
+    private final int[] m_nextHigh;
+    private int m_nextSiteNode = 0;
+    private int m_nextNetworkNode = 0;
+
+    /**
+     * @param nodeCores Cores of each NUMA node, keyed by node id
+     */
+    public CorePlacement(TreeMap<Integer, List<Integer>> nodeCores) {
+        if (nodeCores.isEmpty()) {
+            throw new IllegalArgumentException("No NUMA nodes to place threads on");
+        }
+        m_nodeIds = new int[nodeCores.size()];
+        m_nodeCores = new ArrayList<List<Integer>>(nodeCores.size());
+        int ii = 0;
+        for (Map.Entry<Integer, List<Integer>> e : nodeCores.entrySet()) {
+            m_nodeIds[ii++] = e.getKey();
+            m_nodeCores.add(e.getValue());
+        }
+        m_nextLow = new int[m_nodeIds.length];
+        m_nextHigh = new int[m_nodeIds.length];
+        for (ii = 0; ii < m_nodeIds.length; ii++) {
+            m_nextHigh[ii] = m_nodeCores.get(ii).size() - 1;
+        }
+    }
+
+    /**
+     * Read the NUMA topology of this machine. Machines that don't expose one
+     * are treated as a single node holding every available processor.
+     */
+    public static CorePlacement discover() {
+        TreeMap<Integer, List<Integer>> nodeCores = new TreeMap<Integer, List<Integer>>();
+        File[] nodeDirs = new File(NODE_DIR).listFiles();
+        if (nodeDirs != null) {
+            for (File nodeDir : nodeDirs) {
+                if (!nodeDir.getName().matches("node\\d+")) {
+                    continue;
+                }
+                try {
+                    List<Integer> cores = parseCpuList(readLine(new File(nodeDir, "cpulist")));
+                    if (!cores.isEmpty()) {
+                        nodeCores.put(Integer.valueOf(nodeDir.getName().substring(4)), cores);
+                    }
+                } catch (IOException e) {
+                    hostLog.warn("Unable to read the cpu list of NUMA " + nodeDir.getName(), e);
+                }
+            }
+        }
+        if (nodeCores.isEmpty()) {
+            List<Integer> cores = new ArrayList<Integer>();
+            for (int core = 0; core < CoreUtils.availableProcessors(); core++) {
+                cores.add(core);
+            }
+            nodeCores.put(0, cores);
+        }
+        return new CorePlacement(nodeCores);
+    }
+
+    private static String readLine(File f) throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(f));
+        try {
+            String line = reader.readLine();
+            return line == null ? "" : line;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Parse a kernel cpu list such as "0-7,16-23" into core numbers.
+     */
+    static List<Integer> parseCpuList(String cpuList) {
+        List<Integer> cores = new ArrayList<Integer>();
+        for (String range : cpuList.trim().split(",")) {
+            if (range.isEmpty()) {
+                continue;
+            }
+            String bounds[] = range.split("-");
+            int first = Integer.parseInt(bounds[0].trim());
+            int last = bounds.length > 1 ? Integer.parseInt(bounds[1].trim()) : first;
+            for (int core = first; core <= last; core++) {
+                cores.add(core);
+            }
+        }
+        return cores;
+    }
+
+    public int getNodeCount() {
+        return m_nodeIds.length;
+    }
+
+    /** Affinity string for the next execution site */
+    public synchronized String placeSite() {
+        final int node = m_nextSiteNode++ % m_nodeIds.length;
+        if (m_nextLow[node] > m_nextHigh[node]) {
+            return nodeAffinity(node);
+        }
+        return m_nodeCores.get(node).get(m_nextLow[node]++).toString();
+    }
+
+    /** Affinity string for the next network thread */
+    public synchronized String placeNetworkThread() {
+        final int node = m_nextNetworkNode++ % m_nodeIds.length;
+        if (m_nextLow[node] > m_nextHigh[node]) {
+            return nodeAffinity(node);
+        }
+        return m_nodeCores.get(node).get(m_nextHigh[node]--).toString();
+    }
+
+    private String nodeAffinity(int node) {
+        StringBuilder sb = new StringBuilder();
+        for (Integer core : m_nodeCores.get(node)) {
+            if (sb.length() > 0) {
+                sb.append(':');
+            }
+            sb.append(core);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The id of the node an affinity string is local to, judged by its first
+     * core, or -1 if that core is not on any known node.
+     */
+    public int nodeOf(String affinity) {
+        String first = affinity.split("[:-]")[0];
+        if (first.startsWith("!")) {
+            first = first.substring(1);
+        }
+        final int core;
+        try {
+            core = Integer.parseInt(first.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        for (int ii = 0; ii < m_nodeIds.length; ii++) {
+            if (m_nodeCores.get(ii).contains(core)) {
+                return m_nodeIds[ii];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Describe a binding for reporting, e.g. "node1/12".
+     */
+    public String describe(String affinity) {
+        return "node" + nodeOf(affinity) + "/" + affinity;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int ii = 0; ii < m_nodeIds.length; ii++) {
+            if (ii > 0) {
+                sb.append(", ");
+            }
+            sb.append("node").append(m_nodeIds[ii]).append(' ');
+            sb.append(Arrays.toString(m_nodeCores.get(ii).toArray()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,42 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.voltcore.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A DeferredSerialization that can report its size before serializing and
+ * then write itself straight into a buffer supplied by the network. The
+ * write stream uses this to pack many small messages into one pooled
+ * direct buffer without allocating an intermediate heap buffer per message.
+ */
+public interface DirectDeferredSerialization extends DeferredSerialization {
+    /**
+     * Return the number of bytes that serialize(ByteBuffer) will write, or 0 if
+     * there is nothing to write. Called exactly once, before serialize(ByteBuffer).
+     * @throws IOException Thrown here because FastSerialzier throws IOException
+     */
+    int getSerializedSize() throws IOException;
+
+    /**
+     * Serialize the Object into buf starting at its current position. Exactly
+     * getSerializedSize() bytes must be written.
+     * @throws IOException Thrown here because FastSerialzier throws IOException
+     */
+    void serialize(ByteBuffer buf) throws IOException;
+}
@@ -28,6 +28,7 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -66,7 +67,7 @@ import org.voltcore.network.VoltProtocolHandler;
 import org.voltcore.network.WriteStream;
 import org.voltcore.utils.COWMap;
 import org.voltcore.utils.CoreUtils;
-import org.voltcore.utils.DeferredSerialization;
+import org.voltcore.utils.DirectDeferredSerialization;
 import org.voltcore.utils.EstTime;
 import org.voltcore.utils.Pair;
 import org.voltdb.ClientInterfaceHandleManager.Iv2InFlight;
@@ -79,6 +80,8 @@ import org.voltdb.catalog.SnapshotSchedule;
 import org.voltdb.catalog.Statement;
 import org.voltdb.catalog.Table;
 import org.voltdb.client.ClientResponse;
+import org.voltdb.client.InvocationBatch;
+import org.voltdb.client.PreparedAdHoc;
 import org.voltdb.client.ProcedureInvocationType;
 import org.voltdb.compiler.AdHocPlannedStatement;
 import org.voltdb.compiler.AdHocPlannedStmtBatch;
@@ -97,6 +100,7 @@ import org.voltdb.messaging.FastDeserializer;
 import org.voltdb.messaging.FastSerializer;
 import org.voltdb.messaging.InitiateResponseMessage;
 import org.voltdb.messaging.Iv2EndOfLogMessage;
+import org.voltdb.messaging.Iv2InitiateTaskBatchMessage;
 import org.voltdb.messaging.Iv2InitiateTaskMessage;
 import org.voltdb.messaging.LocalMailbox;
 import org.voltdb.messaging.MultiPartitionParticipantMessage;
@@ -127,6 +131,14 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
     public static final byte AUTHENTICATION_FAILURE_DUE_TO_REJOIN = 4;
     public static final byte EXPORT_DISABLED_REJECTION = 5;
 
+    // Bits of the login version byte with which a database client asks for
+    // optional response encodings. The server echoes the bits it accepted.
+    // Columnar: large result tables in the layout of ColumnarTable.
+    // Streamed: large results sent as a series of row chunks ahead of the
+    // response, see StreamedClientResponse.
+    public static final byte COLUMNAR_RESULTS_PROTOCOL_VERSION = 1;
+    public static final byte STREAMED_RESULTS_PROTOCOL_VERSION = 2;
+
     private static final VoltLogger log = new VoltLogger(ClientInterface.class.getName());
     private static final VoltLogger authLog = new VoltLogger("AUTH");
     private static final VoltLogger hostLog = new VoltLogger("HOST");
@@ -146,6 +158,9 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
     // Atomically allows the catalog reference to change between access
     private final AtomicReference<CatalogContext> m_catalogContext = new AtomicReference<CatalogContext>(null);
 
+    /** Ad hoc statements prepared on this host, see @AdHocPrepare */
+    private final PreparedAdHocStatements m_preparedAdHoc = new PreparedAdHocStatements();
+
     /**
      * Counter of the number of client connections. Used to enforce a limit on the maximum number of connections
      */
@@ -608,7 +623,8 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
                 return null;
             }
 
-            message.flip().position(1);//skip version
+            message.flip();
+            final byte requestedVersion = message.get();
             FastDeserializer fds = new FastDeserializer(message);
             final String service = fds.readString();
             final String username = fds.readString();
@@ -652,12 +668,22 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
              * Create an input handler.
              */
             InputHandler handler = null;
+            byte acceptedVersion = 0;
             if (service.equalsIgnoreCase("database")) {
-                handler =
+                ClientInputHandler clientHandler =
                     new ClientInputHandler(
                             username,
                             socket.socket().getInetAddress().getHostName(),
                             m_isAdmin);
+                if ((requestedVersion & COLUMNAR_RESULTS_PROTOCOL_VERSION) != 0) {
+                    clientHandler.setColumnarResults(true);
+                    acceptedVersion |= COLUMNAR_RESULTS_PROTOCOL_VERSION;
+                }
+                if ((requestedVersion & STREAMED_RESULTS_PROTOCOL_VERSION) != 0) {
+                    clientHandler.setStreamedResults(true);
+                    acceptedVersion |= STREAMED_RESULTS_PROTOCOL_VERSION;
+                }
+                handler = clientHandler;
             }
             else {
                 String strUser = "ANONYMOUS";
@@ -691,7 +717,7 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
                 byte buildString[] = VoltDB.instance().getBuildString().getBytes("UTF-8");
                 responseBuffer = ByteBuffer.allocate(34 + buildString.length);
                 responseBuffer.putInt(30 + buildString.length);//message length
-                responseBuffer.put((byte)0);//version
+                responseBuffer.put(acceptedVersion);//version
 
                 //Send positive response
                 responseBuffer.put((byte)0);
@@ -725,6 +751,8 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
         private Connection m_connection;
         private final String m_hostname;
         private final boolean m_isAdmin;
+        private boolean m_columnarResults = false;
+        private boolean m_streamedResults = false;
 
         /**
          * Must use username to do a lookup via the auth system
@@ -746,6 +774,16 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
             return m_isAdmin;
         }
 
+        void setColumnarResults(boolean columnarResults)
+        {
+            m_columnarResults = columnarResults;
+        }
+
+        void setStreamedResults(boolean streamedResults)
+        {
+            m_streamedResults = streamedResults;
+        }
+
         @Override
         public int getMaxRead() {
             if (m_hasDTXNBackPressure) {
@@ -760,10 +798,7 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
             try {
                 final ClientResponseImpl error = handleRead(message, this, c);
                 if (error != null) {
-                    ByteBuffer buf = ByteBuffer.allocate(error.getSerializedSize() + 4);
-                    buf.putInt(buf.capacity() - 4);
-                    error.flattenToBuffer(buf).flip();
-                    c.writeStream().enqueue(buf);
+                    enqueueResponse(c, error);
                 }
             } catch (Exception e) {
                 throw new RuntimeException(e);
@@ -774,8 +809,11 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
         public void started(final Connection c) {
             m_connection = c;
             if (m_isIV2Enabled) {
-                m_cihm.put(c.connectionId(),
-                           new ClientInterfaceHandleManager( m_isAdmin, c, m_acg.get()));
+                ClientInterfaceHandleManager cihm =
+                    new ClientInterfaceHandleManager( m_isAdmin, c, m_acg.get());
+                cihm.setColumnarResults(m_columnarResults);
+                cihm.setStreamedResults(m_streamedResults);
+                m_cihm.put(c.connectionId(), cihm);
                 m_acg.get().addMember(this);
                 if (!m_acg.get().hasBackPressure()) {
                     c.enableReadSelection();
@@ -818,6 +856,10 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
                         if (!m_acg.get().hasBackPressure()) {
                             m_connection.enableReadSelection();
                         }
+                        ClientInterfaceHandleManager cihm = m_cihm.get(m_connection.connectionId());
+                        if (cihm != null) {
+                            cihm.resumeStreamedResponses();
+                        }
                     }
                 };
             }
@@ -899,7 +941,7 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
      * Runs on the network thread to prepare client response. If a transaction needs to be
      * restarted, it will get restarted here.
      */
-    private class ClientResponseWork implements DeferredSerialization {
+    private class ClientResponseWork implements DirectDeferredSerialization {
         private final ClientInterfaceHandleManager cihm;
         private final InitiateResponseMessage response;
         private final StoredProcedureInvocation invocation;
@@ -919,6 +961,22 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
 
         @Override
         public ByteBuffer[] serialize() throws IOException
+        {
+            final int size = getSerializedSize();
+            if (size == 0) {
+                return new ByteBuffer[] {};
+            }
+            ByteBuffer results = ByteBuffer.allocate(size);
+            serialize(results);
+            return new ByteBuffer[] { results };
+        }
+
+        /**
+         * Retire the handle and finish filling in the response. Returns 0 if
+         * nothing should be sent to the client.
+         */
+        @Override
+        public int getSerializedSize() throws IOException
         {
             // HACK-O-RIFFIC
             // For now, figure out if this is a transaction that was ignored
@@ -934,7 +992,7 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
                 clientData = cihm.findHandle(response.getClientInterfaceHandle());
             }
             if (clientData == null) {
-                return new ByteBuffer[] {};
+                return 0;
             }
             final long now = System.currentTimeMillis();
             final int delta = (int)(now - clientData.m_creationTime);
@@ -943,7 +1001,7 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
             if (restartTransaction(clientData.m_messageSize, clientData.m_creationTime)) {
                 // If the transaction is successfully restarted, don't send a response to the
                 // client yet.
-                return new ByteBuffer[] {};
+                return 0;
             }
 
             /*
@@ -959,11 +1017,25 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
             clientResponse.setClientHandle(clientData.m_clientHandle);
             clientResponse.setClusterRoundtrip(delta);
             clientResponse.setHash(null); // not part of wire protocol
+            clientResponse.setColumnarEncoding(cihm.wantsColumnarResults());
 
-            ByteBuffer results = ByteBuffer.allocate(clientResponse.getSerializedSize() + 4);
-            results.putInt(results.capacity() - 4);
-            clientResponse.flattenToBuffer(results);
-            return new ByteBuffer[] { results };
+            if (cihm.wantsStreamedResults() && StreamedClientResponse.shouldStream(clientResponse)) {
+                // the chunks and the response follow as the connection drains
+                new StreamedClientResponse(cihm, clientResponse).pump();
+                return 0;
+            }
+
+            return clientResponse.getSerializedSize() + 4;
+        }
+
+        /**
+         * Write the length prefixed response straight into the network's pooled buffer
+         */
+        @Override
+        public void serialize(ByteBuffer buf) throws IOException
+        {
+            buf.putInt(clientResponse.getSerializedSize());
+            clientResponse.flattenToBuffer(buf);
         }
 
         @Override
@@ -1109,6 +1181,45 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
             final int messageSize,
             final long now,
             final boolean isForReplay)
+    {
+        Iv2InitiateTaskMessage workRequest =
+            createInitiateTask(
+                    connectionId,
+                    txnId,
+                    uniqueId,
+                    invocation,
+                    isReadOnly,
+                    isSinglePartition,
+                    isEveryPartition,
+                    partitions,
+                    messageSize,
+                    now,
+                    isForReplay);
+        if (workRequest == null) {
+            return false;
+        }
+
+        m_mailbox.send(workRequest.getCoordinatorHSId(), workRequest);
+        return true;
+    }
+
+    /**
+     * Pick the initiator for an invocation, allocate its client interface handle and
+     * build the initiate task addressed to it. The initiator is the coordinator of
+     * the returned message. Returns null if no initiator could be found.
+     */
+    private Iv2InitiateTaskMessage createInitiateTask(
+            final long connectionId,
+            final long txnId,
+            final long uniqueId,
+            final StoredProcedureInvocation invocation,
+            final boolean isReadOnly,
+            final boolean isSinglePartition,
+            final boolean isEveryPartition,
+            final int partitions[],
+            final int messageSize,
+            final long now,
+            final boolean isForReplay)
     {
         final ClientInterfaceHandleManager cihm = m_cihm.get(connectionId);
 
@@ -1137,7 +1248,7 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
         if (initiatorHSId == null) {
             hostLog.error("Failed to find master initiator for partition: "
                     + Integer.toString(partitions[0]) + ". Transaction not initiated.");
-            return false;
+            return null;
         }
 
         long handle = cihm.getHandle(isSinglePartition, partitions[0], invocation.getClientHandle(),
@@ -1157,8 +1268,7 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
                     isForReplay);
 
         Iv2Trace.logCreateTransaction(workRequest);
-        m_mailbox.send(initiatorHSId, workRequest);
-        return true;
+        return workRequest;
     }
 
 
@@ -1425,6 +1535,7 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
      */
     public void notifyOfCatalogUpdate() {
         m_catalogContext.set(VoltDB.instance().getCatalogContext());
+        m_preparedAdHoc.clear();
         /*
          * Update snapshot daemon settings.
          *
@@ -1614,6 +1725,171 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
         return null;
     }
 
+    /**
+     * Plan a single statement, which may have user parameters, and remember it
+     * under a handle for @AdHocExecute. With parameters beyond the SQL, the
+     * statement is executed with them once prepared instead of returning the handle.
+     */
+    ClientResponseImpl dispatchAdHocPrepare(StoredProcedureInvocation task, ClientInputHandler handler, Connection ccxn) {
+        Object[] args = task.getParams().toArray();
+        if (args.length < 1 || !(args[0] instanceof String)) {
+            return new ClientResponseImpl(ClientResponseImpl.GRACEFUL_FAILURE,
+                    new VoltTable[0], "@AdHocPrepare requires the SQL statement to prepare as its first parameter.",
+                    task.clientHandle);
+        }
+        String sql = (String) args[0];
+        Object[] executeParams = null;
+        if (args.length > 1) {
+            executeParams = Arrays.copyOfRange(args, 1, args.length);
+        }
+
+        AdHocPlannedStatement prepared = m_preparedAdHoc.get(PreparedAdHocStatements.handleForSQL(sql),
+                                                             m_catalogContext.get().catalogVersion);
+        if (prepared != null) {
+            if (executeParams == null) {
+                return preparedAdHocResponse(PreparedAdHocStatements.handleForSQL(sql), prepared, task.clientHandle);
+            }
+            return executePreparedAdHoc(prepared, executeParams, task.clientHandle, handler.connectionId(),
+                    handler.m_hostname, handler.isAdmin(), ccxn,
+                    task.type, task.originalTxnId, task.originalUniqueId);
+        }
+
+        List<String> sqlStatements = MiscUtils.splitSQLStatements(sql);
+        if (sqlStatements.size() != 1) {
+            return new ClientResponseImpl(ClientResponseImpl.GRACEFUL_FAILURE,
+                    new VoltTable[0], "@AdHocPrepare requires exactly one SQL statement.",
+                    task.clientHandle);
+        }
+
+        AdHocPlannerWork ahpw = new AdHocPlannerWork(
+                m_siteId,
+                false, task.clientHandle, handler.connectionId(),
+                handler.m_hostname, handler.isAdmin(), ccxn,
+                sql, sqlStatements, null, null, true, true,
+                task.type, task.originalTxnId, task.originalUniqueId,
+                m_adhocCompletionHandler);
+        ahpw.setIsPrepareWork(executeParams);
+
+        m_mailbox.send(m_plannerSiteId, new LocalObjectMessage(ahpw));
+        return null;
+    }
+
+    /**
+     * Execute a statement prepared on this host by its handle. The first
+     * parameter is the handle, the rest are the statement's parameters.
+     */
+    ClientResponseImpl dispatchAdHocExecute(StoredProcedureInvocation task, ClientInputHandler handler, Connection ccxn) {
+        Object[] args = task.getParams().toArray();
+        if (args.length < 1 || !(args[0] instanceof Number)) {
+            return new ClientResponseImpl(ClientResponseImpl.GRACEFUL_FAILURE,
+                    new VoltTable[0], "@AdHocExecute requires the handle of a prepared statement as its first parameter.",
+                    task.clientHandle);
+        }
+        AdHocPlannedStatement prepared = m_preparedAdHoc.get(((Number) args[0]).longValue(),
+                                                             m_catalogContext.get().catalogVersion);
+        if (prepared == null) {
+            return new ClientResponseImpl(ClientResponseImpl.GRACEFUL_FAILURE,
+                    new VoltTable[0], PreparedAdHoc.NOT_FOUND_STATUS, task.clientHandle);
+        }
+        return executePreparedAdHoc(prepared, Arrays.copyOfRange(args, 1, args.length),
+                task.clientHandle, handler.connectionId(), handler.m_hostname, handler.isAdmin(), ccxn,
+                task.type, task.originalTxnId, task.originalUniqueId);
+    }
+
+    /**
+     * Bind parameters to a prepared statement and initiate it through the ad hoc
+     * sysprocs, the same way a freshly planned @AdHoc batch would be.
+     *
+     * @return an error response, or null if the transaction was initiated
+     */
+    private ClientResponseImpl executePreparedAdHoc(AdHocPlannedStatement prepared, Object[] params,
+            long clientHandle, long connectionId, String hostname, boolean adminConnection,
+            Connection ccxn, ProcedureInvocationType type, long originalTxnId, long originalUniqueId)
+    {
+        if (type == ProcedureInvocationType.ORIGINAL && !prepared.core.readOnly &&
+            VoltDB.instance().getReplicationRole() == ReplicationRole.REPLICA) {
+            return new ClientResponseImpl(ClientResponseImpl.UNEXPECTED_FAILURE,
+                    new VoltTable[0], "Write procedure @AdHocExecute is not allowed in replica cluster",
+                    clientHandle);
+        }
+        final int expected = PreparedAdHocStatements.userParameterCount(prepared);
+        if (params.length != expected) {
+            return new ClientResponseImpl(ClientResponseImpl.GRACEFUL_FAILURE,
+                    new VoltTable[0], "Prepared statement expects " + expected +
+                    " parameters but received " + params.length + ".", clientHandle);
+        }
+
+        ParameterSet paramSet = prepared.extractedParamValues;
+        Object partitionParam = prepared.partitionParam;
+        if (expected > 0) {
+            VoltType[] types = prepared.core.parameterTypes;
+            Object[] converted = new Object[params.length];
+            for (int i = 0; i < params.length; i++) {
+                if (types[i] == VoltType.INVALID || types[i] == VoltType.NULL) {
+                    // the planner couldn't type the parameter, leave it to the EE
+                    converted[i] = params[i];
+                    continue;
+                }
+                try {
+                    converted[i] = ParameterConverter.tryToMakeCompatible(
+                            false, false, types[i].classFromType(), null, params[i]);
+                } catch (Exception e) {
+                    return new ClientResponseImpl(ClientResponseImpl.GRACEFUL_FAILURE,
+                            new VoltTable[0], "Unable to convert parameter " + i + " of prepared statement to " +
+                            types[i] + ": " + e.getMessage(), clientHandle);
+                }
+            }
+            paramSet = ParameterSet.fromArrayNoCopy(converted);
+            if (prepared.core.partitioningParamIndex >= 0) {
+                partitionParam = converted[prepared.core.partitioningParamIndex];
+            }
+        }
+
+        String sql = new String(prepared.sql, VoltDB.UTF8ENCODING);
+        AdHocPlannedStmtBatch plannedStmtBatch =
+            new AdHocPlannedStmtBatch(sql, partitionParam, clientHandle, connectionId, hostname,
+                                      adminConnection, type, originalTxnId, originalUniqueId, ccxn);
+        plannedStmtBatch.addStatement(
+                new AdHocPlannedStatement(prepared.sql, prepared.core, paramSet, null, null, partitionParam));
+        createAdHocTransaction(plannedStmtBatch);
+        return null;
+    }
+
+    private ClientResponseImpl preparedAdHocResponse(long handle, AdHocPlannedStatement prepared, long clientHandle) {
+        VoltTable table = new VoltTable(new VoltTable.ColumnInfo("HANDLE", VoltType.BIGINT),
+                                        new VoltTable.ColumnInfo("PARAMETER_COUNT", VoltType.INTEGER));
+        table.addRow(handle, PreparedAdHocStatements.userParameterCount(prepared));
+        return new ClientResponseImpl(ClientResponseImpl.SUCCESS, new VoltTable[] { table }, null, clientHandle);
+    }
+
+    /**
+     * Remember a statement planned for @AdHocPrepare and either return its
+     * handle or execute it, as the client asked.
+     */
+    private void processPreparedStmtBatch(AdHocPlannedStmtBatch plannedStmtBatch) {
+        final Connection c = (Connection)plannedStmtBatch.clientData;
+        AdHocPlannedStatement prepared = plannedStmtBatch.getPlannedStatement(0);
+        long handle = m_preparedAdHoc.put(plannedStmtBatch.sqlBatchText, prepared);
+
+        ClientResponseImpl response;
+        if (plannedStmtBatch.getExecuteParams() == null) {
+            response = preparedAdHocResponse(handle, prepared, plannedStmtBatch.clientHandle);
+        }
+        else {
+            response = executePreparedAdHoc(prepared, plannedStmtBatch.getExecuteParams(),
+                    plannedStmtBatch.clientHandle, plannedStmtBatch.connectionId,
+                    plannedStmtBatch.hostname, plannedStmtBatch.adminConnection, c,
+                    plannedStmtBatch.type, plannedStmtBatch.originalTxnId, plannedStmtBatch.originalUniqueId);
+        }
+        if (response != null) {
+            ByteBuffer buf = ByteBuffer.allocate(response.getSerializedSize() + 4);
+            buf.putInt(buf.capacity() - 4);
+            response.flattenToBuffer(buf);
+            buf.flip();
+            c.writeStream().enqueue(buf);
+        }
+    }
+
     ClientResponseImpl dispatchUpdateApplicationCatalog(StoredProcedureInvocation task,
             ClientInputHandler handler, Connection ccxn)
     {
@@ -1804,6 +2080,125 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
         return null;
     }
 
+    /**
+     * Unpack a batch of invocations that a client grouped by partition, validate and
+     * route each one, and send all the single partition initiations bound for the same
+     * initiator as one Iv2InitiateTaskBatchMessage. Invocations that fail validation
+     * are answered on their own client handles. The batch itself is acknowledged with
+     * an empty response on its handle; a failure response on the batch handle tells
+     * the client that none of the invocations were initiated.
+     */
+    private ClientResponseImpl dispatchInvocationBatch(final StoredProcedureInvocation batch,
+                                                       final AuthSystem.AuthUser user,
+                                                       final ClientInputHandler handler,
+                                                       final Connection ccxn,
+                                                       final long now) throws IOException
+    {
+        final ByteBuffer invocations;
+        try {
+            invocations = ByteBuffer.wrap((byte[])batch.getParameterAtIndex(0));
+        } catch (Exception e) {
+            return new ClientResponseImpl(ClientResponseImpl.GRACEFUL_FAILURE,
+                    new VoltTable[0], "Malformed invocation batch: " + e.getMessage(),
+                    batch.clientHandle);
+        }
+
+        final CatalogContext catalogContext = m_catalogContext.get();
+        final Map<Long, List<Iv2InitiateTaskMessage>> tasksByInitiator =
+            new HashMap<Long, List<Iv2InitiateTaskMessage>>();
+        final int count = invocations.getInt();
+        for (int ii = 0; ii < count; ii++) {
+            final int size = invocations.getInt();
+            final ByteBuffer serialized = invocations.slice();
+            serialized.limit(size);
+            invocations.position(invocations.position() + size);
+            final StoredProcedureInvocation task =
+                new FastDeserializer(serialized).readObject(StoredProcedureInvocation.class);
+
+            final Procedure catProc = catalogContext.procedures.get(task.procName);
+            ClientResponseImpl error = null;
+            if (catProc == null) {
+                final String errorMessage = task.procName.startsWith("@") ?
+                        "System procedure " + task.procName + " can't be invoked in a batch" :
+                        "Procedure " + task.procName + " was not found";
+                error = new ClientResponseImpl(ClientResponseImpl.UNEXPECTED_FAILURE,
+                        new VoltTable[0], errorMessage, task.clientHandle);
+            }
+            if (error == null) {
+                error = checkPolicies(null, user, task, catProc);
+            }
+            if (error == null) {
+                error = checkPolicies(task.procName, user, task, catProc);
+            }
+            if (error != null) {
+                enqueueResponse(ccxn, error);
+                continue;
+            }
+
+            if (!catProc.getSinglepartition()) {
+                // Nothing to group with, initiate it as if it had been sent alone
+                if (!createTransaction(handler.connectionId(), handler.m_hostname,
+                        handler.isAdmin(), task, catProc.getReadonly(), false,
+                        catProc.getEverysite(), m_allPartitions, ccxn, size, now)) {
+                    enqueueResponse(ccxn, new ClientResponseImpl(ClientResponseImpl.UNEXPECTED_FAILURE,
+                            new VoltTable[0], ClientResponseImpl.IGNORED_TRANSACTION,
+                            task.clientHandle));
+                }
+                continue;
+            }
+
+            final int partition;
+            try {
+                partition = getPartitionForProcedure(catProc.getPartitionparameter(),
+                        catProc.getPartitioncolumn().getType(), task);
+            }
+            catch (Exception e) {
+                authLog.l7dlog( Level.WARN,
+                        LogKeys.host_ClientInterface_unableToRouteSinglePartitionInvocation.name(),
+                        new Object[] { task.procName }, null);
+                enqueueResponse(ccxn, new ClientResponseImpl(ClientResponseImpl.UNEXPECTED_FAILURE,
+                        new VoltTable[0], "Error sending procedure " + task.procName +
+                        " to the correct partition. Make sure parameter values are correct.",
+                        task.clientHandle));
+                continue;
+            }
+
+            final Iv2InitiateTaskMessage workRequest =
+                createInitiateTask(handler.connectionId(),
+                        Iv2InitiateTaskMessage.UNUSED_MP_TXNID, 0, task,
+                        catProc.getReadonly(), true, false, new int[] { partition },
+                        size, now, false);
+            if (workRequest == null) {
+                enqueueResponse(ccxn, new ClientResponseImpl(ClientResponseImpl.UNEXPECTED_FAILURE,
+                        new VoltTable[0], ClientResponseImpl.IGNORED_TRANSACTION,
+                        task.clientHandle));
+                continue;
+            }
+            List<Iv2InitiateTaskMessage> tasks = tasksByInitiator.get(workRequest.getCoordinatorHSId());
+            if (tasks == null) {
+                tasks = new ArrayList<Iv2InitiateTaskMessage>();
+                tasksByInitiator.put(workRequest.getCoordinatorHSId(), tasks);
+            }
+            tasks.add(workRequest);
+        }
+
+        for (Map.Entry<Long, List<Iv2InitiateTaskMessage>> e : tasksByInitiator.entrySet()) {
+            if (e.getValue().size() == 1) {
+                m_mailbox.send(e.getKey(), e.getValue().get(0));
+            } else {
+                m_mailbox.send(e.getKey(), new Iv2InitiateTaskBatchMessage(e.getValue()));
+            }
+        }
+        return new ClientResponseImpl(ClientResponseImpl.SUCCESS, new VoltTable[0], "", batch.clientHandle);
+    }
+
+    private static void enqueueResponse(Connection c, ClientResponseImpl response) {
+        ByteBuffer buf = ByteBuffer.allocate(response.getSerializedSize() + 4);
+        buf.putInt(buf.capacity() - 4);
+        response.flattenToBuffer(buf).flip();
+        c.writeStream().enqueue(buf);
+    }
+
     /**
      *
      * @param port
@@ -1843,7 +2238,9 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
         }
 
         if (catProc == null) {
-            if( task.procName.equals("@AdHoc") ){
+            if (task.procName.equals("@AdHoc") ||
+                task.procName.equals("@AdHocPrepare") ||
+                task.procName.equals("@AdHocExecute")) {
                 // Map @AdHoc... to @AdHoc_RW_MP for validation. In the future if security is
                 // configured differently for @AdHoc... variants this code will have to
                 // change in order to use the proper variant based on whether the work
@@ -1871,6 +2268,10 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
                     task.clientHandle);
         }
 
+        if (catProc == null && task.procName.equals(InvocationBatch.PROCEDURE_NAME)) {
+            return dispatchInvocationBatch(task, user, handler, ccxn, now);
+        }
+
         if (catProc == null) {
             String errorMessage = "Procedure " + task.procName + " was not found";
             authLog.l7dlog( Level.WARN, LogKeys.auth_ClientInterface_ProcedureNotFound.name(), new Object[] { task.procName }, null);
@@ -1894,6 +2295,10 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
             // these have helpers that do all the work...
             if (task.procName.equals("@AdHoc")) {
                 return dispatchAdHoc(task, handler, ccxn, false);
+            } else if (task.procName.equals("@AdHocPrepare")) {
+                return dispatchAdHocPrepare(task, handler, ccxn);
+            } else if (task.procName.equals("@AdHocExecute")) {
+                return dispatchAdHocExecute(task, handler, ccxn);
             } else if (task.procName.equals("@UpdateApplicationCatalog")) {
                 return dispatchUpdateApplicationCatalog(task, handler, ccxn);
             } else if (task.procName.equals("@LoadMultipartitionTable")) {
@@ -2135,7 +2540,7 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
                             /* The adhoc planner learns of catalog updates after the EE and the
                                rest of the system. If the adhoc sql was planned against an
                                obsolete catalog, re-plan. */
-                            LocalObjectMessage work = new LocalObjectMessage(
+                            AdHocPlannerWork replan =
                                     new AdHocPlannerWork(m_siteId,
                                             false,
                                             plannedStmtBatch.clientHandle,
@@ -2145,20 +2550,27 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
                                             plannedStmtBatch.clientData,
                                             plannedStmtBatch.sqlBatchText,
                                             plannedStmtBatch.getSQLStatements(),
-                                            plannedStmtBatch.partitionParam,
+                                            plannedStmtBatch.isPrepareWork() ? null : plannedStmtBatch.partitionParam,
                                             null,
-                                            false,
+                                            plannedStmtBatch.isPrepareWork(),
                                             true,
                                             plannedStmtBatch.type,
                                             plannedStmtBatch.originalTxnId,
                                             plannedStmtBatch.originalUniqueId,
-                                            m_adhocCompletionHandler));
+                                            m_adhocCompletionHandler);
+                            if (plannedStmtBatch.isPrepareWork()) {
+                                replan.setIsPrepareWork(plannedStmtBatch.getExecuteParams());
+                            }
+                            LocalObjectMessage work = new LocalObjectMessage(replan);
 
                             m_mailbox.send(m_plannerSiteId, work);
                         }
                         else if( plannedStmtBatch.isExplainWork() ) {
                             processExplainPlannedStmtBatch( plannedStmtBatch );
                         }
+                        else if (plannedStmtBatch.isPrepareWork()) {
+                            processPreparedStmtBatch(plannedStmtBatch);
+                        }
                         else {
                             createAdHocTransaction(plannedStmtBatch);
                         }
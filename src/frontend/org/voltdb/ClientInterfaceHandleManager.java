@@ -58,7 +58,10 @@ public class ClientInterfaceHandleManager
     public final Connection connection;
     private final long m_expectedThreadId = Thread.currentThread().getId();
     final AdmissionControlGroup m_acg;
-
+    private boolean m_columnarResults = false;
+    private boolean m_streamedResults = false;
+    // streamed responses waiting for the connection to drain
+    private final List<StreamedClientResponse> m_stalledStreams = new ArrayList<StreamedClientResponse>();
 
     private HandleGenerator m_shortCircuitHG = new HandleGenerator(SHORT_CIRCUIT_PART_ID);
 
@@ -83,6 +86,60 @@ public class ClientInterfaceHandleManager
         }
     }
 
+    /**
+     * Set when the client negotiated columnar result tables at login
+     */
+    void setColumnarResults(boolean columnarResults)
+    {
+        m_columnarResults = columnarResults;
+    }
+
+    boolean wantsColumnarResults()
+    {
+        return m_columnarResults;
+    }
+
+    /**
+     * Set when the client negotiated streamed results at login
+     */
+    void setStreamedResults(boolean streamedResults)
+    {
+        m_streamedResults = streamedResults;
+    }
+
+    boolean wantsStreamedResults()
+    {
+        return m_streamedResults;
+    }
+
+    /**
+     * Park a streamed response until the connection's write backpressure ends
+     */
+    void stallStreamedResponse(StreamedClientResponse stream)
+    {
+        synchronized (m_stalledStreams) {
+            m_stalledStreams.add(stream);
+        }
+    }
+
+    /**
+     * Called when the connection's write backpressure ends
+     */
+    void resumeStreamedResponses()
+    {
+        List<StreamedClientResponse> stalled;
+        synchronized (m_stalledStreams) {
+            if (m_stalledStreams.isEmpty()) {
+                return;
+            }
+            stalled = new ArrayList<StreamedClientResponse>(m_stalledStreams);
+            m_stalledStreams.clear();
+        }
+        for (StreamedClientResponse stream : stalled) {
+            stream.pump();
+        }
+    }
+
     public static int getPartIdFromHandle(long handle)
     {
         return (int)((handle >> PART_ID_SHIFT) & MP_PART_ID);
@@ -18,6 +18,7 @@
 package org.voltdb;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.List;
 
 import org.json_voltpatches.JSONException;
 import org.json_voltpatches.JSONString;
@@ -43,6 +44,20 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
     private VoltTable[] results = new VoltTable[0];
     private Integer m_hash = null;
 
+    // Columnar result encoding, see ColumnarTable. Servers encode results this
+    // way for connections that asked for it at login, once they are large
+    // enough for the column layout to pay off. Clients keep the columnar
+    // tables and only build row-major ones if getResults() is called.
+    static final int COLUMNAR_ENCODING_THRESHOLD = 16 * 1024;
+    private boolean m_columnarEncoding = false;
+    private ByteBuffer[] m_encodedColumnarResults = null;
+    private ColumnarTable[] m_columnarResults = null;
+
+    // Index of the result table whose rows this message carries, for the
+    // chunks of a streamed response, see StreamedClientResponse. -1 for
+    // complete responses.
+    private int m_chunkTableIndex = -1;
+
     private int clusterRoundTripTime = 0;
     private int clientRoundTripTime = 0;
     private SerializableException m_exception = null;
@@ -124,6 +139,8 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
 
         this.status = status;
         this.results = results;
+        m_columnarResults = null;
+        m_encodedColumnarResults = null;
         this.statusString = statusString;
         this.setProperly = true;
     }
@@ -133,6 +150,66 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
         setResults(status, results, extra);
     }
 
+    /**
+     * A chunk of the rows of one result table, sent ahead of the response itself
+     */
+    static ClientResponseImpl resultChunk(long handle, int tableIndex, VoltTable rows) {
+        ClientResponseImpl chunk = new ClientResponseImpl(ClientResponse.SUCCESS, new VoltTable[] { rows }, null, handle);
+        chunk.m_chunkTableIndex = tableIndex;
+        return chunk;
+    }
+
+    /**
+     * @return true if this message is a chunk of result rows rather than a response.
+     * Its single result table holds rows of the response table {@link #getResultChunkTableIndex()}.
+     */
+    public boolean isResultChunk() {
+        return m_chunkTableIndex >= 0;
+    }
+
+    public int getResultChunkTableIndex() {
+        return m_chunkTableIndex;
+    }
+
+    /**
+     * Append the rows of the chunks received ahead of a streamed response to its
+     * result tables, giving the response a client would have received unstreamed.
+     * @param chunks per result table, the chunk tables in the order they arrived
+     */
+    public void appendResultChunks(List<List<VoltTable>> chunks) {
+        VoltTable[] tables = getResults();
+        for (int ii = 0; ii < tables.length && ii < chunks.size(); ii++) {
+            List<VoltTable> tableChunks = chunks.get(ii);
+            if (tableChunks == null || tableChunks.isEmpty()) {
+                continue;
+            }
+            VoltTable schema = tables[ii];
+            int size = schema.m_buffer.limit();
+            int rowCount = schema.getRowCount();
+            for (VoltTable chunk : tableChunks) {
+                size += chunk.m_buffer.limit() - chunk.m_rowStart - 4;
+                rowCount += chunk.getRowCount();
+            }
+            ByteBuffer buf = ByteBuffer.allocate(size);
+            ByteBuffer header = schema.m_buffer.duplicate();
+            header.position(0).limit(schema.m_rowStart);
+            buf.put(header);
+            buf.putInt(rowCount);
+            for (VoltTable chunk : tableChunks) {
+                ByteBuffer rows = chunk.m_buffer.duplicate();
+                rows.limit(chunk.m_buffer.limit()).position(chunk.m_rowStart + 4);
+                buf.put(rows);
+            }
+            ByteBuffer rows = schema.m_buffer.duplicate();
+            rows.limit(schema.m_buffer.limit()).position(schema.m_rowStart + 4);
+            buf.put(rows);
+            buf.flip();
+            tables[ii] = new VoltTable(buf, true);
+        }
+        m_columnarResults = null;
+        results = tables;
+    }
+
     public void setHash(Integer hash) {
         m_hash = hash;
     }
@@ -144,9 +221,34 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
 
     @Override
     public VoltTable[] getResults() {
+        if (results == null) {
+            results = new VoltTable[m_columnarResults.length];
+            for (int ii = 0; ii < results.length; ii++) {
+                results[ii] = m_columnarResults[ii].toVoltTable();
+            }
+        }
         return results;
     }
 
+    @Override
+    public ColumnarTable[] getColumnarResults() {
+        if (m_columnarResults == null) {
+            m_columnarResults = new ColumnarTable[results.length];
+            for (int ii = 0; ii < results.length; ii++) {
+                m_columnarResults[ii] = ColumnarTable.fromVoltTable(results[ii]);
+            }
+        }
+        return m_columnarResults;
+    }
+
+    /**
+     * Allow the results to be serialized column-major, for connections that
+     * negotiated it. Whether they are depends on their size.
+     */
+    public void setColumnarEncoding(boolean columnar) {
+        m_columnarEncoding = columnar;
+    }
+
     @Override
     public String getStatusString() {
         return statusString;
@@ -197,7 +299,21 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
         } else {
             m_hash = null;
         }
-        results = (VoltTable[]) in.readArray(VoltTable.class);
+        if ((presentFields & (1 << 2)) != 0) {
+            m_chunkTableIndex = in.readShort();
+        } else {
+            m_chunkTableIndex = -1;
+        }
+        if ((presentFields & (1 << 3)) != 0) {
+            m_columnarResults = new ColumnarTable[in.readShort()];
+            for (int ii = 0; ii < m_columnarResults.length; ii++) {
+                m_columnarResults[ii] = new ColumnarTable(in.buffer());
+            }
+            results = null;
+        } else {
+            m_columnarResults = null;
+            results = (VoltTable[]) in.readArray(VoltTable.class);
+        }
         setProperly = true;
     }
 
@@ -224,9 +340,27 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
             if (m_hash != null) {
                 msgsize += 4;
             }
-            for (VoltTable vt : results) {
-                msgsize += vt.getSerializedSize();
+            if (m_chunkTableIndex >= 0) {
+                msgsize += 2;
+            }
+            int tablesSize = 0;
+            for (VoltTable vt : getResults()) {
+                tablesSize += vt.getSerializedSize();
+            }
+            if (m_columnarEncoding && m_encodedColumnarResults == null &&
+                    tablesSize >= COLUMNAR_ENCODING_THRESHOLD) {
+                m_encodedColumnarResults = new ByteBuffer[results.length];
+                for (int ii = 0; ii < results.length; ii++) {
+                    m_encodedColumnarResults[ii] = ColumnarTable.encode(results[ii]);
+                }
+            }
+            if (m_encodedColumnarResults != null) {
+                tablesSize = 0;
+                for (ByteBuffer encoded : m_encodedColumnarResults) {
+                    tablesSize += encoded.remaining();
+                }
             }
+            msgsize += tablesSize;
         } catch (Exception e) {
             VoltDB.crashLocalVoltDB("Error serializing client response", false, e);
         }
@@ -253,6 +387,12 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
         if (m_hash != null) {
             presentFields |= 1 << 4;
         }
+        if (m_encodedColumnarResults != null) {
+            presentFields |= 1 << 3;
+        }
+        if (m_chunkTableIndex >= 0) {
+            presentFields |= 1 << 2;
+        }
         buf.put(presentFields);
         buf.put(status);
         if (statusString != null) {
@@ -273,7 +413,16 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
         if (m_hash != null) {
             buf.putInt(m_hash.intValue());
         }
-        buf.putShort((short)results.length);
+        if (m_chunkTableIndex >= 0) {
+            buf.putShort((short)m_chunkTableIndex);
+        }
+        buf.putShort((short)getResults().length);
+        if (m_encodedColumnarResults != null) {
+            for (ByteBuffer encoded : m_encodedColumnarResults) {
+                buf.put(encoded.duplicate());
+            }
+            return buf;
+        }
         for (VoltTable vt : results)
         {
             vt.flattenToBuffer(buf);
@@ -340,7 +489,7 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
             }
             js.key(JSON_RESULTS_KEY);
             js.array();
-            for (VoltTable o : results) {
+            for (VoltTable o : getResults()) {
                 js.value(o);
             }
             js.endArray();
@@ -360,8 +509,9 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
     public int getHashOfTableResults() {
         try {
             long cheesyChecksum = 0;
-            for (int i = 0; i < results.length; ++i) {
-                cheesyChecksum += MiscUtils.cheesyBufferCheckSum(results[i].m_buffer);
+            VoltTable[] tables = getResults();
+            for (int i = 0; i < tables.length; ++i) {
+                cheesyChecksum += MiscUtils.cheesyBufferCheckSum(tables[i].m_buffer);
             }
             return (int)cheesyChecksum;
         } catch (Exception e) {
@@ -385,5 +535,7 @@ public class ClientResponseImpl implements ClientResponse, JSONString {
         VoltTable t = new VoltTable(new VoltTable.ColumnInfo("", VoltType.BIGINT));
         t.addRow(hash);
         results = new VoltTable[] { t };
+        m_columnarResults = null;
+        m_encodedColumnarResults = null;
     }
 }
@@ -0,0 +1,524 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb;
+
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.voltdb.types.TimestampType;
+import org.voltdb.types.VoltDecimalHelper;
+
+/**
+ * <p>A read-only, column-major view of a result table. Connections that ask
+ * for columnar results at login receive large results in this layout, where
+ * each column is one contiguous typed region with a null bitmap. String
+ * columns are dictionary encoded, so repeated values cross the wire once and
+ * can be grouped on their integer codes without decoding.</p>
+ *
+ * <p>Values are read by column and row index. Integer types and timestamps
+ * read as <tt>long</tt>, and a null reads as its type's null sentinel, as it
+ * does through {@link VoltTableRow}. Use {@link #isNull(int, int)} to test
+ * for null. {@link #toVoltTable()} rebuilds the row-major table.</p>
+ *
+ * <p>The serialized form is:</p>
+ * <pre>
+ * int     length of the rest of the table
+ * byte    status code
+ * short   column count
+ * byte[]  column types
+ * string  column names (int length, UTF-8 bytes)
+ * int     row count
+ * per column:
+ *   int    length of the rest of the column
+ *   byte[] null bitmap, (row count + 7) / 8 bytes, bit set when null
+ *   fixed width types: row count values of the type's width
+ *   STRING: int dictionary size, dictionary entries (int length, UTF-8 bytes),
+ *           byte code width (1, 2 or 4), row count codes
+ *   VARBINARY: row count values of int length (-1 when null) and bytes
+ * </pre>
+ */
+public final class ColumnarTable {
+
+    private final byte m_statusCode;
+    private final String[] m_columnNames;
+    private final VoltType[] m_columnTypes;
+    private final int m_rowCount;
+    private final ByteBuffer m_buffer;
+
+    // Per column: offset of the null bitmap and of the values in m_buffer
+    private final int[] m_nullOffsets;
+    private final int[] m_valueOffsets;
+    // STRING columns: the dictionary and the width of a code
+    private final String[][] m_dictionaries;
+    private final int[] m_codeWidths;
+    // VARBINARY columns: offset of each row's length prefix
+    private final int[][] m_varOffsets;
+
+    /**
+     * Read one columnar table from the buffer, which is left positioned
+     * after it. The table keeps a view of the buffer rather than a copy.
+     */
+    public ColumnarTable(ByteBuffer buf) {
+        final int length = buf.getInt();
+        final int end = buf.position() + length;
+        final int oldLimit = buf.limit();
+        buf.limit(end);
+        m_buffer = buf.slice();
+        buf.limit(oldLimit);
+        buf.position(end);
+
+        m_statusCode = m_buffer.get();
+        final int columnCount = m_buffer.getShort();
+        m_columnTypes = new VoltType[columnCount];
+        for (int ii = 0; ii < columnCount; ii++) {
+            m_columnTypes[ii] = VoltType.get(m_buffer.get());
+        }
+        m_columnNames = new String[columnCount];
+        for (int ii = 0; ii < columnCount; ii++) {
+            m_columnNames[ii] = readString(m_buffer);
+        }
+        m_rowCount = m_buffer.getInt();
+
+        m_nullOffsets = new int[columnCount];
+        m_valueOffsets = new int[columnCount];
+        m_dictionaries = new String[columnCount][];
+        m_codeWidths = new int[columnCount];
+        m_varOffsets = new int[columnCount][];
+        for (int ii = 0; ii < columnCount; ii++) {
+            final int columnLength = m_buffer.getInt();
+            final int columnEnd = m_buffer.position() + columnLength;
+            m_nullOffsets[ii] = m_buffer.position();
+            m_buffer.position(m_buffer.position() + (m_rowCount + 7) / 8);
+            switch (m_columnTypes[ii]) {
+            case STRING:
+                final String[] dictionary = new String[m_buffer.getInt()];
+                for (int jj = 0; jj < dictionary.length; jj++) {
+                    dictionary[jj] = readString(m_buffer);
+                }
+                m_dictionaries[ii] = dictionary;
+                m_codeWidths[ii] = m_buffer.get();
+                break;
+            case VARBINARY:
+                final int[] offsets = new int[m_rowCount];
+                for (int row = 0; row < m_rowCount; row++) {
+                    offsets[row] = m_buffer.position();
+                    final int len = m_buffer.getInt();
+                    m_buffer.position(m_buffer.position() + Math.max(len, 0));
+                }
+                m_varOffsets[ii] = offsets;
+                break;
+            default:
+                break;
+            }
+            m_valueOffsets[ii] = m_buffer.position();
+            m_buffer.position(columnEnd);
+        }
+    }
+
+    /**
+     * Build the columnar form of a row-major table, mostly useful to scan a
+     * result that arrived row-major with the same code.
+     */
+    public static ColumnarTable fromVoltTable(VoltTable table) {
+        return new ColumnarTable(encode(table));
+    }
+
+    public byte getStatusCode() {
+        return m_statusCode;
+    }
+
+    public int getRowCount() {
+        return m_rowCount;
+    }
+
+    public int getColumnCount() {
+        return m_columnTypes.length;
+    }
+
+    public String getColumnName(int column) {
+        return m_columnNames[column];
+    }
+
+    public VoltType getColumnType(int column) {
+        return m_columnTypes[column];
+    }
+
+    /**
+     * @return The index of the named column, case insensitive like
+     * {@link VoltTable#getColumnIndex(String)}.
+     */
+    public int getColumnIndex(String name) {
+        for (int ii = 0; ii < m_columnNames.length; ii++) {
+            if (m_columnNames[ii].equalsIgnoreCase(name)) {
+                return ii;
+            }
+        }
+        throw new IllegalArgumentException("No Column named '" + name + "'");
+    }
+
+    public boolean isNull(int column, int row) {
+        checkRow(row);
+        return (m_buffer.get(m_nullOffsets[column] + (row >>> 3)) & (1 << (row & 7))) != 0;
+    }
+
+    /**
+     * Value of a TINYINT, SMALLINT, INTEGER, BIGINT or TIMESTAMP column.
+     * Timestamps are in microseconds since the epoch.
+     */
+    public long getLong(int column, int row) {
+        checkRow(row);
+        final int offset = m_valueOffsets[column];
+        switch (m_columnTypes[column]) {
+        case TINYINT:
+            return m_buffer.get(offset + row);
+        case SMALLINT:
+            return m_buffer.getShort(offset + row * 2);
+        case INTEGER:
+            return m_buffer.getInt(offset + row * 4);
+        case BIGINT:
+        case TIMESTAMP:
+            return m_buffer.getLong(offset + row * 8);
+        default:
+            throw wrongType(column, "long");
+        }
+    }
+
+    public double getDouble(int column, int row) {
+        checkRow(row);
+        if (m_columnTypes[column] != VoltType.FLOAT) {
+            throw wrongType(column, "double");
+        }
+        return m_buffer.getDouble(m_valueOffsets[column] + row * 8);
+    }
+
+    public BigDecimal getDecimal(int column, int row) {
+        checkRow(row);
+        if (m_columnTypes[column] != VoltType.DECIMAL) {
+            throw wrongType(column, "BigDecimal");
+        }
+        final ByteBuffer dup = m_buffer.duplicate();
+        dup.position(m_valueOffsets[column] + row * 16);
+        return VoltDecimalHelper.deserializeBigDecimal(dup);
+    }
+
+    public TimestampType getTimestamp(int column, int row) {
+        if (m_columnTypes[column] != VoltType.TIMESTAMP) {
+            throw wrongType(column, "TimestampType");
+        }
+        return isNull(column, row) ? null : new TimestampType(getLong(column, row));
+    }
+
+    public String getString(int column, int row) {
+        final int code = getStringCode(column, row);
+        return code < 0 ? null : m_dictionaries[column][code];
+    }
+
+    /**
+     * Dictionary code of a STRING value, or -1 for null. Equal strings in a
+     * column share a code.
+     */
+    public int getStringCode(int column, int row) {
+        checkRow(row);
+        if (m_columnTypes[column] != VoltType.STRING) {
+            throw wrongType(column, "String");
+        }
+        if (isNull(column, row)) {
+            return -1;
+        }
+        final int offset = m_valueOffsets[column];
+        switch (m_codeWidths[column]) {
+        case 1:
+            return m_buffer.get(offset + row) & 0xff;
+        case 2:
+            return m_buffer.getShort(offset + row * 2) & 0xffff;
+        default:
+            return m_buffer.getInt(offset + row * 4);
+        }
+    }
+
+    /**
+     * The distinct values of a STRING column, indexed by code.
+     */
+    public String[] getStringDictionary(int column) {
+        if (m_columnTypes[column] != VoltType.STRING) {
+            throw wrongType(column, "String");
+        }
+        return m_dictionaries[column].clone();
+    }
+
+    public byte[] getVarbinary(int column, int row) {
+        checkRow(row);
+        if (m_columnTypes[column] != VoltType.VARBINARY) {
+            throw wrongType(column, "byte[]");
+        }
+        final int offset = m_varOffsets[column][row];
+        final int len = m_buffer.getInt(offset);
+        if (len < 0) {
+            return null;
+        }
+        final byte[] value = new byte[len];
+        final ByteBuffer dup = m_buffer.duplicate();
+        dup.position(offset + 4);
+        dup.get(value);
+        return value;
+    }
+
+    /**
+     * Rebuild the row-major table.
+     */
+    public VoltTable toVoltTable() {
+        final VoltTable.ColumnInfo[] columns = new VoltTable.ColumnInfo[m_columnTypes.length];
+        for (int ii = 0; ii < columns.length; ii++) {
+            columns[ii] = new VoltTable.ColumnInfo(m_columnNames[ii], m_columnTypes[ii]);
+        }
+        final VoltTable table = new VoltTable(columns, columns.length);
+        table.setStatusCode(m_statusCode);
+        final Object[] values = new Object[columns.length];
+        for (int row = 0; row < m_rowCount; row++) {
+            for (int ii = 0; ii < columns.length; ii++) {
+                values[ii] = getObject(ii, row);
+            }
+            table.addRow(values);
+        }
+        return table;
+    }
+
+    private Object getObject(int column, int row) {
+        if (isNull(column, row)) {
+            return null;
+        }
+        switch (m_columnTypes[column]) {
+        case TINYINT:
+        case SMALLINT:
+        case INTEGER:
+        case BIGINT:
+            return getLong(column, row);
+        case TIMESTAMP:
+            return getTimestamp(column, row);
+        case FLOAT:
+            return getDouble(column, row);
+        case DECIMAL:
+            return getDecimal(column, row);
+        case STRING:
+            return getString(column, row);
+        case VARBINARY:
+            return getVarbinary(column, row);
+        default:
+            throw wrongType(column, "Object");
+        }
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= m_rowCount) {
+            throw new IndexOutOfBoundsException("Row index " + row + " is not in a table of " + m_rowCount + " rows");
+        }
+    }
+
+    private IllegalArgumentException wrongType(int column, String javaType) {
+        return new IllegalArgumentException("Column " + m_columnNames[column] + " of type " +
+                m_columnTypes[column] + " can't be read as " + javaType);
+    }
+
+    private static String readString(ByteBuffer buf) {
+        final byte[] bytes = new byte[buf.getInt()];
+        buf.get(bytes);
+        try {
+            return new String(bytes, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static byte[] utf8(String s) {
+        try {
+            return s.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Encode a row-major table in the columnar layout, including the leading
+     * length. The table's row position is reset.
+     */
+    static ByteBuffer encode(VoltTable table) {
+        final int columnCount = table.getColumnCount();
+        final int rowCount = table.getRowCount();
+        final int bitmapSize = (rowCount + 7) / 8;
+
+        final byte[][] names = new byte[columnCount][];
+        int size = 4 + 1 + 2 + columnCount + 4;
+        for (int ii = 0; ii < columnCount; ii++) {
+            names[ii] = utf8(table.getColumnName(ii));
+            size += 4 + names[ii].length;
+        }
+
+        final ByteBuffer[] regions = new ByteBuffer[columnCount];
+        for (int ii = 0; ii < columnCount; ii++) {
+            regions[ii] = encodeColumn(table, ii, rowCount, bitmapSize);
+            size += 4 + regions[ii].remaining();
+        }
+
+        final ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.putInt(size - 4);
+        buf.put(table.getStatusCode());
+        buf.putShort((short)columnCount);
+        for (int ii = 0; ii < columnCount; ii++) {
+            buf.put(table.getColumnType(ii).getValue());
+        }
+        for (int ii = 0; ii < columnCount; ii++) {
+            buf.putInt(names[ii].length);
+            buf.put(names[ii]);
+        }
+        buf.putInt(rowCount);
+        for (int ii = 0; ii < columnCount; ii++) {
+            buf.putInt(regions[ii].remaining());
+            buf.put(regions[ii]);
+        }
+        assert(!buf.hasRemaining());
+        buf.flip();
+        return buf;
+    }
+
+    private static ByteBuffer encodeColumn(VoltTable table, int column, int rowCount, int bitmapSize) {
+        final VoltType type = table.getColumnType(column);
+        final byte[] nulls = new byte[bitmapSize];
+        ByteBuffer values;
+
+        table.resetRowPosition();
+        switch (type) {
+        case TINYINT:
+        case SMALLINT:
+        case INTEGER:
+        case BIGINT:
+        case TIMESTAMP:
+        case FLOAT:
+        case DECIMAL: {
+            final int width = type.getLengthInBytesForFixedTypes();
+            values = ByteBuffer.allocate(bitmapSize + rowCount * width);
+            values.position(bitmapSize);
+            for (int row = 0; table.advanceRow(); row++) {
+                switch (type) {
+                case TINYINT:
+                    values.put((byte)table.getLong(column));
+                    break;
+                case SMALLINT:
+                    values.putShort((short)table.getLong(column));
+                    break;
+                case INTEGER:
+                    values.putInt((int)table.getLong(column));
+                    break;
+                case BIGINT:
+                    values.putLong(table.getLong(column));
+                    break;
+                case TIMESTAMP:
+                    values.putLong(table.getTimestampAsLong(column));
+                    break;
+                case FLOAT:
+                    values.putDouble(table.getDouble(column));
+                    break;
+                default:
+                    VoltDecimalHelper.serializeBigDecimal(table.getDecimalAsBigDecimal(column), values);
+                    break;
+                }
+                if (table.wasNull()) {
+                    nulls[row >>> 3] |= 1 << (row & 7);
+                }
+            }
+            break;
+        }
+        case STRING: {
+            final Map<String, Integer> dictionary = new LinkedHashMap<String, Integer>();
+            final List<byte[]> entries = new ArrayList<byte[]>();
+            final int[] codes = new int[rowCount];
+            int dictionarySize = 4;
+            for (int row = 0; table.advanceRow(); row++) {
+                final String value = table.getString(column);
+                if (value == null) {
+                    nulls[row >>> 3] |= 1 << (row & 7);
+                    continue;
+                }
+                Integer code = dictionary.get(value);
+                if (code == null) {
+                    code = dictionary.size();
+                    dictionary.put(value, code);
+                    final byte[] entry = utf8(value);
+                    entries.add(entry);
+                    dictionarySize += 4 + entry.length;
+                }
+                codes[row] = code;
+            }
+            final int codeWidth = entries.size() <= 0xff ? 1 : entries.size() <= 0xffff ? 2 : 4;
+            values = ByteBuffer.allocate(bitmapSize + dictionarySize + 1 + rowCount * codeWidth);
+            values.position(bitmapSize);
+            values.putInt(entries.size());
+            for (byte[] entry : entries) {
+                values.putInt(entry.length);
+                values.put(entry);
+            }
+            values.put((byte)codeWidth);
+            for (int code : codes) {
+                if (codeWidth == 1) {
+                    values.put((byte)code);
+                } else if (codeWidth == 2) {
+                    values.putShort((short)code);
+                } else {
+                    values.putInt(code);
+                }
+            }
+            break;
+        }
+        case VARBINARY: {
+            final byte[][] rows = new byte[rowCount][];
+            int valuesSize = 0;
+            for (int row = 0; table.advanceRow(); row++) {
+                rows[row] = table.getVarbinary(column);
+                if (rows[row] == null) {
+                    nulls[row >>> 3] |= 1 << (row & 7);
+                }
+                valuesSize += 4 + (rows[row] == null ? 0 : rows[row].length);
+            }
+            values = ByteBuffer.allocate(bitmapSize + valuesSize);
+            values.position(bitmapSize);
+            for (byte[] value : rows) {
+                if (value == null) {
+                    values.putInt(VoltType.NULL_STRING_LENGTH);
+                } else {
+                    values.putInt(value.length);
+                    values.put(value);
+                }
+            }
+            break;
+        }
+        default:
+            throw new IllegalArgumentException("Column type " + type + " has no columnar encoding");
+        }
+        table.resetRowPosition();
+
+        assert(!values.hasRemaining());
+        values.position(0);
+        values.put(nulls);
+        values.position(0);
+        return values;
+    }
+}
@@ -71,6 +71,7 @@ import org.voltdb.fault.SiteFailureFault;
 import org.voltdb.fault.VoltFault;
 import org.voltdb.fault.VoltFault.FaultType;
 import org.voltdb.iv2.JoinProducerBase;
+import org.voltdb.iv2.Site;
 import org.voltdb.jni.ExecutionEngine;
 import org.voltdb.jni.MockExecutionEngine;
 import org.voltdb.messaging.CompleteTransactionMessage;
@@ -607,7 +608,7 @@ implements Runnable, SiteProcedureConnection, SiteSnapshotConnection
         final long time = EstTime.currentTimeMillis();
         if ((time - lastTickTime) >= 1000) {
             if ((lastTickTime != 0) && (ee != null)) {
-                ee.tick(time, lastCommittedTxnId);
+                ee.tick(time, lastCommittedTxnId, Site.COMPACTION_BUDGET_MICROS);
             }
             lastTickTime = time;
         }
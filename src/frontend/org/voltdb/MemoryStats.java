@@ -33,6 +33,10 @@ public class MemoryStats extends StatsSource {
         int indexMem = 0;
         int stringMem = 0;
         long pooledMem = 0;
+        int compactedMem = 0;
+        long compactionTime = 0;
+        long undoQuanta = 0;
+        long undoReleases = 0;
     }
     Map<Long, PartitionMemRow> m_memoryStats = new TreeMap<Long, PartitionMemRow>();
 
@@ -79,6 +83,10 @@ public class MemoryStats extends StatsSource {
         columns.add(new VoltTable.ColumnInfo("STRINGMEMORY", VoltType.INTEGER));
         columns.add(new VoltTable.ColumnInfo("TUPLECOUNT", VoltType.BIGINT));
         columns.add(new VoltTable.ColumnInfo("POOLEDMEMORY", VoltType.BIGINT));
+        columns.add(new VoltTable.ColumnInfo("COMPACTEDMEMORY", VoltType.INTEGER));
+        columns.add(new VoltTable.ColumnInfo("COMPACTIONTIME", VoltType.BIGINT));
+        columns.add(new VoltTable.ColumnInfo("UNDOQUANTA", VoltType.BIGINT));
+        columns.add(new VoltTable.ColumnInfo("UNDORELEASES", VoltType.BIGINT));
     }
 
     @Override
@@ -92,6 +100,10 @@ public class MemoryStats extends StatsSource {
             totals.indexMem += pmr.indexMem;
             totals.stringMem += pmr.stringMem;
             totals.pooledMem += pmr.pooledMem;
+            totals.compactedMem += pmr.compactedMem;
+            totals.compactionTime += pmr.compactionTime;
+            totals.undoQuanta += pmr.undoQuanta;
+            totals.undoReleases += pmr.undoReleases;
         }
 
         // get system statistics
@@ -113,6 +125,10 @@ public class MemoryStats extends StatsSource {
         rowValues[columnNameToIndex.get("STRINGMEMORY")] = totals.stringMem;
         rowValues[columnNameToIndex.get("TUPLECOUNT")] = totals.tupleCount;
         rowValues[columnNameToIndex.get("POOLEDMEMORY")] = totals.pooledMem / 1024;
+        rowValues[columnNameToIndex.get("COMPACTEDMEMORY")] = totals.compactedMem;
+        rowValues[columnNameToIndex.get("COMPACTIONTIME")] = totals.compactionTime;
+        rowValues[columnNameToIndex.get("UNDOQUANTA")] = totals.undoQuanta;
+        rowValues[columnNameToIndex.get("UNDORELEASES")] = totals.undoReleases;
         super.updateStatsRow(rowKey, rowValues);
     }
 
@@ -122,7 +138,11 @@ public class MemoryStats extends StatsSource {
                                               int tupleAllocatedMem,
                                               int indexMem,
                                               int stringMem,
-                                              long pooledMemory) {
+                                              long pooledMemory,
+                                              int compactedMem,
+                                              long compactionTime,
+                                              long undoQuanta,
+                                              long undoReleases) {
         PartitionMemRow pmr = new PartitionMemRow();
         pmr.tupleCount = tupleCount;
         pmr.tupleDataMem = tupleDataMem;
@@ -130,6 +150,10 @@ public class MemoryStats extends StatsSource {
         pmr.indexMem = indexMem;
         pmr.stringMem = stringMem;
         pmr.pooledMem = pooledMemory;
+        pmr.compactedMem = compactedMem;
+        pmr.compactionTime = compactionTime;
+        pmr.undoQuanta = undoQuanta;
+        pmr.undoReleases = undoReleases;
         m_memoryStats.put(siteId, pmr);
     }
 }
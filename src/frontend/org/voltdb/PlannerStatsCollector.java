@@ -118,6 +118,14 @@ public class PlannerStatsCollector extends StatsSource {
     long m_maxPlanningTime = Long.MIN_VALUE;
     long m_lastMaxPlanningTime = Long.MIN_VALUE;
 
+    /**
+     * Total time and count of timed cache 2 hits
+     */
+    long m_cache2HitTime = 0;
+    long m_lastCache2HitTime = 0;
+    long m_timedCache2Hits = 0;
+    long m_lastTimedCache2Hits = 0;
+
     /**
      * Count of the number of errors that occured during procedure execution
      */
@@ -200,6 +208,10 @@ public class PlannerStatsCollector extends StatsSource {
                 m_maxPlanningTime = Math.max(delta, m_maxPlanningTime);
                 m_lastMinPlanningTime = Math.min(delta, m_lastMinPlanningTime);
                 m_lastMaxPlanningTime = Math.max(delta, m_lastMaxPlanningTime);
+                if (cacheUse == CacheUse.HIT2) {
+                    m_cache2HitTime += delta;
+                    m_timedCache2Hits++;
+                }
             }
             m_currentStartTime = null;
         }
@@ -245,6 +257,8 @@ public class PlannerStatsCollector extends StatsSource {
         long cache2Hits  = m_cache2Hits;
         long cacheMisses = m_cacheMisses;
         long failureCount = m_failures;
+        long cache2HitTime = m_cache2HitTime;
+        long timedCache2Hits = m_timedCache2Hits;
 
         if (m_interval) {
             totalTimedExecutionTime = m_totalPlanningTime - m_lastTimedPlanningTime;
@@ -272,6 +286,12 @@ public class PlannerStatsCollector extends StatsSource {
 
             failureCount = m_failures - m_lastFailures;
             m_lastFailures = m_failures;
+
+            cache2HitTime = m_cache2HitTime - m_lastCache2HitTime;
+            m_lastCache2HitTime = m_cache2HitTime;
+
+            timedCache2Hits = m_timedCache2Hits - m_lastTimedCache2Hits;
+            m_lastTimedCache2Hits = m_timedCache2Hits;
         }
 
         rowValues[columnNameToIndex.get(VoltSystemProcedure.CNAME_SITE_ID)] = CoreUtils.getSiteIdFromHSId(m_siteId);
@@ -290,6 +310,11 @@ public class PlannerStatsCollector extends StatsSource {
             rowValues[columnNameToIndex.get("PLAN_TIME_AVG")] = 0L;
         }
         rowValues[columnNameToIndex.get("FAILURES")] = failureCount;
+        if (timedCache2Hits != 0) {
+            rowValues[columnNameToIndex.get("CACHE2_TIME_AVG")] = cache2HitTime / timedCache2Hits;
+        } else {
+            rowValues[columnNameToIndex.get("CACHE2_TIME_AVG")] = 0L;
+        }
     }
 
     /**
@@ -310,6 +335,7 @@ public class PlannerStatsCollector extends StatsSource {
         columns.add(new ColumnInfo("PLAN_TIME_MAX", VoltType.BIGINT));
         columns.add(new ColumnInfo("PLAN_TIME_AVG", VoltType.BIGINT));
         columns.add(new ColumnInfo("FAILURES",      VoltType.BIGINT));
+        columns.add(new ColumnInfo("CACHE2_TIME_AVG", VoltType.BIGINT));
     }
 
     @Override
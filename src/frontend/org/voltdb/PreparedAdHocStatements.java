@@ -0,0 +1,99 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.voltdb.compiler.AdHocPlannedStatement;
+
+/**
+ * Ad hoc statements prepared on this host, by handle. A handle is derived from
+ * the SQL text alone, so every host hands out the same handle for a statement
+ * and a client can execute a handle against any host. A host that hasn't
+ * prepared the statement, or only did so against an older catalog, reports it
+ * as not found and the client prepares it again there.
+ */
+class PreparedAdHocStatements {
+
+    static final int MAX_ENTRIES = 1000;
+
+    private final Map<Long, AdHocPlannedStatement> m_statements =
+        new LinkedHashMap<Long, AdHocPlannedStatement>(MAX_ENTRIES * 2, .75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, AdHocPlannedStatement> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+
+    /**
+     * The handle of a statement, the leading 8 bytes of the SHA-1 of its text.
+     */
+    static long handleForSQL(String sql) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            return ByteBuffer.wrap(md.digest(sql.getBytes(VoltDB.UTF8ENCODING))).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Remember a planned statement under the handle of its text.
+     * @return the handle
+     */
+    synchronized long put(String sql, AdHocPlannedStatement statement) {
+        long handle = handleForSQL(sql);
+        m_statements.put(handle, statement);
+        return handle;
+    }
+
+    /**
+     * @return the statement prepared under the handle, or null if there is none
+     * or it was planned against a catalog other than the current one.
+     */
+    synchronized AdHocPlannedStatement get(long handle, int catalogVersion) {
+        AdHocPlannedStatement statement = m_statements.get(handle);
+        if (statement != null && statement.core.catalogVersion != catalogVersion) {
+            m_statements.remove(handle);
+            return null;
+        }
+        return statement;
+    }
+
+    synchronized void clear() {
+        m_statements.clear();
+    }
+
+    /**
+     * The number of parameters a client passes to execute the statement.
+     * Statements prepared without user parameters were auto-parameterized
+     * and carry the values of their own literals.
+     */
+    static int userParameterCount(AdHocPlannedStatement statement) {
+        if (statement.extractedParamValues.size() > 0) {
+            return 0;
+        }
+        return statement.core.parameterTypes.length;
+    }
+}
@@ -0,0 +1,466 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.voltcore.logging.VoltLogger;
+
+/**
+ * Calls a procedure's run() method with an array of parameters that
+ * already have the types run() declares.
+ *
+ * {@link #create(Method)} generates a class per procedure whose invoke()
+ * casts and unboxes each parameter and calls run() directly, so the call
+ * costs what a hand written call would instead of going through
+ * Method.invoke. Procedures the generated class couldn't link against,
+ * such as non-public ones, get an invoker that uses reflection.
+ *
+ * Parameters for a primitive are accepted as any boxed number, the same
+ * as the widening Method.invoke would do.
+ */
+public abstract class ProcedureInvoker {
+
+    private static final VoltLogger hostLog = new VoltLogger("HOST");
+
+    /**
+     * Invoke run() on the procedure, ignored if run() is static.
+     * @return the value run() returned, boxed if it is a primitive, or null if void
+     * @throws InvocationTargetException wrapping anything run() throws. A
+     * parameter that doesn't bind to run() throws unwrapped, as it would
+     * from Method.invoke.
+     */
+    public abstract Object invoke(Object procedure, Object[] params) throws InvocationTargetException;
+
+    /**
+     * @return a generated invoker for the method, or a reflective one if it
+     * can't be generated.
+     */
+    public static ProcedureInvoker create(Method run) {
+        if (isAccessible(run)) {
+            try {
+                return generate(run);
+            } catch (Throwable t) {
+                hostLog.warn("Unable to generate an invoker for " + run.getDeclaringClass().getName() +
+                             ", falling back to reflection: " + t.getMessage());
+            }
+        }
+        return new Reflective(run);
+    }
+
+    /**
+     * @return true if a parameter of the given class reaches run() unchanged,
+     * so there is nothing for ParameterConverter to do. Strings are not
+     * exact when they spell the CSV null.
+     */
+    public static boolean isExactMatch(Class<?> paramType, Object param) {
+        if (param == null) {
+            return false;
+        }
+        final Class<?> pclass = param.getClass();
+        if (paramType.isPrimitive()) {
+            if (paramType == long.class) {
+                return pclass == Long.class || pclass == Integer.class || pclass == Short.class || pclass == Byte.class;
+            }
+            if (paramType == int.class) {
+                return pclass == Integer.class || pclass == Short.class || pclass == Byte.class;
+            }
+            if (paramType == double.class) {
+                return pclass == Double.class;
+            }
+            if (paramType == short.class) {
+                return pclass == Short.class || pclass == Byte.class;
+            }
+            if (paramType == byte.class) {
+                return pclass == Byte.class;
+            }
+            return false;
+        }
+        if (pclass == String.class) {
+            return paramType == String.class && !VoltTable.CSV_NULL.equals(param);
+        }
+        // decimals are rescaled by the converter
+        return pclass == paramType && pclass != java.math.BigDecimal.class;
+    }
+
+    static class Reflective extends ProcedureInvoker {
+        private final Method m_method;
+
+        Reflective(Method method) {
+            m_method = method;
+        }
+
+        @Override
+        public Object invoke(Object procedure, Object[] params) throws InvocationTargetException {
+            try {
+                return m_method.invoke(procedure, params);
+            } catch (IllegalAccessException e) {
+                // If reflection fails, invoke the same error handling that other exceptions do
+                throw new InvocationTargetException(e);
+            }
+        }
+    }
+
+    private static boolean isAccessible(Method run) {
+        if (!Modifier.isPublic(run.getModifiers()) ||
+            !Modifier.isPublic(run.getDeclaringClass().getModifiers())) {
+            return false;
+        }
+        for (Class<?> type : run.getParameterTypes()) {
+            while (type.isArray()) {
+                type = type.getComponentType();
+            }
+            if (!type.isPrimitive() && !Modifier.isPublic(type.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Defines each generated class in its own loader, a child of the
+     * procedure's, so it sees the procedure class and is collected with it.
+     */
+    private static class Loader extends ClassLoader {
+        Loader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] classFile) {
+            return defineClass(name, classFile, 0, classFile.length);
+        }
+    }
+
+    private static ProcedureInvoker generate(Method run) throws Exception {
+        final Class<?> procClass = run.getDeclaringClass();
+        final String name = procClass.getName() + "$$Invoker";
+        final byte[] classFile = new ClassWriter(name.replace('.', '/'), run).toByteArray();
+
+        ClassLoader parent = procClass.getClassLoader();
+        if (parent == null) {
+            parent = ProcedureInvoker.class.getClassLoader();
+        }
+        Class<?> invokerClass = new Loader(parent).define(name, classFile);
+        return (ProcedureInvoker) invokerClass.newInstance();
+    }
+
+    /**
+     * Writes the class file for one invoker. The code has no branches, and
+     * the class file predates stack map frames, so the handler that wraps
+     * what run() throws needs none either.
+     */
+    private static class ClassWriter {
+        private static final String SUPER = ProcedureInvoker.class.getName().replace('.', '/');
+
+        private static final int ACC_PUBLIC = 0x0001;
+        private static final int ACC_FINAL = 0x0010;
+        private static final int ACC_SUPER = 0x0020;
+
+        private static final int ACONST_NULL = 0x01;
+        private static final int ICONST_0 = 0x03;
+        private static final int BIPUSH = 0x10;
+        private static final int SIPUSH = 0x11;
+        private static final int ALOAD_0 = 0x2a;
+        private static final int ALOAD_1 = 0x2b;
+        private static final int ALOAD_2 = 0x2c;
+        private static final int AALOAD = 0x32;
+        private static final int DUP_X1 = 0x5a;
+        private static final int SWAP = 0x5f;
+        private static final int ARETURN = 0xb0;
+        private static final int RETURN = 0xb1;
+        private static final int INVOKEVIRTUAL = 0xb6;
+        private static final int INVOKESPECIAL = 0xb7;
+        private static final int INVOKESTATIC = 0xb8;
+        private static final int NEW = 0xbb;
+        private static final int ATHROW = 0xbf;
+        private static final int CHECKCAST = 0xc0;
+
+        private static final String TARGET_EXCEPTION = "java/lang/reflect/InvocationTargetException";
+
+        private final ByteArrayOutputStream m_pool = new ByteArrayOutputStream();
+        private final DataOutputStream m_poolOut = new DataOutputStream(m_pool);
+        private final Map<String, Integer> m_poolIndexes = new HashMap<String, Integer>();
+        private int m_poolCount = 1;
+
+        private final String m_name;
+        private final Method m_run;
+
+        // the bytes of invoke() that call run(), and the handler wrapping what it throws
+        private int m_callStart;
+        private int m_callEnd;
+        private int m_handler;
+
+        ClassWriter(String internalName, Method run) {
+            m_name = internalName;
+            m_run = run;
+        }
+
+        byte[] toByteArray() throws IOException {
+            final int thisClass = classRef(m_name);
+            final int superClass = classRef(SUPER);
+            final int codeName = utf8("Code");
+
+            final byte[] init = initCode();
+            final int initName = utf8("<init>");
+            final int initDesc = utf8("()V");
+
+            final byte[] invoke = invokeCode();
+            final int invokeName = utf8("invoke");
+            final int invokeDesc = utf8("(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;");
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(49); // Java 5, verified without stack map frames
+            out.writeShort(m_poolCount);
+            m_poolOut.flush();
+            m_pool.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0); // interfaces
+            out.writeShort(0); // fields
+            out.writeShort(2); // methods
+            writeMethod(out, initName, initDesc, codeName, 1, 1, init, false);
+            writeMethod(out, invokeName, invokeDesc, codeName, maxStack(), 3, invoke, true);
+            out.writeShort(0); // attributes
+            out.flush();
+            return bytes.toByteArray();
+        }
+
+        private void writeMethod(DataOutputStream out, int name, int desc, int codeName,
+                                 int maxStack, int maxLocals, byte[] code,
+                                 boolean wrapsCall) throws IOException {
+            out.writeShort(ACC_PUBLIC);
+            out.writeShort(name);
+            out.writeShort(desc);
+            out.writeShort(1); // attributes
+            out.writeShort(codeName);
+            out.writeInt(12 + code.length + (wrapsCall ? 8 : 0));
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            if (wrapsCall) {
+                out.writeShort(1); // exception table
+                out.writeShort(m_callStart);
+                out.writeShort(m_callEnd);
+                out.writeShort(m_handler);
+                out.writeShort(0); // any throwable
+            } else {
+                out.writeShort(0); // exception table
+            }
+            out.writeShort(0); // attributes
+        }
+
+        private byte[] initCode() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream code = new DataOutputStream(bytes);
+            code.writeByte(ALOAD_0);
+            code.writeByte(INVOKESPECIAL);
+            code.writeShort(methodRef(SUPER, "<init>", "()V"));
+            code.writeByte(RETURN);
+            code.flush();
+            return bytes.toByteArray();
+        }
+
+        private byte[] invokeCode() throws IOException {
+            final Class<?> procClass = m_run.getDeclaringClass();
+            final String procName = internalName(procClass);
+            final boolean isStatic = Modifier.isStatic(m_run.getModifiers());
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream code = new DataOutputStream(bytes);
+            if (!isStatic) {
+                code.writeByte(ALOAD_1);
+                code.writeByte(CHECKCAST);
+                code.writeShort(classRef(procName));
+            }
+
+            final Class<?>[] types = m_run.getParameterTypes();
+            for (int i = 0; i < types.length; i++) {
+                code.writeByte(ALOAD_2);
+                if (i <= 5) {
+                    code.writeByte(ICONST_0 + i);
+                } else if (i <= Byte.MAX_VALUE) {
+                    code.writeByte(BIPUSH);
+                    code.writeByte(i);
+                } else {
+                    code.writeByte(SIPUSH);
+                    code.writeShort(i);
+                }
+                code.writeByte(AALOAD);
+                unbox(code, types[i]);
+            }
+
+            m_callStart = code.size();
+            code.writeByte(isStatic ? INVOKESTATIC : INVOKEVIRTUAL);
+            code.writeShort(methodRef(procName, m_run.getName(), descriptor(m_run)));
+            m_callEnd = code.size();
+            box(code, m_run.getReturnType());
+            code.writeByte(ARETURN);
+
+            // throw new InvocationTargetException(thrown)
+            m_handler = code.size();
+            code.writeByte(NEW);
+            code.writeShort(classRef(TARGET_EXCEPTION));
+            code.writeByte(DUP_X1);
+            code.writeByte(SWAP);
+            code.writeByte(INVOKESPECIAL);
+            code.writeShort(methodRef(TARGET_EXCEPTION, "<init>", "(Ljava/lang/Throwable;)V"));
+            code.writeByte(ATHROW);
+            code.flush();
+            return bytes.toByteArray();
+        }
+
+        private void unbox(DataOutputStream code, Class<?> type) throws IOException {
+            if (type == Object.class) {
+                return;
+            }
+            if (!type.isPrimitive()) {
+                code.writeByte(CHECKCAST);
+                code.writeShort(classRef(internalName(type)));
+                return;
+            }
+            String owner = "java/lang/Number";
+            if (type == boolean.class) {
+                owner = "java/lang/Boolean";
+            } else if (type == char.class) {
+                owner = "java/lang/Character";
+            }
+            code.writeByte(CHECKCAST);
+            code.writeShort(classRef(owner));
+            code.writeByte(INVOKEVIRTUAL);
+            code.writeShort(methodRef(owner, type.getName() + "Value", "()" + descriptor(type)));
+        }
+
+        private void box(DataOutputStream code, Class<?> type) throws IOException {
+            if (type == void.class) {
+                code.writeByte(ACONST_NULL);
+                return;
+            }
+            if (!type.isPrimitive()) {
+                return;
+            }
+            String wrapper = internalName(wrapperOf(type));
+            code.writeByte(INVOKESTATIC);
+            code.writeShort(methodRef(wrapper, "valueOf", "(" + descriptor(type) + ")L" + wrapper + ";"));
+        }
+
+        private int maxStack() {
+            int slots = 1;
+            for (Class<?> type : m_run.getParameterTypes()) {
+                slots += (type == long.class || type == double.class) ? 2 : 1;
+            }
+            // the array and index of the parameter being loaded, and the
+            // handler's throwable and two references to its wrapper
+            return Math.max(slots + 2, 3);
+        }
+
+        private int utf8(String value) throws IOException {
+            Integer index = m_poolIndexes.get("U" + value);
+            if (index == null) {
+                m_poolOut.writeByte(1);
+                m_poolOut.writeUTF(value);
+                index = m_poolCount++;
+                m_poolIndexes.put("U" + value, index);
+            }
+            return index;
+        }
+
+        private int classRef(String internalName) throws IOException {
+            Integer index = m_poolIndexes.get("C" + internalName);
+            if (index == null) {
+                int nameIndex = utf8(internalName);
+                m_poolOut.writeByte(7);
+                m_poolOut.writeShort(nameIndex);
+                index = m_poolCount++;
+                m_poolIndexes.put("C" + internalName, index);
+            }
+            return index;
+        }
+
+        private int methodRef(String owner, String name, String desc) throws IOException {
+            final String key = "M" + owner + "." + name + desc;
+            Integer index = m_poolIndexes.get(key);
+            if (index == null) {
+                int ownerIndex = classRef(owner);
+                int nameIndex = utf8(name);
+                int descIndex = utf8(desc);
+                m_poolOut.writeByte(12);
+                m_poolOut.writeShort(nameIndex);
+                m_poolOut.writeShort(descIndex);
+                int nameAndType = m_poolCount++;
+                m_poolOut.writeByte(10);
+                m_poolOut.writeShort(ownerIndex);
+                m_poolOut.writeShort(nameAndType);
+                index = m_poolCount++;
+                m_poolIndexes.put(key, index);
+            }
+            return index;
+        }
+
+        private static String internalName(Class<?> type) {
+            // array classes are referenced by their descriptor
+            return type.isArray() ? descriptor(type) : type.getName().replace('.', '/');
+        }
+
+        private static String descriptor(Method method) {
+            StringBuilder sb = new StringBuilder("(");
+            for (Class<?> type : method.getParameterTypes()) {
+                sb.append(descriptor(type));
+            }
+            return sb.append(')').append(descriptor(method.getReturnType())).toString();
+        }
+
+        private static String descriptor(Class<?> type) {
+            if (type.isArray()) {
+                return type.getName().replace('.', '/');
+            }
+            if (type == void.class) return "V";
+            if (type == boolean.class) return "Z";
+            if (type == byte.class) return "B";
+            if (type == char.class) return "C";
+            if (type == short.class) return "S";
+            if (type == int.class) return "I";
+            if (type == long.class) return "J";
+            if (type == float.class) return "F";
+            if (type == double.class) return "D";
+            return "L" + type.getName().replace('.', '/') + ";";
+        }
+
+        private static Class<?> wrapperOf(Class<?> type) {
+            if (type == boolean.class) return Boolean.class;
+            if (type == byte.class) return Byte.class;
+            if (type == char.class) return Character.class;
+            if (type == short.class) return Short.class;
+            if (type == int.class) return Integer.class;
+            if (type == long.class) return Long.class;
+            if (type == float.class) return Float.class;
+            return Double.class;
+        }
+    }
+}
@@ -82,6 +82,7 @@ public class ProcedureRunner {
     protected final String m_procedureName;
     protected final VoltProcedure m_procedure;
     protected Method m_procMethod;
+    protected ProcedureInvoker m_procInvoker;
     protected Class<?>[] m_paramTypes;
     protected boolean m_paramTypeIsPrimitive[];
     protected boolean m_paramTypeIsArray[];
@@ -231,6 +232,9 @@ public class ProcedureRunner {
             }
 
             for (int i = 0; i < m_paramTypes.length; i++) {
+                if (ProcedureInvoker.isExactMatch(m_paramTypes[i], paramList[i])) {
+                    continue;
+                }
                 try {
                     paramList[i] =
                         ParameterConverter.tryToMakeCompatible(
@@ -256,13 +260,8 @@ public class ProcedureRunner {
                     if (log.isTraceEnabled()) {
                         log.trace("invoking... procMethod=" + m_procMethod.getName() + ", class=" + getClass().getName());
                     }
-                    try {
-                        Object rawResult = m_procMethod.invoke(m_procedure, paramList);
-                        results = getResultsFromRawResults(rawResult);
-                    } catch (IllegalAccessException e) {
-                        // If reflection fails, invoke the same error handling that other exceptions do
-                        throw new InvocationTargetException(e);
-                    }
+                    Object rawResult = m_procInvoker.invoke(m_procedure, paramList);
+                    results = getResultsFromRawResults(rawResult);
                     log.trace("invoked");
                 }
                 catch (InvocationTargetException itex) {
@@ -829,6 +828,7 @@ public class ProcedureRunner {
             if (m_procMethod == null) {
                 throw new RuntimeException("No \"run\" method found in: " + m_procedure.getClass().getName());
             }
+            m_procInvoker = ProcedureInvoker.create(m_procMethod);
         }
 
         // iterate through the fields and deal with sql statements
@@ -67,6 +67,7 @@ import org.voltcore.logging.Level;
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.messaging.HostMessenger;
 import org.voltcore.utils.COWMap;
+import org.voltcore.utils.CorePlacement;
 import org.voltcore.utils.CoreUtils;
 import org.voltcore.utils.Pair;
 import org.voltcore.zk.ZKUtil;
@@ -85,6 +86,7 @@ import org.voltdb.dtxn.InitiatorStats;
 import org.voltdb.dtxn.LatencyStats;
 import org.voltdb.dtxn.SiteTracker;
 import org.voltdb.export.ExportManager;
+import org.voltdb.export.ExportStats;
 import org.voltdb.fault.FaultDistributor;
 import org.voltdb.fault.FaultDistributorInterface;
 import org.voltdb.fault.SiteFailureFault;
@@ -266,6 +268,9 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback
     private ScheduledThreadPoolExecutor m_periodicWorkThread;
     private ScheduledThreadPoolExecutor m_periodicPriorityWorkThread;
 
+    // NUMA topology used to place and report site and network thread bindings
+    private CorePlacement m_corePlacement;
+
     // The configured license api: use to decide enterprise/community edition feature enablement
     LicenseApi m_licenseApi;
     @SuppressWarnings("unused")
@@ -552,6 +557,7 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback
             m_initiatorStats = new InitiatorStats(m_myHostId);
             m_liveClientsStats = new LiveClientsStats();
             getStatsAgent().registerStatsSource(StatsSelector.LIVECLIENTS, 0, m_liveClientsStats);
+            getStatsAgent().registerStatsSource(StatsSelector.EXPORT, 0, new ExportStats());
             m_latencyStats = new LatencyStats(m_myHostId);
 
             /*
@@ -588,7 +594,20 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback
                         topo, m_MPI);
                 m_globalServiceElector.registerService(m_leaderAppointer);
 
+                StringBuilder placement = new StringBuilder();
                 for (Initiator iv2init : m_iv2Initiators) {
+                    String coreBindIds = m_config.m_executionCoreBindings.poll();
+                    if (coreBindIds == null && m_config.m_numaPlacement) {
+                        coreBindIds = getCorePlacement().placeSite();
+                    }
+                    if (coreBindIds != null) {
+                        if (placement.length() > 0) {
+                            placement.append(',');
+                        }
+                        placement.append(iv2init.getPartitionId() == MpInitiator.MP_INIT_PID ?
+                                "MP" : Integer.toString(iv2init.getPartitionId()));
+                        placement.append('=').append(getCorePlacement().describe(coreBindIds));
+                    }
                     iv2init.configure(
                             getBackendTargetType(),
                             m_serializedCatalog,
@@ -601,7 +620,11 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback
                             m_memoryStats,
                             m_commandLog,
                             m_nodeDRGateway,
-                            m_config.m_executionCoreBindings.poll());
+                            coreBindIds);
+                }
+                if (placement.length() > 0) {
+                    m_config.m_executionPlacement = placement.toString();
+                    hostLog.info("Execution site placement: " + m_config.m_executionPlacement);
                 }
             } catch (Exception e) {
                 Throwable toLog = e;
@@ -1067,6 +1090,13 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback
         }
     }
 
+    private CorePlacement getCorePlacement() {
+        if (m_corePlacement == null) {
+            m_corePlacement = CorePlacement.discover();
+        }
+        return m_corePlacement;
+    }
+
     /**
      * Start the voltcore HostMessenger. This joins the node
      * to the existing cluster. In the non rejoin case, this
@@ -1087,6 +1117,23 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback
         hmconfig.zkInterface = m_config.m_zkInterface;
         hmconfig.deadHostTimeout = m_config.m_deadHostTimeoutMS;
         hmconfig.factory = new VoltDbMessageFactory();
+        if (m_config.m_numaPlacement && m_config.m_networkCoreBindings.isEmpty()) {
+            hostLog.info("NUMA topology: " + getCorePlacement());
+            for (int ii = 0; ii < hmconfig.networkThreads; ii++) {
+                m_config.m_networkCoreBindings.offer(getCorePlacement().placeNetworkThread());
+            }
+        }
+        if (!m_config.m_networkCoreBindings.isEmpty()) {
+            StringBuilder placement = new StringBuilder();
+            for (String coreBindIds : m_config.m_networkCoreBindings) {
+                if (placement.length() > 0) {
+                    placement.append(',');
+                }
+                placement.append(getCorePlacement().describe(coreBindIds));
+            }
+            m_config.m_networkPlacement = placement.toString();
+            hostLog.info("Network thread placement: " + m_config.m_networkPlacement);
+        }
         hmconfig.coreBindIds = m_config.m_networkCoreBindings;
 
         m_messenger = new org.voltcore.messaging.HostMessenger(hmconfig);
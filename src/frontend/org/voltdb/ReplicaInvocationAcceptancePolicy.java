@@ -42,10 +42,14 @@ public class ReplicaInvocationAcceptancePolicy extends InvocationAcceptancePolic
             }
 
             // hackish way to check if an adhoc query is read-only
-            if (invocation.procName.equals("@AdHoc")) {
+            if (invocation.procName.equals("@AdHoc") || invocation.procName.equals("@AdHocPrepare")) {
                 String sql = (String) invocation.getParams().toArray()[0];
                 isReadOnly = sql.trim().toLowerCase().startsWith("select");
             }
+            // the prepared plan's read-only flag is checked when it is executed
+            else if (invocation.procName.equals("@AdHocExecute")) {
+                isReadOnly = true;
+            }
 
             if (isReadOnly) {
                 return null;
@@ -283,6 +283,9 @@ public class StatsAgent extends OpsAgent
             case LIVECLIENTS:
                 stats = collectLiveClientsStats(interval);
                 break;
+            case EXPORT:
+                stats = collectExportStats(interval);
+                break;
             case LATENCY:
                 stats = collectLatencyStats(interval);
                 break;
@@ -471,6 +474,19 @@ public class StatsAgent extends OpsAgent
         return stats;
     }
 
+    private VoltTable[] collectExportStats(boolean interval)
+    {
+        Long now = System.currentTimeMillis();
+        VoltTable[] stats = null;
+
+        VoltTable eStats = getStatsAggregate(StatsSelector.EXPORT, interval, now);
+        if (eStats != null) {
+            stats = new VoltTable[1];
+            stats[0] = eStats;
+        }
+        return stats;
+    }
+
     // Latency stats have been broken since 3.0.  Putting these hooks
     // in here so that ALL selectors in SysProcSelector go through
     // this path and nothing uses the legacy sysproc
@@ -31,6 +31,7 @@ public enum StatsSelector {
     MANAGEMENT,       // Returns pretty much everything
     PROCEDUREPROFILE, // performs an aggregation of the procedure statistics
     SNAPSHOTSTATUS,
+    EXPORT,           // progress of each export table partition
 
     /*
      * DRPARTITION and DRNODE are internal names
@@ -0,0 +1,200 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.voltcore.network.Connection;
+import org.voltcore.utils.DirectDeferredSerialization;
+import org.voltdb.client.ClientResponse;
+
+/**
+ * Sends a large successful response to a client that negotiated streamed
+ * results. The rows of every result table go out first as a series of chunks
+ * of at most about CHUNK_SIZE bytes, each on the invocation's client handle,
+ * followed by the response itself with row-less result tables. The client
+ * either hands the chunks to the application as they arrive or appends them
+ * back into the response.
+ *
+ * Chunks are cut from the result tables only as the connection drains. A
+ * couple are queued ahead of the network at a time and the rest wait out any
+ * write backpressure, so a slow client holds back serialization instead of
+ * letting a copy of the whole result pile up in the write stream.
+ */
+class StreamedClientResponse {
+
+    static final int CHUNK_SIZE = 256 * 1024;
+    // responses up to this size are sent whole
+    static final int STREAMING_THRESHOLD = 2 * CHUNK_SIZE;
+    private static final int MAX_QUEUED_CHUNKS = 2;
+
+    private final ClientInterfaceHandleManager m_cihm;
+    private final ClientResponseImpl m_response;
+    private final VoltTable[] m_results;
+    private final long m_clientHandle;
+
+    // the table and the offset of its next row to send
+    private int m_table = 0;
+    private int m_rowOffset = -1;
+    private int m_queued = 0;
+    private boolean m_done = false;
+
+    static boolean shouldStream(ClientResponseImpl response) {
+        if (response.getStatus() != ClientResponse.SUCCESS) {
+            return false;
+        }
+        int size = 0;
+        for (VoltTable table : response.getResults()) {
+            size += table.getSerializedSize();
+        }
+        return size > STREAMING_THRESHOLD;
+    }
+
+    StreamedClientResponse(ClientInterfaceHandleManager cihm, ClientResponseImpl response) {
+        m_cihm = cihm;
+        m_response = response;
+        m_results = response.getResults();
+        m_clientHandle = response.getClientHandle();
+    }
+
+    /**
+     * Queue chunks until a couple are waiting for the network, the connection
+     * has backpressure, or the response has been queued.
+     */
+    synchronized void pump() {
+        final Connection connection = m_cihm.connection;
+        while (!m_done && m_queued < MAX_QUEUED_CHUNKS) {
+            if (connection.writeStream().hadBackPressure()) {
+                m_cihm.stallStreamedResponse(this);
+                return;
+            }
+            m_queued++;
+            connection.writeStream().enqueue(new Message(nextMessage()));
+        }
+    }
+
+    private synchronized void sent() {
+        m_queued--;
+        pump();
+    }
+
+    private synchronized void cancel() {
+        m_done = true;
+    }
+
+    private ClientResponseImpl nextMessage() {
+        while (m_table < m_results.length) {
+            final VoltTable table = m_results[m_table];
+            if (m_rowOffset < 0) {
+                m_rowOffset = table.m_rowStart + 4;
+            }
+            if (m_rowOffset < table.m_buffer.limit()) {
+                return ClientResponseImpl.resultChunk(m_clientHandle, m_table, nextChunk(table));
+            }
+            m_table++;
+            m_rowOffset = -1;
+        }
+
+        // the response with the schemas of the tables whose rows were sent
+        m_done = true;
+        VoltTable[] schemas = new VoltTable[m_results.length];
+        for (int ii = 0; ii < m_results.length; ii++) {
+            schemas[ii] = copyRows(m_results[ii], 0, 0, 0);
+        }
+        ClientResponseImpl response = new ClientResponseImpl(
+                m_response.getStatus(), m_response.getAppStatus(), m_response.getAppStatusString(),
+                schemas, m_response.getStatusString(), m_clientHandle, m_response.getException());
+        response.setClusterRoundtrip(m_response.getClusterRoundtrip());
+        return response;
+    }
+
+    /**
+     * Copy the next run of whole rows, at least one, that fits in CHUNK_SIZE
+     * into a table of its own.
+     */
+    private VoltTable nextChunk(VoltTable table) {
+        final ByteBuffer source = table.m_buffer;
+        final int limit = source.limit();
+        int end = m_rowOffset;
+        int rowCount = 0;
+        while (end < limit) {
+            final int rowEnd = end + 4 + source.getInt(end);
+            if (rowCount > 0 && rowEnd - m_rowOffset > CHUNK_SIZE) {
+                break;
+            }
+            end = rowEnd;
+            rowCount++;
+        }
+
+        VoltTable chunk = copyRows(table, m_rowOffset, end, rowCount);
+        m_rowOffset = end;
+        return chunk;
+    }
+
+    /**
+     * @return a table with the schema of table and the rows serialized between
+     * the offsets start and end
+     */
+    private static VoltTable copyRows(VoltTable table, int start, int end, int rowCount) {
+        ByteBuffer copy = ByteBuffer.allocate(table.m_rowStart + 4 + end - start);
+        ByteBuffer header = table.m_buffer.duplicate();
+        header.limit(table.m_rowStart).position(0);
+        copy.put(header);
+        copy.putInt(rowCount);
+        ByteBuffer rows = table.m_buffer.duplicate();
+        rows.limit(end).position(start);
+        copy.put(rows);
+        copy.flip();
+        return new VoltTable(copy, true);
+    }
+
+    /** One length prefixed chunk or the response, serialized by the network */
+    private class Message implements DirectDeferredSerialization {
+        private final ClientResponseImpl m_message;
+
+        Message(ClientResponseImpl message) {
+            m_message = message;
+            m_message.setColumnarEncoding(m_cihm.wantsColumnarResults());
+        }
+
+        @Override
+        public ByteBuffer[] serialize() throws IOException {
+            ByteBuffer buf = ByteBuffer.allocate(getSerializedSize());
+            serialize(buf);
+            return new ByteBuffer[] { buf };
+        }
+
+        @Override
+        public int getSerializedSize() throws IOException {
+            return m_message.getSerializedSize() + 4;
+        }
+
+        @Override
+        public void serialize(ByteBuffer buf) throws IOException {
+            buf.putInt(m_message.getSerializedSize());
+            m_message.flattenToBuffer(buf);
+            sent();
+        }
+
+        @Override
+        public void cancel() {
+            StreamedClientResponse.this.cancel();
+        }
+    }
+}
@@ -46,5 +46,7 @@ public class TableStats extends SiteStatsSource {
         columns.add(new ColumnInfo("TUPLE_ALLOCATED_MEMORY", VoltType.INTEGER));
         columns.add(new ColumnInfo("TUPLE_DATA_MEMORY", VoltType.INTEGER));
         columns.add(new ColumnInfo("STRING_DATA_MEMORY", VoltType.INTEGER));
+        columns.add(new ColumnInfo("COMPACTED_MEMORY", VoltType.INTEGER));
+        columns.add(new ColumnInfo("COMPACTION_TIME", VoltType.BIGINT));
     }
 }
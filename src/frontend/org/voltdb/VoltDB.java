@@ -229,6 +229,13 @@ public class VoltDB {
         public final Queue<String> m_executionCoreBindings = new ArrayDeque<String>();
         public String m_commandLogBinding = null;
 
+        /** Deal site and network thread bindings across NUMA nodes when none are given */
+        public boolean m_numaPlacement = false;
+
+        /** Core bindings as applied at startup, reported by @SystemInformation */
+        public String m_executionPlacement = null;
+        public String m_networkPlacement = null;
+
         public Configuration() {
             m_enableIV2 = VoltDB.checkTestEnvForIv2();
             // Set start action create.  The cmd line validates that an action is specified, however,
@@ -360,6 +367,9 @@ public class VoltDB {
                     m_commandLogBinding = binding;
                     System.out.println("Commanglog binding is " + m_commandLogBinding);
                 }
+                else if (arg.equals("numaplacement")) {
+                    m_numaPlacement = true;
+                }
                 else if (arg.equals("host") || arg.equals("leader")) {
                     m_leader = args[++i].trim();
                 } else if (arg.startsWith("host")) {
@@ -121,6 +121,69 @@ public interface Client {
     public boolean callProcedure(ProcedureCallback callback, String procName, Object... parameters)
     throws IOException, NoConnectionsException;
 
+    /**
+     * Synchronously invoke a procedure and read its results in chunks as they arrive,
+     * without holding all of them at once. Blocks until the first chunk or the response
+     * is available. A {@link ProcCallException} is thrown if the procedure fails.
+     * Results are only streamed by servers asked to with {@link ClientConfig#setStreamedResults(boolean)}.
+     * @param procName <code>class</code> name (not qualified by package) of the procedure to execute.
+     * @param parameters vararg list of procedure's parameter values.
+     * @return the result chunks, to be read to the end or closed.
+     * @throws org.voltdb.client.ProcCallException
+     * @throws NoConnectionsException
+     */
+    public StreamedResults callProcedureStreamed(String procName, Object... parameters)
+    throws IOException, NoConnectionsException, ProcCallException;
+
+    /**
+     * Asynchronously invoke every procedure in a batch. Single partition invocations
+     * bound for the same partition are sent to the server as one network frame and
+     * initiated together. Each invocation's callback is invoked with its own response.
+     * If there is backpressure this call will block until the whole batch is queued.
+     * If configureBlocking(false) is invoked then it will return immediately without
+     * queuing any of the invocations. Check the return value to determine if queuing
+     * actually took place.
+     * @param batch InvocationBatch holding the invocations and their callbacks.
+     * @return <code>true</code> if the batch was queued and <code>false</code> otherwise
+     */
+    public boolean callProcedures(InvocationBatch batch)
+    throws IOException, NoConnectionsException;
+
+    /**
+     * Synchronously plan a single ad hoc SQL statement on the server. The statement
+     * may contain <code>?</code> parameters, which are supplied to each execution.
+     * @param sql the SQL statement to prepare.
+     * @return a handle for executing the statement without planning it again.
+     * @throws org.voltdb.client.ProcCallException if the statement can't be planned.
+     * @throws NoConnectionsException
+     */
+    public PreparedAdHoc prepareAdHoc(String sql)
+    throws IOException, NoConnectionsException, ProcCallException;
+
+    /**
+     * Synchronously execute a prepared ad hoc statement. Blocks until a result is available.
+     * A {@link ProcCallException} is thrown if the response is anything other then success.
+     * @param statement statement returned by {@link #prepareAdHoc(String)}.
+     * @param parameters vararg list of the statement's parameter values.
+     * @return array of VoltTable results.
+     * @throws org.voltdb.client.ProcCallException
+     * @throws NoConnectionsException
+     */
+    public ClientResponse callPreparedAdHoc(PreparedAdHoc statement, Object... parameters)
+    throws IOException, NoConnectionsException, ProcCallException;
+
+    /**
+     * Asynchronously execute a prepared ad hoc statement. If there is backpressure
+     * this call will block until the invocation is queued. If configureBlocking(false) is invoked
+     * then it will return immediately. Check the return value to determine if queuing actually took place.
+     * @param callback ProcedureCallback that will be invoked with the statement's results.
+     * @param statement statement returned by {@link #prepareAdHoc(String)}.
+     * @param parameters vararg list of the statement's parameter values.
+     * @return <code>true</code> if the statement was queued and <code>false</code> otherwise
+     */
+    public boolean callPreparedAdHoc(ProcedureCallback callback, PreparedAdHoc statement, Object... parameters)
+    throws IOException, NoConnectionsException;
+
     /**
      * Deprecated because hinting at the serialized size no longer has any effect
      *
@@ -37,6 +37,8 @@ public class ClientConfig {
     long m_procedureCallTimeoutMS = DEFAULT_PROCEDURE_TIMOUT_MS;
     long m_connectionResponseTimeoutMS = DEFAULT_CONNECTION_TIMOUT_MS;
     boolean m_useClientAffinity = true;
+    boolean m_columnarResults = false;
+    boolean m_streamedResults = false;
 
     /**
      * Configuration for a client with no authentication credentials that will
@@ -228,6 +230,29 @@ public class ClientConfig {
         m_useClientAffinity = on;
     }
 
+    /**
+     * Off by default. When on, the client asks servers at login to send large
+     * result tables in a columnar layout, one region per column with strings
+     * dictionary encoded. The tables are available without row by row decoding
+     * through {@link ClientResponse#getColumnarResults()}, and
+     * {@link ClientResponse#getResults()} keeps working by converting on demand.
+     * Servers that don't support the layout keep sending row tables.
+     */
+    public void setColumnarResults(boolean on) {
+        m_columnarResults = on;
+    }
+
+    /**
+     * Off by default. When on, the client asks servers at login to send large
+     * results as a series of bounded row chunks that flow under network
+     * backpressure. {@link Client#callProcedureStreamed(String, Object...)}
+     * hands the chunks to the application as they arrive; every other call
+     * reassembles them into an ordinary response.
+     */
+    public void setStreamedResults(boolean on) {
+        m_streamedResults = on;
+    }
+
     /**
      * Set the target latency for the Auto Tune feature. Note this represents internal
      * latency as reported by the server(s), not round-trip latency measured by the
@@ -29,6 +29,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
+import org.voltdb.VoltTable;
 import org.voltdb.utils.CatalogUtil;
 import org.voltdb.utils.Encoder;
 
@@ -91,6 +92,8 @@ public final class ClientImpl implements Client, ReplicaProcCaller {
                 config.m_procedureCallTimeoutMS,
                 config.m_connectionResponseTimeoutMS,
                 config.m_useClientAffinity);
+        m_distributer.setColumnarResults(config.m_columnarResults);
+        m_distributer.setStreamedResults(config.m_streamedResults);
         m_distributer.addClientStatusListener(new CSL());
         m_username = config.m_username;
 
@@ -239,6 +242,37 @@ public final class ClientImpl implements Client, ReplicaProcCaller {
         return cb.getResponse();
     }
 
+    @Override
+    public StreamedResults callProcedureStreamed(String procName, Object... parameters)
+        throws IOException, NoConnectionsException, ProcCallException
+    {
+        if (m_isShutdown) {
+            throw new NoConnectionsException("Client instance is shutdown");
+        }
+
+        if (m_blessedThreadIds.contains(Thread.currentThread().getId())) {
+            throw new IOException("Can't invoke a procedure synchronously from with the client callback thread " +
+                    " without deadlocking the client library");
+        }
+
+        final StreamedResults results = new StreamedResults();
+        m_distributer.queue(
+                new ProcedureInvocation(m_handle.getAndIncrement(), procName, parameters),
+                results.receiver(),
+                true);
+
+        final ClientResponse response;
+        try {
+            response = results.waitForFirstMessage();
+        } catch (final InterruptedException e) {
+            throw new java.io.InterruptedIOException("Interrupted while waiting for response");
+        }
+        if (response != null && response.getStatus() != ClientResponse.SUCCESS) {
+            throw new ProcCallException(response, response.getStatusString(), response.getException());
+        }
+        return results;
+    }
+
     /**
      * Asynchronously invoke a procedure call.
      * @param callback TransactionCallback that will be invoked with procedure results.
@@ -287,6 +321,63 @@ public final class ClientImpl implements Client, ReplicaProcCaller {
         return private_callProcedure(callback, 0, invocation);
     }
 
+    @Override
+    public PreparedAdHoc prepareAdHoc(String sql)
+    throws IOException, NoConnectionsException, ProcCallException {
+        VoltTable result = callProcedure("@AdHocPrepare", sql).getResults()[0];
+        result.advanceRow();
+        return new PreparedAdHoc(sql, result.getLong("HANDLE"), (int) result.getLong("PARAMETER_COUNT"));
+    }
+
+    /**
+     * Execute a prepared statement by handle. A server that doesn't know the
+     * handle is asked to prepare and execute the statement in one invocation.
+     */
+    @Override
+    public ClientResponse callPreparedAdHoc(PreparedAdHoc statement, Object... parameters)
+    throws IOException, NoConnectionsException, ProcCallException {
+        try {
+            return callProcedure("@AdHocExecute", statement.executeParameters(parameters));
+        } catch (ProcCallException e) {
+            if (!PreparedAdHoc.isNotFound(e.getClientResponse())) {
+                throw e;
+            }
+        }
+        return callProcedure("@AdHocPrepare", statement.prepareParameters(parameters));
+    }
+
+    @Override
+    public boolean callPreparedAdHoc(ProcedureCallback callback, PreparedAdHoc statement, Object... parameters)
+    throws IOException, NoConnectionsException {
+        return callProcedure(new PreparedAdHocCallback(callback, statement, parameters),
+                             "@AdHocExecute", statement.executeParameters(parameters));
+    }
+
+    /**
+     * Re-sends an execution the server had no plan for as @AdHocPrepare,
+     * handing every other response to the application's callback.
+     */
+    private class PreparedAdHocCallback implements ProcedureCallback {
+        private final ProcedureCallback m_callback;
+        private final PreparedAdHoc m_statement;
+        private final Object[] m_parameters;
+
+        PreparedAdHocCallback(ProcedureCallback callback, PreparedAdHoc statement, Object[] parameters) {
+            m_callback = callback;
+            m_statement = statement;
+            m_parameters = parameters;
+        }
+
+        @Override
+        public void clientCallback(ClientResponse response) throws Exception {
+            if (PreparedAdHoc.isNotFound(response) &&
+                callProcedure(m_callback, "@AdHocPrepare", m_statement.prepareParameters(m_parameters))) {
+                return;
+            }
+            m_callback.clientCallback(response);
+        }
+    }
+
     @Override
     public int calculateInvocationSerializedSize(String procName,
             Object... parameters) {
@@ -345,6 +436,51 @@ public final class ClientImpl implements Client, ReplicaProcCaller {
         }
     }
 
+    @Override
+    public final boolean callProcedures(InvocationBatch batch)
+            throws IOException, NoConnectionsException {
+        if (m_isShutdown) {
+            return false;
+        }
+        final int count = batch.size();
+        if (count == 0) {
+            return true;
+        }
+
+        final ProcedureInvocation invocations[] = new ProcedureInvocation[count];
+        final ProcedureCallback callbacks[] = new ProcedureCallback[count];
+        for (int ii = 0; ii < count; ii++) {
+            callbacks[ii] = batch.m_callbacks.get(ii);
+            final Object parameters[] = batch.m_parameters.get(ii);
+            if (callbacks[ii] instanceof ProcedureArgumentCacher) {
+                ((ProcedureArgumentCacher)callbacks[ii]).setArgs(parameters);
+            }
+            invocations[ii] =
+                new ProcedureInvocation(m_handle.getAndIncrement(), batch.m_procNames.get(ii), parameters);
+        }
+
+        //Blessed threads (the ones that invoke callbacks) are not subject to backpressure
+        boolean isBlessed = m_blessedThreadIds.contains(Thread.currentThread().getId());
+        if (m_blockingQueue) {
+            while (!m_distributer.queueBatch(
+                    invocations,
+                    callbacks,
+                    isBlessed)) {
+                try {
+                    backpressureBarrier();
+                } catch (InterruptedException e) {
+                    throw new java.io.InterruptedIOException("Interrupted while invoking procedures asynchronously");
+                }
+            }
+            return true;
+        } else {
+            return m_distributer.queueBatch(
+                    invocations,
+                    callbacks,
+                    isBlessed);
+        }
+    }
+
     /**
      * Serializes catalog and deployment file for UpdateApplicationCatalog.
      * Catalog is serialized into byte array, deployment file is serialized into
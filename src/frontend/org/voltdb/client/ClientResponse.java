@@ -17,6 +17,7 @@
 
 package org.voltdb.client;
 
+import org.voltdb.ColumnarTable;
 import org.voltdb.VoltTable;
 
 /**
@@ -106,6 +107,15 @@ public interface ClientResponse {
      */
     public VoltTable[] getResults();
 
+    /**
+     * Get the results as {@link org.voltdb.ColumnarTable}s, for scanning them a
+     * column at a time. Results that arrived column-major, on connections created
+     * with {@link ClientConfig#setColumnarResults(boolean)}, are returned without
+     * conversion; others are converted on the first call.
+     * @return An array of results. Will never be <code>null</code>, but may be length 0.
+     */
+    public ColumnarTable[] getColumnarResults();
+
     /**
      * Get a <code>String</code> representation of any additional information the server may have included in
      * the response. This may be an stack trace, error message, etc.
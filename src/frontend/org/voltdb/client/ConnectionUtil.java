@@ -115,7 +115,29 @@ public class ConnectionUtil {
      */
     public static Object[] getAuthenticatedConnection(String host, String username,
                                                       byte[] hashedPassword, int port) throws IOException {
-        return getAuthenticatedConnection("database", host, username, hashedPassword, port);
+        return getAuthenticatedConnection(host, username, hashedPassword, port, false, false);
+    }
+
+    /**
+     * Create a connection to a Volt server and authenticate the connection,
+     * optionally asking for large result tables in the columnar layout and
+     * for large results to be streamed in chunks. Servers that don't support
+     * either keep sending whole row tables. The response is described at
+     * {@link #getAuthenticatedConnection(String, String, byte[], int)}.
+     */
+    public static Object[] getAuthenticatedConnection(String host, String username,
+                                                      byte[] hashedPassword, int port,
+                                                      boolean columnarResults,
+                                                      boolean streamedResults) throws IOException {
+        InetSocketAddress address = new InetSocketAddress(host, port);
+        int version = 0;
+        if (columnarResults) {
+            version |= ClientInterface.COLUMNAR_RESULTS_PROTOCOL_VERSION;
+        }
+        if (streamedResults) {
+            version |= ClientInterface.STREAMED_RESULTS_PROTOCOL_VERSION;
+        }
+        return getAuthenticatedConnection("database", address, username, hashedPassword, version);
     }
 
     /**
@@ -133,18 +155,12 @@ public class ConnectionUtil {
     public static Object[] getAuthenticatedExportConnection(InetSocketAddress address,
             String username, byte[] hashedPassword) throws IOException
             {
-        return getAuthenticatedConnection("export", address, username, hashedPassword);
+        return getAuthenticatedConnection("export", address, username, hashedPassword, 0);
             }
 
     private static Object[] getAuthenticatedConnection(
-            String service, String host, String username, byte[] hashedPassword, int port)
-    throws IOException {
-        InetSocketAddress address = new InetSocketAddress(host, port);
-        return getAuthenticatedConnection(service, address, username, hashedPassword);
-    }
-
-    private static Object[] getAuthenticatedConnection(
-            String service, InetSocketAddress addr, String username, byte[] hashedPassword)
+            String service, InetSocketAddress addr, String username, byte[] hashedPassword,
+            int version)
     throws IOException {
         Object returnArray[] = new Object[3];
         boolean success = false;
@@ -168,7 +184,7 @@ public class ConnectionUtil {
             aChannel.socket().setTcpNoDelay(true);
             FastSerializer fs = new FastSerializer();
             fs.writeInt(0);             // placeholder for length
-            fs.writeByte(0);            // version
+            fs.writeByte(version);      // version
             fs.writeString(service);    // data service (export|database)
             fs.writeString(username);
             fs.write(hashedPassword);
@@ -84,6 +84,8 @@ class Distributer {
 
     private final boolean m_useMultipleThreads;
     private final boolean m_useClientAffinity;
+    private boolean m_columnarResults = false;
+    private boolean m_streamedResults = false;
 
     private static final class Procedure {
         final static int PARAMETER_NONE = -1;
@@ -207,7 +209,8 @@ class Distributer {
 
                             // if the timeout is expired, call the callback and remove the
                             // bookeeping data
-                            if ((now - cb.timestamp) > m_procedureCallTimeoutMS) {
+                            // a streamed response is alive as long as its chunks keep coming
+                            if ((now - Math.max(cb.timestamp, cb.lastChunkTimestamp)) > m_procedureCallTimeoutMS) {
 
                                 // make the minimum timeout for certain long running system procedures
                                 //  higher than the default 2m.
@@ -260,6 +263,43 @@ class Distributer {
         long timestamp;
         ProcedureCallback callback;
         String name;
+        // chunks of a streamed response, per result table, and when the last arrived
+        List<List<VoltTable>> resultChunks;
+        long lastChunkTimestamp;
+
+        void addResultChunk(ClientResponseImpl chunk) {
+            if (resultChunks == null) {
+                resultChunks = new ArrayList<List<VoltTable>>();
+            }
+            final int table = chunk.getResultChunkTableIndex();
+            while (resultChunks.size() <= table) {
+                resultChunks.add(new ArrayList<VoltTable>());
+            }
+            resultChunks.get(table).add(chunk.getResults()[0]);
+        }
+    }
+
+    /**
+     * Registered on the handle of an invocation batch. The server acknowledges
+     * a batch it has unpacked with a success response and answers each invocation
+     * on its own handle. A failure on the batch handle means none of the
+     * invocations were initiated, so fail all the ones still outstanding.
+     */
+    class BatchCallback implements ProcedureCallback {
+        private final NodeConnection m_cxn;
+        private final long m_handles[];
+
+        BatchCallback(NodeConnection cxn, long handles[]) {
+            m_cxn = cxn;
+            m_handles = handles;
+        }
+
+        @Override
+        public void clientCallback(ClientResponse clientResponse) throws Exception {
+            if (clientResponse.getStatus() != ClientResponse.SUCCESS) {
+                m_cxn.failBatch(m_handles, clientResponse);
+            }
+        }
     }
 
     class NodeConnection extends VoltProtocolHandler implements org.voltcore.network.QueueMonitor {
@@ -312,6 +352,87 @@ class Distributer {
             m_connection.writeStream().enqueue(c);
         }
 
+        /**
+         * Register the callbacks for every invocation in a batch along with the
+         * batch's own callback, then queue the serialized batch.
+         */
+        public void createBatchWork(long batchHandle, long handles[], String names[],
+                ProcedureCallback callbacks[], ByteBuffer c, boolean ignoreBackpressure) {
+            long now = System.currentTimeMillis();
+            for (int ii = 0; ii < handles.length; ii++) {
+                now = m_rateLimiter.sendTxnWithOptionalBlockAndReturnCurrentTime(
+                        now, ignoreBackpressure);
+            }
+            // The batch acknowledgement is accounted for like any other response
+            now = m_rateLimiter.sendTxnWithOptionalBlockAndReturnCurrentTime(now, true);
+            synchronized (this) {
+                if (!m_isConnected) {
+                    for (int ii = 0; ii < handles.length; ii++) {
+                        final ClientResponse r = new ClientResponseImpl(
+                                ClientResponse.CONNECTION_LOST, new VoltTable[0],
+                                "Connection to database host (" + m_hostname +
+                        ") was lost before a response was received");
+                        try {
+                            callbacks[ii].clientCallback(r);
+                        } catch (Exception e) {
+                            uncaughtException(callbacks[ii], r, e);
+                        }
+                        m_rateLimiter.transactionResponseReceived(now, -1);
+                    }
+                    m_rateLimiter.transactionResponseReceived(now, -1);
+                    return;
+                }
+
+                for (int ii = 0; ii < handles.length; ii++) {
+                    assert(m_callbacks.containsKey(handles[ii]) == false);
+                    m_callbacks.put(handles[ii], new CallbackBookeeping(now, callbacks[ii], names[ii]));
+                }
+                m_callbacks.put(batchHandle, new CallbackBookeeping(now,
+                        new BatchCallback(this, handles), InvocationBatch.PROCEDURE_NAME));
+                m_callbacksToInvoke.addAndGet(handles.length + 1);
+            }
+            m_connection.writeStream().enqueue(c);
+        }
+
+        /**
+         * Fail the invocations of a batch that are still outstanding with the
+         * status of the batch's failure response.
+         */
+        void failBatch(long handles[], ClientResponse batchResponse) {
+            final long now = System.currentTimeMillis();
+            final List<Pair<Long, CallbackBookeeping>> failed =
+                new ArrayList<Pair<Long, CallbackBookeeping>>(handles.length);
+            synchronized (this) {
+                for (long handle : handles) {
+                    CallbackBookeeping stuff = m_callbacks.remove(handle);
+                    if (stuff != null) {
+                        failed.add(Pair.of(handle, stuff));
+                        m_rateLimiter.transactionResponseReceived(now, -1);
+                        updateStats(stuff.name, (int)(now - stuff.timestamp), 0, false, true);
+                    }
+                }
+            }
+
+            for (Pair<Long, CallbackBookeeping> p : failed) {
+                final CallbackBookeeping stuff = p.getSecond();
+                final ClientResponseImpl r = new ClientResponseImpl(
+                        batchResponse.getStatus(),
+                        batchResponse.getAppStatus(),
+                        batchResponse.getAppStatusString(),
+                        new VoltTable[0],
+                        batchResponse.getStatusString());
+                r.setClientHandle(p.getFirst());
+                r.setClientRoundtrip((int)(now - stuff.timestamp));
+                try {
+                    stuff.callback.clientCallback(r);
+                } catch (Exception e) {
+                    uncaughtException(stuff.callback, r, e);
+                }
+                int callbacksToInvoke = m_callbacksToInvoke.decrementAndGet();
+                assert(callbacksToInvoke >= 0);
+            }
+        }
+
         void sendPing() {
             ProcedureInvocation invocation = new ProcedureInvocation(PING_HANDLE, "@Ping");
             ByteBuffer buf = ByteBuffer.allocate(4 + invocation.getSerializedSize());
@@ -364,7 +485,12 @@ class Distributer {
                 // TODO Auto-generated catch block
                 e1.printStackTrace();
             }
+            if (response.isResultChunk()) {
+                handleResultChunk(response, c, now);
+                return;
+            }
             ProcedureCallback cb = null;
+            List<List<VoltTable>> resultChunks = null;
             long callTime = 0;
             int delta = 0;
             long handle = response.getClientHandle();
@@ -394,6 +520,7 @@ class Distributer {
                     callTime = stuff.timestamp;
                     delta = (int)(now - callTime);
                     cb = stuff.callback;
+                    resultChunks = stuff.resultChunks;
                     assert(cb != null);
                     final byte status = response.getStatus();
                     boolean abort = false;
@@ -411,6 +538,9 @@ class Distributer {
 
             // cb might be null on late response
             if (cb != null) {
+                if (resultChunks != null) {
+                    response.appendResultChunks(resultChunks);
+                }
                 response.setClientRoundtrip(delta);
                 assert(response.getHash() == null); // make sure it didn't sneak into wire protocol
                 try {
@@ -423,6 +553,28 @@ class Distributer {
             }
         }
 
+        /**
+         * Hand a chunk of a streamed response to the streaming call it belongs to,
+         * or keep it to reassemble the response for any other kind of call
+         */
+        private void handleResultChunk(ClientResponseImpl chunk, Connection c, long now) {
+            CallbackBookeeping stuff;
+            synchronized (this) {
+                m_lastResponseTime = now;
+                stuff = m_callbacks.get(chunk.getClientHandle());
+                // a chunk of a timed-out call
+                if (stuff == null) {
+                    return;
+                }
+                stuff.lastChunkTimestamp = now;
+                if (!(stuff.callback instanceof StreamedResults.Receiver)) {
+                    stuff.addResultChunk(chunk);
+                    return;
+                }
+            }
+            ((StreamedResults.Receiver) stuff.callback).chunkReceived(chunk, c);
+        }
+
         @Override
         public int getMaxRead() {
             return Integer.MAX_VALUE;
@@ -601,6 +753,20 @@ class Distributer {
         m_timeoutReaperHandle = m_ex.scheduleAtFixedRate(new CallExpiration(), 1, 1, TimeUnit.SECONDS);
     }
 
+    /**
+     * Ask connections created from now on for columnar result tables
+     */
+    void setColumnarResults(boolean columnarResults) {
+        m_columnarResults = columnarResults;
+    }
+
+    /**
+     * Ask connections created from now on for streamed results
+     */
+    void setStreamedResults(boolean streamedResults) {
+        m_streamedResults = streamedResults;
+    }
+
     void createConnection(String host, String program, String password, int port)
     throws UnknownHostException, IOException
     {
@@ -612,7 +778,8 @@ class Distributer {
     throws UnknownHostException, IOException
     {
         final Object socketChannelAndInstanceIdAndBuildString[] =
-            ConnectionUtil.getAuthenticatedConnection(host, program, hashedPassword, port);
+            ConnectionUtil.getAuthenticatedConnection(host, program, hashedPassword, port,
+                    m_columnarResults, m_streamedResults);
         InetSocketAddress address = new InetSocketAddress(host, port);
         final SocketChannel aChannel = (SocketChannel)socketChannelAndInstanceIdAndBuildString[0];
         final long instanceIdWhichIsTimestampAndLeaderIp[] = (long[])socketChannelAndInstanceIdAndBuildString[1];
@@ -768,6 +935,121 @@ class Distributer {
         return !backpressure;
     }
 
+    /**
+     * Queue a batch of invocations. When the client's hashinator knows the partitioning of
+     * a single partition procedure its invocations are grouped by partition and each group
+     * is sent to the partition master as one frame. Everything else is grouped into one
+     * frame sent to the next connection in turn. Either every group is queued or, if any
+     * target connection has backpressure, nothing is queued and false is returned.
+     * @param invocations
+     * @param callbacks
+     * @param ignoreBackpressure If true the batch will be queued even if there is backpressure
+     * @return True if the batch was queued and false if it was not queued due to backpressure
+     * @throws NoConnectionsException
+     */
+    boolean queueBatch(
+            ProcedureInvocation invocations[],
+            ProcedureCallback callbacks[],
+            final boolean ignoreBackpressure)
+    throws NoConnectionsException {
+        assert(invocations.length == callbacks.length);
+
+        final Map<Integer, List<Integer>> groups = new HashMap<Integer, List<Integer>>();
+        final Map<Integer, NodeConnection> groupConnections = new HashMap<Integer, NodeConnection>();
+        final Integer unroutedGroup = -1;
+
+        synchronized (this) {
+            final int totalConnections = m_connections.size();
+
+            if (totalConnections == 0) {
+                throw new NoConnectionsException("No connections.");
+            }
+
+            for (int ii = 0; ii < invocations.length; ii++) {
+                Integer group = unroutedGroup;
+                NodeConnection cxn = null;
+                if (m_useClientAffinity && m_hashinatorInitialized) {
+                    final Procedure procedureInfo = m_procedureInfo.get(invocations[ii].getProcName());
+                    if (procedureInfo != null && !procedureInfo.multiPart) {
+                        final Integer hashedPartition =
+                            invocations[ii].getHashinatedParam(procedureInfo.partitionParameter);
+                        cxn = m_partitionMasters.get(hashedPartition);
+                        if (cxn != null) {
+                            group = hashedPartition;
+                        }
+                    }
+                }
+                List<Integer> members = groups.get(group);
+                if (members == null) {
+                    members = new ArrayList<Integer>();
+                    groups.put(group, members);
+                    if (cxn == null) {
+                        cxn = m_connections.get(Math.abs(++m_nextConnection % totalConnections));
+                    }
+                    groupConnections.put(group, cxn);
+                }
+                members.add(ii);
+            }
+
+            if (!ignoreBackpressure) {
+                for (NodeConnection cxn : groupConnections.values()) {
+                    if (cxn.hadBackPressure()) {
+                        for (ClientStatusListenerExt s : m_listeners) {
+                            s.backpressure(true);
+                        }
+                        return false;
+                    }
+                }
+            }
+        }
+
+        /*
+         * Do the heavy weight serialization outside the synchronized block.
+         */
+        for (Map.Entry<Integer, List<Integer>> e : groups.entrySet()) {
+            final List<Integer> members = e.getValue();
+            final long handles[] = new long[members.size()];
+            final String names[] = new String[members.size()];
+            final ProcedureCallback groupCallbacks[] = new ProcedureCallback[members.size()];
+
+            int payloadSize = 4;
+            for (int ii = 0; ii < members.size(); ii++) {
+                payloadSize += 4 + invocations[members.get(ii)].getSerializedSize();
+            }
+            final ByteBuffer payload = ByteBuffer.allocate(payloadSize);
+            payload.putInt(members.size());
+            try {
+                for (int ii = 0; ii < members.size(); ii++) {
+                    final ProcedureInvocation invocation = invocations[members.get(ii)];
+                    handles[ii] = invocation.getHandle();
+                    names[ii] = invocation.getProcName();
+                    groupCallbacks[ii] = callbacks[members.get(ii)];
+                    final int sizePosition = payload.position();
+                    payload.putInt(0);
+                    invocation.flattenToBuffer(payload);
+                    payload.putInt(sizePosition, payload.position() - sizePosition - 4);
+                }
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+
+            final ProcedureInvocation batch = new ProcedureInvocation(
+                    m_sysHandle.getAndDecrement(), InvocationBatch.PROCEDURE_NAME, payload.array());
+            ByteBuffer buf = ByteBuffer.allocate(4 + batch.getSerializedSize());
+            buf.putInt(buf.capacity() - 4);
+            try {
+                batch.flattenToBuffer(buf);
+                buf.flip();
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+            groupConnections.get(e.getKey()).createBatchWork(
+                    batch.getHandle(), handles, names, groupCallbacks, buf, ignoreBackpressure);
+        }
+
+        return true;
+    }
+
     /**
      * Shutdown the VoltNetwork allowing the Ports to close and free resources
      * like memory pools
@@ -0,0 +1,78 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>A set of procedure invocations to be queued together with
+ * {@link Client#callProcedures(InvocationBatch)}.</p>
+ *
+ * <p>When client affinity is enabled the client hashes each single partition
+ * invocation to its partition and sends all the invocations for a partition to
+ * the partition's master as one network frame, which the server initiates in
+ * one step. Every invocation still gets its own response delivered to its own
+ * callback. Batching pays off for many small single partition invocations; a
+ * batch may contain multi-partition invocations but they gain nothing from it.
+ * System procedures can't be batched.</p>
+ *
+ * <p>A batch can be reused after it has been queued by calling {@link #clear()}.</p>
+ */
+public class InvocationBatch {
+
+    /** Name of the invocation that carries a batch over the wire */
+    public static final String PROCEDURE_NAME = "@InvocationBatch";
+
+    final List<ProcedureCallback> m_callbacks = new ArrayList<ProcedureCallback>();
+    final List<String> m_procNames = new ArrayList<String>();
+    final List<Object[]> m_parameters = new ArrayList<Object[]>();
+
+    /**
+     * Add an invocation to the batch.
+     * @param callback ProcedureCallback that will be invoked with the procedure's results,
+     *                 may be null if the results are going to be ignored.
+     * @param procName class name (not qualified by package) of the procedure to execute.
+     * @param parameters vararg list of procedure's parameter values.
+     * @return this batch
+     */
+    public InvocationBatch add(ProcedureCallback callback, String procName, Object... parameters) {
+        if (procName == null) {
+            throw new IllegalArgumentException("Procedure name can't be null");
+        }
+        if (procName.startsWith("@")) {
+            throw new IllegalArgumentException("System procedure " + procName + " can't be invoked in a batch");
+        }
+        m_callbacks.add(callback == null ? new NullCallback() : callback);
+        m_procNames.add(procName);
+        m_parameters.add(parameters);
+        return this;
+    }
+
+    /** @return the number of invocations in the batch */
+    public int size() {
+        return m_procNames.size();
+    }
+
+    /** Remove all the invocations from the batch */
+    public void clear() {
+        m_callbacks.clear();
+        m_procNames.clear();
+        m_parameters.clear();
+    }
+}
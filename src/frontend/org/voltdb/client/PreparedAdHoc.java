@@ -0,0 +1,94 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.client;
+
+/**
+ * An ad hoc SQL statement planned once by the server and executed by handle
+ * with {@link Client#callPreparedAdHoc(PreparedAdHoc, Object...)}, skipping
+ * the planner on every later execution. The handle is derived from the SQL
+ * text, so it is valid against any server in the cluster. A server that lost
+ * the plan, e.g. after a catalog update, reports it as not found and the
+ * client transparently prepares the statement again.
+ */
+public class PreparedAdHoc {
+
+    /** Status string of a response to an execution the server had no plan for */
+    public static final String NOT_FOUND_STATUS = "Prepared ad hoc statement not found";
+
+    private final String m_sql;
+    private final long m_handle;
+    private final int m_parameterCount;
+
+    PreparedAdHoc(String sql, long handle, int parameterCount) {
+        m_sql = sql;
+        m_handle = handle;
+        m_parameterCount = parameterCount;
+    }
+
+    /**
+     * @return the SQL text of the statement.
+     */
+    public String getSQL() {
+        return m_sql;
+    }
+
+    /**
+     * @return the server's handle for the statement.
+     */
+    public long getHandle() {
+        return m_handle;
+    }
+
+    /**
+     * @return the number of parameters the statement must be executed with.
+     */
+    public int getParameterCount() {
+        return m_parameterCount;
+    }
+
+    /**
+     * Parameters of an @AdHocExecute invocation of this statement.
+     */
+    Object[] executeParameters(Object[] parameters) {
+        Object[] params = new Object[parameters.length + 1];
+        params[0] = m_handle;
+        System.arraycopy(parameters, 0, params, 1, parameters.length);
+        return params;
+    }
+
+    /**
+     * Parameters of an @AdHocPrepare invocation that prepares and executes
+     * this statement in one round trip.
+     */
+    Object[] prepareParameters(Object[] parameters) {
+        Object[] params = new Object[parameters.length + 1];
+        params[0] = m_sql;
+        System.arraycopy(parameters, 0, params, 1, parameters.length);
+        return params;
+    }
+
+    static boolean isNotFound(ClientResponse response) {
+        return response.getStatus() == ClientResponse.GRACEFUL_FAILURE &&
+               NOT_FOUND_STATUS.equals(response.getStatusString());
+    }
+
+    @Override
+    public String toString() {
+        return m_sql;
+    }
+}
@@ -0,0 +1,201 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.client;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.voltcore.network.Connection;
+import org.voltdb.ClientResponseImpl;
+import org.voltdb.VoltTable;
+
+/**
+ * The results of a procedure invoked with {@link Client#callProcedureStreamed(String, Object...)},
+ * read as a series of tables that each hold a chunk of the rows of one result table.
+ * Chunks are handed out as they arrive from the server and at most a few are
+ * buffered: while the application falls behind, the client stops reading the
+ * connection and the server stops sending. Other responses on the same connection
+ * wait behind the stream, so iterate to the end or {@link #close()} the results.
+ *
+ * Large results are only streamed by servers the client asked to at login, see
+ * {@link ClientConfig#setStreamedResults(boolean)}. Otherwise each result table
+ * arrives whole and is returned as a single chunk.
+ */
+public class StreamedResults implements Iterator<VoltTable> {
+
+    static final int MAX_BUFFERED_CHUNKS = 4;
+
+    private final ArrayDeque<ClientResponseImpl> m_messages = new ArrayDeque<ClientResponseImpl>();
+    private ClientResponseImpl m_response = null;
+    // the connection whose reads are paused until the application catches up
+    private Connection m_pausedConnection = null;
+    private boolean m_closed = false;
+    // set while the application waits for the response without reading chunks
+    private boolean m_draining = false;
+    // the result tables of the response itself, when they carry rows
+    private int m_responseTable = 0;
+    private int m_tableIndex = -1;
+
+    private final Receiver m_receiver = new Receiver();
+
+    StreamedResults() {}
+
+    /**
+     * Registered as the callback of the invocation, so that the connection
+     * passes chunks to the results rather than collecting them.
+     */
+    class Receiver implements ProcedureCallback {
+        void chunkReceived(ClientResponseImpl chunk, Connection c) {
+            synchronized (StreamedResults.this) {
+                if (m_closed) {
+                    return;
+                }
+                m_messages.add(chunk);
+                if (m_messages.size() >= MAX_BUFFERED_CHUNKS && m_pausedConnection == null && !m_draining) {
+                    m_pausedConnection = c;
+                    c.disableReadSelection();
+                }
+                StreamedResults.this.notifyAll();
+            }
+        }
+
+        @Override
+        public void clientCallback(ClientResponse response) {
+            synchronized (StreamedResults.this) {
+                m_response = (ClientResponseImpl) response;
+                StreamedResults.this.notifyAll();
+            }
+        }
+    }
+
+    Receiver receiver() {
+        return m_receiver;
+    }
+
+    /**
+     * Block until the first chunk or the response has arrived.
+     * @return the response if it came before any chunk, null otherwise
+     */
+    synchronized ClientResponse waitForFirstMessage() throws InterruptedException {
+        while (m_messages.isEmpty() && m_response == null) {
+            wait();
+        }
+        return m_messages.isEmpty() ? m_response : null;
+    }
+
+    /**
+     * Block until another chunk has arrived or the results are complete.
+     * @throws IllegalStateException if the response failed, e.g. because the
+     * connection was lost, after some chunks had been returned.
+     */
+    @Override
+    public synchronized boolean hasNext() {
+        try {
+            while (m_messages.isEmpty() && m_response == null && !m_closed) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for streamed results", e);
+        }
+        if (!m_messages.isEmpty()) {
+            return true;
+        }
+        if (m_closed) {
+            return false;
+        }
+        if (m_response.getStatus() != ClientResponse.SUCCESS) {
+            throw new IllegalStateException("Streamed results ended with status " +
+                    m_response.getStatus() + ": " + m_response.getStatusString());
+        }
+        // whole tables of a response that wasn't streamed
+        VoltTable[] tables = m_response.getResults();
+        while (m_responseTable < tables.length && tables[m_responseTable].getRowCount() == 0) {
+            m_responseTable++;
+        }
+        return m_responseTable < tables.length;
+    }
+
+    /**
+     * @return the next chunk of rows, of the result table given by {@link #getTableIndex()}
+     */
+    @Override
+    public synchronized VoltTable next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (m_messages.isEmpty()) {
+            m_tableIndex = m_responseTable++;
+            return m_response.getResults()[m_tableIndex];
+        }
+        ClientResponseImpl chunk = m_messages.poll();
+        if (m_pausedConnection != null && m_messages.size() <= MAX_BUFFERED_CHUNKS / 2) {
+            m_pausedConnection.enableReadSelection();
+            m_pausedConnection = null;
+        }
+        m_tableIndex = chunk.getResultChunkTableIndex();
+        return chunk.getResults()[0];
+    }
+
+    /**
+     * @return the index among the procedure's result tables of the table the
+     * chunk last returned by {@link #next()} belongs to.
+     */
+    public synchronized int getTableIndex() {
+        return m_tableIndex;
+    }
+
+    /**
+     * Block until the response that ends the results has arrived. The result
+     * tables of a streamed response hold the schemas of the tables but none of
+     * their rows. Chunks not yet returned by {@link #next()} are kept, and while
+     * waiting every chunk still to arrive is buffered as well.
+     */
+    public synchronized ClientResponse getResponse() throws InterruptedException {
+        // the response can't arrive while the reads it follows are paused
+        m_draining = true;
+        if (m_pausedConnection != null) {
+            m_pausedConnection.enableReadSelection();
+            m_pausedConnection = null;
+        }
+        while (m_response == null) {
+            wait();
+        }
+        return m_response;
+    }
+
+    /**
+     * Discard the chunks not yet returned, and any still to arrive, and resume
+     * reading the connection.
+     */
+    public synchronized void close() {
+        m_closed = true;
+        m_messages.clear();
+        if (m_pausedConnection != null) {
+            m_pausedConnection.enableReadSelection();
+            m_pausedConnection = null;
+        }
+        notifyAll();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
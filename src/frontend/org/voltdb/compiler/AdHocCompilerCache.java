@@ -19,6 +19,7 @@ package org.voltdb.compiler;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -40,6 +41,11 @@ import org.voltdb.planner.BoundPlan;
  * statement mapped to core parameterized plans. These parameterized
  * plans need parameter values and sql literals in order to be
  * actually used.
+ *
+ * Alongside the second level, store the lexer normalized form of
+ * statements (see {@link NormalizedAdHocSQL}) mapped to their
+ * parameterized parsed statement, so a statement that differs from a
+ * planned one only in its literals finds its core plan without a parse.
  */
 public class AdHocCompilerCache implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -81,6 +87,8 @@ public class AdHocCompilerCache implements Serializable {
      *  each plan optionally has its own requirements for which parameters need to be bound
      *  to what values to enable its specialized (expression-indexed) plan. */
     final Map<String, List<BoundPlan> > m_coreCache;
+    /** cache of normalized statements to the parsed tokens of the core cache */
+    final Map<String, NormalizedStatement> m_normalizedCache;
 
     // placeholder stats used during development that may/may not survive
     long m_literalHits = 0;
@@ -142,6 +150,17 @@ public class AdHocCompilerCache implements Serializable {
                 return false;
             }
         };
+
+        // an LRU cache map
+        m_normalizedCache = new LinkedHashMap<String, NormalizedStatement>(MAX_CORE_ENTRIES * 2, .75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            // This method is called just after a new entry has been added
+            @Override
+            public boolean removeEldestEntry(Map.Entry<String, NormalizedStatement> eldest) {
+                return size() > MAX_CORE_ENTRIES;
+            }
+        };
     }
 
     /**
@@ -197,6 +216,50 @@ public class AdHocCompilerCache implements Serializable {
         return retval;
     }
 
+    /**
+     * @param normalizedSQL The key of a lexer normalized statement
+     * @return Where its core plans are cached and how its literals bind to
+     * their parameters, or null. Check {@link NormalizedStatement#isUsable()}.
+     */
+    public synchronized NormalizedStatement getWithNormalizedSQL(String normalizedSQL) {
+        return m_normalizedCache.get(normalizedSQL);
+    }
+
+    /**
+     * Check the literals the lexer found in a statement against the parameters
+     * its parse extracted, and remember the normalized statement if each
+     * parameter can be traced to exactly one literal. Call this every time a
+     * parsed statement is cached: a parse that disagrees with the remembered
+     * parsed token or parameter order leaves the normalized statement unusable,
+     * so its statements keep being parsed.
+     *
+     * @param normalized The lexer normalized statement
+     * @param parsedToken The parsed token its core plans are cached under
+     * @param extractedLiterals The literals parameterization extracted, in
+     * parameter order
+     */
+    public synchronized void putNormalized(NormalizedAdHocSQL normalized,
+                                           String parsedToken,
+                                           String[] extractedLiterals) {
+        assert(normalized != null);
+        assert(parsedToken != null);
+        NormalizedStatement known = m_normalizedCache.get(normalized.key);
+        if (known != null) {
+            if ( ! known.isUsable()) {
+                return;
+            }
+            if ( ! known.parsedToken.equals(parsedToken) ||
+                 ! Arrays.equals(known.bindLiterals(normalized.literals), extractedLiterals)) {
+                m_normalizedCache.put(normalized.key, NormalizedStatement.UNUSABLE);
+            }
+            return;
+        }
+        int[] literalIndexes = NormalizedStatement.traceLiterals(normalized.literals, extractedLiterals);
+        if (literalIndexes != null) {
+            m_normalizedCache.put(normalized.key, new NormalizedStatement(parsedToken, literalIndexes));
+        }
+    }
+
     /**
      * Called from the PlannerTool directly when it finishes planning.
      * This is the only way to populate the cache.
@@ -267,6 +330,18 @@ public class AdHocCompilerCache implements Serializable {
         }
     }
 
+    /**
+     * Forget every cached plan, e.g. because the table statistics they were
+     * costed with have changed materially. The normalized statements are kept,
+     * since they only map statement text to parsed tokens.
+     */
+    public synchronized void clearPlans() {
+        m_planEvictions += m_coreCache.size();
+        m_literalEvictions += m_literalCache.size();
+        m_coreCache.clear();
+        m_literalCache.clear();
+    }
+
     /**
      * Start a timer that prints cache stats to the console every 5s.
      * Used for development until we get better stats integration.
@@ -298,4 +373,85 @@ public class AdHocCompilerCache implements Serializable {
     public int getCoreCacheSize() {
         return m_coreCache.size();
     }
+
+    /**
+     * A normalized statement's parsed token, and for each parameter of its core
+     * plans, the position in the statement of the literal bound to it. HSQL
+     * doesn't always extract parameters in statement order, e.g. it puts index
+     * conditions first.
+     */
+    public static class NormalizedStatement implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /** a statement whose parses disagreed about its parameters */
+        static final NormalizedStatement UNUSABLE = new NormalizedStatement(null, null);
+
+        final String parsedToken;
+        final int[] literalIndexes;
+
+        NormalizedStatement(String parsedToken, int[] literalIndexes) {
+            this.parsedToken = parsedToken;
+            this.literalIndexes = literalIndexes;
+        }
+
+        public String getParsedToken() {
+            return parsedToken;
+        }
+
+        public boolean isUsable() {
+            return parsedToken != null;
+        }
+
+        /**
+         * @param literals The literals of a statement, in statement order
+         * @return The literals in parameter order, or null if there are too
+         * few or too many of them
+         */
+        public String[] bindLiterals(String[] literals) {
+            if (literals.length != literalIndexes.length) {
+                return null;
+            }
+            String[] bound = new String[literalIndexes.length];
+            for (int i = 0; i < literalIndexes.length; i++) {
+                bound[i] = literals[literalIndexes[i]];
+            }
+            return bound;
+        }
+
+        /**
+         * Find the statement position of the literal each parameter was extracted
+         * from. This is only certain when every value matches exactly one literal,
+         * so repeated values, or values missing on either side, give null.
+         */
+        static int[] traceLiterals(String[] literals, String[] extractedLiterals) {
+            if (extractedLiterals == null || literals.length != extractedLiterals.length) {
+                return null;
+            }
+            int[] literalIndexes = new int[extractedLiterals.length];
+            for (int i = 0; i < extractedLiterals.length; i++) {
+                literalIndexes[i] = -1;
+                for (int j = 0; j < literals.length; j++) {
+                    if (literals[j].equals(extractedLiterals[i])) {
+                        if (literalIndexes[i] >= 0) {
+                            return null;
+                        }
+                        literalIndexes[i] = j;
+                    }
+                }
+                if (literalIndexes[i] < 0) {
+                    return null;
+                }
+            }
+            // equal lengths and unique matches make this a permutation unless
+            // a parameter value repeats
+            boolean[] used = new boolean[literals.length];
+            for (int index : literalIndexes) {
+                if (used[index]) {
+                    return null;
+                }
+                used[index] = true;
+            }
+            return literalIndexes;
+        }
+    }
 }
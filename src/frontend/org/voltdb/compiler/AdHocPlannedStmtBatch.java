@@ -55,6 +55,8 @@ public class AdHocPlannedStmtBatch extends AsyncCompilerResult implements Clonea
     private boolean readOnly = true;
 
     private boolean isExplainWork = false;
+    private boolean isPrepareWork = false;
+    private Object[] executeParams = null;
 
     /**
      * Statement batch constructor.
@@ -211,4 +213,25 @@ public class AdHocPlannedStmtBatch extends AsyncCompilerResult implements Clonea
     public boolean isExplainWork() {
         return isExplainWork;
     }
+
+    /**
+     * Mark the work as preparing a statement for later execution by handle,
+     * optionally executing it right away with the given parameters.
+     */
+    public void setIsPrepareWork(Object[] executeParams) {
+        isPrepareWork = true;
+        this.executeParams = executeParams;
+    }
+
+    public boolean isPrepareWork() {
+        return isPrepareWork;
+    }
+
+    /**
+     * @return the parameters to execute a prepared statement with once
+     * planned, or null if preparing only
+     */
+    public Object[] getExecuteParams() {
+        return executeParams;
+    }
 }
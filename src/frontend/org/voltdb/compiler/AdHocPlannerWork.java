@@ -36,6 +36,8 @@ public class AdHocPlannerWork extends AsyncCompilerWork {
     final long originalTxnId;
     final long originalUniqueId;
     private boolean isExplainWork = false;
+    private boolean isPrepareWork = false;
+    private Object[] executeParams = null;
 
     public AdHocPlannerWork(long replySiteId, boolean shouldShutdown, long clientHandle,
             long connectionId, String hostname, boolean adminConnection, Object clientData,
@@ -81,4 +83,25 @@ public class AdHocPlannerWork extends AsyncCompilerWork {
     public boolean isExplainWork() {
         return isExplainWork;
     }
+
+    /**
+     * Mark the work as preparing a statement for later execution by handle,
+     * optionally executing it right away with the given parameters.
+     */
+    public void setIsPrepareWork(Object[] executeParams) {
+        isPrepareWork = true;
+        this.executeParams = executeParams;
+    }
+
+    public boolean isPrepareWork() {
+        return isPrepareWork;
+    }
+
+    /**
+     * @return the parameters to execute a prepared statement with once
+     * planned, or null if preparing only
+     */
+    public Object[] getExecuteParams() {
+        return executeParams;
+    }
 }
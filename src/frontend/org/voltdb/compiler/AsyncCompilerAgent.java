@@ -195,6 +195,9 @@ public class AsyncCompilerAgent {
         if( work.isExplainWork() ) {
             plannedStmtBatch.setIsExplainWork();
         }
+        if (work.isPrepareWork()) {
+            plannedStmtBatch.setIsPrepareWork(work.getExecuteParams());
+        }
         return plannedStmtBatch;
     }
 }
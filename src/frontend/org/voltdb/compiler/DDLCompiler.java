@@ -214,7 +214,7 @@ public class DDLCompiler {
             "AS" +                                  // AS token
             "\\s+" +                                // one or more spaces
             "(" +                                   // (3) begin SELECT or DML statement
-            "(?:SELECT|INSERT|UPDATE|DELETE)" +     //   valid DML start tokens (not captured)
+            "(?:SELECT|INSERT|UPSERT|UPDATE|DELETE)" + // valid DML start tokens (not captured)
             "\\s+" +                                //   one or more spaces
             ".+)" +                                 //   end SELECT or DML statement
             ";" +                                   // semi-colon terminator
@@ -272,15 +272,30 @@ public class DDLCompiler {
             "([\\w.$]+)" +                      // (1) <table name>
             "\\s*;\\z"                          // (end statement)
             );
+
+    /**
+     * DICTIONARY ENCODE statement regex
+     * NB supports only unquoted table and column names
+     * Capture groups are tagged as (1) and (2) in comments below.
+     */
+    static final Pattern dictionaryEncodePattern = Pattern.compile(
+            "(?i)" +                            // (ignore case)
+            "\\A"  +                            // start statement
+            "DICTIONARY\\s+ENCODE\\s+TABLE\\s+" + // DICTIONARY ENCODE TABLE
+            "([\\w$]+)" +                       // (1) <table name>
+            "\\s+ON\\s+COLUMN\\s+" +            // ON COLUMN
+            "([\\w$]+)" +                       // (2) <column name>
+            "\\s*;\\z"                          // (end statement)
+            );
     /**
      * Regex Description:
      *
      *  if the statement starts with either create procedure, partition,
-     *  replicate, or role the first match group is set to respectively procedure,
-     *  partition, replicate, or role.
+     *  replicate, role, export, or dictionary the first match group is set to
+     *  respectively procedure, partition, replicate, role, export, or dictionary.
      * <pre>
      * (?i) -- ignore case
-     * ((?<=\\ACREATE\\s{0,1024})(?:PROCEDURE|ROLE)|\\APARTITION|\\AREPLICATE\\AEXPORT) -- voltdb ddl
+     * ((?<=\\ACREATE\\s{0,1024})(?:PROCEDURE|ROLE)|\\APARTITION|\\AREPLICATE\\AEXPORT|\\ADICTIONARY) -- voltdb ddl
      *    [capture group 1]
      *      (?<=\\ACREATE\\s{1,1024})(?:PROCEDURE|ROLE) -- create procedure or role ddl
      *          (?<=\\ACREATE\\s{0,1024}) -- CREATE zero-width positive lookbehind
@@ -297,11 +312,14 @@ public class DDLCompiler {
      *      | -- or
      *      \\A -- beginning of statement
      *      EXPORT -- token
+     *      | -- or
+     *      \\A -- beginning of statement
+     *      DICTIONARY -- token
      * \\s -- one space
      * </pre>
      */
     static final Pattern voltdbStatementPrefixPattern = Pattern.compile(
-            "(?i)((?<=\\ACREATE\\s{0,1024})(?:PROCEDURE|ROLE)|\\APARTITION|\\AREPLICATE|\\AEXPORT)\\s"
+            "(?i)((?<=\\ACREATE\\s{0,1024})(?:PROCEDURE|ROLE)|\\APARTITION|\\AREPLICATE|\\AEXPORT|\\ADICTIONARY)\\s"
             );
 
     static final String TABLE = "TABLE";
@@ -310,6 +328,7 @@ public class DDLCompiler {
     static final String REPLICATE = "REPLICATE";
     static final String EXPORT = "EXPORT";
     static final String ROLE = "ROLE";
+    static final String DICTIONARY = "DICTIONARY";
 
     enum Permission {
         adhoc,
@@ -445,7 +464,7 @@ public class DDLCompiler {
 
     /**
      * Process a VoltDB-specific DDL statement, like PARTITION, REPLICATE,
-     * CREATE PROCEDURE, and CREATE ROLE.
+     * CREATE PROCEDURE, CREATE ROLE, and DICTIONARY ENCODE.
      * @param statement  DDL statement string
      * @param db
      * @return true if statement was handled, otherwise it should be passed to HSQL
@@ -464,7 +483,7 @@ public class DDLCompiler {
             return false;
         }
 
-        // either PROCEDURE, REPLICATE, PARTITION, ROLE, or EXPORT
+        // either PROCEDURE, REPLICATE, PARTITION, ROLE, EXPORT, or DICTIONARY
         String commandPrefix = statementMatcher.group(1).toUpperCase();
 
         // matches if it is CREATE PROCEDURE [ALLOW <role> ...] FROM CLASS <class-name>;
@@ -644,6 +663,17 @@ public class DDLCompiler {
             return true;
         }
 
+        // matches if it is DICTIONARY ENCODE TABLE <table> ON COLUMN <column>
+        statementMatcher = dictionaryEncodePattern.matcher(statement);
+        if( statementMatcher.matches()) {
+            // group(1) -> table, group(2) -> column
+            m_tracker.addDictionaryEncodedColumn(
+                    checkIdentifierStart(statementMatcher.group(1), statement),
+                    checkIdentifierStart(statementMatcher.group(2), statement)
+                    );
+            return true;
+        }
+
         /*
          * if no correct syntax regex matched above then at this juncture
          * the statement is syntax incorrect
@@ -687,6 +717,13 @@ public class DDLCompiler {
                     statement.substring(0,statement.length()-1))); // remove trailing semicolon
         }
 
+        if( DICTIONARY.equals(commandPrefix)) {
+            throw m_compiler.new VoltCompilerException(String.format(
+                    "Invalid DICTIONARY ENCODE statement: \"%s\", " +
+                    "expected syntax: DICTIONARY ENCODE TABLE <table> ON COLUMN <column>",
+                    statement.substring(0,statement.length()-1))); // remove trailing semicolon
+        }
+
         // Not a VoltDB-specific DDL statement.
         return false;
     }
@@ -19,21 +19,171 @@ package org.voltdb.compiler;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Map.Entry;
+
+import org.voltdb.VoltTable;
+import org.voltdb.VoltTableRow;
 
 public class DatabaseEstimates {
 
+    public static final long UNKNOWN_TUPLE_COUNT = -1;
+
+    /**
+     * How far a measured count has to move, as a ratio, before plans made
+     * with the old count are considered stale. Counts below the floor are
+     * compared as if they were the floor, so small tables don't churn plans.
+     */
+    static final double MATERIAL_CHANGE_RATIO = 2.0;
+    static final long MATERIAL_CHANGE_FLOOR = 1000;
+
+    /** The largest row estimate a plan node reports, so summed plan costs can't overflow */
+    public static final long MAX_TUPLE_ESTIMATE = 1L << 50;
+
     public static class TableEstimates {
         public long maxTuples = 1000000;
         public long minTuples = 100000;
+        /** The tuple count last reported by the table statistics, if any */
+        public long tupleCount = UNKNOWN_TUPLE_COUNT;
+        /** Distinct key estimates last reported by the index statistics, by index name */
+        public HashMap<String, Long> distinctKeys = new HashMap<String, Long>();
         public ArrayList<ScalarValueHints> valueHints = new ArrayList<ScalarValueHints>();
+
+        /**
+         * @return the number of distinct keys reported for the index, or
+         * UNKNOWN_TUPLE_COUNT if the index statistics had no estimate.
+         */
+        public long getDistinctKeys(String indexName) {
+            Long keys = distinctKeys.get(indexName);
+            return (keys == null) ? UNKNOWN_TUPLE_COUNT : keys.longValue();
+        }
     }
 
     HashMap<String, TableEstimates> tables = new HashMap<String, TableEstimates>();
 
+    /** Whether the table sizes come from statistics rather than defaults */
+    boolean m_measured = false;
+
     public TableEstimates getEstimatesForTable(String tableName) {
         if (tables.containsKey(tableName) == false)
             tables.put(tableName, new TableEstimates());
 
         return tables.get(tableName);
     }
+
+    /**
+     * Record a measured tuple count for a table, which replaces its default
+     * size estimates.
+     */
+    public void setTupleCount(String tableName, long tupleCount) {
+        TableEstimates table = getEstimatesForTable(tableName);
+        table.tupleCount = tupleCount;
+        table.minTuples = tupleCount;
+        table.maxTuples = tupleCount;
+        m_measured = true;
+    }
+
+    /**
+     * Record a measured distinct key estimate for an index of a table.
+     */
+    public void setDistinctKeys(String tableName, String indexName, long keys) {
+        getEstimatesForTable(tableName).distinctKeys.put(indexName, keys);
+        m_measured = true;
+    }
+
+    /**
+     * @return true if the estimates were built from table statistics, in which
+     * case plan nodes cost joins by the row counts they multiply rather than
+     * by the catalog compiler's fixed heuristics.
+     */
+    public boolean isMeasured() {
+        return m_measured;
+    }
+
+    /**
+     * Estimates from the rows of TABLE and INDEX statistics tables. A table
+     * has one row per site; the tuple count of a table is the largest one
+     * reported, which is the count at any site for a replicated table. The
+     * distinct key estimate of an index is likewise the largest reported.
+     * Either statistics table may be null.
+     */
+    public static DatabaseEstimates fromStats(VoltTable tableStats, VoltTable indexStats) {
+        DatabaseEstimates estimates = new DatabaseEstimates();
+        if (tableStats == null) {
+            return estimates;
+        }
+        final int nameColumn = tableStats.getColumnIndex("TABLE_NAME");
+        final int countColumn = tableStats.getColumnIndex("TUPLE_COUNT");
+        for (int ii = 0; ii < tableStats.getRowCount(); ii++) {
+            VoltTableRow row = tableStats.fetchRow(ii);
+            String table = row.getString(nameColumn);
+            estimates.setTupleCount(table, Math.max(
+                    estimates.getEstimatesForTable(table).tupleCount, row.getLong(countColumn)));
+        }
+        if (indexStats == null) {
+            return estimates;
+        }
+        final int indexColumn = indexStats.getColumnIndex("INDEX_NAME");
+        final int tableColumn = indexStats.getColumnIndex("TABLE_NAME");
+        final int keysColumn = indexStats.getColumnIndex("DISTINCT_KEY_ESTIMATE");
+        for (int ii = 0; ii < indexStats.getRowCount(); ii++) {
+            VoltTableRow row = indexStats.fetchRow(ii);
+            long keys = row.getLong(keysColumn);
+            if (keys < 0) {
+                continue;
+            }
+            String table = row.getString(tableColumn);
+            String index = row.getString(indexColumn);
+            estimates.setDistinctKeys(table, index, Math.max(
+                    estimates.getEstimatesForTable(table).getDistinctKeys(index), keys));
+        }
+        return estimates;
+    }
+
+    /**
+     * @return true if any table count or distinct key estimate differs from
+     * the one in other by at least MATERIAL_CHANGE_RATIO, or is known in only
+     * one of the two.
+     */
+    public boolean differsMateriallyFrom(DatabaseEstimates other) {
+        if (m_measured != other.m_measured) {
+            return true;
+        }
+        for (Entry<String, TableEstimates> e : tables.entrySet()) {
+            TableEstimates mine = e.getValue();
+            TableEstimates theirs = other.tables.get(e.getKey());
+            if (theirs == null) {
+                return true;
+            }
+            if (differsMaterially(mine.tupleCount, theirs.tupleCount)) {
+                return true;
+            }
+            for (Entry<String, Long> keys : mine.distinctKeys.entrySet()) {
+                if (differsMaterially(keys.getValue(), theirs.getDistinctKeys(keys.getKey()))) {
+                    return true;
+                }
+            }
+        }
+        for (String table : other.tables.keySet()) {
+            if ( ! tables.containsKey(table)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the product of two row estimates, capped at MAX_TUPLE_ESTIMATE.
+     */
+    public static long multiplyTupleCounts(long a, long b) {
+        return (long) Math.min((double) a * b, MAX_TUPLE_ESTIMATE);
+    }
+
+    private static boolean differsMaterially(long a, long b) {
+        if ((a == UNKNOWN_TUPLE_COUNT) || (b == UNKNOWN_TUPLE_COUNT)) {
+            return a != b;
+        }
+        double larger = Math.max(Math.max(a, b), MATERIAL_CHANGE_FLOOR);
+        double smaller = Math.max(Math.min(a, b), MATERIAL_CHANGE_FLOOR);
+        return larger / smaller >= MATERIAL_CHANGE_RATIO;
+    }
 }
@@ -0,0 +1,210 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * An ad hoc SQL statement reduced by a lexer to a literal free key plus the
+ * literals that were removed, in statement order. Statements that differ only
+ * in their literals, white space, comments or the case of unquoted words
+ * normalize to the same key, which lets the planner find a parameterized plan
+ * without asking HSQL to parse the statement.
+ *
+ * Each literal is replaced in the key by a marker carrying its lexical kind,
+ * so that e.g. an integer and a string constant in the same position don't
+ * share a plan. Whether the literals line up one to one with the parameters
+ * HSQL extracts is not something the lexer can know; the planner checks that
+ * before it trusts a key.
+ */
+public class NormalizedAdHocSQL {
+
+    /** The statement with literals replaced and tokens separated by single spaces */
+    public final String key;
+    /** The literal values in statement order, strings without quotes */
+    public final String[] literals;
+
+    private NormalizedAdHocSQL(String key, String[] literals) {
+        this.key = key;
+        this.literals = literals;
+    }
+
+    /**
+     * @return the normalized statement, or null if the statement has no
+     * literals or uses syntax the lexer doesn't handle, such as user
+     * parameters, hex literals or unterminated quotes.
+     */
+    public static NormalizedAdHocSQL normalize(String sql) {
+        final StringBuilder key = new StringBuilder(sql.length());
+        final List<String> literals = new ArrayList<String>();
+        final int len = sql.length();
+        int ii = 0;
+        while (ii < len) {
+            final char c = sql.charAt(ii);
+            if (Character.isWhitespace(c)) {
+                ii++;
+                continue;
+            }
+            // comments
+            if (c == '-' && ii + 1 < len && sql.charAt(ii + 1) == '-') {
+                while (ii < len && sql.charAt(ii) != '\n') {
+                    ii++;
+                }
+                continue;
+            }
+            if (c == '/' && ii + 1 < len && sql.charAt(ii + 1) == '*') {
+                final int end = sql.indexOf("*/", ii + 2);
+                if (end < 0) {
+                    return null;
+                }
+                ii = end + 2;
+                continue;
+            }
+
+            if (key.length() > 0) {
+                key.append(' ');
+            }
+
+            if (c == '\'') {
+                // X'..' and friends are typed literals the lexer can't classify
+                if (ii > 0 && Character.isLetter(sql.charAt(ii - 1))) {
+                    return null;
+                }
+                final StringBuilder value = new StringBuilder();
+                ii++;
+                while (true) {
+                    if (ii >= len) {
+                        return null;
+                    }
+                    final char s = sql.charAt(ii++);
+                    if (s == '\'') {
+                        if (ii < len && sql.charAt(ii) == '\'') {
+                            value.append('\'');
+                            ii++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        value.append(s);
+                    }
+                }
+                literals.add(value.toString());
+                key.append("?S");
+            }
+            else if (c == '"') {
+                final int end = sql.indexOf('"', ii + 1);
+                if (end < 0) {
+                    return null;
+                }
+                key.append(sql, ii, end + 1);
+                ii = end + 1;
+            }
+            else if (Character.isDigit(c) ||
+                     (c == '.' && ii + 1 < len && Character.isDigit(sql.charAt(ii + 1)))) {
+                final int start = ii;
+                boolean point = false;
+                boolean exponent = false;
+                while (ii < len && Character.isDigit(sql.charAt(ii))) {
+                    ii++;
+                }
+                if (ii < len && sql.charAt(ii) == '.') {
+                    point = true;
+                    ii++;
+                    while (ii < len && Character.isDigit(sql.charAt(ii))) {
+                        ii++;
+                    }
+                }
+                if (ii < len && (sql.charAt(ii) == 'e' || sql.charAt(ii) == 'E')) {
+                    exponent = true;
+                    ii++;
+                    if (ii < len && (sql.charAt(ii) == '+' || sql.charAt(ii) == '-')) {
+                        ii++;
+                    }
+                    if (ii >= len || !Character.isDigit(sql.charAt(ii))) {
+                        return null;
+                    }
+                    while (ii < len && Character.isDigit(sql.charAt(ii))) {
+                        ii++;
+                    }
+                }
+                if (ii < len && isIdentifierPart(sql.charAt(ii))) {
+                    return null;
+                }
+                final String value = sql.substring(start, ii);
+                literals.add(value);
+                if (exponent) {
+                    key.append("?F");
+                } else if (point) {
+                    key.append("?D");
+                } else {
+                    key.append(fitsInInteger(value) ? "?I" : "?L");
+                }
+            }
+            else if (Character.isLetter(c) || c == '_') {
+                final int start = ii;
+                while (ii < len && isIdentifierPart(sql.charAt(ii))) {
+                    ii++;
+                }
+                key.append(sql.substring(start, ii).toUpperCase(Locale.ROOT));
+            }
+            else if (c == '?') {
+                // statements with user parameters are never auto-parameterized
+                return null;
+            }
+            else {
+                key.append(c);
+                ii++;
+                if (ii < len) {
+                    final char next = sql.charAt(ii);
+                    if (((c == '<' || c == '>' || c == '!') && next == '=') ||
+                        (c == '<' && next == '>') ||
+                        (c == '|' && next == '|')) {
+                        key.append(next);
+                        ii++;
+                    }
+                }
+            }
+        }
+
+        if (literals.isEmpty()) {
+            return null;
+        }
+        return new NormalizedAdHocSQL(key.toString(), literals.toArray(new String[literals.size()]));
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static boolean fitsInInteger(String digits) {
+        if (digits.length() < 10) {
+            return true;
+        }
+        if (digits.length() > 10) {
+            return false;
+        }
+        return Long.parseLong(digits) <= Integer.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
@@ -34,6 +34,7 @@ import org.voltdb.catalog.Database;
 import org.voltdb.planner.BoundPlan;
 import org.voltdb.planner.CompiledPlan;
 import org.voltdb.planner.CorePlan;
+import org.voltdb.planner.ParameterizationInfo;
 import org.voltdb.planner.PartitioningForStatement;
 import org.voltdb.planner.QueryPlanner;
 import org.voltdb.planner.TrivialCostModel;
@@ -57,6 +58,14 @@ public class PlannerTool {
 
     public static final int AD_HOC_JOINED_TABLE_LIMIT = 5;
 
+    /** How long sampled table statistics are planned with before sampling again */
+    static final long TABLE_ESTIMATES_MAX_AGE_MS = 1000;
+
+    private DatabaseEstimates m_estimates = new DatabaseEstimates();
+    private long m_estimatesTimestamp = 0;
+    /** The estimates the plans in the cache were costed with */
+    private DatabaseEstimates m_cachedPlanEstimates = null;
+
     public PlannerTool(final Cluster cluster, final Database database, int catalogVersion) {
         assert(cluster != null);
         assert(database != null);
@@ -100,6 +109,34 @@ public class PlannerTool {
         }
     }
 
+    /**
+     * Table size and index key estimates from the statistics of this host,
+     * which the planner costs join orders and access paths with. Cached plans
+     * are dropped once the estimates move far enough from the ones they were
+     * costed with.
+     */
+    private synchronized DatabaseEstimates getEstimates() {
+        final long now = System.currentTimeMillis();
+        if (now - m_estimatesTimestamp >= TABLE_ESTIMATES_MAX_AGE_MS) {
+            final StatsAgent statsAgent = VoltDB.instance().getStatsAgent();
+            if (statsAgent != null) {
+                m_estimates = DatabaseEstimates.fromStats(
+                        statsAgent.getStatsAggregate(StatsSelector.TABLE, false, now),
+                        statsAgent.getStatsAggregate(StatsSelector.INDEX, false, now));
+            }
+            m_estimatesTimestamp = now;
+            if (m_cachedPlanEstimates == null) {
+                m_cachedPlanEstimates = m_estimates;
+            }
+            else if (m_estimates.differsMateriallyFrom(m_cachedPlanEstimates)) {
+                hostLog.debug("Table statistics changed, clearing cached ad hoc plans");
+                m_cache.clearPlans();
+                m_cachedPlanEstimates = m_estimates;
+            }
+        }
+        return m_estimates;
+    }
+
     public AdHocPlannedStatement planSql(String sqlIn, Object partitionParam, boolean inferSP, boolean allowParameterization) {
         CacheUse cacheUse = CacheUse.FAIL;
         if (m_plannerStats != null) {
@@ -117,6 +154,9 @@ public class PlannerTool {
             // no caching for forced single or forced multi SQL
             boolean cacheable = (partitionParam == null) && (inferSP);
 
+            // refresh the estimates first, which may drop stale cached plans
+            DatabaseEstimates estimates = getEstimates();
+
             // check the literal cache for a match
             if (cacheable) {
                 AdHocPlannedStatement cachedPlan = m_cache.getWithSQL(sqlIn);
@@ -129,6 +169,20 @@ public class PlannerTool {
                 }
             }
 
+            // check for a parameterized plan under the lexer normalized statement,
+            // which doesn't need HSQL to parse the statement
+            NormalizedAdHocSQL normalized = null;
+            if (cacheable) {
+                normalized = NormalizedAdHocSQL.normalize(sql);
+                if (normalized != null) {
+                    AdHocPlannedStatement ahps = planWithNormalizedSQL(sql, normalized);
+                    if (ahps != null) {
+                        cacheUse = CacheUse.HIT2;
+                        return ahps;
+                    }
+                }
+            }
+
             //Reset plan node id counter
             AbstractPlanNode.resetPlanNodeIds();
 
@@ -140,7 +194,7 @@ public class PlannerTool {
             PartitioningForStatement partitioning = new PartitioningForStatement(partitionParam, inferSP, inferSP);
             QueryPlanner planner = new QueryPlanner(
                     sql, "PlannerTool", "PlannerToolProc", m_cluster, m_database,
-                    partitioning, m_hsql, new DatabaseEstimates(), true,
+                    partitioning, m_hsql, estimates, true,
                     AD_HOC_JOINED_TABLE_LIMIT, costModel, null, null, DeterminismMode.FASTER);
             CompiledPlan plan = null;
             String[] extractedLiterals = null;
@@ -182,6 +236,7 @@ public class PlannerTool {
                                                                                    matched.constants,
                                                                                    partitionKey);
                             m_cache.put(sql, parsedToken, ahps);
+                            rememberNormalized(normalized, parsedToken, extractedLiterals);
                             cacheUse = CacheUse.HIT2;
                             return ahps;
                         }
@@ -217,6 +272,7 @@ public class PlannerTool {
                 assert(((ahps.partitionParam == null) && (ahps.core.partitioningParamIndex == -1)) ||
                        ((ahps.partitionParam != null) && (ahps.core.partitioningParamIndex >= 0)));
                 m_cache.put(sqlIn, parsedToken, ahps);
+                rememberNormalized(normalized, parsedToken, extractedLiterals);
             }
             return ahps;
         }
@@ -226,4 +282,78 @@ public class PlannerTool {
             }
         }
     }
+
+    /**
+     * Look up a parameterized plan by the normalized statement and bind the
+     * literals the lexer extracted to it.
+     *
+     * @return the planned statement, or null if the normalized statement has
+     * no usable plan and the statement needs to be parsed.
+     */
+    private AdHocPlannedStatement planWithNormalizedSQL(String sql, NormalizedAdHocSQL normalized) {
+        AdHocCompilerCache.NormalizedStatement known = m_cache.getWithNormalizedSQL(normalized.key);
+        if (known == null || ! known.isUsable()) {
+            return null;
+        }
+        String parsedToken = known.getParsedToken();
+        List<BoundPlan> boundVariants = m_cache.getWithParsedToken(parsedToken);
+        if (boundVariants == null) {
+            return null;
+        }
+        // the literals in the order the parse extracted them as parameters
+        String[] extractedLiterals = known.bindLiterals(normalized.literals);
+        if (extractedLiterals == null) {
+            return null;
+        }
+        BoundPlan matched = null;
+        for (BoundPlan boundPlan : boundVariants) {
+            if (boundPlan.allowsParams(extractedLiterals)) {
+                matched = boundPlan;
+                break;
+            }
+        }
+        if (matched == null) {
+            return null;
+        }
+        CorePlan core = matched.core;
+        if (core.parameterTypes.length != extractedLiterals.length) {
+            return null;
+        }
+        Object[] paramArray = new Object[extractedLiterals.length];
+        try {
+            for (int i = 0; i < extractedLiterals.length; i++) {
+                paramArray[i] = ParameterizationInfo.valueForStringWithType(
+                        extractedLiterals[i], core.parameterTypes[i]);
+            }
+        }
+        catch (Exception e) {
+            // a literal that doesn't fit the cached plan's parameter types,
+            // let the full parse sort out what it means
+            return null;
+        }
+        Object partitionKey = null;
+        if (core.partitioningParamIndex >= 0) {
+            partitionKey = paramArray[core.partitioningParamIndex];
+        }
+        AdHocPlannedStatement ahps = new AdHocPlannedStatement(sql.getBytes(VoltDB.UTF8ENCODING),
+                                                               core,
+                                                               ParameterSet.fromArrayNoCopy(paramArray),
+                                                               extractedLiterals,
+                                                               matched.constants,
+                                                               partitionKey);
+        m_cache.put(sql, parsedToken, ahps);
+        return ahps;
+    }
+
+    /**
+     * Check the normalized statement against the parameters its parse extracted
+     * each time the parsed statement is cached. See
+     * {@link AdHocCompilerCache#putNormalized(NormalizedAdHocSQL, String, String[])}.
+     */
+    private void rememberNormalized(NormalizedAdHocSQL normalized, String parsedToken,
+                                    String[] extractedLiterals) {
+        if (normalized != null) {
+            m_cache.putNormalized(normalized, parsedToken, extractedLiterals);
+        }
+    }
 }
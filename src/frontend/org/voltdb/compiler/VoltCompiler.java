@@ -39,6 +39,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
 import java.util.regex.Matcher;
@@ -790,6 +791,30 @@ public class VoltCompiler {
             }
         }
 
+        // Mark the dictionary encoded columns. The EE only encodes strings
+        // stored outside the tuple, so short VARCHAR columns are accepted
+        // and keep their inlined storage.
+        for (Entry<String, Set<String>> e : voltDdlTracker.getDictionaryEncodedColumns().entrySet()) {
+            final Table t = tables.getIgnoreCase(e.getKey());
+            if (t == null) {
+                msg += "DICTIONARY ENCODE has unknown TABLE '" + e.getKey() + "'";
+                throw new VoltCompilerException(msg);
+            }
+            for (String colName : e.getValue()) {
+                final Column c = t.getColumns().getIgnoreCase(colName);
+                if (c == null) {
+                    msg += "DICTIONARY ENCODE has unknown COLUMN '" + colName + "'";
+                    throw new VoltCompilerException(msg);
+                }
+                if (VoltType.get((byte) c.getType()) != VoltType.STRING) {
+                    msg += "Dictionary encoded column '" + e.getKey() + "." + colName +
+                        "' is not a valid type. Only VARCHAR columns can be dictionary encoded.";
+                    throw new VoltCompilerException(msg);
+                }
+                c.setDictionaryencoded(true);
+            }
+        }
+
         // this should reorder the tables and partitions all alphabetically
         String catData = m_catalog.serialize();
         m_catalog = new Catalog();
@@ -90,6 +90,14 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
             new AtomicReference<Pair<Mailbox,ImmutableList<Long>>>(Pair.of((Mailbox)null, ImmutableList.<Long>builder().build()));
     private final Semaphore m_bufferPushPermits = new Semaphore(16);
 
+    // the connection subscribed to have blocks pushed to it, and how many
+    // unacknowledged bytes it will take
+    private RawProcessor.ExportStateBlock m_subscriber;
+    private long m_windowBytes;
+    // last known sizes of the stream, for statistics
+    private volatile long m_unackedBytes = 0;
+    private volatile long m_pendingBytes = 0;
+
     private final int m_nullArrayLength;
 
     /**
@@ -336,6 +344,9 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
             //Reset the first unpolled uso so that blocks that have already been polled will
             //be served up to the next connection
             if (message.isClose()) {
+                if (m_subscriber == m.m_sb) {
+                    m_subscriber = null;
+                }
                 try {
                     resetPollMarker();
                 } catch (IOException e) {
@@ -343,6 +354,11 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
                 }
             }
 
+            if (message.isSubscribe()) {
+                m_subscriber = m.m_sb;
+                m_windowBytes = message.getWindowBytes();
+            }
+
             //Inside this critical section do the work to find out
             //what block should be returned by the next poll.
             //Copying and sending the data will take place outside the critical section
@@ -385,6 +401,11 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
             }
         }
 
+        if (m_subscriber != null) {
+            pushToSubscriber();
+        }
+        updateStreamStats();
+
         if (message.isPoll()) {
             //If there are no unpolled blocks return the firstUnpolledUSO with no data
             if (first_unpolled_block == null) {
@@ -402,6 +423,97 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
         }
     }
 
+    /**
+     * Send the subscriber every unpolled block that fits in its window.
+     * The window is checked before each block, so a block larger than
+     * the window is still sent once everything before it is acknowledged.
+     * Unlike a poll, which acknowledges whatever the previous poll returned,
+     * blocks sent ahead stay queued until an ack releases them.
+     */
+    private void pushToSubscriber() {
+        try {
+            while (unackedBytes() < m_windowBytes) {
+                StreamBlock first_unpolled_block = null;
+                Iterator<StreamBlock> iter = m_committedBuffers.iterator();
+                while (iter.hasNext()) {
+                    StreamBlock block = iter.next();
+                    // find the first block that has unpolled data
+                    if (m_firstUnpolledUso < block.uso() + block.totalUso()) {
+                        first_unpolled_block = block;
+                        m_firstUnpolledUso = block.uso() + block.totalUso();
+                        break;
+                    }
+                }
+                if (first_unpolled_block == null) {
+                    break;
+                }
+                ExportProtoMessage result =
+                    new ExportProtoMessage(m_generation, m_partitionId, m_signature);
+                result.pollResponse(
+                        first_unpolled_block.uso() + first_unpolled_block.totalUso(),
+                        first_unpolled_block.unreleasedBuffer());
+                m_subscriber.event(result);
+            }
+        } catch (IOException e) {
+            VoltDB.crashLocalVoltDB("Error attempting to find unpolled export data", true, e);
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof IOException) {
+                VoltDB.crashLocalVoltDB("Error attempting to find unpolled export data", true, e);
+            } else {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Bytes handed to a poller or subscriber that it has not acknowledged yet.
+     */
+    private long unackedBytes() throws IOException {
+        if (m_committedBuffers.isEmpty()) {
+            return 0;
+        }
+        return Math.max(0, m_firstUnpolledUso - m_committedBuffers.peek().unreleasedUso());
+    }
+
+    private void updateStreamStats() {
+        try {
+            m_unackedBytes = unackedBytes();
+            m_pendingBytes = m_committedBuffers.sizeInBytes();
+        } catch (IOException e) {
+            exportLog.error("Error measuring export stream", e);
+        }
+    }
+
+    /**
+     * @return true if a connection is subscribed to have blocks pushed to it
+     */
+    public boolean isSubscribed() {
+        return m_subscriber != null;
+    }
+
+    /**
+     * @return the window of unacknowledged bytes the subscriber asked for
+     */
+    public long getWindowBytes() {
+        return m_subscriber != null ? m_windowBytes : 0;
+    }
+
+    /**
+     * @return bytes sent to a client and not yet acknowledged, as of the
+     * last action on this source
+     */
+    public long getUnackedBytes() {
+        return m_unackedBytes;
+    }
+
+    /**
+     * @return bytes queued and not yet acknowledged, as of the last
+     * action on this source
+     */
+    public long getPendingBytes() {
+        return m_pendingBytes;
+    }
+
     /**
      * Obtain next block of data from source
      */
@@ -600,6 +712,10 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
             }
         }
         pollImpl(m_pollFuture);
+        if (m_subscriber != null) {
+            pushToSubscriber();
+        }
+        updateStreamStats();
     }
 
     public void pushExportBuffer(
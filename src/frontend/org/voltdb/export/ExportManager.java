@@ -20,6 +20,8 @@ package org.voltdb.export;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -535,6 +537,20 @@ public class ExportManager
         return null;
     }
 
+    /**
+     * @return the data sources of every generation on this host
+     */
+    List<ExportDataSource> getDataSources() {
+        List<ExportDataSource> sources = new ArrayList<ExportDataSource>();
+        for (ExportGeneration generation : m_generations.values()) {
+            for (HashMap<String, ExportDataSource> partitionSources :
+                    generation.m_dataSourcesByPartition.values()) {
+                sources.addAll(partitionSources.values());
+            }
+        }
+        return sources;
+    }
+
     public static long getQueuedExportBytes(int partitionId, String signature) {
         ExportManager instance = instance();
         try {
@@ -36,7 +36,10 @@ import com.google.common.base.Charsets;
 
 
 /**
- * Message exchanged during execution of poll/ack protocol
+ * Message exchanged during execution of poll/ack protocol. A client that
+ * subscribes to a data source instead of polling it is sent poll responses
+ * as blocks become available, for as long as the bytes it has not yet
+ * acknowledged fit in the window it subscribed with.
  */
 public class ExportProtoMessage
 {
@@ -48,6 +51,7 @@ public class ExportProtoMessage
     public static final short kClose          = 1 << 5;
     public static final short kError          = 1 << 6;
     public static final short kSync           = 1 << 7;
+    public static final short kSubscribe      = 1 << 8;
     private long m_generation;
 
     public boolean isOpen()         {return (m_type & kOpen) != 0;}
@@ -58,6 +62,7 @@ public class ExportProtoMessage
     public boolean isClose()        {return (m_type & kClose) != 0;}
     public boolean isError()        {return (m_type & kError) != 0;}
     public boolean isSync()         {return (m_type & kSync) != 0;}
+    public boolean isSubscribe()    {return (m_type & kSubscribe) != 0;}
 
     /**
      * The Export data source metadata returned in a kOpenResponse message.
@@ -173,6 +178,7 @@ public class ExportProtoMessage
         if (isClose()) retval += "CLOSE|";
         if (isError()) retval += "ERROR|";
         if (isSync()) retval += "SYNC|";
+        if (isSubscribe()) retval += "SUBSCRIBE|";
         return retval;
     }
 
@@ -268,6 +274,17 @@ public class ExportProtoMessage
         return this;
     }
 
+    /**
+     * Ask the data source to push blocks until windowBytes
+     * are outstanding without an ack.
+     */
+    public ExportProtoMessage subscribe(long windowBytes) {
+        m_type |= kSubscribe;
+        m_data = ByteBuffer.allocate(8);
+        m_data.putLong(windowBytes).flip();
+        return this;
+    }
+
     public ByteBuffer getData() {
         return m_data;
     }
@@ -288,6 +305,16 @@ public class ExportProtoMessage
         return m_generation;
     }
 
+    /**
+     * @return the window of unacknowledged bytes requested by a subscribe
+     */
+    public long getWindowBytes() {
+        if (!isSubscribe()) {
+            return 0;
+        }
+        return m_data.getLong(m_data.position());
+    }
+
     /**
      * Provide a simple accessor to read the list of advertised data sources
      * returned as the payload to an open response.
@@ -0,0 +1,75 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.voltdb.export;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.voltdb.StatsSource;
+import org.voltdb.VoltSystemProcedure;
+import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.VoltType;
+
+/**
+ * Progress of each export table partition on this host. UNACKED_BYTES is
+ * how much of a subscriber's window is in use and PENDING_BYTES is how far
+ * the export client lags behind the data written.
+ */
+public class ExportStats extends StatsSource {
+
+    public ExportStats() {
+        super(false);
+    }
+
+    @Override
+    protected void populateColumnSchema(ArrayList<ColumnInfo> columns) {
+        super.populateColumnSchema(columns);
+        columns.add(new ColumnInfo("GENERATION", VoltType.BIGINT));
+        columns.add(new ColumnInfo(VoltSystemProcedure.CNAME_PARTITION_ID, VoltType.INTEGER));
+        columns.add(new ColumnInfo("TABLE_NAME", VoltType.STRING));
+        columns.add(new ColumnInfo("SUBSCRIBED", VoltType.TINYINT));
+        columns.add(new ColumnInfo("WINDOW_BYTES", VoltType.BIGINT));
+        columns.add(new ColumnInfo("UNACKED_BYTES", VoltType.BIGINT));
+        columns.add(new ColumnInfo("PENDING_BYTES", VoltType.BIGINT));
+    }
+
+    @Override
+    protected void updateStatsRow(Object rowKey, Object[] rowValues) {
+        ExportDataSource source = (ExportDataSource)rowKey;
+        rowValues[columnNameToIndex.get("GENERATION")] = source.getGeneration();
+        rowValues[columnNameToIndex.get(VoltSystemProcedure.CNAME_PARTITION_ID)] = source.getPartitionId();
+        rowValues[columnNameToIndex.get("TABLE_NAME")] = source.getTableName();
+        rowValues[columnNameToIndex.get("SUBSCRIBED")] = source.isSubscribed() ? 1 : 0;
+        rowValues[columnNameToIndex.get("WINDOW_BYTES")] = source.getWindowBytes();
+        rowValues[columnNameToIndex.get("UNACKED_BYTES")] = source.getUnackedBytes();
+        rowValues[columnNameToIndex.get("PENDING_BYTES")] = source.getPendingBytes();
+        super.updateStatsRow(rowKey, rowValues);
+    }
+
+    @Override
+    protected Iterator<Object> getStatsRowKeyIterator(boolean interval) {
+        List<Object> sources = new ArrayList<Object>();
+        ExportManager manager = ExportManager.instance();
+        if (manager != null) {
+            sources.addAll(manager.getDataSources());
+        }
+        return sources.iterator();
+    }
+}
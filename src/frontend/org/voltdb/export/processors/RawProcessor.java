@@ -217,8 +217,8 @@ public class RawProcessor implements ExportDataProcessor {
                     protocolError(m, "Client must not open an already opened connection.");
                     return;
                 }
-                if (m.isClose() || m.isPoll() || m.isAck()) {
-                    protocolError(m, "Invalid combination of open with close, poll or ack.");
+                if (m.isClose() || m.isPoll() || m.isAck() || m.isSubscribe()) {
+                    protocolError(m, "Invalid combination of open with close, poll, ack or subscribe.");
                     return;
                 }
                 m_state = RawProcessor.CONNECTED;
@@ -279,9 +279,9 @@ public class RawProcessor implements ExportDataProcessor {
                 return;
             }
 
-            else if (m.isPoll() || m.isAck()) {
+            else if (m.isPoll() || m.isAck() || m.isSubscribe()) {
                 if (m_state != RawProcessor.CONNECTED) {
-                    protocolError(m, "Must not poll or ack a closed connection");
+                    protocolError(m, "Must not poll, ack or subscribe on a closed connection");
                     return;
                 }
                 ExportDataSource source =
@@ -0,0 +1,386 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.exportclient;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.voltdb.VoltDB;
+import org.voltdb.VoltType;
+import org.voltdb.exportclient.ExportToFileClient.BinaryEncoding;
+import org.voltdb.utils.Encoder;
+
+import au.com.bytecode.opencsv_voltpatches.CSVWriter;
+
+/**
+ * Formats export rows as delimited text straight from the export block.
+ * Column values are read from the little endian row and written as UTF-8
+ * bytes into the destination buffer, producing the same text as decoding the
+ * row and handing the fields to {@link CSVWriter} with the same separator,
+ * quote, escape and line end.
+ *
+ * Integers, timestamps, hex varbinaries and strings are formatted without
+ * allocating. Floats, base64 varbinaries and decimals small enough for
+ * BigDecimal to print in scientific notation go through the usual Java
+ * conversions.
+ *
+ * Not thread safe, use one formatter per thread.
+ */
+public class DelimitedRowFormatter {
+
+    private static final byte[] NULL_BYTES = { 'N', 'U', 'L', 'L' };
+    private static final byte[] MIN_LONG_BYTES = String.valueOf(Long.MIN_VALUE).getBytes(VoltDB.UTF8ENCODING);
+    private static final byte[] HEX_DIGITS = {
+        '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'
+    };
+
+    // largest formatted value that isn't a copy of the row's bytes, an
+    // escaped float, timestamp or 64 bit integer
+    private static final int MAX_FIXED_WIDTH = 64;
+
+    private final ArrayList<VoltType> m_schema;
+    private final int m_firstField;
+    private final BinaryEncoding m_binaryEncoding;
+
+    private final byte[] m_separator;
+    private final byte[] m_quote;
+    private final byte[] m_escape;
+    private final byte[] m_lineEnd;
+    private final boolean m_escaping;
+    // characters needing an escape, the ASCII ones are looked up bytewise
+    private final boolean[] m_special = new boolean[128];
+    private final String m_nonAsciiSpecials;
+    private final char m_escapeChar;
+
+    private final SimpleDateFormat m_dateFormat;
+    private long m_cachedSecond = Long.MIN_VALUE;
+    private byte[] m_cachedSecondBytes;
+
+    private final byte[] m_digits = new byte[20];
+    private final StringBuilder m_floatBuilder = new StringBuilder(32);
+
+    /**
+     * @param schema the column types of the rows
+     * @param firstField the first column written, earlier ones are skipped
+     * @param separator written between fields
+     * @param quote written around every field, unless it is
+     *        {@link CSVWriter#NO_QUOTE_CHARACTER}
+     * @param escape written before occurrences of the quote, the escape and
+     *        any of the extra escape characters, unless it is
+     *        {@link CSVWriter#NO_ESCAPE_CHARACTER}
+     * @param lineEnd written after every row
+     * @param extraEscapeChars additional characters to escape, may be null
+     * @param binaryEncoding how varbinary values are written
+     * @param tz the time zone timestamps are written in
+     */
+    public DelimitedRowFormatter(ArrayList<VoltType> schema, int firstField,
+            char separator, char quote, char escape, String lineEnd, char[] extraEscapeChars,
+            BinaryEncoding binaryEncoding, TimeZone tz) {
+        m_schema = schema;
+        m_firstField = firstField;
+        m_binaryEncoding = binaryEncoding;
+
+        m_separator = String.valueOf(separator).getBytes(VoltDB.UTF8ENCODING);
+        m_quote = quote == CSVWriter.NO_QUOTE_CHARACTER ?
+                new byte[0] : String.valueOf(quote).getBytes(VoltDB.UTF8ENCODING);
+        m_escape = String.valueOf(escape).getBytes(VoltDB.UTF8ENCODING);
+        m_lineEnd = lineEnd.getBytes(VoltDB.UTF8ENCODING);
+        m_escapeChar = escape;
+        m_escaping = escape != CSVWriter.NO_ESCAPE_CHARACTER;
+
+        StringBuilder nonAscii = new StringBuilder();
+        StringBuilder specials = new StringBuilder().append(quote).append(escape);
+        if (extraEscapeChars != null) {
+            specials.append(extraEscapeChars);
+        }
+        for (int i = 0; i < specials.length(); i++) {
+            char c = specials.charAt(i);
+            if (c < 128) {
+                m_special[c] = true;
+            } else {
+                nonAscii.append(c);
+            }
+        }
+        m_nonAsciiSpecials = nonAscii.toString();
+
+        m_dateFormat = new SimpleDateFormat(VoltDB.ODBC_DATE_FORMAT_STRING);
+        m_dateFormat.setTimeZone(tz);
+    }
+
+    /**
+     * The most bytes {@link #format} can write for a row of the given size.
+     */
+    public int maxFormattedSize(int rowSize) {
+        int fieldOverhead = m_separator.length + 2 * m_quote.length + MAX_FIXED_WIDTH;
+        // an escaped byte is at worst a 3 byte escape and the byte itself
+        return rowSize * 4 + m_schema.size() * fieldOverhead + m_lineEnd.length;
+    }
+
+    /**
+     * Write one row as a line of delimited text.
+     *
+     * @param row little endian, positioned at the start of the row, left
+     *        positioned after it
+     * @param dst must have {@link #maxFormattedSize} bytes remaining
+     */
+    public void format(ByteBuffer row, ByteBuffer dst) throws IOException {
+        final int columnCount = m_schema.size();
+        final int nullFlagsStart = row.position();
+        row.position(nullFlagsStart + (((columnCount + 7) & -8) >> 3));
+
+        for (int i = 0; i < columnCount; i++) {
+            // the flag for column i is bit 0x80 >> (i % 8) of byte i / 8
+            boolean isNull = (row.get(nullFlagsStart + (i >> 3)) & (0x80 >>> (i & 7))) != 0;
+            if (i < m_firstField) {
+                if (!isNull) {
+                    skipColumn(row, m_schema.get(i));
+                }
+                continue;
+            }
+            if (i != m_firstField) {
+                dst.put(m_separator);
+            }
+            dst.put(m_quote);
+            if (isNull) {
+                putAscii(NULL_BYTES, 0, NULL_BYTES.length, dst);
+            } else {
+                formatColumn(row, m_schema.get(i), dst);
+            }
+            dst.put(m_quote);
+        }
+        dst.put(m_lineEnd);
+    }
+
+    private void skipColumn(ByteBuffer row, VoltType type) throws IOException {
+        switch (type) {
+        case TINYINT:
+        case SMALLINT:
+        case INTEGER:
+        case BIGINT:
+        case FLOAT:
+        case TIMESTAMP:
+            row.position(row.position() + 8);
+            break;
+        case STRING:
+        case VARBINARY:
+        case DECIMAL:
+            int length = row.getInt();
+            row.position(row.position() + length);
+            break;
+        default:
+            throw new IOException("Invalid column type: " + type);
+        }
+    }
+
+    private void formatColumn(ByteBuffer row, VoltType type, ByteBuffer dst) throws IOException {
+        switch (type) {
+        case TINYINT:
+            putLong((byte) row.getLong(), dst);
+            break;
+        case SMALLINT:
+            putLong((short) row.getLong(), dst);
+            break;
+        case INTEGER:
+            putLong((int) row.getLong(), dst);
+            break;
+        case BIGINT:
+            putLong(row.getLong(), dst);
+            break;
+        case FLOAT:
+            m_floatBuilder.setLength(0);
+            m_floatBuilder.append(row.getDouble());
+            putAscii(m_floatBuilder, dst);
+            break;
+        case TIMESTAMP:
+            putTimestamp(row.getLong(), dst);
+            break;
+        case STRING:
+            putString(row, row.getInt(), dst);
+            break;
+        case VARBINARY:
+            putVarbinary(row, row.getInt(), dst);
+            break;
+        case DECIMAL:
+            putDecimal(row, row.getInt(), dst);
+            break;
+        default:
+            throw new IOException("Invalid column type: " + type);
+        }
+    }
+
+    private void putLong(long value, ByteBuffer dst) {
+        if (value == Long.MIN_VALUE) {
+            putAscii(MIN_LONG_BYTES, 0, MIN_LONG_BYTES.length, dst);
+            return;
+        }
+        int pos = m_digits.length;
+        boolean negative = value < 0;
+        if (negative) {
+            value = -value;
+        }
+        do {
+            m_digits[--pos] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        if (negative) {
+            m_digits[--pos] = '-';
+        }
+        putAscii(m_digits, pos, m_digits.length - pos, dst);
+    }
+
+    /**
+     * Timestamps are microseconds since the epoch, written to the millisecond
+     * in {@link VoltDB#ODBC_DATE_FORMAT_STRING}. Rows in a block tend to share
+     * their second so its text is only formatted when it changes.
+     */
+    private void putTimestamp(long micros, ByteBuffer dst) {
+        long millis = micros / 1000;
+        long second = millis / 1000;
+        int milli = (int) (millis % 1000);
+        if (milli < 0) {
+            second--;
+            milli += 1000;
+        }
+        if (second != m_cachedSecond) {
+            String text = m_dateFormat.format(new Date(second * 1000));
+            // drop the ".000"
+            m_cachedSecondBytes = text.substring(0, text.length() - 4).getBytes(VoltDB.UTF8ENCODING);
+            m_cachedSecond = second;
+        }
+        putAscii(m_cachedSecondBytes, 0, m_cachedSecondBytes.length, dst);
+        m_digits[0] = '.';
+        m_digits[1] = (byte) ('0' + milli / 100);
+        m_digits[2] = (byte) ('0' + (milli / 10) % 10);
+        m_digits[3] = (byte) ('0' + milli % 10);
+        putAscii(m_digits, 0, 4, dst);
+    }
+
+    /**
+     * Strings arrive as UTF-8 and are copied through, escaping as needed.
+     */
+    private void putString(ByteBuffer row, int length, ByteBuffer dst) {
+        final int end = row.position() + length;
+        if (!m_escaping) {
+            copy(row, length, dst);
+        }
+        else if (m_nonAsciiSpecials.length() == 0) {
+            for (int i = row.position(); i < end; i++) {
+                byte b = row.get(i);
+                if (b >= 0 && m_special[b]) {
+                    dst.put(m_escape);
+                }
+                dst.put(b);
+            }
+            row.position(end);
+        }
+        else {
+            // a special character spans several bytes, work on chars
+            byte[] bytes = new byte[length];
+            row.get(bytes);
+            String value = new String(bytes, VoltDB.UTF8ENCODING);
+            StringBuilder sb = new StringBuilder(length + 16);
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if ((c < 128 && m_special[c]) || (c >= 128 && m_nonAsciiSpecials.indexOf(c) != -1)) {
+                    sb.append(m_escapeChar);
+                }
+                sb.append(c);
+            }
+            dst.put(sb.toString().getBytes(VoltDB.UTF8ENCODING));
+        }
+    }
+
+    private void putVarbinary(ByteBuffer row, int length, ByteBuffer dst) {
+        if (m_binaryEncoding == BinaryEncoding.HEX) {
+            final int end = row.position() + length;
+            for (int i = row.position(); i < end; i++) {
+                byte b = row.get(i);
+                m_digits[0] = HEX_DIGITS[(b >> 4) & 0xF];
+                m_digits[1] = HEX_DIGITS[b & 0xF];
+                putAscii(m_digits, 0, 2, dst);
+            }
+            row.position(end);
+        }
+        else {
+            byte[] bytes = new byte[length];
+            row.get(bytes);
+            putAscii(Encoder.base64Encode(bytes), dst);
+        }
+    }
+
+    /**
+     * Decimals arrive as text with the whole part and all twelve fractional
+     * digits. BigDecimal prints that text unchanged unless the value is below
+     * 10^-6, when it switches to scientific notation.
+     */
+    private void putDecimal(ByteBuffer row, int length, ByteBuffer dst) {
+        final int start = row.position();
+        int whole = row.get(start) == '-' ? start + 1 : start;
+        boolean plain = row.get(whole) != '0' || row.get(whole + 1) != '.';
+        for (int i = whole + 2; !plain && i < whole + 8 && i < start + length; i++) {
+            plain = row.get(i) != '0';
+        }
+        if (plain) {
+            final int end = start + length;
+            for (int i = start; i < end; i++) {
+                byte b = row.get(i);
+                if (m_escaping && m_special[b]) {
+                    dst.put(m_escape);
+                }
+                dst.put(b);
+            }
+            row.position(end);
+        }
+        else {
+            byte[] bytes = new byte[length];
+            row.get(bytes);
+            putAscii(new BigDecimal(new String(bytes, VoltDB.UTF8ENCODING)).toString(), dst);
+        }
+    }
+
+    private void copy(ByteBuffer row, int length, ByteBuffer dst) {
+        final int limit = row.limit();
+        row.limit(row.position() + length);
+        dst.put(row);
+        row.limit(limit);
+    }
+
+    private void putAscii(byte[] bytes, int offset, int length, ByteBuffer dst) {
+        for (int i = offset; i < offset + length; i++) {
+            if (m_escaping && m_special[bytes[i]]) {
+                dst.put(m_escape);
+            }
+            dst.put(bytes[i]);
+        }
+    }
+
+    private void putAscii(CharSequence chars, ByteBuffer dst) {
+        for (int i = 0; i < chars.length(); i++) {
+            byte b = (byte) chars.charAt(i);
+            if (m_escaping && m_special[b]) {
+                dst.put(m_escape);
+            }
+            dst.put(b);
+        }
+    }
+}
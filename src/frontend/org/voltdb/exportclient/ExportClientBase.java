@@ -19,6 +19,7 @@ package org.voltdb.exportclient;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.channels.Selector;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -72,6 +73,17 @@ public abstract class ExportClientBase {
     // credentials
     protected String m_username = "", m_password = "";
 
+    /**
+     * Unacknowledged bytes each table partition may have pushed to this client.
+     */
+    public static final long DEFAULT_WINDOW_BYTES = 8 * 1024 * 1024;
+
+    // zero to poll for one block at a time instead
+    protected long m_windowBytes = DEFAULT_WINDOW_BYTES;
+
+    // woken by data arriving on any connection while the client is idle
+    private Selector m_selector = null;
+
     /**
      * Shutdown hook that waits until work is done and then kills the JVM
      * BE AFRAID...
@@ -137,6 +149,15 @@ public abstract class ExportClientBase {
         m_password = password;
     }
 
+    /**
+     * Set how many unacknowledged bytes the server may push for each table
+     * partition. Zero makes the client poll for one block at a time.
+     * Takes effect for data sinks created after the call.
+     */
+    public void setWindowBytes(long windowBytes) {
+        m_windowBytes = windowBytes;
+    }
+
     /**
      * Allow derived clients to implement their own construction of ExportDecoders
      * for the data sources provided by the server on this Export connection.
@@ -175,7 +196,8 @@ public abstract class ExportClientBase {
                                       source.partitionId,
                                       source.signature,
                                       source.tableName,
-                                      decoder);
+                                      decoder,
+                                      m_windowBytes);
                 part_map.put(part_id, sink);
             }
             else {
@@ -523,6 +545,25 @@ public abstract class ExportClientBase {
         }
     }
 
+    private void awaitData(long timeoutMS) throws ExportClientException {
+        try {
+            if (m_selector == null) {
+                m_selector = Selector.open();
+            }
+            for (ExportConnection connection : m_exportConnections.values()) {
+                connection.registerForReads(m_selector);
+            }
+            m_selector.select(timeoutMS);
+            m_selector.selectedKeys().clear();
+        } catch (IOException e) {
+            m_logger.warn("Unable to wait for export data, sleeping instead", e);
+            try { Thread.sleep(timeoutMS); }
+            catch (InterruptedException e2) {
+                throw new ExportClientException(e2);
+            }
+        }
+    }
+
     protected void run() throws ExportClientException {
         run(0);
     }
@@ -617,7 +658,15 @@ public abstract class ExportClientBase {
                 // pause for the right amount of time
                 pollTimeMS = getNextPollDuration(pollTimeMS, offeredMsgs == 0,
                         disconnectedWithError, disconnectedForUpdate);
-                if (pollTimeMS > 0) {
+                if (m_windowBytes > 0 && m_connected.get()) {
+                    // The servers push data as it is written, so rather than sleep
+                    // wait for the next message. Ones received this time around
+                    // are decoded by the next call to work() without waiting.
+                    if (offeredMsgs == 0 && pollTimeMS > 0) {
+                        awaitData(pollTimeMS);
+                    }
+                }
+                else if (pollTimeMS > 0) {
                     m_logger.trace(String.format("Sleeping for %d ms due to inactivity or no connection.", pollTimeMS));
                     try { Thread.sleep(pollTimeMS); }
                     catch (InterruptedException e) {
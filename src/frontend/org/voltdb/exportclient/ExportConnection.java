@@ -20,6 +20,8 @@ package org.voltdb.exportclient;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -230,10 +232,8 @@ public class ExportConnection {
                         tx_sink.getTxQueue(name);
                     // this connection might not be connected to every sink
                     if (tx_queue != null) {
-                        // XXX loop to drain the tx queue?
-                        ExportProtoMessage tx_m =
-                            tx_queue.poll();
-                        if (tx_m != null) {
+                        ExportProtoMessage tx_m;
+                        while ((tx_m = tx_queue.poll()) != null) {
                             try {
                                 sendMessage(tx_m);
                             } catch (IOException e) {
@@ -329,6 +329,16 @@ public class ExportConnection {
             m_bandwidthMonitor.logBytesTransfered(m_ipString, 0, length);
     }
 
+    /**
+     * Register the socket with a selector so a wait on the
+     * selector ends when the server sends something.
+     */
+    void registerForReads(Selector selector) throws IOException {
+        if (m_socket != null && m_socket.isOpen() && m_socket.keyFor(selector) == null) {
+            m_socket.register(selector, SelectionKey.OP_READ);
+        }
+    }
+
     public long getLastAckOffset() {
         return m_lastAckOffset;
     }
@@ -37,6 +37,10 @@ import com.google.common.base.Throwables;
  * Represents the export connection to a single export table in the database for
  * a single partition.
  *
+ * With a window of zero the sink polls for one block at a time. Otherwise it
+ * subscribes, the server pushes blocks until the window is full of
+ * unacknowledged bytes, and the sink acknowledges everything it has decoded
+ * once per call to work().
  */
 public class ExportDataSink {
     private static final VoltLogger m_logger = new VoltLogger("ExportClient");
@@ -57,10 +61,19 @@ public class ExportDataSink {
 
     private long m_lastAckOffset = Long.MIN_VALUE;
 
+    private final long m_windowBytes;
+    private boolean m_ackPending = false;
+
     boolean m_started = false;
 
     public ExportDataSink(long generation, int partitionId, String tableSignature,
             String tableName, ExportDecoderBase decoder) {
+        this(generation, partitionId, tableSignature, tableName, decoder, 0);
+    }
+
+    public ExportDataSink(long generation, int partitionId, String tableSignature,
+            String tableName, ExportDecoderBase decoder, long windowBytes) {
+        m_windowBytes = windowBytes;
         m_generation = generation;
         m_tableSignature = tableSignature;
         this.partitionId = partitionId;
@@ -99,18 +112,56 @@ public class ExportDataSink {
                 }
                 m_activeConnection = oldestEntry.getKey();
             }
-            poll();
+            if (isSubscriber()) {
+                subscribe();
+            } else {
+                poll();
+            }
             m_started = true;
         }
         for (Entry<String, LinkedList<ExportProtoMessage>> rx_conn : m_rxQueues.entrySet()) {
-            ExportProtoMessage m = rx_conn.getValue().poll();
-            if (m != null && m.isPollResponse()) {
-                // john thinks this should never require assignment
-                assert(rx_conn.getKey().equals(m_activeConnection));
-                //m_activeConnection = rx_conn.getKey();
-                handlePollResponse(m);
-            }
+            ExportProtoMessage m;
+            // a subscriber takes every block that has arrived, a poller has one at most
+            do {
+                m = rx_conn.getValue().poll();
+                if (m != null && m.isPollResponse()) {
+                    // john thinks this should never require assignment
+                    assert(rx_conn.getKey().equals(m_activeConnection));
+                    //m_activeConnection = rx_conn.getKey();
+                    handlePollResponse(m);
+                }
+            } while (m != null && isSubscriber());
+        }
+        if (m_ackPending) {
+            ack();
+        }
+    }
+
+    private boolean isSubscriber() {
+        return m_windowBytes > 0;
+    }
+
+    private void subscribe() {
+        m_logger.trace("Subscribing to table " + m_tableName + ", partition "
+                + partitionId + " with a window of " + m_windowBytes + " bytes.");
+
+        ExportProtoMessage m = new ExportProtoMessage( m_generation, partitionId, m_tableSignature);
+        m.subscribe(m_windowBytes).ack(m_lastAckOffset);
+        m_txQueues.get(m_activeConnection).offer(m);
+    }
+
+    /**
+     * Acknowledge all the blocks decoded so far to every connection, which
+     * also opens the window of the active one for more.
+     */
+    private void ack() {
+        m_logger.debug("Subscriber, table " + m_tableName + ": ack " + m_lastAckOffset);
+        for (Queue<ExportProtoMessage> tx_queue : m_txQueues.values()) {
+            ExportProtoMessage ack = new ExportProtoMessage( m_generation, partitionId, m_tableSignature);
+            ack.ack(m_lastAckOffset);
+            tx_queue.offer(ack);
         }
+        m_ackPending = false;
     }
 
     private void poll() {
@@ -151,7 +202,9 @@ public class ExportDataSink {
             // if a poll returns no data, this process is complete.
             if (m.getData().remaining() == 0) {
                 m_decoder.noDataReceived(m.getAckOffset());
-                poll();
+                if (!isSubscriber()) {
+                    poll();
+                }
                 return;
             }
 
@@ -163,7 +216,9 @@ public class ExportDataSink {
             // a stream block prefix of 0 also means empty queue.
             if (ttllength == 0) {
                 m_decoder.noDataReceived(m.getAckOffset());
-                poll();
+                if (!isSubscriber()) {
+                    poll();
+                }
                 return;
             }
 
@@ -181,9 +236,9 @@ public class ExportDataSink {
                     // run the verifier until m.getData() is consumed
                     while (m.getData().hasRemaining()) {
                         int length = m.getData().getInt();
-                        byte[] rowdata = new byte[length];
-                        m.getData().get(rowdata, 0, length);
-                        m_decoder.processRow(length, rowdata);
+                        int rowStart = m.getData().position();
+                        m_decoder.processRow(m.getData(), length);
+                        m.getData().position(rowStart + length);
                     }
 
                     // Perform completion work on the decoder
@@ -206,8 +261,14 @@ public class ExportDataSink {
                 }
             }
 
-            // ack the old block and poll the next
-            pollAndAck(m);
+            // ack the old block and poll the next, a subscriber
+            // acks once for all of the blocks it has received
+            if (isSubscriber()) {
+                m_lastAckOffset = m.getAckOffset();
+                m_ackPending = true;
+            } else {
+                pollAndAck(m);
+            }
         } finally {
             m.getData().order(ByteOrder.BIG_ENDIAN);
         }
@@ -215,6 +276,7 @@ public class ExportDataSink {
 
     public void connectionClosed() {
         m_started = false;
+        m_ackPending = false;
         m_knownConnections.clear();
         m_activeConnection = null;
         m_rxQueues.clear();
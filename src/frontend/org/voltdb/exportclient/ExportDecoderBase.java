@@ -19,6 +19,7 @@ package org.voltdb.exportclient;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 
@@ -65,6 +66,25 @@ public abstract class ExportDecoderBase {
      */
     abstract public boolean processRow(int rowSize, byte[] rowData) throws RestartBlockException;
 
+    /**
+     * Process a row in place in the Export block. Decoders that can work from
+     * the block directly override this to avoid copying out every row, the
+     * default copies the row and calls {@link #processRow(int, byte[])}.
+     *
+     * @param block
+     *            the little endian block, positioned at the start of the row.
+     *            The caller moves it past the row afterwards, so it may be
+     *            left positioned anywhere.
+     * @param rowSize
+     *            the length of the row (in octets)
+     * @return whether or not the row processing was successful
+     */
+    public boolean processRow(ByteBuffer block, int rowSize) throws RestartBlockException {
+        byte[] rowData = new byte[rowSize];
+        block.get(rowData, 0, rowSize);
+        return processRow(rowSize, rowData);
+    }
+
     abstract public void sourceNoLongerAdvertised(AdvertisedDataSource source);
 
     /**
@@ -0,0 +1,212 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.exportclient;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.voltcore.utils.CoreUtils;
+import org.voltcore.utils.DBBPool;
+import org.voltcore.utils.DBBPool.BBContainer;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * An export output file written by a thread of its own. Callers format into
+ * large buffers taken from a small per file pool, and full buffers are queued
+ * to the writer thread, so formatting the next rows overlaps writing the
+ * previous ones. Once every buffer is queued the caller waits for one to be
+ * written.
+ *
+ * Uncompressed files are written from direct buffers through a channel,
+ * compressed ones from heap buffers through gzip.
+ *
+ * Not thread safe, one thread fills the buffers.
+ */
+public class ExportFileWriter {
+
+    public static final int BUFFER_SIZE = 2 * 1024 * 1024;
+    static final int BUFFER_COUNT = 3;
+
+    private final File m_file;
+    private final FileOutputStream m_fos;
+    private final FileChannel m_channel;
+    private final GZIPOutputStream m_gzip;
+    private final ListeningExecutorService m_es;
+
+    private final BBContainer m_buffers[] = new BBContainer[BUFFER_COUNT];
+    private final LinkedBlockingQueue<ByteBuffer> m_free = new LinkedBlockingQueue<ByteBuffer>();
+    private ByteBuffer m_current;
+    private Future<?> m_lastWrite;
+    private volatile IOException m_failure;
+    private boolean m_closed = false;
+
+    public ExportFileWriter(File file, boolean compress) throws IOException {
+        m_file = file;
+        m_fos = new FileOutputStream(file, false);
+        if (compress) {
+            m_channel = null;
+            m_gzip = new GZIPOutputStream(m_fos, 64 * 1024);
+        } else {
+            m_channel = m_fos.getChannel();
+            m_gzip = null;
+        }
+        for (int i = 0; i < BUFFER_COUNT; i++) {
+            m_buffers[i] = compress ?
+                    DBBPool.wrapBB(ByteBuffer.allocate(BUFFER_SIZE)) : DBBPool.allocateDirect(BUFFER_SIZE);
+            m_free.offer(m_buffers[i].b);
+        }
+        m_current = m_free.poll();
+        m_es = CoreUtils.getSingleThreadExecutor("Export file writer " + file.getName());
+    }
+
+    public File getFile() {
+        return m_file;
+    }
+
+    /**
+     * A buffer with at least the given number of bytes remaining to format
+     * into. What is formatted into it goes to the file in order with the
+     * rest.
+     */
+    public ByteBuffer buffer(int bytes) throws IOException {
+        if (m_current.remaining() >= bytes) {
+            return m_current;
+        }
+        if (m_current.position() > 0) {
+            submit(m_current);
+            m_current = takeFree();
+        }
+        if (m_current.remaining() < bytes) {
+            // bigger than a pooled buffer, written on its own
+            if (m_current.capacity() == BUFFER_SIZE) {
+                m_free.offer(m_current);
+            }
+            m_current = ByteBuffer.allocate(bytes);
+        }
+        return m_current;
+    }
+
+    /**
+     * Write everything formatted so far and wait until it has reached the
+     * file.
+     */
+    public void flush() throws IOException {
+        if (m_current.position() > 0) {
+            submit(m_current);
+            m_current = takeFree();
+        }
+        if (m_lastWrite != null) {
+            try {
+                m_lastWrite.get();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+        checkFailure();
+    }
+
+    /**
+     * Flush, finish the gzip stream if any and close the file.
+     * Idempotent.
+     */
+    public void close() throws IOException {
+        if (m_closed) return;
+        m_closed = true;
+        try {
+            flush();
+        } finally {
+            m_es.shutdown();
+            try {
+                m_es.awaitTermination(365, TimeUnit.DAYS);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            try {
+                if (m_gzip != null) {
+                    m_gzip.close();
+                } else {
+                    m_fos.close();
+                }
+            } finally {
+                for (BBContainer cont : m_buffers) {
+                    cont.discard();
+                }
+            }
+        }
+    }
+
+    private ByteBuffer takeFree() throws IOException {
+        checkFailure();
+        try {
+            ByteBuffer buf = m_free.take();
+            buf.clear();
+            return buf;
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (m_failure != null) {
+            throw new IOException("Failed writing export file " + m_file, m_failure);
+        }
+    }
+
+    private void submit(final ByteBuffer buf) {
+        buf.flip();
+        m_lastWrite = m_es.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    // once a write fails the file is left as it is
+                    if (m_failure == null) {
+                        write(buf);
+                    }
+                } catch (IOException e) {
+                    m_failure = e;
+                } finally {
+                    if (buf.capacity() == BUFFER_SIZE) {
+                        m_free.offer(buf);
+                    }
+                }
+            }
+        });
+    }
+
+    private void write(ByteBuffer buf) throws IOException {
+        if (m_gzip != null) {
+            m_gzip.write(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+            buf.position(buf.limit());
+        } else {
+            while (buf.hasRemaining()) {
+                m_channel.write(buf);
+            }
+        }
+    }
+}
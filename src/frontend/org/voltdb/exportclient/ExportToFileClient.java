@@ -22,6 +22,8 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -48,10 +50,7 @@ import org.json_voltpatches.JSONStringer;
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.CoreUtils;
 import org.voltdb.VoltDB;
-import org.voltdb.VoltType;
 import org.voltdb.export.ExportProtoMessage.AdvertisedDataSource;
-import org.voltdb.types.TimestampType;
-import org.voltdb.utils.Encoder;
 import org.voltdb.utils.VoltFile;
 
 import au.com.bytecode.opencsv_voltpatches.CSVWriter;
@@ -77,8 +76,6 @@ public class ExportToFileClient extends ExportClientBase2 {
     // active means the folder is being written to
     private static final String ACTIVE_PREFIX = "active-";
 
-    // use thread-local to avoid SimpleDateFormat thread-safety issues
-    protected ThreadLocal<SimpleDateFormat> m_ODBCDateformat;
     protected char m_delimiter;
     protected char[] m_fullDelimiters;
     protected String m_extension;
@@ -103,6 +100,8 @@ public class ExportToFileClient extends ExportClientBase2 {
 
     protected boolean m_batched;
     protected boolean m_withSchema;
+    protected boolean m_compress;
+    protected TimeZone m_timeZone;
 
     protected final ReentrantReadWriteLock m_batchLock = new ReentrantReadWriteLock();
 
@@ -125,7 +124,7 @@ public class ExportToFileClient extends ExportClientBase2 {
 
     class PeriodicExportContext {
         File m_dirContainingFiles;
-        final Map<FileHandle, CSVWriter> m_writers = new TreeMap<FileHandle, CSVWriter>();
+        final Map<FileHandle, ExportFileWriter> m_writers = new TreeMap<FileHandle, ExportFileWriter>();
         boolean m_hasClosed = false;
         protected Date start;
         protected final Set<String> m_batchSchemasWritten = new HashSet<String>();
@@ -255,11 +254,10 @@ public class ExportToFileClient extends ExportClientBase2 {
             if (m_hasClosed) return;
 
             // flush and close any files that are open
-            for (Entry<FileHandle, CSVWriter> entry : m_writers.entrySet()) {
-                CSVWriter writer = entry.getValue();
+            for (Entry<FileHandle, ExportFileWriter> entry : m_writers.entrySet()) {
+                ExportFileWriter writer = entry.getValue();
                 if (writer == null) continue;
                 try {
-                    writer.flush();
                     writer.close();
                 } catch (IOException e) {
                     e.printStackTrace();
@@ -351,9 +349,9 @@ public class ExportToFileClient extends ExportClientBase2 {
             notifyRollIsComplete(notifySet);
         }
 
-        CSVWriter getWriter(String tableName, long generation) {
+        ExportFileWriter getWriter(String tableName, long generation) {
             FileHandle handle = new FileHandle(tableName, generation);
-            CSVWriter writer = m_writers.get(handle);
+            ExportFileWriter writer = m_writers.get(handle);
             if (writer != null)
                 return writer;
 
@@ -366,18 +364,7 @@ public class ExportToFileClient extends ExportClientBase2 {
                 throw new RuntimeException();
             }
             try {
-                OutputStreamWriter osw = new OutputStreamWriter(new FileOutputStream(newFile, false), "UTF-8");
-                if (m_fullDelimiters != null) {
-                    writer = new CSVWriter(new BufferedWriter(osw, 4096 * 4),
-                            m_fullDelimiters[0], m_fullDelimiters[1], m_fullDelimiters[2], String.valueOf(m_fullDelimiters[3]));
-                }
-                else if (m_delimiter == ',')
-                    // CSV
-                    writer = new CSVWriter(new BufferedWriter(osw, 4096 * 4), m_delimiter);
-                else {
-                    // TSV
-                    writer = CSVWriter.getStrictTSVWriter(new BufferedWriter(osw, 4096 * 4));
-                }
+                writer = new ExportFileWriter(newFile, m_compress);
             }
             catch (Exception e) {
                 m_logger.error(e.getMessage());
@@ -450,14 +437,15 @@ public class ExportToFileClient extends ExportClientBase2 {
         private final String m_tableName;
         protected String m_schemaString = "ERROR SERIALIZING SCHEMA";
         private final HashSet<AdvertisedDataSource> m_sources = new HashSet<AdvertisedDataSource>();
-        private FutureTask<CSVWriter> m_firstBlockTask;
-        private CSVWriter m_writer;
+        private final DelimitedRowFormatter m_formatter;
+        private FutureTask<ExportFileWriter> m_firstBlockTask;
+        private ExportFileWriter m_writer;
 
         private void resetWriter() {
-            m_firstBlockTask = new FutureTask<CSVWriter>(new Callable<CSVWriter>() {
+            m_firstBlockTask = new FutureTask<ExportFileWriter>(new Callable<ExportFileWriter>() {
                 @Override
-                public CSVWriter call() throws Exception {
-                    CSVWriter writer = m_current.getWriter(m_tableName, m_generation);
+                public ExportFileWriter call() throws Exception {
+                    ExportFileWriter writer = m_current.getWriter(m_tableName, m_generation);
                     m_current.writeSchema(m_tableName, m_generation, m_schemaString);
                     return writer;
                 }
@@ -473,9 +461,34 @@ public class ExportToFileClient extends ExportClientBase2 {
             m_tableName = tableName;
 
             setSchemaForSource(source);
+            m_formatter = createFormatter();
             resetWriter();
         }
 
+        /**
+         * Format rows with the same separator, quoting and escaping the
+         * CSVWriter for the configured delimiters would use.
+         */
+        DelimitedRowFormatter createFormatter() {
+            if (m_fullDelimiters != null) {
+                return new DelimitedRowFormatter(m_tableSchema, m_firstfield,
+                        m_fullDelimiters[0], m_fullDelimiters[1], m_fullDelimiters[2],
+                        String.valueOf(m_fullDelimiters[3]), null, m_binaryEncoding, m_timeZone);
+            }
+            else if (m_delimiter == ',') {
+                // CSV
+                return new DelimitedRowFormatter(m_tableSchema, m_firstfield,
+                        m_delimiter, CSVWriter.DEFAULT_QUOTE_CHARACTER, CSVWriter.DEFAULT_ESCAPE_CHARACTER,
+                        CSVWriter.DEFAULT_LINE_END, null, m_binaryEncoding, m_timeZone);
+            }
+            else {
+                // TSV, as CSVWriter.getStrictTSVWriter()
+                return new DelimitedRowFormatter(m_tableSchema, m_firstfield,
+                        '\t', CSVWriter.NO_QUOTE_CHARACTER, '\\',
+                        CSVWriter.DEFAULT_LINE_END, new char[] { '\r', '\n' }, m_binaryEncoding, m_timeZone);
+            }
+        }
+
         /**
          * Given the data source, construct a JSON serialization
          * of its schema to be written to disk with the export
@@ -512,40 +525,18 @@ public class ExportToFileClient extends ExportClientBase2 {
 
         @Override
         public boolean processRow(int rowSize, byte[] rowData) {
-            // Grab the data row
-            Object[] row = null;
-            try {
-                row = decodeRow(rowData);
-            } catch (IOException e) {
-                m_logger.error("Unable to decode row for table: " + m_source.tableName);
-                return false;
-            }
+            return processRow(ByteBuffer.wrap(rowData).order(ByteOrder.LITTLE_ENDIAN), rowSize);
+        }
 
+        /**
+         * Format the row from the block into the file's current buffer.
+         */
+        @Override
+        public boolean processRow(ByteBuffer block, int rowSize) {
             try {
-                String[] fields = new String[m_tableSchema.size() - m_firstfield];
-
-                for (int i = m_firstfield; i < m_tableSchema.size(); i++) {
-                    if (row[i] == null) {
-                        fields[i - m_firstfield] = "NULL";
-                    } else if (m_tableSchema.get(i) == VoltType.VARBINARY) {
-                        if (m_binaryEncoding == BinaryEncoding.HEX) {
-                            fields[i - m_firstfield] = Encoder.hexEncode((byte[]) row[i]);
-                        } else {
-                            fields[i - m_firstfield] = Encoder.base64Encode((byte[]) row[i]);
-                        }
-                    } else if (m_tableSchema.get(i) == VoltType.STRING) {
-                        fields[i - m_firstfield] = (String) row[i];
-                    } else if (m_tableSchema.get(i) == VoltType.TIMESTAMP) {
-                        TimestampType timestamp = (TimestampType) row[i];
-                        fields[i - m_firstfield] = m_ODBCDateformat.get().format(timestamp.asApproximateJavaDate());
-                    } else {
-                        fields[i - m_firstfield] = row[i].toString();
-                    }
-                }
-                m_writer.writeNext(fields);
-            }
-            catch (Exception x) {
-                x.printStackTrace();
+                m_formatter.format(block, m_writer.buffer(m_formatter.maxFormattedSize(rowSize)));
+            } catch (IOException e) {
+                m_logger.error("Unable to write row for table: " + m_source.tableName, e);
                 return false;
             }
             return true;
@@ -632,6 +623,26 @@ public class ExportToFileClient extends ExportClientBase2 {
                               boolean autodiscoverTopology,
                               TimeZone tz,
                               BinaryEncoding be) {
+        this(delimiter, nonce, outdir, period, dateformatString, fullDelimiters,
+                firstfield, useAdminPorts, batched, withSchema, throughputMonitorPeriod,
+                autodiscoverTopology, tz, be, false);
+    }
+
+    public ExportToFileClient(char delimiter,
+                              String nonce,
+                              File outdir,
+                              int period,
+                              String dateformatString,
+                              String fullDelimiters,
+                              int firstfield,
+                              boolean useAdminPorts,
+                              boolean batched,
+                              boolean withSchema,
+                              int throughputMonitorPeriod,
+                              boolean autodiscoverTopology,
+                              TimeZone tz,
+                              BinaryEncoding be,
+                              boolean compress) {
         super(useAdminPorts, throughputMonitorPeriod, autodiscoverTopology);
         configureInternal(
                 delimiter,
@@ -644,7 +655,8 @@ public class ExportToFileClient extends ExportClientBase2 {
                 batched,
                 withSchema,
                 tz,
-                be);
+                be,
+                compress);
     }
 
     @Override
@@ -727,8 +739,8 @@ public class ExportToFileClient extends ExportClientBase2 {
             m_logger.info("Connecting anonymously");
         }
 
-        m_logger.info(String.format("Writing to disk in %s format",
-                (m_delimiter == ',') ? "CSV" : "TSV"));
+        m_logger.info(String.format("Writing to disk in %s format%s",
+                (m_delimiter == ',') ? "CSV" : "TSV", m_compress ? ", gzip compressed" : ""));
         m_logger.info(String.format("Prepending export data files with nonce: %s",
                 m_nonce));
         m_logger.info(String.format("Using date format for file names: %s",
@@ -755,6 +767,7 @@ public class ExportToFileClient extends ExportClientBase2 {
                         + "--nonce file_prefix "
                         + "[--batched] "
                         + "[--with-schema] "
+                        + "[--compress] "
                         + "[--period rolling_period_in_minutes] "
                         + "[--dateformat date_pattern_for_file_name] "
                         + "[--outdir target_directory] "
@@ -763,7 +776,8 @@ public class ExportToFileClient extends ExportClientBase2 {
                         + "[--user export_username] "
                         + "[--password export_password]"
                         + "[--timezone GMT+0]"
-                        + "[--binaryencoding [ HEX | BASE64 ]]");
+                        + "[--binaryencoding [ HEX | BASE64 ]]"
+                        + "[--window-bytes unacknowledged_bytes_per_partition (0 to poll)]");
         System.out.println("Note that server hostnames may be appended with a specific port:");
         System.out.println("  --servers server1:port1[,server2:port2,...,serverN:portN]");
 
@@ -783,9 +797,11 @@ public class ExportToFileClient extends ExportClientBase2 {
         String dateformatString = "yyyyMMddHHmmss";
         boolean batched = false;
         boolean withSchema = false;
+        boolean compress = false;
         String fullDelimiters = null;
         int throughputMonitorPeriod = 0;
         boolean autodiscoverTopolgy = true;
+        long windowBytes = DEFAULT_WINDOW_BYTES;
         TimeZone tz = VoltDB.GMT_TIMEZONE;
         BinaryEncoding be = BinaryEncoding.HEX;
 
@@ -930,6 +946,9 @@ public class ExportToFileClient extends ExportClientBase2 {
             else if (arg.equals("--with-schema")) {
                 withSchema = true;
             }
+            else if (arg.equals("--compress")) {
+                compress = true;
+            }
             else if (arg.equals("--delimiters")) {
                 if (args.length < ii + 1) {
                     System.err.println("Error: Not enough args following --delimiters");
@@ -969,6 +988,14 @@ public class ExportToFileClient extends ExportClientBase2 {
                 throughputMonitorPeriod = Integer.parseInt(args[ii + 1].trim());
                 ii++;
             }
+            else if (arg.equals("--window-bytes")) {
+                if (args.length <= ii + 1) {
+                    System.err.println("Error: Not enough args following --window-bytes");
+                    printHelpAndQuit(-1);
+                }
+                windowBytes = Long.parseLong(args[ii + 1].trim());
+                ii++;
+            }
             else {
                 System.err.println("Unrecognized parameter " + arg);
                 System.exit(-1);
@@ -1016,7 +1043,8 @@ public class ExportToFileClient extends ExportClientBase2 {
                                                            throughputMonitorPeriod,
                                                            autodiscoverTopolgy,
                                                            tz,
-                                                           be);
+                                                           be,
+                                                           compress);
 
         // add all of the servers specified
         for (String server : volt_servers) {
@@ -1027,6 +1055,7 @@ public class ExportToFileClient extends ExportClientBase2 {
 
         // add credentials (default blanks used if none specified)
         client.addCredentials(user, password);
+        client.setWindowBytes(windowBytes);
 
         // main loop
         try {
@@ -1092,6 +1121,7 @@ public class ExportToFileClient extends ExportClientBase2 {
         String dateformatString = conf.getProperty("dateformat", "yyyyMMddHHmmss").trim();
         boolean batched = Boolean.parseBoolean(conf.getProperty("batched", "false"));
         boolean withSchema = Boolean.parseBoolean(conf.getProperty("with-schema", "false"));
+        boolean compress = Boolean.parseBoolean(conf.getProperty("compress", "false"));
 
         String fullDelimiters = conf.getProperty("delimiters");
         if (fullDelimiters != null) {
@@ -1118,7 +1148,8 @@ public class ExportToFileClient extends ExportClientBase2 {
                 batched,
                 withSchema,
                 tz,
-                encoding);
+                encoding,
+                compress);
     }
 
     private void configureInternal(
@@ -1132,9 +1163,14 @@ public class ExportToFileClient extends ExportClientBase2 {
                               boolean batched,
                               boolean withSchema,
                               final TimeZone tz,
-                              final BinaryEncoding be) {
+                              final BinaryEncoding be,
+                              boolean compress) {
         m_delimiter = delimiter;
         m_extension = (delimiter == ',') ? ".csv" : ".tsv";
+        if (compress) {
+            m_extension += ".gz";
+        }
+        m_compress = compress;
         m_nonce = nonce;
         m_outDir = outdir;
         m_tableDecoders = new HashMap<Long, HashMap<String, ExportToFileDecoder>>();
@@ -1148,14 +1184,7 @@ public class ExportToFileClient extends ExportClientBase2 {
                 return new SimpleDateFormat(m_dateFormatOriginalString);
             }
         };
-        m_ODBCDateformat = new ThreadLocal<SimpleDateFormat>() {
-            @Override
-            protected SimpleDateFormat initialValue() {
-                SimpleDateFormat sdf = new SimpleDateFormat(VoltDB.ODBC_DATE_FORMAT_STRING);
-                sdf.setTimeZone(tz);
-                return sdf;
-            }
-        };
+        m_timeZone = tz;
         m_binaryEncoding = be;
         m_firstfield = firstfield;
         m_batched = batched;
@@ -0,0 +1,101 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.expressions;
+
+import org.json_voltpatches.JSONException;
+import org.json_voltpatches.JSONObject;
+import org.json_voltpatches.JSONStringer;
+import org.voltdb.VoltType;
+import org.voltdb.catalog.Database;
+import org.voltdb.types.ExpressionType;
+
+/**
+ * True for the rows whose value in the hash column hashes to the partition
+ * evaluating the expression. Every partition holds all rows of a replicated
+ * table, so a scan filtered this way at each partition reads a disjoint slice
+ * of the table and the slices together cover it.
+ */
+public class PartitionSliceExpression extends AbstractValueExpression {
+
+    public enum Members {
+        HASH_COLUMN
+    }
+
+    protected int m_hashColumn = Integer.MIN_VALUE;
+
+    public PartitionSliceExpression() {
+        super(ExpressionType.PARTITION_SLICE);
+        //See the comment in ConjunctionExpression
+        setValueType(VoltType.BIGINT);
+    }
+
+    public PartitionSliceExpression(int hashColumnIndex) {
+        this();
+        m_hashColumn = hashColumnIndex;
+    }
+
+    @Override
+    public Object clone() {
+        PartitionSliceExpression clone = (PartitionSliceExpression)super.clone();
+        clone.m_hashColumn = m_hashColumn;
+        return clone;
+    }
+
+    @Override
+    public void validate() throws Exception {
+        super.validate();
+
+        if ((m_right != null) || (m_left != null))
+            throw new Exception("ERROR: A Partition Slice expression has child expressions for '" + this + "'");
+
+        if (m_hashColumn == Integer.MIN_VALUE)
+            throw new Exception("ERROR: A Partition Slice has no hash column set for '" + this + "'");
+    }
+
+    /**
+     * @return the index of the table column to hash
+     */
+    public int getHashColumnIndex() {
+        return m_hashColumn;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof PartitionSliceExpression == false) {
+            return false;
+        }
+        return m_hashColumn == ((PartitionSliceExpression) obj).m_hashColumn;
+    }
+
+    @Override
+    public int hashCode() {
+        // defer to the superclass, which factors in other attributes
+        return m_hashColumn + super.hashCode();
+    }
+
+    @Override
+    public void toJSONString(JSONStringer stringer) throws JSONException {
+        super.toJSONString(stringer);
+        stringer.key(Members.HASH_COLUMN.name()).value(m_hashColumn);
+    }
+
+    @Override
+    protected void loadFromJSONObject(JSONObject obj, Database db) throws JSONException {
+        m_hashColumn = obj.getInt(Members.HASH_COLUMN.name());
+    }
+}
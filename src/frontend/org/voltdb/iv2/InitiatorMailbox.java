@@ -18,9 +18,15 @@
 package org.voltdb.iv2;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.messaging.HostMessenger;
@@ -34,9 +40,13 @@ import org.voltdb.messaging.FragmentTaskMessage;
 import org.voltdb.VoltDB;
 import org.voltdb.VoltZK;
 import org.voltdb.messaging.CompleteTransactionMessage;
+import org.voltdb.messaging.FragmentResponseMessage;
+import org.voltdb.messaging.InitiateResponseMessage;
+import org.voltdb.messaging.Iv2InitiateTaskBatchMessage;
 import org.voltdb.messaging.Iv2InitiateTaskMessage;
 import org.voltdb.messaging.Iv2RepairLogRequestMessage;
 import org.voltdb.messaging.Iv2RepairLogResponseMessage;
+import org.voltdb.messaging.Iv2ReplicationBatchMessage;
 import org.voltdb.messaging.RejoinMessage;
 
 /**
@@ -63,6 +73,35 @@ public class InitiatorMailbox implements Mailbox
     private long m_hsId;
     private RepairAlgo m_algo;
 
+    /*
+     * Replication traffic sent while a delivery is in progress is coalesced
+     * per destination into Iv2ReplicationBatchMessages: the initiations and
+     * fragments a leader forwards to its replicas, and the responses a replica
+     * returns to its leader. Forwarded work is flushed when the delivery ends,
+     * so a leader unpacking an Iv2InitiateTaskBatchMessage sends each replica
+     * one message for the whole batch. Responses are held while the site still
+     * has queued work, which will produce more of them, for at most
+     * ACK_FLUSH_DELAY_MICROS. Any other message sent to a destination flushes
+     * what is pending for it first, so per-destination order never changes.
+     * The MPI does not coalesce, its deliveries do not pass through deliver().
+     */
+    static final int MAX_COALESCED_MESSAGES = 64;
+    static final long ACK_FLUSH_DELAY_MICROS = Long.getLong("replicaAckFlushMicros", 200);
+
+    private final boolean m_coalesceReplication;
+    private final Map<Long, List<VoltMessage>> m_coalesced = new HashMap<Long, List<VoltMessage>>();
+    private Set<Long> m_replicas = Collections.emptySet();
+    private int m_deliveryDepth = 0;
+    private int m_coalescedCount = 0;
+    private int m_coalescedAcks = 0;
+    private boolean m_ackFlushScheduled = false;
+    private final Runnable m_ackFlusher = new Runnable() {
+        @Override
+        public void run() {
+            flushHeldAcks();
+        }
+    };
+
     /*
      * Hacky global map of initiator mailboxes to support assertions
      * that verify the locking is kosher
@@ -102,6 +141,8 @@ public class InitiatorMailbox implements Mailbox
     protected void setLeaderStateInternal(long maxSeenTxnId)
     {
         assert(lockingVows());
+        // anything held back was addressed under the old role
+        flushCoalesced(true);
         m_repairLog.setLeaderState(true);
         m_scheduler.setLeaderState(true);
         m_scheduler.setMaxSeenTxnId(maxSeenTxnId);
@@ -133,6 +174,7 @@ public class InitiatorMailbox implements Mailbox
         m_messenger = messenger;
         m_repairLog = repairLog;
         m_joinProducer = joinProducer;
+        m_coalesceReplication = partitionId != MpInitiator.MP_INIT_PID;
 
         m_masterLeaderCache = new LeaderCache(m_messenger.getZK(), VoltZK.iv2masters);
         try {
@@ -216,6 +258,8 @@ public class InitiatorMailbox implements Mailbox
         if (m_algo != null) {
             m_algo.cancel();
         }
+        flushCoalesced(true);
+        m_replicas = new HashSet<Long>(replicas);
         m_scheduler.updateReplicas(replicas);
     }
 
@@ -230,6 +274,13 @@ public class InitiatorMailbox implements Mailbox
     {
         logTxMessage(message);
         message.m_sourceHSId = this.m_hsId;
+        if (isCoalescing()) {
+            if (isCoalescible(destHSId, message)) {
+                coalesce(destHSId, message);
+                return;
+            }
+            flushCoalesced(destHSId);
+        }
         m_messenger.send(destHSId, message);
     }
 
@@ -238,17 +289,141 @@ public class InitiatorMailbox implements Mailbox
     {
         logTxMessage(message);
         message.m_sourceHSId = this.m_hsId;
+        if (isCoalescing()) {
+            boolean coalescible = true;
+            for (long destHSId : destHSIds) {
+                coalescible &= isCoalescible(destHSId, message);
+            }
+            for (long destHSId : destHSIds) {
+                if (coalescible) {
+                    coalesce(destHSId, message);
+                } else {
+                    flushCoalesced(destHSId);
+                }
+            }
+            if (coalescible) {
+                return;
+            }
+        }
         m_messenger.send(destHSIds, message);
     }
 
     @Override
     public synchronized void deliver(VoltMessage message)
     {
-        deliverInternal(message);
+        m_deliveryDepth++;
+        try {
+            deliverInternal(message);
+        } finally {
+            m_deliveryDepth--;
+        }
+        if (m_deliveryDepth == 0) {
+            flushCoalesced(false);
+        }
+    }
+
+    // Only the thread inside deliver() holding the lock may touch the coalesced sends
+    private boolean isCoalescing()
+    {
+        return m_coalesceReplication && m_deliveryDepth > 0 && Thread.holdsLock(this);
+    }
+
+    private boolean isCoalescible(long destHSId, VoltMessage message)
+    {
+        if (message instanceof Iv2InitiateTaskMessage || message instanceof FragmentTaskMessage) {
+            return m_replicas.contains(destHSId);
+        }
+        if (message instanceof InitiateResponseMessage || message instanceof FragmentResponseMessage) {
+            Long leader = m_masterLeaderCache.get(m_partitionId);
+            return leader != null && leader != m_hsId && leader == destHSId;
+        }
+        return false;
+    }
+
+    private void coalesce(long destHSId, VoltMessage message)
+    {
+        List<VoltMessage> pending = m_coalesced.get(destHSId);
+        if (pending == null) {
+            pending = new ArrayList<VoltMessage>();
+            m_coalesced.put(destHSId, pending);
+        }
+        pending.add(message);
+        m_coalescedCount++;
+        if (!(message instanceof Iv2InitiateTaskMessage || message instanceof FragmentTaskMessage)) {
+            m_coalescedAcks++;
+        }
+        if (pending.size() >= MAX_COALESCED_MESSAGES) {
+            flushCoalesced(destHSId);
+        }
+    }
+
+    private void flushCoalesced(long destHSId)
+    {
+        List<VoltMessage> pending = m_coalesced.remove(destHSId);
+        if (pending == null) {
+            return;
+        }
+        for (VoltMessage message : pending) {
+            if (!(message instanceof Iv2InitiateTaskMessage || message instanceof FragmentTaskMessage)) {
+                m_coalescedAcks--;
+            }
+        }
+        m_coalescedCount -= pending.size();
+        if (pending.size() == 1) {
+            m_messenger.send(destHSId, pending.get(0));
+        } else {
+            Iv2ReplicationBatchMessage batch = new Iv2ReplicationBatchMessage(pending);
+            batch.m_sourceHSId = m_hsId;
+            m_messenger.send(destHSId, batch);
+        }
+    }
+
+    /**
+     * Flush everything coalesced so far. Unless forced, responses are held
+     * back while the site has more queued work and nothing else is pending,
+     * with a deadline flush scheduled to bound the added latency.
+     */
+    private void flushCoalesced(boolean force)
+    {
+        if (m_coalescedCount == 0) {
+            return;
+        }
+        if (!force && m_coalescedAcks == m_coalescedCount && !m_scheduler.getQueue().isEmpty()) {
+            if (!m_ackFlushScheduled) {
+                m_ackFlushScheduled = true;
+                VoltDB.instance().scheduleWork(m_ackFlusher,
+                        ACK_FLUSH_DELAY_MICROS, -1, TimeUnit.MICROSECONDS);
+            }
+            return;
+        }
+        for (Long destHSId : new ArrayList<Long>(m_coalesced.keySet())) {
+            flushCoalesced(destHSId.longValue());
+        }
+    }
+
+    synchronized void flushHeldAcks()
+    {
+        m_ackFlushScheduled = false;
+        flushCoalesced(true);
     }
 
     protected void deliverInternal(VoltMessage message) {
         assert(lockingVows());
+        if (message instanceof Iv2ReplicationBatchMessage) {
+            for (VoltMessage m : ((Iv2ReplicationBatchMessage)message).getMessages()) {
+                deliverInternal(m);
+            }
+            return;
+        }
+        if (message instanceof Iv2InitiateTaskBatchMessage) {
+            // Unpack under the one lock acquisition, each initiation is
+            // logged, sequenced and scheduled exactly as if it arrived alone
+            for (Iv2InitiateTaskMessage task : ((Iv2InitiateTaskBatchMessage)message).getTasks()) {
+                task.m_sourceHSId = message.m_sourceHSId;
+                deliverInternal(task);
+            }
+            return;
+        }
         logRxMessage(message);
         boolean canDeliver = m_scheduler.sequenceForReplay(message);
         if (message instanceof DumpMessage) {
@@ -110,6 +110,9 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
 
     // Enumerate execution sites by host.
     private static final AtomicInteger siteIndexCounter = new AtomicInteger(0);
+
+    // time each tick may spend compacting tables, 0 turns compaction off
+    public static final long COMPACTION_BUDGET_MICROS = Long.getLong("compactionBudgetMicros", 10000);
     private final int m_siteIndex = siteIndexCounter.getAndIncrement();
 
     // Manages pending tasks.
@@ -168,6 +171,11 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
     // Undo token state for the corresponding EE.
     public final static long kInvalidUndoToken = -1L;
     long latestUndoToken = 0L;
+    // The EE only generates an undo quantum for a batch that changes
+    // something, so a transaction without one has nothing to release.
+    boolean m_undoPending = false;
+    long m_undoQuanta = 0;
+    long m_undoReleases = 0;
 
     @Override
     public long getNextUndoToken()
@@ -734,8 +742,9 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
         else {
             assert(latestUndoToken != Site.kInvalidUndoToken);
             assert(latestUndoToken >= beginUndoToken);
-            if (latestUndoToken > beginUndoToken) {
+            if (latestUndoToken > beginUndoToken && m_undoPending) {
                 m_ee.releaseUndoToken(latestUndoToken);
+                m_undoReleases++;
             }
             m_lastCommittedTxnId = txnId;
             if (TxnEgo.getPartitionId(m_lastCommittedSpHandle) != TxnEgo.getPartitionId(spHandle)) {
@@ -745,6 +754,7 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
             }
             m_lastCommittedSpHandle = spHandle;
         }
+        m_undoPending = false;
     }
 
     @Override
@@ -786,7 +796,7 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
     {
         long time = System.currentTimeMillis();
 
-        m_ee.tick(time, m_lastCommittedSpHandle);
+        m_ee.tick(time, m_lastCommittedSpHandle, COMPACTION_BUDGET_MICROS);
         statsTick(time);
     }
 
@@ -815,6 +825,8 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
             int tupleAllocatedMem = 0;
             int indexMem = 0;
             int stringMem = 0;
+            int compactedMem = 0;
+            long compactionTime = 0;
 
             // update table stats
             final VoltTable[] s1 =
@@ -834,6 +846,10 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
                     tupleDataMem += (int) stats.getLong(9);
                     assert(stats.getColumnName(10).equals("STRING_DATA_MEMORY"));
                     stringMem += (int) stats.getLong(10);
+                    assert(stats.getColumnName(11).equals("COMPACTED_MEMORY"));
+                    compactedMem += (int) stats.getLong(11);
+                    assert(stats.getColumnName(12).equals("COMPACTION_TIME"));
+                    compactionTime += stats.getLong(12);
                 }
                 stats.resetRowPosition();
 
@@ -866,7 +882,11 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
                                             tupleAllocatedMem,
                                             indexMem,
                                             stringMem,
-                                            m_ee.getThreadLocalPoolAllocations());
+                                            m_ee.getThreadLocalPoolAllocations(),
+                                            compactedMem,
+                                            compactionTime,
+                                            m_undoQuanta,
+                                            m_undoReleases);
             }
         }
     }
@@ -957,15 +977,40 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
             long[] planFragmentIds, long[] inputDepIds,
             Object[] parameterSets, long spHandle, long uniqueId, boolean readOnly)
             throws EEException {
-        return m_ee.executePlanFragments(
-                numFragmentIds,
-                planFragmentIds,
-                inputDepIds,
-                parameterSets,
-                spHandle,
-                m_lastCommittedSpHandle,
-                uniqueId,
-                readOnly ? Long.MAX_VALUE : getNextUndoToken());
+        if (readOnly) {
+            return m_ee.executePlanFragments(
+                    numFragmentIds,
+                    planFragmentIds,
+                    inputDepIds,
+                    parameterSets,
+                    spHandle,
+                    m_lastCommittedSpHandle,
+                    uniqueId,
+                    Long.MAX_VALUE);
+        }
+        m_ee.resetDirtyStatus();
+        boolean success = false;
+        try {
+            VoltTable[] results = m_ee.executePlanFragments(
+                    numFragmentIds,
+                    planFragmentIds,
+                    inputDepIds,
+                    parameterSets,
+                    spHandle,
+                    m_lastCommittedSpHandle,
+                    uniqueId,
+                    getNextUndoToken());
+            success = true;
+            return results;
+        } finally {
+            if (m_ee.getDirtyStatus()) {
+                m_undoQuanta++;
+                m_undoPending = true;
+            } else if (!success) {
+                // a failed batch may still have changed something
+                m_undoPending = true;
+            }
+        }
     }
 
     @Override
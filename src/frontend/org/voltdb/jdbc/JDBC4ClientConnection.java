@@ -23,6 +23,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 
 import org.voltdb.client.Client;
@@ -32,6 +33,7 @@ import org.voltdb.client.ClientResponse;
 import org.voltdb.client.ClientStats;
 import org.voltdb.client.ClientStatsContext;
 import org.voltdb.client.NoConnectionsException;
+import org.voltdb.client.PreparedAdHoc;
 import org.voltdb.client.ProcCallException;
 import org.voltdb.client.ProcedureCallback;
 
@@ -50,6 +52,8 @@ public class JDBC4ClientConnection implements Closeable {
     private final JDBC4PerfCounterMap statistics;
     private final ArrayList<String> servers;
     private final Client client;
+    private final ConcurrentHashMap<String, PreparedAdHoc> preparedAdHoc =
+        new ConcurrentHashMap<String, PreparedAdHoc>();
 
     /**
      * The base hash/key for this connection, that uniquely identifies its parameters, as defined by
@@ -206,6 +210,37 @@ public class JDBC4ClientConnection implements Closeable {
         }
     }
 
+    /**
+     * Executes an ad hoc SQL statement with parameters synchronously, preparing it on the
+     * server the first time this connection sees it so later executions skip the planner.
+     *
+     * @param sql
+     *            the SQL statement, with a <code>?</code> for each parameter.
+     * @param parameters
+     *            the list of parameters to bind to the statement.
+     * @return the response sent back by the VoltDB cluster for the statement execution.
+     * @throws IOException
+     * @throws NoConnectionsException
+     * @throws ProcCallException
+     */
+    public ClientResponse executePreparedAdHoc(String sql, Object... parameters)
+            throws NoConnectionsException, IOException, ProcCallException {
+        long start = System.currentTimeMillis();
+        try {
+            PreparedAdHoc statement = this.preparedAdHoc.get(sql);
+            if (statement == null) {
+                statement = this.client.prepareAdHoc(sql);
+                this.preparedAdHoc.put(sql, statement);
+            }
+            ClientResponse response = this.client.callPreparedAdHoc(statement, parameters);
+            this.statistics.update("@AdHocExecute", response);
+            return response;
+        } catch (ProcCallException pce) {
+            this.statistics.update("@AdHocExecute", System.currentTimeMillis() - start, false);
+            throw pce;
+        }
+    }
+
     /**
      * Internal asynchronous callback used to track the execution performance of asynchronous calls.
      */
@@ -98,6 +98,8 @@ public class JDBC4Statement implements java.sql.Statement
             {
                 if (this.type == TYPE_EXEC)
                     return connection.execute(this.sql[0], this.parameters).getResults();
+                else if (this.parameters != null)
+                    return connection.executePreparedAdHoc(this.sql[0], this.parameters).getResults();
                 else
                     return connection.execute("@AdHoc", this.sql[0]).getResults();
             }
@@ -144,6 +146,11 @@ public class JDBC4Statement implements java.sql.Statement
         }
 
         public VoltSQL getExecutableQuery(Object... params) throws SQLException
+        {
+            return getExecutableQuery(false, params);
+        }
+
+        public VoltSQL getExecutableQuery(boolean usePreparedAdHoc, Object... params) throws SQLException
         {
             if (params.length != this.parameterCount)
                 throw SQLError.get(SQLError.ILLEGAL_ARGUMENT);
@@ -152,6 +159,14 @@ public class JDBC4Statement implements java.sql.Statement
                 return new VoltSQL( this.sql, this.parameterCount, this.type, params );
             else if (this.parameterCount == 0)
                 return new VoltSQL( this.sql, 0, this.type );
+            else if (usePreparedAdHoc)
+            {
+                // Leave the parameters to the server, which plans the statement once
+                StringBuilder query = new StringBuilder(this.sql[0]);
+                for(int i=1;i<this.sql.length;i++)
+                    query.append('?').append(this.sql[i]);
+                return new VoltSQL( new String[] { query.toString() }, 0, this.type, params );
+            }
             else
             {
                 StringBuilder query = new StringBuilder();
@@ -392,8 +392,10 @@ public abstract class ExecutionEngine implements FastDeserializer.Deserializatio
      * to do periodic non-transactional work.
      * @param time The current time in milliseconds since the epoch. See
      * System.currentTimeMillis();
+     * @param compactionBudgetMicros How long the EE may spend compacting
+     * fragmented tables, 0 to not compact.
      */
-    abstract public void tick(long time, long lastCommittedSpHandle);
+    abstract public void tick(long time, long lastCommittedSpHandle, long compactionBudgetMicros);
 
     /**
      * Instruct EE to come to an idle state. Flush Export buffers, finish
@@ -596,8 +598,11 @@ public abstract class ExecutionEngine implements FastDeserializer.Deserializatio
      * to do periodic non-transactional work.
      * @param time The current time in milliseconds since the epoch. See
      * System.currentTimeMillis();
+     * @param compactionBudgetMicros How long the EE may spend compacting
+     * fragmented tables, 0 to not compact.
      */
-    protected native void nativeTick(long pointer, long time, long lastCommittedSpHandle);
+    protected native void nativeTick(long pointer, long time, long lastCommittedSpHandle,
+                                     long compactionBudgetMicros);
 
     /**
      * Native implementation of quiesce engine interface method.
@@ -673,12 +673,13 @@ public class ExecutionEngineIPC extends ExecutionEngine {
     }
 
     @Override
-    public void tick(final long time, final long lastCommittedSpHandle) {
+    public void tick(final long time, final long lastCommittedSpHandle, final long compactionBudgetMicros) {
         int result = ExecutionEngine.ERRORCODE_ERROR;
         m_data.clear();
         m_data.putInt(Commands.Tick.m_id);
         m_data.putLong(time);
         m_data.putLong(lastCommittedSpHandle);
+        m_data.putLong(compactionBudgetMicros);
         try {
             m_data.flip();
             m_connection.write();
@@ -362,8 +362,8 @@ public class ExecutionEngineJNI extends ExecutionEngine {
      * System.currentTimeMillis();
      */
     @Override
-    public void tick(final long time, final long lastCommittedTxnId) {
-        nativeTick(pointer, time, lastCommittedTxnId);
+    public void tick(final long time, final long lastCommittedTxnId, final long compactionBudgetMicros) {
+        nativeTick(pointer, time, lastCommittedTxnId, compactionBudgetMicros);
     }
 
     @Override
@@ -159,7 +159,7 @@ public class MockExecutionEngine extends ExecutionEngine {
     }
 
     @Override
-    public void tick(final long time, final long lastCommittedTxnId) {
+    public void tick(final long time, final long lastCommittedTxnId, final long compactionBudgetMicros) {
     }
 
     @Override
@@ -0,0 +1,117 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.voltdb.messaging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.voltcore.messaging.VoltMessage;
+import org.voltcore.utils.CoreUtils;
+
+/**
+ * A group of single partition Iv2InitiateTaskMessages from one client
+ * interface to one initiator. Sent as a single message so the group is
+ * framed once on the wire and delivered to the initiator mailbox in one step,
+ * where each initiation is then sequenced exactly as if it had been sent alone.
+ */
+public class Iv2InitiateTaskBatchMessage extends VoltMessage {
+
+    private List<Iv2InitiateTaskMessage> m_tasks;
+
+    /** Empty constructor for de-serialization */
+    Iv2InitiateTaskBatchMessage() {
+        super();
+    }
+
+    public Iv2InitiateTaskBatchMessage(List<Iv2InitiateTaskMessage> tasks) {
+        assert(tasks != null && !tasks.isEmpty());
+        m_tasks = tasks;
+    }
+
+    public List<Iv2InitiateTaskMessage> getTasks() {
+        return m_tasks;
+    }
+
+    @Override
+    public int getSerializedSize()
+    {
+        int msgsize = super.getSerializedSize();
+        msgsize += 4; // task count
+        for (Iv2InitiateTaskMessage task : m_tasks) {
+            msgsize += 4 + task.getSerializedSize();
+        }
+        return msgsize;
+    }
+
+    @Override
+    public void flattenToBuffer(ByteBuffer buf) throws IOException
+    {
+        buf.put(VoltDbMessageFactory.IV2_INITIATE_TASK_BATCH_ID);
+        buf.putInt(m_tasks.size());
+        for (Iv2InitiateTaskMessage task : m_tasks) {
+            final int size = task.getSerializedSize();
+            buf.putInt(size);
+            task.flattenToBuffer(window(buf, size));
+        }
+
+        assert(buf.capacity() == buf.position());
+        buf.limit(buf.position());
+    }
+
+    @Override
+    public void initFromBuffer(ByteBuffer buf) throws IOException {
+        final int count = buf.getInt();
+        m_tasks = new ArrayList<Iv2InitiateTaskMessage>(count);
+        for (int ii = 0; ii < count; ii++) {
+            final int size = buf.getInt();
+            final ByteBuffer slice = window(buf, size);
+            final byte type = slice.get();
+            assert(type == VoltDbMessageFactory.IV2_INITIATE_TASK_ID);
+            Iv2InitiateTaskMessage task = new Iv2InitiateTaskMessage();
+            task.m_sourceHSId = m_sourceHSId;
+            task.initFromBuffer(slice.slice().asReadOnlyBuffer());
+            m_tasks.add(task);
+        }
+    }
+
+    /**
+     * Carve the next size bytes of buf into a buffer of exactly that capacity
+     * and advance past them. Tasks assert that they fill their buffer exactly.
+     */
+    private static ByteBuffer window(ByteBuffer buf, int size) {
+        final int oldLimit = buf.limit();
+        buf.limit(buf.position() + size);
+        final ByteBuffer slice = buf.slice();
+        buf.limit(oldLimit);
+        buf.position(buf.position() + size);
+        return slice;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("IV2 INITIATE_TASK_BATCH (FROM ");
+        sb.append(CoreUtils.hsIdToString(m_sourceHSId));
+        sb.append(") WITH ").append(m_tasks.size()).append(" TASKS");
+        for (Iv2InitiateTaskMessage task : m_tasks) {
+            sb.append("\n").append(task.toString());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,113 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.voltdb.messaging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.voltcore.messaging.VoltMessage;
+import org.voltcore.utils.CoreUtils;
+
+/**
+ * A run of replication traffic between two initiator mailboxes of the same
+ * partition: initiations and fragments a leader forwards to one replica, or
+ * the responses a replica returns to its leader. The messages are framed once
+ * on the wire and the receiving mailbox delivers them in order, each exactly
+ * as if it had been sent alone.
+ */
+public class Iv2ReplicationBatchMessage extends VoltMessage {
+
+    private List<VoltMessage> m_messages;
+
+    /** Empty constructor for de-serialization */
+    Iv2ReplicationBatchMessage() {
+        super();
+    }
+
+    public Iv2ReplicationBatchMessage(List<VoltMessage> messages) {
+        assert(messages != null && !messages.isEmpty());
+        m_messages = messages;
+    }
+
+    public List<VoltMessage> getMessages() {
+        return m_messages;
+    }
+
+    @Override
+    public int getSerializedSize()
+    {
+        int msgsize = super.getSerializedSize();
+        msgsize += 4; // message count
+        for (VoltMessage message : m_messages) {
+            msgsize += 4 + message.getSerializedSize();
+        }
+        return msgsize;
+    }
+
+    @Override
+    public void flattenToBuffer(ByteBuffer buf) throws IOException
+    {
+        buf.put(VoltDbMessageFactory.IV2_REPLICATION_BATCH_ID);
+        buf.putInt(m_messages.size());
+        for (VoltMessage message : m_messages) {
+            final int size = message.getSerializedSize();
+            buf.putInt(size);
+            message.flattenToBuffer(window(buf, size));
+        }
+
+        assert(buf.capacity() == buf.position());
+        buf.limit(buf.position());
+    }
+
+    @Override
+    public void initFromBuffer(ByteBuffer buf) throws IOException {
+        final VoltDbMessageFactory factory = new VoltDbMessageFactory();
+        final int count = buf.getInt();
+        m_messages = new ArrayList<VoltMessage>(count);
+        for (int ii = 0; ii < count; ii++) {
+            final int size = buf.getInt();
+            m_messages.add(factory.createMessageFromBuffer(window(buf, size), m_sourceHSId));
+        }
+    }
+
+    /**
+     * Carve the next size bytes of buf into a buffer of exactly that capacity
+     * and advance past them. Messages assert that they fill their buffer exactly.
+     */
+    private static ByteBuffer window(ByteBuffer buf, int size) {
+        final int oldLimit = buf.limit();
+        buf.limit(buf.position() + size);
+        final ByteBuffer slice = buf.slice();
+        buf.limit(oldLimit);
+        buf.position(buf.position() + size);
+        return slice;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("IV2 REPLICATION_BATCH (FROM ");
+        sb.append(CoreUtils.hsIdToString(m_sourceHSId));
+        sb.append(") WITH ").append(m_messages.size()).append(" MESSAGES");
+        for (VoltMessage message : m_messages) {
+            sb.append("\n").append(message.toString());
+        }
+        return sb.toString();
+    }
+}
@@ -42,6 +42,8 @@ public class VoltDbMessageFactory extends VoltMessageFactory
     final public static byte IV2_LOG_FAULT_ID = VOLTCORE_MESSAGE_ID_MAX + 16;
     final public static byte IV2_EOL_ID = VOLTCORE_MESSAGE_ID_MAX + 17;
     final public static byte DUMP = VOLTCORE_MESSAGE_ID_MAX + 18;
+    final public static byte IV2_INITIATE_TASK_BATCH_ID = VOLTCORE_MESSAGE_ID_MAX + 19;
+    final public static byte IV2_REPLICATION_BATCH_ID = VOLTCORE_MESSAGE_ID_MAX + 20;
 
     /**
      * Overridden by subclasses to create message types unknown by voltcore
@@ -109,6 +111,12 @@ public class VoltDbMessageFactory extends VoltMessageFactory
         case DUMP:
             message = new DumpMessage();
             break;
+        case IV2_INITIATE_TASK_BATCH_ID:
+            message = new Iv2InitiateTaskBatchMessage();
+            break;
+        case IV2_REPLICATION_BATCH_ID:
+            message = new Iv2ReplicationBatchMessage();
+            break;
         default:
             message = null;
         }
@@ -36,7 +36,7 @@ import org.voltdb.VoltType;
  * null to Java null though.
  *
  */
-class ParameterizationInfo {
+public class ParameterizationInfo {
 
     final VoltXMLElement originalXmlSQL;
     final VoltXMLElement parameterizedXmlSQL;
@@ -17,6 +17,7 @@
 
 package org.voltdb.planner;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map.Entry;
 
@@ -36,6 +37,26 @@ public class ParsedInsertStmt extends AbstractParsedStmt {
 
     public HashMap<Column, AbstractExpression> columns = new HashMap<Column, AbstractExpression>();
 
+    /**
+     * The rows after the first of a multi-row INSERT ... VALUES statement,
+     * in the same form as columns.
+     */
+    public ArrayList<HashMap<Column, AbstractExpression>> additionalRows =
+        new ArrayList<HashMap<Column, AbstractExpression>>();
+
+    /**
+     * The target columns of an INSERT ... SELECT statement, in the order
+     * of the select's display columns, and the select itself.
+     */
+    public ArrayList<Column> selectTargetColumns = new ArrayList<Column>();
+    public ParsedSelectStmt select = null;
+
+    /**
+     * True for an UPSERT, which updates the row with the same primary key
+     * in place of inserting when there is one.
+     */
+    public boolean isUpsert = false;
+
     /**
     * Class constructor
     * @param paramValues
@@ -47,34 +68,98 @@ public class ParsedInsertStmt extends AbstractParsedStmt {
 
     @Override
     void parse(VoltXMLElement stmtNode) {
-        // A simple INSERT ... VALUES statement (all that's supported initially) has no underlying
-        // table scans, so the table list should actually be empty until the statement's target
-        // table is inserted, below.
-        // TODO: When INSERT ... SELECT is supported, it's unclear how the source and target tables will
-        // be distinguished (positionally? in separate members?) and/or how soon thereafter the SELECT
-        // clause will need to allow joins.
+        // An INSERT statement has no underlying table scans of its own -- the source tables of
+        // an INSERT ... SELECT belong to its nested select -- so the table list should actually be
+        // empty until the statement's target table is inserted, below.
         assert(tableList.isEmpty());
 
         String tableName = stmtNode.attributes.get("table");
         Table table = getTableFromDB(tableName);
 
         tableList.add(table);
+        isUpsert = "true".equalsIgnoreCase(stmtNode.attributes.get("upsert"));
+
+        for (VoltXMLElement node : stmtNode.children) {
+            if (node.name.equalsIgnoreCase(SELECT_NODE_NAME)) {
+                select = new ParsedSelectStmt(m_paramValues, m_db);
+                // The statement's parameters, including the literals extracted
+                // from ad hoc SQL, belong to the INSERT element, not the nested select.
+                select.m_paramsById = m_paramsById;
+                select.paramList = paramList;
+                select.parseTablesAndParams(node);
+                select.parse(node);
+            }
+            else if (node.name.equalsIgnoreCase(UNION_NODE_NAME)) {
+                throw new PlanningErrorException("INSERT INTO ... SELECT does not support UNION and other set operations.");
+            }
+        }
 
+        boolean firstRow = true;
         for (VoltXMLElement node : stmtNode.children) {
-            if (node.name.equalsIgnoreCase("columns")) {
+            if (node.name.equalsIgnoreCase("columns") == false) {
+                continue;
+            }
+            if (select != null) {
+                for (VoltXMLElement child : node.children) {
+                    assert(child.name.equals("column"));
+                    selectTargetColumns.add(table.getColumns().getIgnoreCase(child.attributes.get("name").trim()));
+                }
+            }
+            else if (firstRow) {
                 parseTargetColumns(node, table, columns);
+                firstRow = false;
+            }
+            else {
+                HashMap<Column, AbstractExpression> row = new HashMap<Column, AbstractExpression>();
+                parseTargetColumns(node, table, row);
+                additionalRows.add(row);
             }
         }
     }
 
+    @Override
+    void postParse(String sql, String joinOrder) {
+        super.postParse(sql, joinOrder);
+        if (select != null) {
+            select.postParse(sql, joinOrder);
+        }
+    }
+
+    /**
+     * @return the number of rows of an INSERT ... VALUES statement.
+     */
+    public int getRowCount() {
+        return additionalRows.size() + 1;
+    }
+
     @Override
     public String toString() {
         String retval = super.toString() + "\n";
 
-        retval += "COLUMNS:\n";
-        for (Entry<Column, AbstractExpression> col : columns.entrySet()) {
-            retval += "\tColumn: " + col.getKey().getTypeName() + ": ";
-            retval += col.getValue().toString() + "\n";
+        if (isUpsert) {
+            retval += "UPSERT\n";
+        }
+
+        if (select != null) {
+            retval += "COLUMNS:\n";
+            for (Column col : selectTargetColumns) {
+                retval += "\tColumn: " + col.getTypeName() + "\n";
+            }
+            retval += "SELECT:\n" + select.toString() + "\n";
+        }
+        else {
+            retval += "COLUMNS:\n";
+            for (Entry<Column, AbstractExpression> col : columns.entrySet()) {
+                retval += "\tColumn: " + col.getKey().getTypeName() + ": ";
+                retval += col.getValue().toString() + "\n";
+            }
+            for (HashMap<Column, AbstractExpression> row : additionalRows) {
+                retval += "ROW:\n";
+                for (Entry<Column, AbstractExpression> col : row.entrySet()) {
+                    retval += "\tColumn: " + col.getKey().getTypeName() + ": ";
+                    retval += col.getValue().toString() + "\n";
+                }
+            }
         }
         retval = retval.trim();
 
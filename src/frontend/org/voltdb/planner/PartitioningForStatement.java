@@ -105,6 +105,12 @@ public class PartitioningForStatement implements Cloneable{
      * proposed in feedback messages for possible use in single-partitioning annotations and attributes.
      */
     private String m_fullColumnName;
+    /*
+     * For a multi-partition read of a large replicated table, the table whose scan is split into
+     * per-partition slices and the column hashed to pick the rows of each slice.
+     */
+    private String m_slicedTable = null;
+    private Column m_sliceColumn = null;
 
     /**
      * @param specifiedValue non-null if only SP plans are to be assumed
@@ -265,6 +271,29 @@ public class PartitioningForStatement implements Cloneable{
         m_replicatedTableDML = replicatedTableDML;
     }
 
+    /**
+     * Split the scans of a replicated table across all partitions, each scanning the rows
+     * whose slice column hashes to it.
+     */
+    public void setSlicedScan(String tableName, Column sliceColumn) {
+        m_slicedTable = tableName;
+        m_sliceColumn = sliceColumn;
+    }
+
+    /**
+     * accessor
+     */
+    public String getSlicedTable() {
+        return m_slicedTable;
+    }
+
+    /**
+     * accessor
+     */
+    public Column getSliceColumn() {
+        return m_sliceColumn;
+    }
+
     /**
      * accessor
      * @return
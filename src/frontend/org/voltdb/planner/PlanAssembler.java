@@ -18,6 +18,7 @@
 package org.voltdb.planner;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -62,6 +63,7 @@ import org.voltdb.plannodes.SchemaColumn;
 import org.voltdb.plannodes.SendPlanNode;
 import org.voltdb.plannodes.SeqScanPlanNode;
 import org.voltdb.plannodes.UpdatePlanNode;
+import org.voltdb.plannodes.UpsertPlanNode;
 import org.voltdb.types.ExpressionType;
 import org.voltdb.types.PlanNodeType;
 import org.voltdb.types.SortDirectionType;
@@ -113,12 +115,30 @@ public class PlanAssembler {
      */
     boolean m_insertPlanWasGenerated = false;
 
+    /**
+     * False when the select of an INSERT ... SELECT statement may not
+     * return the same rows when replayed.
+     */
+    boolean m_insertSourceIsDeterministic = true;
+
     /**
      * Whenever a parameter has its type changed during compilation, the new type is stored
      * here, indexed by parameter index.
      */
     Map<Integer, VoltType> m_paramTypeOverrideMap = new HashMap<Integer, VoltType>();
 
+    /**
+     * A multi-partition read of a replicated table with at least this many
+     * tuples scans the table at every partition, each reading a slice of it,
+     * instead of at a single site.
+     */
+    static final long SLICED_SCAN_MIN_TUPLES = 100000;
+
+    /**
+     * False for the children of a union, which each must plan as a single fragment.
+     */
+    boolean m_allowSlicedScans = true;
+
     /**
      *
      * @param catalogCluster
@@ -201,6 +221,7 @@ public class PlanAssembler {
      */
     void setupForNewPlans(AbstractParsedStmt parsedStmt) {
         m_insertPlanWasGenerated = false;
+        m_insertSourceIsDeterministic = true;
         int countOfPartitionedTables = 0;
         Map<String, String> partitionColumnByTable = new HashMap<String, String>();
         // Do we have a need for a distributed scan at all?
@@ -247,6 +268,9 @@ public class PlanAssembler {
                 "Illegal to read an export table.");
             }
             m_parsedSelect = (ParsedSelectStmt) parsedStmt;
+            if (m_allowSlicedScans) {
+                sliceLargeReplicatedScan(m_parsedSelect);
+            }
             subAssembler = new SelectSubPlanAssembler(m_catalogDb, parsedStmt, m_partitioning);
         } else {
             // check that no modification happens to views
@@ -295,6 +319,74 @@ public class PlanAssembler {
         }
     }
 
+    /**
+     * A multi-partition query of a single replicated table, large enough by the
+     * table statistics that scanning it at one site would keep every other
+     * site idle, is planned like a query of a partitioned table. Each partition
+     * scans the rows whose slice column hashes to it and the coordinator
+     * receives and merges the slices.
+     */
+    private void sliceLargeReplicatedScan(ParsedSelectStmt parsedSelect) {
+        if (m_partitioning.wasSpecifiedAsSingle() || parsedSelect.tableList.size() != 1) {
+            return;
+        }
+        Table table = parsedSelect.tableList.get(0);
+        if ( ! table.getIsreplicated()) {
+            return;
+        }
+        long tupleCount = m_planSelector.m_estimates.getEstimatesForTable(table.getTypeName()).tupleCount;
+        if (tupleCount < SLICED_SCAN_MIN_TUPLES) {
+            return;
+        }
+        // An unfiltered count(*) is answered from the table's tuple count.
+        if (parsedSelect.getCombinedFilterExpression() == null && ! parsedSelect.isGrouped()) {
+            boolean countsOnly = true;
+            for (ParsedColInfo col : parsedSelect.displayColumns) {
+                if (col.expression.getExpressionType() != ExpressionType.AGGREGATE_COUNT_STAR) {
+                    countsOnly = false;
+                }
+            }
+            if (countsOnly) {
+                return;
+            }
+        }
+        Column sliceColumn = getSliceColumn(table);
+        if (sliceColumn != null) {
+            m_partitioning.setSlicedScan(table.getTypeName(), sliceColumn);
+        }
+    }
+
+    /**
+     * @return the leading primary key column of the table if it can be
+     * hashed, else the first column that can be, else null.
+     */
+    static Column getSliceColumn(Table table) {
+        Collection<Column> primaryKey = CatalogUtil.getPrimaryKeyColumns(table);
+        if ( ! primaryKey.isEmpty() && isHashable(primaryKey.iterator().next())) {
+            return primaryKey.iterator().next();
+        }
+        for (Column column : CatalogUtil.getSortedCatalogItems(table.getColumns(), "index")) {
+            if (isHashable(column)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isHashable(Column column) {
+        switch (VoltType.get((byte) column.getType())) {
+        case TINYINT:
+        case SMALLINT:
+        case INTEGER:
+        case BIGINT:
+        case STRING:
+        case VARBINARY:
+            return true;
+        default:
+            return false;
+        }
+    }
+
     /**
      * Generate the best cost plan for the current SQL statement context.
      *
@@ -390,7 +482,8 @@ public class PlanAssembler {
             assert (nextStmt.tableList.size() == 1);
             if (nextStmt.tableList.get(0).getIsreplicated())
                 retval.replicatedTableDML = true;
-            retval.statementGuaranteesDeterminism(true, true); // Until we support DML w/ subqueries/limits
+            // Only the select of an INSERT ... SELECT can make DML nondeterministic.
+            retval.statementGuaranteesDeterminism(m_insertSourceIsDeterministic, m_insertSourceIsDeterministic);
         }
 
         if (retval == null || retval.rootPlanGraph == null) {
@@ -436,6 +529,7 @@ public class PlanAssembler {
             processor.m_planId = planId;
             PlanAssembler assembler = new PlanAssembler(
                     m_catalogCluster, m_catalogDb, partitioning, processor);
+            assembler.m_allowSlicedScans = false;
             CompiledPlan bestChildPlan = assembler.getBestCostPlan(parsedChildStmt);
             // make sure we got a winner
             if (bestChildPlan == null) {
@@ -571,27 +665,27 @@ public class PlanAssembler {
         assert(subSelectRoot instanceof AbstractScanPlanNode);
 
         // If the scan matches all rows, we can throw away the scan
-        // nodes and use a truncate delete node.
+        // nodes and use a truncate delete node. Each partition then
+        // empties its table at once, whether or not the plan is distributed.
         // Assume all index scans have filters in this context, so only consider seq scans.
-        if (m_partitioning.wasSpecifiedAsSingle() &&
-                (subSelectRoot instanceof SeqScanPlanNode) &&
+        if ((subSelectRoot instanceof SeqScanPlanNode) &&
                 (((SeqScanPlanNode) subSelectRoot).getPredicate() == null)) {
             deleteNode.setTruncate(true);
-            return deleteNode;
         }
-
-        // OPTIMIZATION: Projection Inline
-        // If the root node we got back from createSelectTree() is an
-        // AbstractScanNode, then
-        // we put the Projection node we just created inside of it
-        // When we inline this projection into the scan, we're going
-        // to overwrite any original projection that we might have inlined
-        // in order to simply cull the columns from the persistent table.
-        // The call here to generateOutputSchema() will recurse down to
-        // the scan node and cause it to update appropriately.
-        subSelectRoot.addInlinePlanNode(projectionNode);
-        // connect the nodes to build the graph
-        deleteNode.addAndLinkChild(subSelectRoot);
+        else {
+            // OPTIMIZATION: Projection Inline
+            // If the root node we got back from createSelectTree() is an
+            // AbstractScanNode, then
+            // we put the Projection node we just created inside of it
+            // When we inline this projection into the scan, we're going
+            // to overwrite any original projection that we might have inlined
+            // in order to simply cull the columns from the persistent table.
+            // The call here to generateOutputSchema() will recurse down to
+            // the scan node and cause it to update appropriately.
+            subSelectRoot.addInlinePlanNode(projectionNode);
+            // connect the nodes to build the graph
+            deleteNode.addAndLinkChild(subSelectRoot);
+        }
 
         if (m_partitioning.wasSpecifiedAsSingle() ||
             (m_partitioning.effectivePartitioningExpression() != null)) {
@@ -704,80 +798,69 @@ public class PlanAssembler {
         assert (m_parsedInsert.tableList.size() == 1);
         Table targetTable = m_parsedInsert.tableList.get(0);
 
-        // the root of the insert plan is always an InsertPlanNode
-        InsertPlanNode insertNode = new InsertPlanNode();
-        insertNode.setTargetTableName(targetTable.getTypeName());
-
-        // the materialize node creates a tuple to insert (which is frankly not
-        // always optimal)
-        MaterializePlanNode materializeNode = new MaterializePlanNode();
-        NodeSchema mat_schema = new NodeSchema();
-
         // get the ordered list of columns for the targettable using a helper
         // function they're not guaranteed to be in order in the catalog
         List<Column> columns =
             CatalogUtil.getSortedCatalogItems(targetTable.getColumns(), "index");
 
-        // for each column in the table in order...
-        for (Column column : columns) {
-
-            // get the expression for the column
-            AbstractExpression expr = m_parsedInsert.columns.get(column);
-
-            // if there's no expression, make sure the column has
-            // some supported default value
-            if (expr == null) {
-                // if it's not nullable or defaulted we have a problem
-                if (column.getNullable() == false && column.getDefaulttype() == 0)
-                {
-                    throw new PlanningErrorException("Column " + column.getName()
-                            + " has no default and is not nullable.");
-                }
-                ConstantValueExpression const_expr =
-                    new ConstantValueExpression();
-                expr = const_expr;
-                if (column.getDefaulttype() != 0)
-                {
-                    const_expr.setValue(column.getDefaultvalue());
-                    const_expr.setValueType(VoltType.get((byte) column.getDefaulttype()));
-                }
-                else
-                {
-                    const_expr.setValue(null);
-                }
-            }
+        // the root of the insert plan is always an InsertPlanNode
+        InsertPlanNode insertNode;
+        if (m_parsedInsert.isUpsert) {
+            insertNode = getUpsertNode(targetTable, columns);
+        }
+        else {
+            insertNode = new InsertPlanNode();
+        }
+        insertNode.setTargetTableName(targetTable.getTypeName());
 
-            if (expr.getValueType() == VoltType.NULL) {
-                ConstantValueExpression const_expr =
-                    new ConstantValueExpression();
-                const_expr.setValue("NULL");
+        AbstractPlanNode sourceNode;
+        if (m_parsedInsert.select != null) {
+            sourceNode = getInsertSelectSource(columns);
+            if (sourceNode == null) {
+                return null;
             }
+        }
+        else {
+            // the materialize node creates the tuples to insert (which is frankly not
+            // always optimal)
+            MaterializePlanNode materializeNode = new MaterializePlanNode();
+            NodeSchema mat_schema = new NodeSchema();
+            // Only a single row can hint at the partition to run on. The rows of a
+            // multi-row insert are left to each partition to keep or skip.
+            boolean singleRow = m_parsedInsert.additionalRows.isEmpty();
+
+            // for each column in the table in order...
+            for (Column column : columns) {
+                AbstractExpression expr = getInsertColumnValue(column, m_parsedInsert.columns.get(column));
+
+                // Hint that this statement can be executed SP.
+                if (singleRow && column.equals(m_partitioning.getColumn())) {
+                    String fullColumnName = targetTable.getTypeName() + "." + column.getTypeName();
+                    m_partitioning.addPartitioningExpression(fullColumnName, expr);
+                    m_partitioning.setInferredValue(ConstantValueExpression.extractPartitioningValue(expr.getValueType(), expr));
+                }
 
-            // set the expression type to match the corresponding Column.
-            try {
-                ExpressionUtil.setOutputTypeForInsertExpression(expr, VoltType.get((byte)column.getType()), column.getSize(), m_paramTypeOverrideMap);
-            } catch (Exception e) {
-                throw new PlanningErrorException(e.getMessage());
+                // add column to the materialize node.
+                // This table name is magic.
+                mat_schema.addColumn(new SchemaColumn("VOLT_TEMP_TABLE",
+                                                      column.getTypeName(),
+                                                      column.getTypeName(),
+                                                      expr));
             }
+            materializeNode.setOutputSchema(mat_schema);
 
-            // Hint that this statement can be executed SP.
-            if (column.equals(m_partitioning.getColumn())) {
-                String fullColumnName = targetTable.getTypeName() + "." + column.getTypeName();
-                m_partitioning.addPartitioningExpression(fullColumnName, expr);
-                m_partitioning.setInferredValue(ConstantValueExpression.extractPartitioningValue(expr.getValueType(), expr));
+            for (HashMap<Column, AbstractExpression> row : m_parsedInsert.additionalRows) {
+                List<AbstractExpression> rowExprs = new ArrayList<AbstractExpression>();
+                for (Column column : columns) {
+                    rowExprs.add(getInsertColumnValue(column, row.get(column)));
+                }
+                materializeNode.addRow(rowExprs);
             }
-
-            // add column to the materialize node.
-            // This table name is magic.
-            mat_schema.addColumn(new SchemaColumn("VOLT_TEMP_TABLE",
-                                                  column.getTypeName(),
-                                                  column.getTypeName(),
-                                                  expr));
+            sourceNode = materializeNode;
         }
 
-        materializeNode.setOutputSchema(mat_schema);
-        // connect the insert and the materialize nodes together
-        insertNode.addAndLinkChild(materializeNode);
+        // connect the insert and the source nodes together
+        insertNode.addAndLinkChild(sourceNode);
         insertNode.generateOutputSchema(m_catalogDb);
 
         if (m_partitioning.wasSpecifiedAsSingle() ||
@@ -799,6 +882,172 @@ public class PlanAssembler {
         return addSumOrLimitAndSendToDMLNode(recvNode, targetTable.getIsreplicated());
     }
 
+    /**
+     * Get the root of an UPSERT plan. The EE finds the row an UPSERT replaces
+     * by its primary key, so the statement must name all of the primary key
+     * columns. An existing row only takes the values of the named columns.
+     *
+     * @param targetTable The table to upsert into.
+     * @param columns The target table's columns in order.
+     * @return The UpsertPlanNode.
+     */
+    private UpsertPlanNode getUpsertNode(Table targetTable, List<Column> columns) {
+        Collection<Column> namedColumns;
+        if (m_parsedInsert.select != null) {
+            namedColumns = m_parsedInsert.selectTargetColumns;
+        }
+        else {
+            namedColumns = m_parsedInsert.columns.keySet();
+        }
+
+        Collection<Column> primaryKey = CatalogUtil.getPrimaryKeyColumns(targetTable);
+        if (primaryKey.isEmpty()) {
+            throw new PlanningErrorException("UPSERT into table '" + targetTable.getTypeName() +
+                    "' requires the table to have a primary key.");
+        }
+        for (Column keyColumn : primaryKey) {
+            if (namedColumns.contains(keyColumn) == false) {
+                throw new PlanningErrorException("UPSERT into table '" + targetTable.getTypeName() +
+                        "' must give a value for primary key column '" + keyColumn.getTypeName() + "'.");
+            }
+        }
+
+        List<Integer> updateColumns = new ArrayList<Integer>();
+        for (int i = 0; i < columns.size(); i++) {
+            if (namedColumns.contains(columns.get(i))) {
+                updateColumns.add(i);
+            }
+        }
+        UpsertPlanNode upsertNode = new UpsertPlanNode();
+        upsertNode.setUpdateColumns(updateColumns);
+        return upsertNode;
+    }
+
+    /**
+     * Get the value an insert puts in a column, typed to match the column.
+     *
+     * @param column The target column.
+     * @param expr The statement's expression for the column, or null to use
+     *             the column's default.
+     * @return The expression for the column's value.
+     */
+    private AbstractExpression getInsertColumnValue(Column column, AbstractExpression expr) {
+        // if there's no expression, make sure the column has
+        // some supported default value
+        if (expr == null) {
+            // if it's not nullable or defaulted we have a problem
+            if (column.getNullable() == false && column.getDefaulttype() == 0)
+            {
+                throw new PlanningErrorException("Column " + column.getName()
+                        + " has no default and is not nullable.");
+            }
+            ConstantValueExpression const_expr =
+                new ConstantValueExpression();
+            expr = const_expr;
+            if (column.getDefaulttype() != 0)
+            {
+                const_expr.setValue(column.getDefaultvalue());
+                const_expr.setValueType(VoltType.get((byte) column.getDefaulttype()));
+            }
+            else
+            {
+                const_expr.setValue(null);
+            }
+        }
+
+        if (expr.getValueType() == VoltType.NULL) {
+            ConstantValueExpression const_expr =
+                new ConstantValueExpression();
+            const_expr.setValue("NULL");
+        }
+
+        // set the expression type to match the corresponding Column.
+        try {
+            ExpressionUtil.setOutputTypeForInsertExpression(expr, VoltType.get((byte)column.getType()), column.getSize(), m_paramTypeOverrideMap);
+        } catch (Exception e) {
+            throw new PlanningErrorException(e.getMessage());
+        }
+        return expr;
+    }
+
+    /**
+     * Plan the select of an INSERT ... SELECT statement and project its rows
+     * onto the columns of the target table.
+     *
+     * A multi-partition insert runs the select at every partition and each
+     * partition keeps the rows that belong to it, so every partition must see
+     * all of the selected rows. The select may then only read replicated tables.
+     *
+     * @param columns The target table's columns in order.
+     * @return A projection over the best plan for the select, or null.
+     */
+    private AbstractPlanNode getInsertSelectSource(List<Column> columns) {
+        ParsedSelectStmt select = m_parsedInsert.select;
+        if (m_partitioning.wasSpecifiedAsSingle() == false) {
+            for (Table table : select.tableList) {
+                if (table.getIsreplicated() == false) {
+                    throw new PlanningErrorException("INSERT INTO ... SELECT from partitioned table '" +
+                            table.getTypeName() + "' is only supported in a single-partition procedure.");
+                }
+            }
+        }
+        if (select.displayColumns.size() != m_parsedInsert.selectTargetColumns.size()) {
+            throw new PlanningErrorException("INSERT INTO ... SELECT names " +
+                    m_parsedInsert.selectTargetColumns.size() + " columns but selects " +
+                    select.displayColumns.size() + ".");
+        }
+
+        PlanSelector processor = (PlanSelector) m_planSelector.clone();
+        processor.m_planId = m_planSelector.m_planId;
+        PlanAssembler assembler = new PlanAssembler(m_catalogCluster, m_catalogDb,
+                (PartitioningForStatement) m_partitioning.clone(), processor);
+        assembler.m_allowSlicedScans = false;
+        CompiledPlan selectPlan = assembler.getBestCostPlan(select);
+        if (selectPlan == null) {
+            m_recentErrorMsg = assembler.getErrorMessage();
+            if (m_recentErrorMsg == null) {
+                m_recentErrorMsg = "Unable to plan for statement. Error unknown.";
+            }
+            return null;
+        }
+        // Make sure that the insert plan won't override the select's.
+        m_planSelector.m_planId = processor.m_planId;
+        // The select shares the insert's parameters.
+        m_paramTypeOverrideMap.putAll(assembler.m_paramTypeOverrideMap);
+        if (selectPlan.rootPlanGraph.hasAnyNodeOfType(PlanNodeType.RECEIVE)) {
+            throw new PlanningErrorException("INSERT INTO ... SELECT must select from a single partition.");
+        }
+        m_insertSourceIsDeterministic = selectPlan.isContentDeterministic();
+
+        AbstractPlanNode selectRoot = selectPlan.rootPlanGraph;
+        selectRoot.generateOutputSchema(m_catalogDb);
+        List<SchemaColumn> selectColumns = selectRoot.getOutputSchema().getColumns();
+
+        ProjectionPlanNode projectionNode = new ProjectionPlanNode();
+        NodeSchema proj_schema = new NodeSchema();
+        for (Column column : columns) {
+            int index = m_parsedInsert.selectTargetColumns.indexOf(column);
+            AbstractExpression expr;
+            if (index < 0) {
+                expr = getInsertColumnValue(column, null);
+            }
+            else {
+                // the selected value, cast to the column's type as it is projected
+                expr = selectColumns.get(index).copyAndReplaceWithTVE().getExpression();
+                expr.setValueType(VoltType.get((byte) column.getType()));
+                expr.setValueSize(column.getSize());
+            }
+            // This table name is magic.
+            proj_schema.addColumn(new SchemaColumn("VOLT_TEMP_TABLE",
+                                                   column.getTypeName(),
+                                                   column.getTypeName(),
+                                                   expr));
+        }
+        projectionNode.setOutputSchema(proj_schema);
+        projectionNode.addAndLinkChild(selectRoot);
+        return projectionNode;
+    }
+
     /**
      * Adds a sum or limit node followed by a send node to the given DML node. If the DML target
      * is a replicated table, it will add a limit node, otherwise it adds a sum node.
@@ -225,6 +225,14 @@ public class QueryPlanner {
         if (plan == null) {
             throw new PlanningErrorException(m_recentErrorMsg);
         }
+
+        // a statement with user parameters may be partitioned on one of them
+        if (m_partitioning.effectivePartitioningValue() == null) {
+            AbstractExpression expr = m_partitioning.effectivePartitioningExpression();
+            if (expr instanceof ParameterValueExpression) {
+                plan.partitioningKeyIndex = ((ParameterValueExpression) expr).getParameterIndex();
+            }
+        }
         return plan;
     }
 
@@ -636,6 +636,14 @@ public class SelectSubPlanAssembler extends SubPlanAssembler {
                  */
                 resultPlan = getSelectSubPlanForAccessPathStep(accessPath[at], resultPlan, scanPlan);
             }
+            /*
+             * A sliced scan of a replicated table runs at every partition like
+             * a scan of a partitioned table.
+             */
+            if (sliceReplicatedScan(joinOrder[at], accessPath[at], scanPlan)) {
+                resultPlan = addSendReceivePair(resultPlan);
+                continue;
+            }
             /*
              * If the access plan for the table in the join order was for a
              * distributed table scan there will be a send/receive pair at the top.
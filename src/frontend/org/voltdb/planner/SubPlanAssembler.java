@@ -32,6 +32,7 @@ import org.voltdb.expressions.ComparisonExpression;
 import org.voltdb.expressions.ConstantValueExpression;
 import org.voltdb.expressions.ExpressionUtil;
 import org.voltdb.expressions.ParameterValueExpression;
+import org.voltdb.expressions.PartitionSliceExpression;
 import org.voltdb.expressions.TupleValueExpression;
 import org.voltdb.planner.JoinTree.TablePair;
 import org.voltdb.planner.ParsedSelectStmt.ParsedColInfo;
@@ -1011,6 +1012,31 @@ public abstract class SubPlanAssembler {
         return scanNode;
     }
 
+    /**
+     * Restrict the scan of a replicated table that the statement splits across
+     * the partitions to the rows whose slice column hashes to the executing
+     * partition. Unique key lookups read at most one row and are not split.
+     *
+     * @return true if the scan was restricted to a slice.
+     */
+    protected boolean sliceReplicatedScan(Table table, AccessPath path, AbstractPlanNode scanPlan) {
+        if ( ! table.getTypeName().equals(m_partitioning.getSlicedTable())) {
+            return false;
+        }
+        if (path.index != null && path.index.getUnique() &&
+            path.lookupType == IndexLookupType.EQ &&
+            path.indexExprs.size() >= path.index.getColumns().size()) {
+            return false;
+        }
+        AbstractScanPlanNode scanNode = (AbstractScanPlanNode) scanPlan;
+        AbstractExpression slice = new PartitionSliceExpression(m_partitioning.getSliceColumn().getIndex());
+        if (scanNode.getPredicate() != null) {
+            slice = ExpressionUtil.combine(slice, scanNode.getPredicate());
+        }
+        scanNode.setPredicate(slice);
+        return true;
+    }
+
     /**
      * Get a sequential scan access plan for a table. For multi-site plans/tables,
      * scans at all partitions and sends to one partition.
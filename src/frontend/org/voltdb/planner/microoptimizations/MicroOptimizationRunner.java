@@ -31,6 +31,7 @@ public class MicroOptimizationRunner {
     static {
         optimizations.add(new PushdownLimitsIntoScans());
         optimizations.add(new ReplaceWithIndexCounter());
+        optimizations.add(new ReplaceWithIndexLimit());
         optimizations.add(new SeqScansToUniqueTreeScans());
         // optimizations.add(new PushdownReceiveDominators());
     }
@@ -0,0 +1,259 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.planner.microoptimizations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.voltdb.VoltType;
+import org.voltdb.catalog.ColumnRef;
+import org.voltdb.catalog.Database;
+import org.voltdb.catalog.Index;
+import org.voltdb.catalog.Table;
+import org.voltdb.expressions.AbstractExpression;
+import org.voltdb.expressions.ExpressionUtil;
+import org.voltdb.expressions.OperatorExpression;
+import org.voltdb.expressions.TupleValueExpression;
+import org.voltdb.planner.CompiledPlan;
+import org.voltdb.plannodes.AbstractPlanNode;
+import org.voltdb.plannodes.AggregatePlanNode;
+import org.voltdb.plannodes.IndexScanPlanNode;
+import org.voltdb.plannodes.LimitPlanNode;
+import org.voltdb.plannodes.SchemaColumn;
+import org.voltdb.plannodes.SeqScanPlanNode;
+import org.voltdb.types.ExpressionType;
+import org.voltdb.types.IndexLookupType;
+import org.voltdb.types.IndexType;
+import org.voltdb.types.PlanNodeType;
+import org.voltdb.types.SortDirectionType;
+import org.voltdb.utils.CatalogUtil;
+
+/**
+ * Answers a MIN or MAX of an indexed column with a single index seek.
+ * An aggregate of a scan that can deliver the column in key order is
+ * given a scan that starts from the low (MIN) or high (MAX) end of
+ * the index, skips nulls, and stops at the first row. The aggregate
+ * is kept so an empty scan still produces its NULL.
+ */
+public class ReplaceWithIndexLimit extends MicroOptimization {
+
+    @Override
+    public List<CompiledPlan> apply(CompiledPlan plan, Database db) {
+        ArrayList<CompiledPlan> retval = new ArrayList<CompiledPlan>();
+
+        AbstractPlanNode planGraph = plan.rootPlanGraph;
+        planGraph = recursivelyApply(planGraph, db);
+        plan.rootPlanGraph = planGraph;
+
+        retval.add(plan);
+        return retval;
+    }
+
+    AbstractPlanNode recursivelyApply(AbstractPlanNode plan, Database db)
+    {
+        assert(plan != null);
+
+        // depth first:
+        //     find AggregatePlanNode computing a lone MIN or MAX
+        //     with exactly one child that is a scan of its column's table.
+        //     Replace the scan with a limited scan in index order.
+
+        ArrayList<AbstractPlanNode> children = new ArrayList<AbstractPlanNode>();
+
+        for (int i = 0; i < plan.getChildCount(); i++)
+            children.add(plan.getChild(i));
+
+        for (AbstractPlanNode child : children) {
+            // TODO this will break when children feed multiple parents
+            AbstractPlanNode newChild = recursivelyApply(child, db);
+            // Do a graft into the (parent) plan only if a replacement for a child was found.
+            if (newChild == child) {
+                continue;
+            }
+            child.removeFromGraph();
+            plan.addAndLinkChild(newChild);
+        }
+
+        if ((plan instanceof AggregatePlanNode) == false)
+            return plan;
+        assert(plan.getChildCount() == 1);
+        AggregatePlanNode aggplan = (AggregatePlanNode)plan;
+        boolean isMin = aggplan.isTableMin();
+        if ( ! isMin && ! aggplan.isTableMax()) {
+            return plan;
+        }
+        if ((aggplan.getFirstAggregateExpression() instanceof TupleValueExpression) == false) {
+            return plan;
+        }
+        TupleValueExpression aggCol = (TupleValueExpression)aggplan.getFirstAggregateExpression();
+
+        AbstractPlanNode child = plan.getChild(0);
+        if (child instanceof SeqScanPlanNode) {
+            // Any tree index led by the column will do, the narrowest is cheapest to walk.
+            SeqScanPlanNode ssp = (SeqScanPlanNode)child;
+            if (ssp.getPredicate() != null || ssp.getInlinePlanNode(PlanNodeType.LIMIT) != null) {
+                return plan;
+            }
+            if ( ! ssp.getTargetTableName().equals(aggCol.getTableName())) {
+                return plan;
+            }
+            Table table = db.getTables().get(ssp.getTargetTableName());
+            Index indexToScan = null;
+            for (Index index : table.getIndexes()) {
+                if (indexColumnPosition(index, aggCol) != 0) {
+                    continue;
+                }
+                if (indexToScan == null || indexToScan.getColumns().size() > index.getColumns().size()) {
+                    indexToScan = index;
+                }
+            }
+            if (indexToScan == null) {
+                return plan;
+            }
+            IndexScanPlanNode isp = new IndexScanPlanNode();
+            isp.setTargetTableName(ssp.getTargetTableName());
+            isp.setTargetTableAlias(ssp.getTargetTableAlias());
+            isp.setScanColumns(new ArrayList<SchemaColumn>());
+            isp.setCatalogIndex(indexToScan);
+            isp.setKeyIterate(true);
+            isp.setTargetIndexName(indexToScan.getTypeName());
+            isp.setLookupType(IndexLookupType.GTE);
+            isp.setSortDirection(isMin ? SortDirectionType.ASC : SortDirectionType.DESC);
+            isp.setPredicate(notNull(aggCol));
+            for (AbstractPlanNode inlineNode : ssp.getInlinePlanNodes().values()) {
+                isp.addInlinePlanNode(inlineNode);
+            }
+            isp.addInlinePlanNode(limitOne());
+            isp.generateOutputSchema(db);
+            isp.setBindings(new ArrayList<AbstractExpression>());
+            ssp.removeFromGraph();
+            plan.addAndLinkChild(isp);
+            return plan;
+        }
+
+        if ((child instanceof IndexScanPlanNode) == false)
+            return plan;
+        IndexScanPlanNode isp = (IndexScanPlanNode)child;
+        if (isp.getPredicate() != null || isp.getInlinePlanNode(PlanNodeType.LIMIT) != null) {
+            return plan;
+        }
+        if ( ! isp.getTargetTableName().equals(aggCol.getTableName())) {
+            return plan;
+        }
+        int keyCount = isp.getSearchKeyExpressions().size();
+        if (indexColumnPosition(isp.getCatalogIndex(), aggCol) != keyCount) {
+            return plan;
+        }
+
+        if (keyCount == 0) {
+            // A scan for sort order only can simply be turned around for MAX.
+            if (isp.getEndExpression() != null) {
+                return plan;
+            }
+            isp.setSortDirection(isMin ? SortDirectionType.ASC : SortDirectionType.DESC);
+        }
+        else {
+            // After a seek to equal leading keys, the first entry holds the MIN
+            // of the next column. Finding the MAX would need a backward seek.
+            // An EQ lookup covers the whole index key, so no indexed column
+            // follows its keys.
+            if ( ! isMin || isp.getSortDirection() == SortDirectionType.DESC) {
+                return plan;
+            }
+            if (isp.getLookupType() != IndexLookupType.GTE) {
+                return plan;
+            }
+            if ( ! isEqualityOnLeadingColumns(isp.getEndExpression(), isp.getCatalogIndex(), keyCount)) {
+                return plan;
+            }
+        }
+        isp.setPredicate(notNull(aggCol));
+        isp.addInlinePlanNode(limitOne());
+        return plan;
+    }
+
+    /**
+     * @return the position of the column in a plain tree index's key, or -1
+     */
+    private static int indexColumnPosition(Index index, TupleValueExpression tve) {
+        if (index.getType() != IndexType.BALANCED_TREE.getValue()) {
+            return -1;
+        }
+        String jsonExprs = index.getExpressionsjson();
+        if (jsonExprs != null && ! jsonExprs.isEmpty()) {
+            return -1;
+        }
+        List<ColumnRef> colRefs = CatalogUtil.getSortedCatalogItems(index.getColumns(), "index");
+        for (int ii = 0; ii < colRefs.size(); ii++) {
+            if (colRefs.get(ii).getColumn().getTypeName().equals(tve.getColumnName())) {
+                return ii;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Does a scan's end expression only require its first keyCount index columns
+     * to equal the search keys? Without an end expression a GTE scan runs past
+     * the rows with equal keys, so an absent one is never acceptable.
+     */
+    private static boolean isEqualityOnLeadingColumns(AbstractExpression endExpr, Index index, int keyCount) {
+        if (endExpr == null) {
+            return false;
+        }
+        List<ColumnRef> colRefs = CatalogUtil.getSortedCatalogItems(index.getColumns(), "index");
+        for (AbstractExpression expr : ExpressionUtil.uncombine(endExpr)) {
+            if (expr.getExpressionType() != ExpressionType.COMPARE_EQUAL) {
+                return false;
+            }
+            AbstractExpression left = expr.getLeft();
+            if ((left instanceof TupleValueExpression) == false) {
+                return false;
+            }
+            String colName = ((TupleValueExpression)left).getColumnName();
+            boolean leading = false;
+            for (int ii = 0; ii < keyCount; ii++) {
+                if (colRefs.get(ii).getColumn().getTypeName().equals(colName)) {
+                    leading = true;
+                }
+            }
+            if ( ! leading) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static AbstractExpression notNull(TupleValueExpression tve) {
+        AbstractExpression isNull = new OperatorExpression(ExpressionType.OPERATOR_IS_NULL,
+                                                           (AbstractExpression) tve.clone(), null);
+        isNull.setValueType(VoltType.BIGINT);
+        isNull.setValueSize(VoltType.BIGINT.getLengthInBytesForFixedTypes());
+        AbstractExpression notNull = new OperatorExpression(ExpressionType.OPERATOR_NOT, isNull, null);
+        notNull.setValueType(VoltType.BIGINT);
+        notNull.setValueSize(VoltType.BIGINT.getLengthInBytesForFixedTypes());
+        return notNull;
+    }
+
+    private static LimitPlanNode limitOne() {
+        LimitPlanNode limit = new LimitPlanNode();
+        limit.setLimit(1);
+        limit.setOffset(0);
+        return limit;
+    }
+}
@@ -107,7 +107,9 @@ public abstract class AbstractOperationPlanNode extends AbstractPlanNode {
             // TODO: It'd probably be ok just to leave m_outputSchema null, here, but
             // maybe the "completed plan" processing for DML statements would need to be a
             // made aware of this.
-            m_hasSignificantOutputSchema = false;
+            // A truncating delete has no child to find a schema under once it
+            // is distributed below a send node, so it ships its count column.
+            m_hasSignificantOutputSchema = m_children.isEmpty();
             // This TVE is magic and repeats unfortunately like this
             // throughout the planner.  Consolidate at some point --izzy
             TupleValueExpression tve = new TupleValueExpression();
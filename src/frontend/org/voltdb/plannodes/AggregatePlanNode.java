@@ -101,6 +101,26 @@ public class AggregatePlanNode extends AbstractPlanNode {
         return true;
     }
 
+    public boolean isTableMin() {
+        return isTableAggregateOfType(ExpressionType.AGGREGATE_MIN);
+    }
+
+    public boolean isTableMax() {
+        return isTableAggregateOfType(ExpressionType.AGGREGATE_MAX);
+    }
+
+    private boolean isTableAggregateOfType(ExpressionType type) {
+        if (m_groupByExpressions.isEmpty() == false)
+            return false;
+        if (m_aggregateTypes.size() != 1)
+            return false;
+        return m_aggregateTypes.get(0).equals(type);
+    }
+
+    public AbstractExpression getFirstAggregateExpression() {
+        return m_aggregateExpressions.get(0);
+    }
+
     public void setOutputSchema(NodeSchema schema)
     {
         // aggregates currently have their output schema specified
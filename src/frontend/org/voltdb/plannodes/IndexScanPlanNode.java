@@ -19,7 +19,9 @@ package org.voltdb.plannodes;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.json_voltpatches.JSONArray;
 import org.json_voltpatches.JSONException;
@@ -27,6 +29,7 @@ import org.json_voltpatches.JSONObject;
 import org.json_voltpatches.JSONString;
 import org.json_voltpatches.JSONStringer;
 import org.voltdb.catalog.Cluster;
+import org.voltdb.catalog.ColumnRef;
 import org.voltdb.catalog.Database;
 import org.voltdb.catalog.Index;
 import org.voltdb.catalog.Table;
@@ -35,6 +38,7 @@ import org.voltdb.compiler.ScalarValueHints;
 import org.voltdb.expressions.AbstractExpression;
 import org.voltdb.expressions.ExpressionUtil;
 import org.voltdb.expressions.TupleValueExpression;
+import org.voltdb.types.ExpressionType;
 import org.voltdb.types.IndexLookupType;
 import org.voltdb.types.IndexType;
 import org.voltdb.types.PlanNodeType;
@@ -48,7 +52,8 @@ public class IndexScanPlanNode extends AbstractScanPlanNode {
         SEARCHKEY_EXPRESSIONS,
         KEY_ITERATE,
         LOOKUP_TYPE,
-        SORT_DIRECTION;
+        SORT_DIRECTION,
+        INDEX_ONLY;
     }
 
     /**
@@ -85,6 +90,11 @@ public class IndexScanPlanNode extends AbstractScanPlanNode {
 
     private ArrayList<AbstractExpression> m_bindings = null;
 
+    // True when every column of the target table that the scan's predicates
+    // and output refer to is an indexed column, so the EE can evaluate them
+    // from the index key instead of fetching each indexed tuple.
+    protected boolean m_indexOnly = false;
+
     public IndexScanPlanNode() {
         super();
     }
@@ -207,6 +217,58 @@ public class IndexScanPlanNode extends AbstractScanPlanNode {
         m_targetIndexName = targetIndexName;
     }
 
+    /**
+     * @return Can the EE produce this scan's output from index keys alone.
+     */
+    public boolean isIndexOnly() {
+        return m_indexOnly;
+    }
+
+    /**
+     * @param indexOnly
+     */
+    public void setIndexOnly(boolean indexOnly) {
+        m_indexOnly = indexOnly;
+    }
+
+    /**
+     * Do the given expressions refer only to indexed columns of the target table?
+     * Columns of other tables are ignored, so this also works for the expressions
+     * of a join with the scan inlined. Only plain column indexes qualify, and
+     * expressions that read tuple columns other than through a TVE disqualify.
+     * @param exprs expressions resolved against the target table schema, may contain nulls
+     */
+    boolean indexCoversColumnsOf(List<AbstractExpression> exprs) {
+        if (m_catalogIndex == null) {
+            return false;
+        }
+        String jsonExprs = m_catalogIndex.getExpressionsjson();
+        if (jsonExprs != null && ! jsonExprs.isEmpty()) {
+            return false;
+        }
+        Set<Integer> indexedColumns = new HashSet<Integer>();
+        for (ColumnRef colRef : m_catalogIndex.getColumns()) {
+            indexedColumns.add(colRef.getColumn().getIndex());
+        }
+        for (AbstractExpression expr : exprs) {
+            if (expr == null) {
+                continue;
+            }
+            if (expr.hasAnySubexpressionOfType(ExpressionType.VALUE_TUPLE_ADDRESS) ||
+                expr.hasAnySubexpressionOfType(ExpressionType.HASH_RANGE) ||
+                expr.hasAnySubexpressionOfType(ExpressionType.PARTITION_SLICE)) {
+                return false;
+            }
+            for (TupleValueExpression tve : ExpressionUtil.getTupleValueExpressions(expr)) {
+                if (m_targetTableName.equals(tve.getTableName()) &&
+                    ! indexedColumns.contains(tve.getColumnIndex())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     /**
      * @return the post_predicate
      */
@@ -271,6 +333,22 @@ public class IndexScanPlanNode extends AbstractScanPlanNode {
         }
         // now do the common scan node work
         super.resolveColumnIndexes();
+
+        // Without an inline projection the EE outputs whole indexed tuples,
+        // which the index key can't stand in for.
+        ProjectionPlanNode proj =
+            (ProjectionPlanNode)getInlinePlanNode(PlanNodeType.PROJECTION);
+        if (proj == null) {
+            m_indexOnly = false;
+            return;
+        }
+        List<AbstractExpression> referenced = new ArrayList<AbstractExpression>();
+        referenced.add(m_predicate);
+        referenced.add(m_endExpression);
+        for (SchemaColumn col : proj.getOutputSchema().getColumns()) {
+            referenced.add(col.getExpression());
+        }
+        m_indexOnly = indexCoversColumnsOf(referenced);
     }
 
     @Override
@@ -330,7 +408,16 @@ public class IndexScanPlanNode extends AbstractScanPlanNode {
             // inconveniently ordered scan result.
             // Using a factor of 0.1 per FULLY covered (equality-filtered) column, the effective scale factor for
             // a single PARTIALLY covered (range-filtered) comes to SQRT(0.1) which is just under 32% FTW!
-            tuplesToRead += (int) (tableEstimates.maxTuples * 0.90 * Math.pow(0.10, keyWidth));
+            // When the index statistics say how many distinct keys a non-unique index has,
+            // an equality match on all of its columns reads about one key's worth of rows instead.
+            long distinctKeys = tableEstimates.getDistinctKeys(m_catalogIndex.getTypeName());
+            if ((distinctKeys > 0) && (m_lookupType == IndexLookupType.EQ) && (colCount == keyWidth)) {
+                tuplesToRead += (int) Math.min(Integer.MAX_VALUE / 2,
+                                               (tableEstimates.maxTuples + distinctKeys - 1) / distinctKeys);
+            }
+            else {
+                tuplesToRead += (int) (tableEstimates.maxTuples * 0.90 * Math.pow(0.10, keyWidth));
+            }
 
             // With all this discounting, make sure that any non-"covering unique" index scan costs more than
             // any "covering unique" one, no matter how many indexed column filters get piled on.
@@ -366,6 +453,11 @@ public class IndexScanPlanNode extends AbstractScanPlanNode {
         if (m_catalogIndex.getUnique() && (colCount == keyWidth)) {
             m_estimatedOutputTupleCount = 1;
         }
+        // An index scan without keys returns the whole table, however it is discounted above.
+        // Joins costed with measured table sizes multiply by that output, so don't understate it.
+        else if (estimates.isMeasured() && (keyWidth == 0.0)) {
+            m_estimatedOutputTupleCount = tableEstimates.maxTuples;
+        }
     }
 
     @Override
@@ -375,6 +467,7 @@ public class IndexScanPlanNode extends AbstractScanPlanNode {
         stringer.key(Members.LOOKUP_TYPE.name()).value(m_lookupType.toString());
         stringer.key(Members.SORT_DIRECTION.name()).value(m_sortDirection.toString());
         stringer.key(Members.TARGET_INDEX_NAME.name()).value(m_targetIndexName);
+        stringer.key(Members.INDEX_ONLY.name()).value(m_indexOnly);
         stringer.key(Members.END_EXPRESSION.name());
         stringer.value(m_endExpression);
 
@@ -394,6 +487,7 @@ public class IndexScanPlanNode extends AbstractScanPlanNode {
         m_lookupType = IndexLookupType.get( jobj.getString( Members.LOOKUP_TYPE.name() ) );
         m_sortDirection = SortDirectionType.get( jobj.getString( Members.SORT_DIRECTION.name() ) );
         m_targetIndexName = jobj.getString(Members.TARGET_INDEX_NAME.name());
+        m_indexOnly = jobj.getBoolean(Members.INDEX_ONLY.name());
         m_catalogIndex = db.getTables().get(super.m_targetTableName).getIndexes().get(m_targetIndexName);
         JSONObject tempjobj = null;
         //load end_expression
@@ -435,6 +529,8 @@ public class IndexScanPlanNode extends AbstractScanPlanNode {
         String usageInfo = String.format("(%s %s)", scanType, cover);
         if (keySize == 0)
             usageInfo = "(for sort order only)";
+        if (m_indexOnly)
+            usageInfo += " (index only)";
 
         String retval = "INDEX SCAN of \"" + m_targetTableName + "\"";
         retval += " using \"" + m_targetIndexName + "\"";
@@ -17,20 +17,31 @@
 
 package org.voltdb.plannodes;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json_voltpatches.JSONArray;
 import org.json_voltpatches.JSONException;
 import org.json_voltpatches.JSONObject;
 import org.json_voltpatches.JSONStringer;
 import org.voltdb.catalog.Database;
+import org.voltdb.expressions.AbstractExpression;
 import org.voltdb.types.PlanNodeType;
 
 public class MaterializePlanNode extends ProjectionPlanNode {
 
     public enum Members {
-        BATCHED;
+        BATCHED,
+        ADDITIONAL_ROWS;
     }
 
     protected boolean m_batched = false;
 
+    // The rows after the first of a multi-row VALUES list, each with one
+    // expression per output column. The first row is the output schema.
+    protected List<List<AbstractExpression>> m_additionalRows =
+        new ArrayList<List<AbstractExpression>>();
+
     public MaterializePlanNode() {
         super();
     }
@@ -48,6 +59,22 @@ public class MaterializePlanNode extends ProjectionPlanNode {
         return m_batched;
     }
 
+    public void addRow(List<AbstractExpression> row) {
+        assert(row.size() == m_outputSchema.size());
+        m_additionalRows.add(row);
+    }
+
+    public List<List<AbstractExpression>> getAdditionalRows() {
+        return m_additionalRows;
+    }
+
+    /**
+     * @return the number of tuples this node materializes.
+     */
+    public int getRowCount() {
+        return m_additionalRows.size() + 1;
+    }
+
     @Override
     public void generateOutputSchema(Database db)
     {
@@ -68,16 +95,37 @@ public class MaterializePlanNode extends ProjectionPlanNode {
     public void toJSONString(JSONStringer stringer) throws JSONException {
         super.toJSONString(stringer);
         stringer.key(Members.BATCHED.name()).value(m_batched);
+        if (m_additionalRows.isEmpty() == false) {
+            stringer.key(Members.ADDITIONAL_ROWS.name()).array();
+            for (List<AbstractExpression> row : m_additionalRows) {
+                stringer.array();
+                for (AbstractExpression expr : row) {
+                    stringer.value(expr);
+                }
+                stringer.endArray();
+            }
+            stringer.endArray();
+        }
     }
 
     @Override
     public void loadFromJSONObject( JSONObject jobj, Database db ) throws JSONException {
         super.loadFromJSONObject(jobj, db);
         m_batched = jobj.getBoolean( Members.BATCHED.name() );
+        m_additionalRows.clear();
+        if ( !jobj.isNull( Members.ADDITIONAL_ROWS.name() ) ) {
+            JSONArray jarray = jobj.getJSONArray( Members.ADDITIONAL_ROWS.name() );
+            for( int i = 0 ; i < jarray.length(); i++ ) {
+                m_additionalRows.add(AbstractExpression.loadFromJSONArray(null, jarray.getJSONArray( i ), db));
+            }
+        }
     }
 
     @Override
     protected String explainPlanForNode(String indent) {
-        return "MATERIALIZE TUPLE from parameters and/or literals";
+        if (m_additionalRows.isEmpty()) {
+            return "MATERIALIZE TUPLE from parameters and/or literals";
+        }
+        return "MATERIALIZE " + getRowCount() + " TUPLES from parameters and/or literals";
     }
 }
@@ -28,6 +28,7 @@ import org.voltdb.compiler.ScalarValueHints;
 import org.voltdb.expressions.AbstractExpression;
 import org.voltdb.expressions.ExpressionUtil;
 import org.voltdb.expressions.TupleValueExpression;
+import org.voltdb.types.JoinType;
 import org.voltdb.types.PlanNodeType;
 
 public class NestLoopIndexPlanNode extends AbstractJoinPlanNode {
@@ -170,6 +171,19 @@ public class NestLoopIndexPlanNode extends AbstractJoinPlanNode {
         }
         m_outputSchema = new_output_schema;
         m_hasSignificantOutputSchema = true;
+
+        // The inner tuples feed the scan's expressions, the join's where
+        // predicate and the inner columns of the join output, so the scan can
+        // only run from its index keys when all of those are indexed columns.
+        List<AbstractExpression> inner_exprs = new ArrayList<AbstractExpression>();
+        inner_exprs.add(inline_scan.getPredicate());
+        inner_exprs.add(inline_scan.getEndExpression());
+        inner_exprs.add(m_wherePredicate);
+        for (SchemaColumn col : m_outputSchema.getColumns())
+        {
+            inner_exprs.add(col.getExpression());
+        }
+        inline_scan.setIndexOnly(inline_scan.indexCoversColumnsOf(inner_exprs));
     }
 
     @Override
@@ -216,6 +230,19 @@ public class NestLoopIndexPlanNode extends AbstractJoinPlanNode {
                 (IndexScanPlanNode) getInlinePlanNode(PlanNodeType.INDEXSCAN);
         assert(indexScan != null);
 
+        if (estimates.isMeasured()) {
+            // With measured table sizes the index is scanned once per outer row.
+            long outer = childOutputTupleCountEstimate;
+            m_estimatedOutputTupleCount =
+                    DatabaseEstimates.multiplyTupleCounts(outer, indexScan.getEstimatedOutputTupleCount());
+            if (m_joinType == JoinType.LEFT) {
+                m_estimatedOutputTupleCount = Math.max(m_estimatedOutputTupleCount, outer);
+            }
+            m_estimatedProcessedTupleCount = outer +
+                    DatabaseEstimates.multiplyTupleCounts(outer, indexScan.getEstimatedProcessedTupleCount());
+            return;
+        }
+
         m_estimatedOutputTupleCount = indexScan.getEstimatedOutputTupleCount() + childOutputTupleCountEstimate;
         m_estimatedProcessedTupleCount = indexScan.getEstimatedProcessedTupleCount() + childOutputTupleCountEstimate;
     }
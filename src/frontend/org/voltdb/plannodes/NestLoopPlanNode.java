@@ -41,6 +41,22 @@ public class NestLoopPlanNode extends AbstractJoinPlanNode {
                                      DatabaseEstimates estimates,
                                      ScalarValueHints[] paramHints)
     {
+        if (estimates.isMeasured()) {
+            // With measured table sizes, charge for the inner input once per
+            // outer row so that the larger input ends up on the outside.
+            // Without a predicate the output is the cross product; with one,
+            // assume each row of the larger input finds about one match.
+            long outer = m_children.get(0).getEstimatedOutputTupleCount();
+            long inner = m_children.get(1).getEstimatedOutputTupleCount();
+            m_estimatedProcessedTupleCount = outer + DatabaseEstimates.multiplyTupleCounts(outer, inner);
+            if ((m_joinPredicate == null) && (m_wherePredicate == null)) {
+                m_estimatedOutputTupleCount = DatabaseEstimates.multiplyTupleCounts(outer, inner);
+            } else {
+                m_estimatedOutputTupleCount = Math.max(outer, inner);
+            }
+            return;
+        }
+
         // This method doesn't do anything besides what the parent method does,
         // but it is a nice place to put a comment.
         // Since both children's' cost get included in the costing, this
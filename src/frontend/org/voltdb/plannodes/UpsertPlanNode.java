@@ -0,0 +1,85 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.plannodes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json_voltpatches.JSONArray;
+import org.json_voltpatches.JSONException;
+import org.json_voltpatches.JSONObject;
+import org.json_voltpatches.JSONStringer;
+import org.voltdb.catalog.Database;
+import org.voltdb.types.PlanNodeType;
+
+/**
+ * Inserts each of its input rows, or, when the target table already holds
+ * a row with the same primary key, updates that row in place instead.
+ */
+public class UpsertPlanNode extends InsertPlanNode {
+
+    public enum Members {
+        UPDATE_COLUMNS;
+    }
+
+    // The indexes of the target columns that an update of an existing row
+    // overwrites. The others only take their input values in a new row.
+    protected List<Integer> m_updateColumns = new ArrayList<Integer>();
+
+    public UpsertPlanNode() {
+        super();
+    }
+
+    public List<Integer> getUpdateColumns() {
+        return m_updateColumns;
+    }
+
+    public void setUpdateColumns(List<Integer> updateColumns) {
+        m_updateColumns = updateColumns;
+    }
+
+    @Override
+    public PlanNodeType getPlanNodeType() {
+        return PlanNodeType.UPSERT;
+    }
+
+    @Override
+    public void toJSONString(JSONStringer stringer) throws JSONException {
+        super.toJSONString(stringer);
+        stringer.key(Members.UPDATE_COLUMNS.name()).array();
+        for (Integer column : m_updateColumns) {
+            stringer.value(column.intValue());
+        }
+        stringer.endArray();
+    }
+
+    @Override
+    public void loadFromJSONObject( JSONObject jobj, Database db ) throws JSONException {
+        super.loadFromJSONObject(jobj, db);
+        m_updateColumns.clear();
+        JSONArray jarray = jobj.getJSONArray( Members.UPDATE_COLUMNS.name() );
+        for( int i = 0 ; i < jarray.length(); i++ ) {
+            m_updateColumns.add( jarray.getInt( i ) );
+        }
+    }
+
+    @Override
+    protected String explainPlanForNode(String indent) {
+        return "UPSERT into \"" + m_targetTableName + "\"";
+    }
+}
@@ -385,6 +385,14 @@ public class SystemInformation extends VoltSystemProcedure
             vt.addRow(hostId, "IV2ENABLED", "true");
         }
 
+        // thread placement, as partition=node/cores for sites and node/cores for network threads
+        if (VoltDB.instance().getConfig().m_executionPlacement != null) {
+            vt.addRow(hostId, "EXECUTIONPLACEMENT", VoltDB.instance().getConfig().m_executionPlacement);
+        }
+        if (VoltDB.instance().getConfig().m_networkPlacement != null) {
+            vt.addRow(hostId, "NETWORKPLACEMENT", VoltDB.instance().getConfig().m_networkPlacement);
+        }
+
         return vt;
     }
 
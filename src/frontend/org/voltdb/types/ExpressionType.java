@@ -32,6 +32,7 @@ import org.voltdb.expressions.InComparisonExpression;
 import org.voltdb.expressions.NullValueExpression;
 import org.voltdb.expressions.OperatorExpression;
 import org.voltdb.expressions.ParameterValueExpression;
+import org.voltdb.expressions.PartitionSliceExpression;
 import org.voltdb.expressions.TupleAddressExpression;
 import org.voltdb.expressions.TupleValueExpression;
 import org.voltdb.expressions.VectorValueExpression;
@@ -121,7 +122,8 @@ public enum ExpressionType {
     // -----------------------------
     // Internals added for Elastic
     // -----------------------------
-    HASH_RANGE    (HashRangeExpression.class, 200)
+    HASH_RANGE    (HashRangeExpression.class, 200),
+    PARTITION_SLICE (PartitionSliceExpression.class, 201)
     ;
 
     private final int val;
@@ -87,6 +87,10 @@ public enum QueryType {
         if (stmt.startsWith("insert")) {
             return QueryType.INSERT;
         }
+        else if (stmt.startsWith("upsert")) {
+            // an insert that may update an existing row in its place
+            return QueryType.INSERT;
+        }
         else if (stmt.startsWith("update")) {
             return QueryType.UPDATE;
         }
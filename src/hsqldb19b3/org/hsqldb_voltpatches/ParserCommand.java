@@ -136,6 +136,13 @@ public class ParserCommand extends ParserDDL {
 
                 break;
             }
+            // VoltDB extension
+            case Tokens.UPSERT : {
+                cs = compileInsertStatement(RangeVariable.emptyArray);
+                ((StatementDML) cs).isUpsert = true;
+
+                break;
+            }
             case Tokens.UPDATE : {
                 cs = compileUpdateStatement(RangeVariable.emptyArray);
 
@@ -1254,6 +1254,12 @@ public class StatementDML extends StatementDMQL {
 
     /*************** VOLTDB *********************/
 
+    /**
+     * VoltDB added flag for an INSERT statement written as UPSERT, which
+     * updates the row with the same primary key in place if there is one.
+     */
+    boolean isUpsert = false;
+
     private void voltAppendTargetColumns(Session session, int[] columnMap, Expression[] expressions, VoltXMLElement xml)
     throws HSQLParseException
     {
@@ -1265,7 +1271,9 @@ public class StatementDML extends StatementDMQL {
             VoltXMLElement column = new VoltXMLElement("column");
             columns.children.add(column);
             column.attributes.put("name", targetTable.getColumn(columnMap[i]).getName().name);
-            column.children.add(expressions[i].voltGetXML(session));
+            if (expressions != null) {
+                column.children.add(expressions[i].voltGetXML(session));
+            }
         }
     }
 
@@ -1316,9 +1324,23 @@ public class StatementDML extends StatementDMQL {
 
         case StatementTypes.INSERT :
             xml = new VoltXMLElement("insert");
-            voltAppendTargetColumns(session, insertColumnMap, insertExpression.nodes[0].nodes, xml);
-            // INSERT has no child node or condition,
-            // UNTIL we support "INSERT INTO <table> SELECT ... FROM ... WHERE..."
+            if (isUpsert) {
+                xml.attributes.put("upsert", "true");
+            }
+            if (insertExpression != null) {
+                // one "columns" element for each row of the VALUES list
+                for (Expression row : insertExpression.nodes) {
+                    voltAppendTargetColumns(session, insertColumnMap, row.nodes, xml);
+                }
+            }
+            else {
+                // INSERT INTO <table> SELECT ... names the target columns
+                // and carries the query that produces their values
+                assert(queryExpression != null);
+                voltAppendTargetColumns(session, insertColumnMap, null, xml);
+                StatementQuery query = new StatementQuery(session, this);
+                xml.children.add(query.voltGetStatementXML(session));
+            }
             break;
 
         case StatementTypes.UPDATE_CURSOR :
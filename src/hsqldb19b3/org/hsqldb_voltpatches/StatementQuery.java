@@ -76,6 +76,20 @@ public class StatementQuery extends StatementDMQL {
         checkAccessRights(session);
     }
 
+    /**
+     * VoltDB added constructor for the query of an INSERT ... SELECT
+     * statement. It shares the insert's parameters so that the query's
+     * XML can be nested in the insert's.
+     */
+    StatementQuery(Session session, StatementDMQL insert) {
+
+        super(StatementTypes.SELECT_CURSOR, StatementTypes.X_SQL_DATA,
+              session.currentSchema);
+
+        this.queryExpression = insert.queryExpression;
+        this.parameters      = insert.parameters;
+    }
+
     @Override
     Result getResult(Session session) {
 
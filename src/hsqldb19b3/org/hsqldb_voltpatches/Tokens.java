@@ -779,6 +779,9 @@ public class Tokens {
     static final String        T_DATEDIFF         = "DATEDIFF";
     public static final String T_SECONDS_MIDNIGHT = "SECONDS_SINCE_MIDNIGHT";
 
+    // VoltDB extension: INSERT or, where the primary key exists, UPDATE
+    static final String T_UPSERT = "UPSERT";
+
     //
     //
     //SQL 200n Standard reserved keywords - full set
@@ -1537,6 +1540,9 @@ public class Tokens {
     public static final int X_MALFORMED_IDENTIFIER     = 738;
     public static final int X_MALFORMED_UNICODE_ESCAPE = 739;
 
+    // VoltDB extension
+    static final int UPSERT = 740;
+
     //
     public static final int X_UNKNOWN_TOKEN = -1;
     private static final IntValueHashMap reservedKeys =
@@ -2097,6 +2103,7 @@ public class Tokens {
         commandSet.put(T_UCASE, UCASE);
         commandSet.put(T_DATEDIFF, DATEDIFF);
         commandSet.put(T_SECONDS_MIDNIGHT, SECONDS_MIDNIGHT);
+        commandSet.put(T_UPSERT, UPSERT);
 
         //
         commandSet.put(T_COLON, Tokens.COLON);
@@ -0,0 +1,252 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#include "harness.h"
+#include "common/StringDictionary.h"
+#include "common/tabletuple.h"
+#include "common/ValueFactory.hpp"
+#include "common/ThreadLocalPool.h"
+#include "common/valuevector.h"
+#include "expressions/expressionutil.h"
+#include "expressions/constantvalueexpression.h"
+#include "expressions/parametervalueexpression.h"
+#include "expressions/tuplevalueexpression.h"
+
+using namespace voltdb;
+using namespace std;
+
+class StringDictionaryTest : public Test
+{
+public:
+    StringDictionaryTest()
+    {
+        vector<ValueType> types;
+        types.push_back(VALUE_TYPE_BIGINT);
+        types.push_back(VALUE_TYPE_VARCHAR);
+        vector<int32_t> lengths;
+        lengths.push_back(NValue::getTupleStorageSize(VALUE_TYPE_BIGINT));
+        lengths.push_back(UNINLINEABLE_OBJECT_LENGTH + 100);
+        vector<bool> allowNull(2, true);
+        m_schema = TupleSchema::createTupleSchema(types, lengths, allowNull, true);
+        m_schema->setColumnDictionaryEncoded(1);
+        m_plainSchema = TupleSchema::createTupleSchema(types, lengths, allowNull, true);
+    }
+
+    ~StringDictionaryTest()
+    {
+        TupleSchema::freeTupleSchema(m_schema);
+        TupleSchema::freeTupleSchema(m_plainSchema);
+    }
+
+    // a tuple of the encoded schema holding the given string, with
+    // its string copied as for a persistent table
+    TableTuple newTuple(const NValue &value)
+    {
+        TableTuple tuple(m_schema);
+        char *storage = new char[tuple.tupleLength()];
+        ::memset(storage, 0, tuple.tupleLength());
+        tuple.move(storage);
+        tuple.setNValue(0, ValueFactory::getBigIntValue(1));
+        tuple.setNValueAllocateForObjectCopies(1, value, NULL);
+        return tuple;
+    }
+
+    TableTuple newTuple(const string &value)
+    {
+        NValue nvalue = ValueFactory::getStringValue(value);
+        TableTuple tuple = newTuple(nvalue);
+        nvalue.free();
+        return tuple;
+    }
+
+    void deleteTuple(TableTuple &tuple)
+    {
+        tuple.freeObjectColumns();
+        delete[] tuple.address();
+    }
+
+    ThreadLocalPool m_pool;
+    TupleSchema *m_schema;
+    TupleSchema *m_plainSchema;
+};
+
+TEST_F(StringDictionaryTest, InternSharesEntries)
+{
+    StringDictionary *dictionary = new StringDictionary();
+    string text = "a string stored once per distinct value";
+
+    StringRef *first = dictionary->intern(text.c_str(), static_cast<int32_t>(text.length()));
+    StringRef *second = dictionary->intern(text.c_str(), static_cast<int32_t>(text.length()));
+    StringRef *other = dictionary->intern("other", 5);
+    EXPECT_TRUE(first->isInterned());
+    EXPECT_EQ(first, second);
+    EXPECT_NE(first, other);
+    EXPECT_EQ(2, dictionary->size());
+    EXPECT_EQ(first, dictionary->find(text.c_str(), static_cast<int32_t>(text.length())));
+    EXPECT_EQ(NULL, dictionary->find("missing", 7));
+    EXPECT_EQ(dictionary, StringDictionary::getDictionary(first));
+
+    // the entry lives until its last reference is given back
+    int64_t version = dictionary->getVersion();
+    StringRef::destroy(first);
+    EXPECT_EQ(2, dictionary->size());
+    EXPECT_EQ(version, dictionary->getVersion());
+    StringRef::destroy(second);
+    EXPECT_EQ(1, dictionary->size());
+    EXPECT_NE(version, dictionary->getVersion());
+
+    StringRef::destroy(other);
+    EXPECT_EQ(0, dictionary->size());
+    EXPECT_EQ(0, dictionary->getBytesAllocated());
+    dictionary->orphan();
+}
+
+TEST_F(StringDictionaryTest, OrphanedDictionaryOutlivesItsOwner)
+{
+    StringDictionary *dictionary = new StringDictionary();
+    StringRef *held = dictionary->intern("held by an undo action", 22);
+
+    // the owner goes away first, the last release deletes the dictionary
+    dictionary->orphan();
+    EXPECT_EQ(1, dictionary->size());
+    StringRef::destroy(held);
+}
+
+TEST_F(StringDictionaryTest, VersionsNeverRepeat)
+{
+    // a dictionary allocated where another was freed must not be
+    // mistaken for it by a remembered version
+    StringDictionary *first = new StringDictionary();
+    StringRef *held = first->intern("recycled", 8);
+    int64_t firstVersion = first->getVersion();
+    first->orphan();
+    StringRef::destroy(held);
+
+    StringDictionary *second = new StringDictionary();
+    EXPECT_NE(firstVersion, second->getVersion());
+    StringRef *other = second->intern("recycled", 8);
+    EXPECT_NE(firstVersion, second->getVersion());
+    StringRef::destroy(other);
+    second->orphan();
+}
+
+TEST_F(StringDictionaryTest, EncodedColumn)
+{
+    EXPECT_TRUE(m_schema->columnDictionary(1) != NULL);
+    EXPECT_TRUE(m_schema->columnDictionary(0) == NULL);
+    EXPECT_TRUE(m_plainSchema->columnDictionary(1) == NULL);
+
+    // copies of a schema, like index key schemas, store strings per tuple
+    TupleSchema *copy = TupleSchema::createTupleSchema(m_schema);
+    EXPECT_TRUE(copy->columnDictionary(1) == NULL);
+    TupleSchema::freeTupleSchema(copy);
+
+    string text = "shared by every tuple holding it";
+    TableTuple first = newTuple(text);
+    TableTuple second = newTuple(text);
+    TableTuple other = newTuple("different");
+
+    StringDictionary *dictionary = m_schema->columnDictionary(1);
+    EXPECT_EQ(2, dictionary->size());
+    EXPECT_TRUE(first.getNValue(1).getDictionaryEntry() != NULL);
+    EXPECT_EQ(first.getNValue(1).getDictionaryEntry(), second.getNValue(1).getDictionaryEntry());
+    EXPECT_EQ(text, ValuePeeker::peekStringCopy(second.getNValue(1)));
+
+    // the strings are counted by the dictionary, not by the tuples
+    EXPECT_EQ(0, first.getNonInlinedMemorySize());
+    EXPECT_EQ(dictionary->getBytesAllocated(), m_schema->getDictionaryMemorySize());
+    EXPECT_TRUE(m_schema->getDictionaryMemorySize() > 0);
+
+    // codes compare and hash like the strings they stand for
+    NValue plain = ValueFactory::getStringValue(text);
+    EXPECT_EQ(0, first.getNValue(1).compare(second.getNValue(1)));
+    EXPECT_EQ(0, first.getNValue(1).compare(plain));
+    EXPECT_NE(0, first.getNValue(1).compare(other.getNValue(1)));
+    TableTuple plainTuple(m_plainSchema);
+    plainTuple.move(new char[plainTuple.tupleLength()]);
+    plainTuple.setNValue(0, ValueFactory::getBigIntValue(1));
+    plainTuple.setNValue(1, plain);
+    EXPECT_EQ(plainTuple.hashCode(), first.hashCode());
+    EXPECT_TRUE(plainTuple.equals(first));
+    delete[] plainTuple.address();
+    plain.free();
+
+    deleteTuple(first);
+    EXPECT_EQ(2, dictionary->size());
+    deleteTuple(second);
+    EXPECT_EQ(1, dictionary->size());
+    deleteTuple(other);
+    EXPECT_EQ(0, dictionary->size());
+    EXPECT_EQ(0, m_schema->getDictionaryMemorySize());
+}
+
+TEST_F(StringDictionaryTest, EqualityPredicates)
+{
+    TableTuple match = newTuple("match");
+    TableTuple miss = newTuple("miss");
+    TableTuple null = newTuple(NValue::getNullValue(VALUE_TYPE_VARCHAR));
+
+    TupleValueExpression *column = new TupleValueExpression(1, "T", "S");
+    column->setValueType(VALUE_TYPE_VARCHAR);
+    AbstractExpression *equal =
+        ExpressionUtil::comparisonFactory(EXPRESSION_TYPE_COMPARE_EQUAL,
+                                          new ConstantValueExpression(ValueFactory::getStringValue("match")),
+                                          column);
+    EXPECT_TRUE(equal->evalPredicate(&match, NULL));
+    EXPECT_FALSE(equal->evalPredicate(&miss, NULL));
+    EXPECT_FALSE(equal->evalPredicate(&null, NULL));
+    EXPECT_TRUE(equal->eval(&match, NULL).isTrue());
+
+    // a string no tuple holds yet matches once it is added
+    column = new TupleValueExpression(1, "T", "S");
+    column->setValueType(VALUE_TYPE_VARCHAR);
+    AbstractExpression *notEqual =
+        ExpressionUtil::comparisonFactory(EXPRESSION_TYPE_COMPARE_NOTEQUAL,
+                                          column, new ParameterValueExpression(0));
+    NValueArray params(1);
+    params[0] = ValueFactory::getStringValue("added later");
+    notEqual->substitute(params);
+    EXPECT_TRUE(notEqual->evalPredicate(&match, NULL));
+    TableTuple added = newTuple("added later");
+    EXPECT_FALSE(notEqual->evalPredicate(&added, NULL));
+    EXPECT_TRUE(notEqual->evalPredicate(&miss, NULL));
+
+    // a new parameter value is looked up again
+    params[0].free();
+    params[0] = ValueFactory::getStringValue("miss");
+    notEqual->substitute(params);
+    EXPECT_FALSE(notEqual->evalPredicate(&miss, NULL));
+    EXPECT_TRUE(notEqual->evalPredicate(&added, NULL));
+    params[0].free();
+
+    delete equal;
+    delete notEqual;
+    deleteTuple(match);
+    deleteTuple(miss);
+    deleteTuple(null);
+    deleteTuple(added);
+}
+
+int main() {
+    return TestSuite::globalInstance()->runAll();
+}
@@ -428,6 +428,72 @@ TEST_F(ExpressionTest, HashRange) {
     TupleSchema::freeTupleSchema(schema);
 }
 
+/*
+ * Show that predicates answer the same as a boolean and as an NValue, and
+ * that parameters follow each substitution
+ */
+TEST_F(ExpressionTest, Predicates) {
+    // foo = ?0 AND bar > 5
+    AE *eq = join(new AE(EXPRESSION_TYPE_COMPARE_EQUAL, VALUE_TYPE_TINYINT, 1),
+                  new TV(EXPRESSION_TYPE_VALUE_TUPLE, VALUE_TYPE_BIGINT, 8, 0, "t", "foo", "foo"),
+                  new PV(EXPRESSION_TYPE_VALUE_PARAMETER, VALUE_TYPE_BIGINT, 8, 0));
+    AE *gt = join(new AE(EXPRESSION_TYPE_COMPARE_GREATERTHAN, VALUE_TYPE_TINYINT, 1),
+                  new TV(EXPRESSION_TYPE_VALUE_TUPLE, VALUE_TYPE_INTEGER, 4, 1, "t", "bar", "bar"),
+                  new CV(EXPRESSION_TYPE_VALUE_CONSTANT, VALUE_TYPE_INTEGER, 4, (int64_t)5));
+    auto_ptr<AE> ae(join(new AE(EXPRESSION_TYPE_CONJUNCTION_AND, VALUE_TYPE_TINYINT, 1), eq, gt));
+    json_spirit::Object json = ae->serializeValue();
+    std::string jsonText = json_spirit::write(json);
+    PlannerDomRoot domRoot(jsonText.c_str());
+    auto_ptr<AbstractExpression> e1(AbstractExpression::buildExpressionTree(domRoot.rootObject()));
+
+    vector<std::string> columnNames;
+    columnNames.push_back("foo");
+    columnNames.push_back("bar");
+
+    vector<int32_t> columnSizes;
+    columnSizes.push_back(8);
+    columnSizes.push_back(4);
+
+    vector<bool> allowNull;
+    allowNull.push_back(true);
+    allowNull.push_back(true);
+
+    vector<voltdb::ValueType> types;
+    types.push_back(voltdb::VALUE_TYPE_BIGINT);
+    types.push_back(voltdb::VALUE_TYPE_INTEGER);
+
+    TupleSchema *schema = TupleSchema::createTupleSchema(types,
+                                                         columnSizes,
+                                                         allowNull,
+                                                         true);
+
+    boost::scoped_array<char> tupleStorage(new char[schema->tupleLength() + TUPLE_HEADER_SIZE]);
+    TableTuple t(tupleStorage.get(), schema);
+
+    NValueArray params(1);
+    for (int64_t param = 2; param < 4; param++) {
+        params[0] = ValueFactory::getBigIntValue(param);
+        e1->substitute(params);
+        for (int64_t foo = 0; foo < 5; foo++) {
+            for (int32_t bar = 0; bar < 10; bar++) {
+                t.setNValue(0, ValueFactory::getBigIntValue(foo));
+                t.setNValue(1, ValueFactory::getIntegerValue(bar));
+                bool expected = (foo == param && bar > 5);
+                ASSERT_EQ(expected, e1->evalPredicate(&t));
+                ASSERT_EQ(expected, e1->eval(&t).isTrue());
+            }
+        }
+    }
+
+    // a null never satisfies the comparison
+    t.setNValue(0, ValueFactory::getBigIntValue(3));
+    t.setNValue(1, NValue::getNullValue(VALUE_TYPE_INTEGER));
+    ASSERT_FALSE(e1->evalPredicate(&t));
+    ASSERT_FALSE(e1->eval(&t).isTrue());
+
+    TupleSchema::freeTupleSchema(schema);
+}
+
 int main() {
      return TestSuite::globalInstance()->runAll();
 }
@@ -423,6 +423,128 @@ TEST_F(IndexTest, IntMulti) {
     // TODO
 }
 
+TEST_F(IndexTest, DistinctKeyEstimate) {
+    vector<int> im_column_indices;
+    vector<ValueType> im_column_types;
+    im_column_indices.push_back(2);
+    im_column_types.push_back(VALUE_TYPE_BIGINT);
+    init("im",
+         BALANCED_TREE_INDEX,
+         im_column_indices,
+         im_column_types,
+         false);
+    // column 2 holds i % 3; the unique primary key has a key per tuple
+    EXPECT_EQ(3, table->index("im")->getDistinctKeyEstimate());
+    EXPECT_EQ(NUM_OF_TUPLES, table->index("idx_pkey")->getDistinctKeyEstimate());
+}
+
+TEST_F(IndexTest, CopyLastKeyToTuple) {
+    vector<int> ixm_column_indices;
+    vector<ValueType> ixm_column_types;
+    ixm_column_indices.push_back(2);
+    ixm_column_indices.push_back(1);
+    ixm_column_types.push_back(VALUE_TYPE_BIGINT);
+    ixm_column_types.push_back(VALUE_TYPE_BIGINT);
+    init("ixm",
+         BALANCED_TREE_INDEX,
+         ixm_column_indices,
+         ixm_column_types,
+         false);
+
+    TableIndex* index = table->index("ixm");
+    EXPECT_TRUE(index->canCopyKeyToTuple());
+    StandAloneTupleStorage storage(table->schema());
+    TableTuple keyTuple = storage;
+
+    vector<ValueType> keyColumnTypes(2, VALUE_TYPE_BIGINT);
+    vector<int32_t>
+        keyColumnLengths(2, NValue::getTupleStorageSize(VALUE_TYPE_BIGINT));
+    vector<bool> keyColumnAllowNull(2, true);
+    TupleSchema* keySchema =
+        TupleSchema::createTupleSchema(keyColumnTypes,
+                                       keyColumnLengths,
+                                       keyColumnAllowNull,
+                                       true);
+    TableTuple searchkey(keySchema);
+    searchkey.move(new char[searchkey.tupleLength()]);
+    searchkey.setNValue(0, ValueFactory::getBigIntValue(static_cast<int64_t>(2)));
+    searchkey.setNValue(1, ValueFactory::getBigIntValue(static_cast<int64_t>(1)));
+    EXPECT_TRUE(index->moveToKey(&searchkey));
+    EXPECT_FALSE(index->nextValueAtKey().isNullTuple());
+    index->copyLastKeyToTuple(keyTuple);
+    EXPECT_TRUE(ValueFactory::getBigIntValue(1).op_equals(keyTuple.getNValue(1)).isTrue());
+    EXPECT_TRUE(ValueFactory::getBigIntValue(2).op_equals(keyTuple.getNValue(2)).isTrue());
+    // columns outside the key are left alone
+    EXPECT_TRUE(keyTuple.getNValue(0).isNull());
+
+    index->moveToEnd(true);
+    EXPECT_FALSE(index->nextValue().isNullTuple());
+    index->copyLastKeyToTuple(keyTuple);
+    EXPECT_TRUE(ValueFactory::getBigIntValue(0).op_equals(keyTuple.getNValue(1)).isTrue());
+    EXPECT_TRUE(ValueFactory::getBigIntValue(0).op_equals(keyTuple.getNValue(2)).isTrue());
+
+    TableIndex* pkey = table->index("idx_pkey");
+    EXPECT_TRUE(pkey->canCopyKeyToTuple());
+    TableTuple pkeyKey(pkey->getKeySchema());
+    pkeyKey.move(new char[pkeyKey.tupleLength()]);
+    pkeyKey.setNValue(0, ValueFactory::getBigIntValue(static_cast<int64_t>(51)));
+    pkeyKey.setNValue(1, ValueFactory::getBigIntValue(static_cast<int64_t>(51 % 2)));
+    EXPECT_TRUE(pkey->moveToKey(&pkeyKey));
+    EXPECT_FALSE(pkey->nextValueAtKey().isNullTuple());
+    pkey->copyLastKeyToTuple(keyTuple);
+    EXPECT_TRUE(ValueFactory::getBigIntValue(51).op_equals(keyTuple.getNValue(0)).isTrue());
+    EXPECT_TRUE(ValueFactory::getBigIntValue(1).op_equals(keyTuple.getNValue(1)).isTrue());
+
+    delete [] pkeyKey.address();
+    delete [] searchkey.address();
+    TupleSchema::freeTupleSchema(keySchema);
+}
+
+TEST_F(IndexTest, MoveToRank) {
+    vector<int> ixm_column_indices;
+    vector<ValueType> ixm_column_types;
+    ixm_column_indices.push_back(2);
+    ixm_column_types.push_back(VALUE_TYPE_BIGINT);
+    init("ixm",
+         BALANCED_TREE_INDEX,
+         ixm_column_indices,
+         ixm_column_types,
+         false);
+
+    TableIndex* indexes[] = { table->index("idx_pkey"), table->index("ixm") };
+    for (int ii = 0; ii < 2; ii++) {
+        TableIndex* index = indexes[ii];
+        int64_t size = static_cast<int64_t>(index->getSize());
+        int64_t positions[] = { 0, 1, 17, size - 1 };
+        for (int jj = 0; jj < 4; jj++) {
+            for (int begin = 0; begin < 2; begin++) {
+                // the entry reached by walking over the first entries
+                index->moveToEnd(begin == 1);
+                for (int64_t skipped = 0; skipped < positions[jj]; skipped++) {
+                    EXPECT_FALSE(index->nextValue().isNullTuple());
+                }
+                TableTuple walked = index->nextValue();
+                EXPECT_FALSE(walked.isNullTuple());
+
+                EXPECT_TRUE(index->moveToRank(positions[jj], begin == 1));
+                TableTuple ranked = index->nextValue();
+                EXPECT_FALSE(ranked.isNullTuple());
+                if (ii == 0) {
+                    EXPECT_EQ(walked.address(), ranked.address());
+                }
+                else {
+                    // entries with equal keys may come in any order
+                    EXPECT_TRUE(walked.getNValue(2).op_equals(ranked.getNValue(2)).isTrue());
+                }
+            }
+        }
+        EXPECT_FALSE(index->moveToRank(size, true));
+        EXPECT_TRUE(index->nextValue().isNullTuple());
+        EXPECT_FALSE(index->moveToRank(size, false));
+        EXPECT_TRUE(index->nextValue().isNullTuple());
+    }
+}
+
 TEST_F(IndexTest, IntsUnique) {
     vector<int> ixu_column_indices;
     vector<ValueType> ixu_column_types;
@@ -363,6 +363,61 @@ TEST_F(CompactionTest, BasicCompaction) {
     ASSERT_EQ( m_table->activeTupleCount(), 0);
 }
 
+/*
+ * Compacting a tiny budget at a time should do the same work as forced
+ * compaction, picking up where each call left off.
+ */
+TEST_F(CompactionTest, IncrementalCompaction) {
+    initTable(true);
+#ifdef MEMCHECK
+    int tupleCount = 1000;
+#else
+    int tupleCount = 645260;
+#endif
+    addRandomUniqueTuples( m_table, tupleCount);
+
+    voltdb::TableIndex *pkeyIndex = m_table->primaryKeyIndex();
+    TableTuple key(pkeyIndex->getKeySchema());
+    boost::scoped_array<char> backingStore(new char[pkeyIndex->getKeySchema()->tupleLength()]);
+    key.moveNoHeader(backingStore.get());
+    for (int ii = 0; ii < tupleCount; ii += 2) {
+        key.setNValue(0, ValueFactory::getIntegerValue(ii));
+        ASSERT_TRUE(pkeyIndex->moveToKey(&key));
+        TableTuple tuple = pkeyIndex->nextValueAtKey();
+        m_table->deleteTuple(tuple, true);
+    }
+    ASSERT_EQ(0, m_table->compactedMemory());
+
+    int calls = 0;
+    while (m_table->compactionPredicate()) {
+        m_table->doIncrementalCompaction(1);
+        calls++;
+    }
+    ASSERT_TRUE(calls > 1);
+    ASSERT_EQ(0, m_table->doIncrementalCompaction(1000000));
+#ifndef MEMCHECK
+    ASSERT_EQ( m_table->m_data.size(), 13);
+    ASSERT_EQ(7 * m_table->m_tableAllocationSize, m_table->compactedMemory());
+    ASSERT_TRUE(m_table->compactionTime() > 0);
+#endif
+
+    TableIterator& iter = m_table->iterator();
+    TableTuple tuple(m_table->schema());
+    int found = 0;
+    while (iter.next(tuple)) {
+        int32_t pkey = ValuePeeker::peekAsInteger(tuple.getNValue(0));
+        ASSERT_EQ(1, pkey % 2);
+        key.setNValue(0, ValueFactory::getIntegerValue(pkey));
+        for (int ii = 0; ii < 4; ii++) {
+            ASSERT_TRUE(m_table->m_indexes[ii]->moveToKey(&key));
+            TableTuple indexTuple = m_table->m_indexes[ii]->nextValueAtKey();
+            ASSERT_EQ(indexTuple.address(), tuple.address());
+        }
+        found++;
+    }
+    ASSERT_EQ(tupleCount / 2, found);
+}
+
 TEST_F(CompactionTest, CompactionWithCopyOnWrite) {
     initTable(true);
 #ifdef MEMCHECK
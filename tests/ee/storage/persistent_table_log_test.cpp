@@ -237,6 +237,94 @@ TEST_F(PersistentTableLogTest, InsertThenUndoInsertsOneTest) {
     ASSERT_EQ( m_table->activeTupleCount(), 0);
 }
 
+TEST_F(PersistentTableLogTest, UndoQuantumOnlyForChangesTest) {
+    initTable(true);
+    tableutil::addRandomTuples(m_table, 10);
+    m_engine->releaseUndoToken(INT64_MIN + 1);
+    ASSERT_FALSE(m_engine->getExecutorContext()->hasUndoQuantum());
+
+    // reading under a token generates no quantum
+    m_engine->setUndoToken(INT64_MIN + 2);
+    voltdb::TableTuple tuple(m_tableSchema);
+    tableutil::getRandomTuple(m_table, tuple);
+    ASSERT_FALSE(m_table->lookupTuple(tuple).isNullTuple());
+    ASSERT_FALSE(m_engine->getExecutorContext()->hasUndoQuantum());
+
+    // the first change does
+    m_engine->setUndoToken(INT64_MIN + 3);
+    m_table->deleteTuple(tuple, true);
+    ASSERT_TRUE(m_engine->getExecutorContext()->hasUndoQuantum());
+
+    m_engine->undoUndoToken(INT64_MIN + 3);
+    ASSERT_FALSE(m_engine->getExecutorContext()->hasUndoQuantum());
+    ASSERT_EQ( m_table->activeTupleCount(), 10);
+}
+
+TEST_F(PersistentTableLogTest, TruncateThenUndoTest) {
+    initTable(true);
+    tableutil::addRandomTuples(m_table, 1000);
+    m_engine->releaseUndoToken(INT64_MIN + 1);
+    voltdb::TableTuple tuple(m_tableSchema);
+    tableutil::getRandomTuple(m_table, tuple);
+
+    voltdb::TableTuple tupleBackup(m_tableSchema);
+    tupleBackup.move(new char[tupleBackup.tupleLength()]);
+    tupleBackup.copyForPersistentInsert(tuple);
+    StackCleaner cleaner(tupleBackup);
+
+    m_engine->setUndoToken(INT64_MIN + 2);
+    m_table->truncateTable();
+    ASSERT_EQ( m_table->activeTupleCount(), 0);
+    ASSERT_EQ( m_table->allocatedBlockCount(), 0);
+    ASSERT_EQ( m_table->primaryKeyIndex()->getSize(), 0);
+    ASSERT_TRUE( m_table->lookupTuple(tupleBackup).isNullTuple());
+
+    // the emptied index takes the old key again
+    m_table->insertTuple(tupleBackup);
+    ASSERT_EQ( m_table->activeTupleCount(), 1);
+
+    m_engine->undoUndoToken(INT64_MIN + 2);
+    ASSERT_EQ( m_table->activeTupleCount(), 1000);
+    ASSERT_EQ( m_table->primaryKeyIndex()->getSize(), 1000);
+    ASSERT_FALSE( m_table->lookupTuple(tupleBackup).isNullTuple());
+}
+
+TEST_F(PersistentTableLogTest, TruncateThenReleaseTest) {
+    initTable(false);
+    tableutil::addRandomTuples(m_table, 1000);
+    m_engine->releaseUndoToken(INT64_MIN + 1);
+
+    m_engine->setUndoToken(INT64_MIN + 2);
+    m_table->truncateTable();
+    tableutil::addRandomTuples(m_table, 10);
+    m_engine->releaseUndoToken(INT64_MIN + 2);
+
+    ASSERT_EQ( m_table->activeTupleCount(), 10);
+    ASSERT_EQ( m_table->primaryKeyIndex()->getSize(), 10);
+    voltdb::TableTuple tuple(m_tableSchema);
+    tableutil::getRandomTuple(m_table, tuple);
+    ASSERT_FALSE( m_table->lookupTuple(tuple).isNullTuple());
+}
+
+TEST_F(PersistentTableLogTest, TruncateWithPinnedTuplesTest) {
+    initTable(true);
+    tableutil::addRandomTuples(m_table, 100);
+    m_engine->releaseUndoToken(INT64_MIN + 1);
+
+    // an earlier delete in the same transaction still points into the
+    // blocks, so this truncate goes a tuple at a time
+    m_engine->setUndoToken(INT64_MIN + 2);
+    voltdb::TableTuple tuple(m_tableSchema);
+    tableutil::getRandomTuple(m_table, tuple);
+    m_table->deleteTuple(tuple, true);
+    m_table->truncateTable();
+    ASSERT_EQ( m_table->primaryKeyIndex()->getSize(), 0);
+
+    m_engine->undoUndoToken(INT64_MIN + 2);
+    ASSERT_EQ( m_table->activeTupleCount(), 100);
+    ASSERT_EQ( m_table->primaryKeyIndex()->getSize(), 100);
+}
+
 int main() {
     return TestSuite::globalInstance()->runAll();
 }
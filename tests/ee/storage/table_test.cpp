@@ -187,6 +187,36 @@ TEST_F(TableTest, TupleInsert) {
     }
 }
 
+TEST_F(TableTest, NextBatch) {
+    //
+    // Batches must hand out the same tuples in the same order as next(),
+    // each batch from a single block of storage
+    //
+    const int tupleLength = table->schema()->tupleLength() + TUPLE_HEADER_SIZE;
+    TableIterator iterator = this->table->iterator();
+    TableIterator batchIterator = this->table->iterator();
+    TableTuple tuple(table->schema());
+    char *batch[100];
+    int batches = 0;
+    int count = 0;
+    int batchSize;
+    while ((batchSize = batchIterator.nextBatch(batch, 100)) > 0) {
+        ASSERT_TRUE(batchSize <= 100);
+        for (int ii = 0; ii < batchSize; ii++) {
+            ASSERT_TRUE(iterator.next(tuple));
+            EXPECT_EQ(tuple.address(), batch[ii]);
+            if (ii > 0) {
+                EXPECT_EQ(tupleLength, batch[ii] - batch[ii - 1]);
+            }
+        }
+        count += batchSize;
+        ++batches;
+    }
+    EXPECT_FALSE(iterator.next(tuple));
+    EXPECT_EQ(NUM_OF_TUPLES, count);
+    EXPECT_TRUE(batches >= NUM_OF_TUPLES / 100);
+}
+
 /* updateTuple in TempTable is not supported because it is not required in the product.
 TEST_F(TableTest, TupleUpdate) {
     //
@@ -300,6 +300,35 @@ TEST_F(CompactingHashTest, ShrinkAndGrowMulti) {
     volt.verify();
 }
 
+TEST_F(CompactingHashTest, ReserveThenInsert) {
+    const int ITERATIONS = 10000;
+
+    voltdb::CompactingHashTable<uint64_t,uint64_t> volt(true);
+    volt.reserve(ITERATIONS);
+    ASSERT_EQ(volt.size(), 0);
+
+    for (uint64_t i = 0; i < ITERATIONS; i++)
+        ASSERT_TRUE(volt.insert(i, i));
+    ASSERT_TRUE(volt.verify());
+    ASSERT_EQ(volt.size(), ITERATIONS);
+
+    for (uint64_t i = 0; i < ITERATIONS; i++) {
+        voltdb::CompactingHashTable<uint64_t,uint64_t>::iterator iter = volt.find(i);
+        ASSERT_FALSE(iter.isEnd());
+        ASSERT_EQ(iter.value(), i);
+    }
+
+    // reserving less than is held changes nothing
+    volt.reserve(ITERATIONS / 2);
+    ASSERT_TRUE(volt.verify());
+    ASSERT_EQ(volt.size(), ITERATIONS);
+
+    for (uint64_t i = 0; i < ITERATIONS; i++)
+        ASSERT_TRUE(volt.erase(i, i));
+    ASSERT_TRUE(volt.verify());
+    ASSERT_EQ(volt.size(), 0);
+}
+
 TEST_F(CompactingHashTest, Benchmark) {
     const int ITERATIONS = 10000;
 
@@ -57,6 +57,7 @@ import java.nio.channels.SelectionKey;
 
 import junit.framework.TestCase;
 
+import org.voltcore.utils.DirectDeferredSerialization;
 import org.voltcore.utils.EstTime;
 import org.voltcore.utils.EstTimeUpdater;
 
@@ -194,8 +195,47 @@ public class TestNIOWriteStream extends TestCase {
         @Override
         public long write(ByteBuffer[] srcs, int offset, int length)
                 throws IOException {
-            // TODO Auto-generated method stub
-            return 0;
+            if (!m_open) throw new IOException();
+            gatheringWrites++;
+            if (m_behavior == SINK) {
+                long written = 0;
+                for (int ii = offset; ii < offset + length; ii++) {
+                    written += write(srcs[ii]);
+                }
+                return written;
+            }
+            return write(srcs[offset]);
+        }
+
+        private int gatheringWrites = 0;
+    }
+
+    private static class MockDirectSerialization implements DirectDeferredSerialization {
+        private final int m_size;
+
+        MockDirectSerialization(int size) {
+            m_size = size;
+        }
+
+        @Override
+        public ByteBuffer[] serialize() throws IOException {
+            ByteBuffer b = ByteBuffer.allocate(m_size);
+            serialize(b);
+            return new ByteBuffer[] { b };
+        }
+
+        @Override
+        public void cancel() {}
+
+        @Override
+        public int getSerializedSize() {
+            return m_size;
+        }
+
+        @Override
+        public void serialize(ByteBuffer buf) {
+            buf.putInt(m_size - 4);
+            buf.position(buf.position() + m_size - 4);
         }
     }
 
@@ -337,6 +377,66 @@ public class TestNIOWriteStream extends TestCase {
         wstream.shutdown();
     }
 
+    public void testCoalescedGatheringWrite() throws IOException {
+        MockChannel channel = new MockChannel(MockChannel.SINK);
+        MockPort port = new MockPort();
+        NIOWriteStream wstream = new NIOWriteStream(port);
+
+        // 100 small responses plus some that force a fresh pool buffer
+        final int smallCount = 100;
+        final int largeCount = 3;
+        final int largeSize = NetworkDBBPool.BUFFER_SIZE - 100;
+        for (int ii = 0; ii < smallCount; ii++) {
+            wstream.enqueue(new MockDirectSerialization(64));
+        }
+        for (int ii = 0; ii < largeCount; ii++) {
+            wstream.enqueue(new MockDirectSerialization(largeSize));
+        }
+        // larger than a pool buffer, falls back to the heap path and is split
+        wstream.enqueue(new MockDirectSerialization(NetworkDBBPool.BUFFER_SIZE * 2));
+        assertEquals(smallCount + largeCount + 1, wstream.getOutstandingMessageCount());
+
+        wstream.swapAndSerializeQueuedWrites(pool);
+        final int expected = smallCount * 64 + largeCount * largeSize + NetworkDBBPool.BUFFER_SIZE * 2;
+        assertEquals(expected, wstream.drainTo(channel));
+        assertEquals(1, channel.gatheringWrites);
+        assertTrue(wstream.isEmpty());
+
+        long stats[] = wstream.getWriteStats(false);
+        assertEquals(expected, stats[0]);
+        assertEquals(smallCount + largeCount + 1, stats[1]);
+        assertEquals(1, stats[2]);
+
+        stats = wstream.getWriteStats(true);
+        stats = wstream.getWriteStats(true);
+        assertEquals(0, stats[0]);
+        assertEquals(0, stats[1]);
+        assertEquals(0, stats[2]);
+        wstream.shutdown();
+    }
+
+    public void testMessagesCountedWhenFullyWritten() throws IOException {
+        MockChannel channel = new MockChannel(MockChannel.PARTIAL);
+        MockPort port = new MockPort();
+        NIOWriteStream wstream = new NIOWriteStream(port);
+
+        wstream.enqueue(new MockDirectSerialization(16));
+        wstream.enqueue(new MockDirectSerialization(16));
+        wstream.swapAndSerializeQueuedWrites(pool);
+        wstream.drainTo(channel);
+        assertFalse(wstream.isEmpty());
+        assertTrue(wstream.hadBackPressure());
+        assertEquals(0, wstream.getWriteStats(false)[1]);
+
+        channel.m_behavior = MockChannel.SINK;
+        wstream.drainTo(channel);
+        assertTrue(wstream.isEmpty());
+        assertFalse(wstream.hadBackPressure());
+        assertEquals(32, wstream.getWriteStats(false)[0]);
+        assertEquals(2, wstream.getWriteStats(false)[1]);
+        wstream.shutdown();
+    }
+
     public void testLastWriteDelta() throws Exception {
         final MockChannel channel = new MockChannel(MockChannel.SINK);
         MockPort port = new MockPort();
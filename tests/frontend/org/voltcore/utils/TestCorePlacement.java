@@ -0,0 +1,81 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltcore.utils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+
+public class TestCorePlacement extends TestCase {
+
+    private static CorePlacement twoSockets() {
+        TreeMap<Integer, List<Integer>> nodes = new TreeMap<Integer, List<Integer>>();
+        nodes.put(0, CorePlacement.parseCpuList("0-3"));
+        nodes.put(1, CorePlacement.parseCpuList("4-7"));
+        return new CorePlacement(nodes);
+    }
+
+    public void testParseCpuList() {
+        assertEquals(Arrays.asList(0, 1, 2, 3, 8, 10, 11), CorePlacement.parseCpuList("0-3,8,10-11\n"));
+        assertEquals(Arrays.asList(5), CorePlacement.parseCpuList("5"));
+        assertTrue(CorePlacement.parseCpuList("").isEmpty());
+    }
+
+    public void testSitesAndNetworkDealtAcrossNodes() {
+        CorePlacement placement = twoSockets();
+        assertEquals(2, placement.getNodeCount());
+
+        // sites alternate nodes from the low cores, network threads from the high cores
+        assertEquals("0", placement.placeSite());
+        assertEquals("4", placement.placeSite());
+        assertEquals("3", placement.placeNetworkThread());
+        assertEquals("7", placement.placeNetworkThread());
+        assertEquals("1", placement.placeSite());
+        assertEquals("5", placement.placeSite());
+        assertEquals("2", placement.placeSite());
+        assertEquals("6", placement.placeSite());
+
+        // out of free cores, bind to the whole node
+        assertEquals("0:1:2:3", placement.placeSite());
+        assertEquals("0:1:2:3", placement.placeNetworkThread());
+        assertEquals("4:5:6:7", placement.placeNetworkThread());
+    }
+
+    public void testNodeOf() {
+        CorePlacement placement = twoSockets();
+        assertEquals(0, placement.nodeOf("2"));
+        assertEquals(1, placement.nodeOf("5:6"));
+        assertEquals(1, placement.nodeOf("!4-7"));
+        assertEquals(-1, placement.nodeOf("42"));
+        assertEquals("node1/6", placement.describe("6"));
+    }
+
+    public void testDiscover() {
+        CorePlacement placement = CorePlacement.discover();
+        assertTrue(placement.getNodeCount() >= 1);
+        assertTrue(placement.nodeOf(placement.placeSite()) >= 0);
+    }
+}
@@ -23,6 +23,7 @@
 
 package org.voltdb;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.concurrent.Callable;
@@ -42,7 +43,71 @@ public class ProcedureCallMicrobench {
         public abstract void run(Client client) throws Exception;
     };
 
-    public static void main(String[] args) throws Exception {
+    static Method runMethod(Class<?> procClass) {
+        for (Method m : procClass.getDeclaredMethods()) {
+            if (m.getName().equals("run")) {
+                return m;
+            }
+        }
+        throw new RuntimeException("No run method in " + procClass.getName());
+    }
+
+    /**
+     * Time the site side of a call in process: converting the deserialized
+     * parameters and invoking run(), reflectively as before and through
+     * the generated invoker.
+     */
+    static void benchmarkInvokers(Class<?> procClass, Object[] params) throws Throwable {
+        final Method run = runMethod(procClass);
+        final Class<?>[] types = run.getParameterTypes();
+        final ProcedureInvoker generated = ProcedureInvoker.create(run);
+        final int iterations = 2000000;
+
+        for (int pass = 0; pass < 3; pass++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                Object[] paramList = params.clone();
+                for (int p = 0; p < types.length; p++) {
+                    paramList[p] = ParameterConverter.tryToMakeCompatible(
+                            types[p].isPrimitive(), types[p].isArray(), types[p],
+                            types[p].getComponentType(), paramList[p]);
+                }
+                run.invoke(null, paramList);
+            }
+            final long reflective = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                Object[] paramList = params.clone();
+                for (int p = 0; p < types.length; p++) {
+                    if (!ProcedureInvoker.isExactMatch(types[p], paramList[p])) {
+                        paramList[p] = ParameterConverter.tryToMakeCompatible(
+                                types[p].isPrimitive(), types[p].isArray(), types[p],
+                                types[p].getComponentType(), paramList[p]);
+                    }
+                }
+                generated.invoke(null, paramList);
+            }
+            final long direct = System.nanoTime() - start;
+
+            if (pass > 0) {
+                System.out.printf("%s in process: reflective %.1f ns/call, generated invoker %.1f ns/call%n",
+                        procClass.getSimpleName(),
+                        reflective / (double) iterations, direct / (double) iterations);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Throwable {
+        benchmarkInvokers(EmptyProcedure.class, new Object[] { 0L });
+        benchmarkInvokers(MultivariateEmptyProcedure.class, new Object[] { 0L, 0L, 0L,
+                "String c_first", "String c_middle",
+                "String c_last", "String c_street_1",
+                "String c_street_2", "String d_city",
+                "String d_state", "String d_zip",
+                "String c_phone", new Date(), "String c_credit", 0.0,
+                0.0, 0.0, 0.0, 0L, 0L, "String c_data" });
+
         int siteCount = 1;
 
         TPCCProjectBuilder pb = new TPCCProjectBuilder();
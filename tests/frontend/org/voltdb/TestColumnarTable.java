@@ -0,0 +1,143 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.voltdb.client.ClientResponse;
+import org.voltdb.types.TimestampType;
+import org.voltdb.types.VoltDecimalHelper;
+
+public class TestColumnarTable extends TestCase {
+
+    private static VoltTable allTypes() {
+        VoltTable t = new VoltTable(
+                new VoltTable.ColumnInfo("TINY", VoltType.TINYINT),
+                new VoltTable.ColumnInfo("SMALL", VoltType.SMALLINT),
+                new VoltTable.ColumnInfo("INT", VoltType.INTEGER),
+                new VoltTable.ColumnInfo("BIG", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("FLT", VoltType.FLOAT),
+                new VoltTable.ColumnInfo("DEC", VoltType.DECIMAL),
+                new VoltTable.ColumnInfo("TS", VoltType.TIMESTAMP),
+                new VoltTable.ColumnInfo("STR", VoltType.STRING),
+                new VoltTable.ColumnInfo("BIN", VoltType.VARBINARY));
+        t.addRow((byte)1, (short)2, 3, 4L, 5.5,
+                 new BigDecimal(6).setScale(VoltDecimalHelper.kDefaultScale),
+                 new TimestampType(7), "eight", new byte[] { 9, 10 });
+        t.addRow(null, null, null, null, null, null, null, null, null);
+        t.addRow((byte)-1, (short)-2, -3, -4L, -5.5,
+                 new BigDecimal(-6).setScale(VoltDecimalHelper.kDefaultScale),
+                 new TimestampType(-7), "", new byte[0]);
+        return t;
+    }
+
+    private static ColumnarTable roundTrip(VoltTable t) {
+        ByteBuffer buf = ColumnarTable.encode(t);
+        ColumnarTable ct = new ColumnarTable(buf);
+        assertFalse(buf.hasRemaining());
+        return ct;
+    }
+
+    public void testAllTypesRoundTrip() {
+        VoltTable t = allTypes();
+        ColumnarTable ct = roundTrip(t);
+
+        assertEquals(3, ct.getRowCount());
+        assertEquals(9, ct.getColumnCount());
+        assertEquals("STR", ct.getColumnName(7));
+        assertEquals(VoltType.DECIMAL, ct.getColumnType(5));
+        assertEquals(6, ct.getColumnIndex("TS"));
+
+        assertEquals(1, ct.getLong(0, 0));
+        assertEquals(-4, ct.getLong(3, 2));
+        assertEquals(5.5, ct.getDouble(4, 0));
+        assertEquals(new TimestampType(7), ct.getTimestamp(6, 0));
+        assertEquals("eight", ct.getString(7, 0));
+        assertEquals("", ct.getString(7, 2));
+        assertTrue(Arrays.equals(new byte[] { 9, 10 }, ct.getVarbinary(8, 0)));
+        assertEquals(0, ct.getVarbinary(8, 2).length);
+        for (int column = 0; column < ct.getColumnCount(); column++) {
+            assertFalse(ct.isNull(column, 0));
+            assertTrue(ct.isNull(column, 1));
+        }
+        assertNull(ct.getString(7, 1));
+
+        assertTrue(t.hasSameContents(ct.toVoltTable()));
+    }
+
+    public void testStringDictionary() {
+        VoltTable t = new VoltTable(new VoltTable.ColumnInfo("S", VoltType.STRING));
+        for (int ii = 0; ii < 1000; ii++) {
+            t.addRow("value" + (ii % 3));
+        }
+        ColumnarTable ct = roundTrip(t);
+        assertEquals(3, ct.getStringDictionary(0).length);
+        assertEquals(ct.getStringCode(0, 0), ct.getStringCode(0, 3));
+        assertEquals("value2", ct.getString(0, 998));
+        assertTrue(ColumnarTable.encode(t).remaining() < t.getSerializedSize());
+    }
+
+    public void testClientResponseNegotiation() throws Exception {
+        VoltTable t = new VoltTable(
+                new VoltTable.ColumnInfo("ID", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("NAME", VoltType.STRING));
+        for (long ii = 0; ii < 2000; ii++) {
+            t.addRow(ii, "name" + (ii % 10));
+        }
+        assertTrue(t.getSerializedSize() >= ClientResponseImpl.COLUMNAR_ENCODING_THRESHOLD);
+
+        for (boolean columnar : new boolean[] { false, true }) {
+            ClientResponseImpl cr = new ClientResponseImpl(
+                    ClientResponse.SUCCESS, new VoltTable[] { t }, "ok");
+            cr.setColumnarEncoding(columnar);
+            ByteBuffer buf = ByteBuffer.allocate(cr.getSerializedSize());
+            cr.flattenToBuffer(buf);
+            assertFalse(buf.hasRemaining());
+            buf.flip();
+
+            ClientResponseImpl received = new ClientResponseImpl();
+            received.initFromBuffer(buf);
+            assertEquals("ok", received.getStatusString());
+            ColumnarTable ct = received.getColumnarResults()[0];
+            assertEquals(2000, ct.getRowCount());
+            assertEquals(1999, ct.getLong(0, 1999));
+            assertEquals("name9", ct.getString(1, 1999));
+            assertTrue(t.hasSameContents(received.getResults()[0]));
+        }
+    }
+
+    public void testSmallResponsesStayRowMajor() throws Exception {
+        ClientResponseImpl cr = new ClientResponseImpl(
+                ClientResponse.SUCCESS, new VoltTable[] { allTypes() }, null);
+        cr.setColumnarEncoding(true);
+        ByteBuffer buf = ByteBuffer.allocate(cr.getSerializedSize());
+        cr.flattenToBuffer(buf);
+        // present fields: no columnar bit below the threshold
+        assertEquals(0, buf.get(9) & (1 << 3));
+    }
+}
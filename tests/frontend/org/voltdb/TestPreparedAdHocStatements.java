@@ -0,0 +1,89 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package org.voltdb;
+
+import junit.framework.TestCase;
+
+import org.voltdb.compiler.AdHocPlannedStatement;
+import org.voltdb.planner.CorePlan;
+
+public class TestPreparedAdHocStatements extends TestCase {
+
+    private static AdHocPlannedStatement statement(String sql, int catalogVersion,
+                                                   VoltType[] paramTypes, Object... extracted) {
+        CorePlan core = new CorePlan(new byte[] { 1 }, null, new byte[20], null,
+                                     false, false, true, paramTypes, catalogVersion);
+        return new AdHocPlannedStatement(sql.getBytes(VoltDB.UTF8ENCODING), core,
+                                         ParameterSet.fromArrayNoCopy(extracted), null, null, null);
+    }
+
+    public void testHandlesDependOnTextOnly() {
+        final String sql = "select * from T where A = ?";
+        assertEquals(PreparedAdHocStatements.handleForSQL(sql),
+                     PreparedAdHocStatements.handleForSQL(new String(sql)));
+        assertFalse(PreparedAdHocStatements.handleForSQL(sql) ==
+                    PreparedAdHocStatements.handleForSQL("select * from T where B = ?"));
+
+        PreparedAdHocStatements host1 = new PreparedAdHocStatements();
+        PreparedAdHocStatements host2 = new PreparedAdHocStatements();
+        long handle = host1.put(sql, statement(sql, 1, new VoltType[] { VoltType.INTEGER }));
+        assertEquals(handle, host2.put(sql, statement(sql, 1, new VoltType[] { VoltType.INTEGER })));
+        assertNotNull(host1.get(handle, 1));
+        assertNull(host1.get(handle + 1, 1));
+    }
+
+    public void testCatalogChangeInvalidates() {
+        final String sql = "select * from T where A = ?";
+        PreparedAdHocStatements prepared = new PreparedAdHocStatements();
+        long handle = prepared.put(sql, statement(sql, 1, new VoltType[] { VoltType.INTEGER }));
+        assertNull(prepared.get(handle, 2));
+        // stale entries are dropped, not resurrected by the old version
+        assertNull(prepared.get(handle, 1));
+
+        prepared.put(sql, statement(sql, 2, new VoltType[] { VoltType.INTEGER }));
+        assertNotNull(prepared.get(handle, 2));
+        prepared.clear();
+        assertNull(prepared.get(handle, 2));
+    }
+
+    public void testEviction() {
+        PreparedAdHocStatements prepared = new PreparedAdHocStatements();
+        long first = prepared.put("select 0 from T", statement("select 0 from T", 1, new VoltType[0]));
+        for (int ii = 1; ii <= PreparedAdHocStatements.MAX_ENTRIES; ii++) {
+            String sql = "select " + ii + " from T";
+            prepared.put(sql, statement(sql, 1, new VoltType[0]));
+        }
+        assertNull(prepared.get(first, 1));
+    }
+
+    public void testUserParameterCount() {
+        VoltType[] types = new VoltType[] { VoltType.INTEGER, VoltType.STRING };
+        assertEquals(2, PreparedAdHocStatements.userParameterCount(
+                statement("select * from T where A = ? and B = ?", 1, types)));
+        // auto-parameterized statements carry their own values
+        assertEquals(0, PreparedAdHocStatements.userParameterCount(
+                statement("select * from T where A = 1 and B = 'x'", 1, types, 1, "x")));
+    }
+}
@@ -0,0 +1,159 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package org.voltdb;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+
+import junit.framework.TestCase;
+
+import org.voltdb.types.TimestampType;
+
+public class TestProcedureInvoker extends TestCase {
+
+    public static class Typed {
+        public Object[] last;
+
+        public long run(long a, int b, short c, byte d, double e,
+                        String f, TimestampType g, long[] h, byte[] i, VoltTable j) {
+            last = new Object[] { a, b, c, d, e, f, g, h, i, j };
+            return a + b + c + d;
+        }
+    }
+
+    public static class Static {
+        public static VoltTable[] run(long a) {
+            return new VoltTable[(int) a];
+        }
+    }
+
+    public static class Void {
+        public int calls;
+
+        public void run() {
+            calls++;
+        }
+    }
+
+    public static class Throws {
+        public VoltTable[] run(String message) {
+            throw new VoltProcedure.VoltAbortException(message);
+        }
+    }
+
+    static class Hidden {
+        public long run(long a) {
+            return a;
+        }
+    }
+
+    private static Method run(Class<?> c) {
+        for (Method m : c.getDeclaredMethods()) {
+            if (m.getName().equals("run")) {
+                return m;
+            }
+        }
+        throw new RuntimeException("no run method");
+    }
+
+    public void testGeneratedInvoker() throws Throwable {
+        ProcedureInvoker invoker = ProcedureInvoker.create(run(Typed.class));
+        assertFalse(invoker instanceof ProcedureInvoker.Reflective);
+
+        Typed proc = new Typed();
+        long[] longs = new long[] { 1, 2 };
+        byte[] bytes = new byte[] { 3 };
+        VoltTable table = new VoltTable(new VoltTable.ColumnInfo("C", VoltType.BIGINT));
+        // boxed values narrower than the parameter widen like Method.invoke
+        Object result = invoker.invoke(proc, new Object[] {
+                10, (short) 20, (byte) 3, (byte) 4, 5.5, "six",
+                new TimestampType(7), longs, bytes, table });
+        assertEquals(37L, result);
+        assertEquals(10L, proc.last[0]);
+        assertEquals("six", proc.last[5]);
+        assertSame(longs, proc.last[7]);
+        assertSame(table, proc.last[9]);
+
+        assertEquals(3, ((VoltTable[]) ProcedureInvoker.create(run(Static.class))
+                .invoke(null, new Object[] { 3L })).length);
+
+        Void v = new Void();
+        assertNull(ProcedureInvoker.create(run(Void.class)).invoke(v, new Object[0]));
+        assertEquals(1, v.calls);
+    }
+
+    public void testOnlyRunExceptionsWrapped() throws Throwable {
+        for (ProcedureInvoker invoker : new ProcedureInvoker[] {
+                ProcedureInvoker.create(run(Throws.class)),
+                new ProcedureInvoker.Reflective(run(Throws.class)) }) {
+            try {
+                invoker.invoke(new Throws(), new Object[] { "nope" });
+                fail();
+            } catch (InvocationTargetException e) {
+                assertTrue(e.getCause() instanceof VoltProcedure.VoltAbortException);
+                assertEquals("nope", e.getCause().getMessage());
+            }
+
+            // a parameter that doesn't bind is not an exception of run()
+            try {
+                invoker.invoke(new Throws(), new Object[] { 5L });
+                fail();
+            } catch (InvocationTargetException e) {
+                fail();
+            } catch (RuntimeException e) {
+                assertTrue(e instanceof ClassCastException || e instanceof IllegalArgumentException);
+            }
+        }
+
+        ProcedureInvoker invoker = ProcedureInvoker.create(run(Static.class));
+        try {
+            invoker.invoke(null, new Object[] { null });
+            fail();
+        } catch (InvocationTargetException e) {
+            fail();
+        } catch (NullPointerException e) {}
+    }
+
+    public void testInaccessibleFallsBackToReflection() throws Throwable {
+        Method m = run(Hidden.class);
+        m.setAccessible(true);
+        ProcedureInvoker invoker = ProcedureInvoker.create(m);
+        assertTrue(invoker instanceof ProcedureInvoker.Reflective);
+        assertEquals(5L, invoker.invoke(new Hidden(), new Object[] { 5L }));
+    }
+
+    public void testExactMatch() {
+        assertTrue(ProcedureInvoker.isExactMatch(long.class, 1));
+        assertFalse(ProcedureInvoker.isExactMatch(int.class, 1L));
+        assertFalse(ProcedureInvoker.isExactMatch(long.class, null));
+        assertFalse(ProcedureInvoker.isExactMatch(double.class, 1L));
+        assertTrue(ProcedureInvoker.isExactMatch(String.class, "x"));
+        assertFalse(ProcedureInvoker.isExactMatch(String.class, VoltTable.CSV_NULL));
+        assertFalse(ProcedureInvoker.isExactMatch(byte[].class, "0A"));
+        assertTrue(ProcedureInvoker.isExactMatch(long[].class, new long[0]));
+        assertFalse(ProcedureInvoker.isExactMatch(BigDecimal.class, BigDecimal.ONE));
+    }
+}
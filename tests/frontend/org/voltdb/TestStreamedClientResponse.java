@@ -0,0 +1,157 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package org.voltdb;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.voltcore.network.MockConnection;
+import org.voltcore.network.MockWriteStream;
+import org.voltcore.network.WriteStream;
+import org.voltcore.utils.DeferredSerialization;
+import org.voltcore.utils.DirectDeferredSerialization;
+import org.voltdb.client.ClientResponse;
+
+public class TestStreamedClientResponse extends TestCase {
+
+    static class QueueingWriteStream extends MockWriteStream {
+        final ArrayDeque<DeferredSerialization> m_queued = new ArrayDeque<DeferredSerialization>();
+        boolean m_backpressure = false;
+
+        @Override
+        public boolean hadBackPressure() {
+            return m_backpressure;
+        }
+
+        @Override
+        public void enqueue(DeferredSerialization ds) {
+            m_queued.add(ds);
+        }
+    }
+
+    static class StreamConnection extends MockConnection {
+        final QueueingWriteStream m_writeStream = new QueueingWriteStream();
+
+        @Override
+        public WriteStream writeStream() {
+            return m_writeStream;
+        }
+    }
+
+    private final StreamConnection m_connection = new StreamConnection();
+    private final ClientInterfaceHandleManager m_cihm =
+        new ClientInterfaceHandleManager(false, m_connection, null);
+
+    private static VoltTable table(int rows) {
+        VoltTable t = new VoltTable(
+                new VoltTable.ColumnInfo("ID", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("NAME", VoltType.STRING));
+        for (long ii = 0; ii < rows; ii++) {
+            t.addRow(ii, "a name long enough to make the rows a decent size " + ii);
+        }
+        return t;
+    }
+
+    /** Serialize the next queued message the way the network does and read it back */
+    private ClientResponseImpl send() throws Exception {
+        DirectDeferredSerialization ds = (DirectDeferredSerialization) m_connection.m_writeStream.m_queued.poll();
+        ByteBuffer buf = ByteBuffer.allocate(ds.getSerializedSize());
+        ds.serialize(buf);
+        assertFalse(buf.hasRemaining());
+        buf.flip();
+        assertEquals(buf.remaining() - 4, buf.getInt());
+        assertTrue(buf.remaining() <= StreamedClientResponse.CHUNK_SIZE + 1024);
+        ClientResponseImpl message = new ClientResponseImpl();
+        message.initFromBuffer(buf);
+        assertEquals(42, message.getClientHandle());
+        return message;
+    }
+
+    public void testChunksReassemble() throws Exception {
+        VoltTable big = table(30000);
+        VoltTable small = table(3);
+        VoltTable empty = table(0);
+        ClientResponseImpl response = new ClientResponseImpl(
+                ClientResponse.SUCCESS, new VoltTable[] { big, empty, small }, "done");
+        response.setClientHandle(42);
+        assertTrue(StreamedClientResponse.shouldStream(response));
+
+        new StreamedClientResponse(m_cihm, response).pump();
+        List<List<VoltTable>> chunks = new ArrayList<List<VoltTable>>();
+        for (int ii = 0; ii < 3; ii++) {
+            chunks.add(new ArrayList<VoltTable>());
+        }
+        ClientResponseImpl received;
+        int messages = 0;
+        while (true) {
+            assertTrue(m_connection.m_writeStream.m_queued.size() <= 2);
+            received = send();
+            messages++;
+            if (!received.isResultChunk()) {
+                break;
+            }
+            chunks.get(received.getResultChunkTableIndex()).add(received.getResults()[0]);
+        }
+        assertTrue(m_connection.m_writeStream.m_queued.isEmpty());
+        assertTrue(messages > 5);
+        assertEquals(0, chunks.get(1).size());
+        assertEquals(1, chunks.get(2).size());
+
+        assertEquals("done", received.getStatusString());
+        assertEquals(0, received.getResults()[0].getRowCount());
+        received.appendResultChunks(chunks);
+        assertTrue(big.hasSameContents(received.getResults()[0]));
+        assertTrue(empty.hasSameContents(received.getResults()[1]));
+        assertTrue(small.hasSameContents(received.getResults()[2]));
+    }
+
+    public void testBackpressureStallsStream() throws Exception {
+        ClientResponseImpl response = new ClientResponseImpl(
+                ClientResponse.SUCCESS, new VoltTable[] { table(30000) }, null);
+        response.setClientHandle(42);
+        new StreamedClientResponse(m_cihm, response).pump();
+        assertEquals(2, m_connection.m_writeStream.m_queued.size());
+
+        m_connection.m_writeStream.m_backpressure = true;
+        assertTrue(send().isResultChunk());
+        assertTrue(send().isResultChunk());
+        assertTrue(m_connection.m_writeStream.m_queued.isEmpty());
+
+        m_connection.m_writeStream.m_backpressure = false;
+        m_cihm.resumeStreamedResponses();
+        assertEquals(2, m_connection.m_writeStream.m_queued.size());
+    }
+
+    public void testSmallAndFailedResponsesAreNotStreamed() {
+        assertFalse(StreamedClientResponse.shouldStream(new ClientResponseImpl(
+                ClientResponse.SUCCESS, new VoltTable[] { table(10) }, null)));
+        assertFalse(StreamedClientResponse.shouldStream(new ClientResponseImpl(
+                ClientResponse.GRACEFUL_FAILURE, new VoltTable[] { table(30000) }, null)));
+    }
+}
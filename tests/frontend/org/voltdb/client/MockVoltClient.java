@@ -60,6 +60,7 @@ import java.util.List;
 
 import org.mockito.Mockito;
 import org.voltdb.ClientResponseImpl;
+import org.voltdb.ColumnarTable;
 import org.voltdb.VoltTable;
 
 import static org.mockito.Mockito.doReturn;
@@ -119,6 +120,15 @@ public class MockVoltClient implements Client, ReplicaProcCaller{
                 return result;
             }
 
+            @Override
+            public ColumnarTable[] getColumnarResults() {
+                ColumnarTable[] tables = new ColumnarTable[result.length];
+                for (int ii = 0; ii < result.length; ii++) {
+                    tables[ii] = ColumnarTable.fromVoltTable(result[ii]);
+                }
+                return tables;
+            }
+
             @Override
             public byte getStatus() {
                 return ClientResponse.SUCCESS;
@@ -155,6 +165,36 @@ public class MockVoltClient implements Client, ReplicaProcCaller{
         return false;
     }
 
+    @Override
+    public boolean callProcedures(InvocationBatch batch) throws NoConnectionsException {
+        // TODO Auto-generated method stub
+        return false;
+    }
+
+    @Override
+    public PreparedAdHoc prepareAdHoc(String sql) {
+        // TODO Auto-generated method stub
+        return null;
+    }
+
+    @Override
+    public ClientResponse callPreparedAdHoc(PreparedAdHoc statement, Object... parameters) {
+        // TODO Auto-generated method stub
+        return null;
+    }
+
+    @Override
+    public boolean callPreparedAdHoc(ProcedureCallback callback, PreparedAdHoc statement, Object... parameters) {
+        // TODO Auto-generated method stub
+        return false;
+    }
+
+    @Override
+    public StreamedResults callProcedureStreamed(String procName, Object... parameters) {
+        // TODO Auto-generated method stub
+        return null;
+    }
+
     @Override
     public void drain() {
         // TODO Auto-generated method stub
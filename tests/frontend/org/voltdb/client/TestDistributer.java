@@ -28,18 +28,26 @@ import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.framework.TestCase;
 
+import org.json_voltpatches.JSONException;
+import org.json_voltpatches.JSONObject;
 import org.junit.Test;
 import org.voltcore.network.Connection;
 import org.voltcore.network.QueueMonitor;
 import org.voltcore.network.VoltNetworkPool;
 import org.voltcore.network.VoltProtocolHandler;
 import org.voltdb.ClientResponseImpl;
+import org.voltdb.JdbcDatabaseMetaDataGenerator;
+import org.voltdb.LegacyHashinator;
 import org.voltdb.StoredProcedureInvocation;
 import org.voltdb.VoltTable;
 import org.voltdb.VoltType;
@@ -67,17 +75,17 @@ public class TestDistributer extends TestCase {
                 if (spi.getProcName().equals("@Ping"))
                     gotPing = true;
 
-                if (sendResponses.get()) {
-                    VoltTable vt[] = new VoltTable[1];
-                    vt[0] = new VoltTable(new VoltTable.ColumnInfo("Foo", VoltType.BIGINT));
-                    vt[0].addRow(1);
-                    ClientResponseImpl response =
-                        new ClientResponseImpl(ClientResponseImpl.SUCCESS, vt, "Extra String", spi.getClientHandle());
-                    ByteBuffer buf = ByteBuffer.allocate(4 + response.getSerializedSize());
-                    buf.putInt(buf.capacity() - 4);
-                    response.flattenToBuffer(buf);
-                    buf.clear();
-                    c.writeStream().enqueue(buf);
+                if (spi.getProcName().equals(InvocationBatch.PROCEDURE_NAME)) {
+                    handleBatch(spi, c);
+                }
+                else if (describeAffinity && spi.getProcName().equals("@Statistics")) {
+                    respond(c, spi.getClientHandle(), affinityTopology());
+                }
+                else if (describeAffinity && spi.getProcName().equals("@SystemCatalog")) {
+                    respond(c, spi.getClientHandle(), affinityProcedures());
+                }
+                else if (sendResponses.get()) {
+                    respond(c, ClientResponse.SUCCESS, spi.getClientHandle());
                     roundTrips.incrementAndGet();
                     System.err.println("Sending response.");
                 }
@@ -90,6 +98,97 @@ public class TestDistributer extends TestCase {
             }
         }
 
+        /**
+         * Answer each invocation of a batch on its own handle, and then the batch
+         * on its handle, or fail only the batch if told to.
+         */
+        private void handleBatch(StoredProcedureInvocation batch, Connection c) throws IOException {
+            batchFrames.incrementAndGet();
+            if (failBatches.get()) {
+                respond(c, ClientResponse.GRACEFUL_FAILURE, batch.getClientHandle());
+                return;
+            }
+            ByteBuffer invocations = ByteBuffer.wrap((byte[]) batch.getParams().toArray()[0]);
+            int count = invocations.getInt();
+            for (int ii = 0; ii < count; ii++) {
+                int size = invocations.getInt();
+                ByteBuffer serialized = invocations.slice();
+                serialized.limit(size);
+                invocations.position(invocations.position() + size);
+                StoredProcedureInvocation spi =
+                    new FastDeserializer(serialized).readObject(StoredProcedureInvocation.class);
+                respond(c, ClientResponse.SUCCESS, spi.getClientHandle());
+                batchedInvocations.incrementAndGet();
+                batchedProcedures.add(spi.getProcName() + spi.getParams().toArray()[0]);
+            }
+            respond(c, ClientResponse.SUCCESS, batch.getClientHandle());
+        }
+
+        private void respond(Connection c, byte status, long handle) throws IOException {
+            VoltTable vt[] = new VoltTable[1];
+            vt[0] = new VoltTable(new VoltTable.ColumnInfo("Foo", VoltType.BIGINT));
+            vt[0].addRow(1);
+            ClientResponseImpl response =
+                new ClientResponseImpl(status, vt, "Extra String", handle);
+            ByteBuffer buf = ByteBuffer.allocate(4 + response.getSerializedSize());
+            buf.putInt(buf.capacity() - 4);
+            response.flattenToBuffer(buf);
+            buf.clear();
+            c.writeStream().enqueue(buf);
+        }
+
+        private void respond(Connection c, long handle, VoltTable vt[]) throws IOException {
+            ClientResponseImpl response =
+                new ClientResponseImpl(ClientResponse.SUCCESS, vt, "Extra String", handle);
+            ByteBuffer buf = ByteBuffer.allocate(4 + response.getSerializedSize());
+            buf.putInt(buf.capacity() - 4);
+            response.flattenToBuffer(buf);
+            buf.clear();
+            c.writeStream().enqueue(buf);
+        }
+
+        /**
+         * Two partitions, led by hosts 0 and 1, hashed by the legacy hashinator.
+         */
+        private VoltTable[] affinityTopology() {
+            VoltTable partitions = new VoltTable(
+                    new VoltTable.ColumnInfo("Partition", VoltType.INTEGER),
+                    new VoltTable.ColumnInfo("Sites", VoltType.STRING),
+                    new VoltTable.ColumnInfo("Leader", VoltType.STRING));
+            partitions.addRow(0, "0:0,1:0", "0:0");
+            partitions.addRow(1, "0:1,1:1", "1:1");
+            partitions.addRow(16383, "0:2", "0:2");
+            VoltTable hashConfig = new VoltTable(
+                    new VoltTable.ColumnInfo("HASHTYPE", VoltType.STRING),
+                    new VoltTable.ColumnInfo("HASHCONFIG", VoltType.VARBINARY));
+            hashConfig.addRow("LEGACY", LegacyHashinator.getConfigureBytes(2));
+            return new VoltTable[] { partitions, hashConfig };
+        }
+
+        /**
+         * "sp" is partitioned on its first parameter, "mp" is multi-partition.
+         */
+        private VoltTable[] affinityProcedures() throws JSONException {
+            VoltTable procedures = new VoltTable(
+                    new VoltTable.ColumnInfo("PROCEDURE_CAT", VoltType.STRING),
+                    new VoltTable.ColumnInfo("PROCEDURE_SCHEM", VoltType.STRING),
+                    new VoltTable.ColumnInfo("PROCEDURE_NAME", VoltType.STRING),
+                    new VoltTable.ColumnInfo("RESERVED1", VoltType.STRING),
+                    new VoltTable.ColumnInfo("RESERVED2", VoltType.STRING),
+                    new VoltTable.ColumnInfo("RESERVED3", VoltType.STRING),
+                    new VoltTable.ColumnInfo("REMARKS", VoltType.STRING));
+            JSONObject sp = new JSONObject();
+            sp.put(JdbcDatabaseMetaDataGenerator.JSON_READ_ONLY, false);
+            sp.put(JdbcDatabaseMetaDataGenerator.JSON_SINGLE_PARTITION, true);
+            sp.put(JdbcDatabaseMetaDataGenerator.JSON_PARTITION_PARAMETER, 0);
+            procedures.addRow(null, null, "sp", null, null, null, sp.toString());
+            JSONObject mp = new JSONObject();
+            mp.put(JdbcDatabaseMetaDataGenerator.JSON_READ_ONLY, false);
+            mp.put(JdbcDatabaseMetaDataGenerator.JSON_SINGLE_PARTITION, false);
+            procedures.addRow(null, null, "mp", null, null, null, mp.toString());
+            return new VoltTable[] { procedures };
+        }
+
         @Override
         public void started(Connection c) {
             // TODO Auto-generated method stub
@@ -114,6 +213,11 @@ public class TestDistributer extends TestCase {
 
         }
         AtomicInteger roundTrips = new AtomicInteger();
+        AtomicInteger batchFrames = new AtomicInteger();
+        AtomicInteger batchedInvocations = new AtomicInteger();
+        AtomicBoolean failBatches = new AtomicBoolean(false);
+        volatile boolean describeAffinity = false;
+        List<String> batchedProcedures = Collections.synchronizedList(new ArrayList<String>());
 
         @Override
         public Runnable offBackPressure() {
@@ -144,6 +248,8 @@ public class TestDistributer extends TestCase {
     // A fake server.
     class MockVolt extends Thread {
         boolean handleConnection = true;
+        int hostId = 0;
+        boolean describeAffinity = false;
         MockVolt(int port) throws IOException {
             network = new VoltNetworkPool();
             network.start();
@@ -198,13 +304,15 @@ public class TestDistributer extends TestCase {
                         responseBuffer.putInt(30);
                         responseBuffer.put((byte)0);//version
                         responseBuffer.put((byte)0);//success response
-                        responseBuffer.putInt(0);//hostId
+                        responseBuffer.putInt(hostId);//hostId
                         responseBuffer.putLong(0);//connectionId
                         responseBuffer.putLong(0);//instanceId
                         responseBuffer.putInt(0);//instanceId pt 2
                         responseBuffer.putInt(0);
                         responseBuffer.flip();
-                        handler = new MockInputHandler();
+                        MockInputHandler newHandler = new MockInputHandler();
+                        newHandler.describeAffinity = describeAffinity;
+                        handler = newHandler;
                         client.write(responseBuffer);
 
                         client.configureBlocking(false);
@@ -574,6 +682,157 @@ public class TestDistributer extends TestCase {
         }
     }
 
+    /**
+     * Without client affinity every invocation of a batch is unrouted, so the
+     * whole batch goes out as one frame, and batches take turns on the
+     * connections like single invocations do.
+     */
+    @Test
+    public void testQueueBatch() throws Exception {
+        MockVolt volt0 = null, volt1 = null;
+        try {
+            volt0 = new MockVolt(20010);
+            volt0.start();
+            volt1 = new MockVolt(20011);
+            volt1.start();
+
+            Distributer dist = new Distributer(false,
+                    ClientConfig.DEFAULT_PROCEDURE_TIMOUT_MS,
+                    ClientConfig.DEFAULT_CONNECTION_TIMOUT_MS,
+                    false);
+            dist.createConnection("localhost", "", "", 20010);
+            dist.createConnection("localhost", "", "", 20011);
+
+            final AtomicInteger successes = new AtomicInteger();
+            ProcedureCallback counter = new ProcedureCallback() {
+                @Override
+                public void clientCallback(ClientResponse clientResponse) {
+                    if (clientResponse.getStatus() == ClientResponse.SUCCESS) {
+                        successes.incrementAndGet();
+                    }
+                }
+            };
+
+            int handle = 0;
+            for (int batch = 0; batch < 2; batch++) {
+                ProcedureInvocation invocations[] = new ProcedureInvocation[5];
+                ProcedureCallback callbacks[] = new ProcedureCallback[5];
+                for (int ii = 0; ii < 5; ii++) {
+                    invocations[ii] = new ProcedureInvocation(++handle, "i1", new Integer(ii));
+                    callbacks[ii] = counter;
+                }
+                assertTrue(dist.queueBatch(invocations, callbacks, true));
+            }
+            dist.drain();
+
+            // one frame per batch, one batch per connection, and every
+            // invocation answered on its own callback
+            assertEquals(1, volt0.handler.batchFrames.get());
+            assertEquals(1, volt1.handler.batchFrames.get());
+            assertEquals(5, volt0.handler.batchedInvocations.get());
+            assertEquals(5, volt1.handler.batchedInvocations.get());
+            assertEquals(10, successes.get());
+
+            // a failure on the batch's own handle fails each of its invocations
+            volt0.handler.failBatches.set(true);
+            volt1.handler.failBatches.set(true);
+            final AtomicInteger failures = new AtomicInteger();
+            ProcedureInvocation invocations[] = new ProcedureInvocation[3];
+            ProcedureCallback callbacks[] = new ProcedureCallback[3];
+            for (int ii = 0; ii < 3; ii++) {
+                invocations[ii] = new ProcedureInvocation(++handle, "i1", new Integer(ii));
+                callbacks[ii] = new ProcedureCallback() {
+                    @Override
+                    public void clientCallback(ClientResponse clientResponse) {
+                        if (clientResponse.getStatus() == ClientResponse.GRACEFUL_FAILURE) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                };
+            }
+            assertTrue(dist.queueBatch(invocations, callbacks, true));
+            dist.drain();
+            assertEquals(3, volt0.handler.batchFrames.get() + volt1.handler.batchFrames.get());
+            assertEquals(3, failures.get());
+            assertEquals(10, successes.get());
+        }
+        finally {
+            if (volt0 != null) {
+                volt0.shutdown();
+                volt0.join();
+            }
+            if (volt1 != null) {
+                volt1.shutdown();
+                volt1.join();
+            }
+        }
+    }
+
+    /**
+     * With client affinity a batch is split by partition, each group going to
+     * its partition's master as one frame, and what can't be routed goes
+     * out together as one more frame.
+     */
+    @Test
+    public void testQueueBatchGroupsByPartition() throws Exception {
+        MockVolt volt0 = null, volt1 = null;
+        try {
+            volt0 = new MockVolt(20012);
+            volt0.describeAffinity = true;
+            volt0.start();
+            volt1 = new MockVolt(20013);
+            volt1.hostId = 1;
+            volt1.describeAffinity = true;
+            volt1.start();
+
+            Distributer dist = new Distributer(false,
+                    ClientConfig.DEFAULT_PROCEDURE_TIMOUT_MS,
+                    ClientConfig.DEFAULT_CONNECTION_TIMOUT_MS,
+                    true);
+            dist.createConnection("localhost", "", "", 20012);
+            dist.createConnection("localhost", "", "", 20013);
+            // wait for the topology and procedure partitioning
+            dist.drain();
+
+            int handle = 0;
+            ProcedureInvocation invocations[] = new ProcedureInvocation[8];
+            ProcedureCallback callbacks[] = new ProcedureCallback[8];
+            for (int ii = 0; ii < 6; ii++) {
+                invocations[ii] = new ProcedureInvocation(++handle, "sp", new Integer(ii));
+                callbacks[ii] = new ProcCallback();
+            }
+            for (int ii = 6; ii < 8; ii++) {
+                invocations[ii] = new ProcedureInvocation(++handle, "mp", new Integer(ii));
+                callbacks[ii] = new ProcCallback();
+            }
+            assertTrue(dist.queueBatch(invocations, callbacks, true));
+            dist.drain();
+
+            // the legacy hashinator puts even keys on partition 0 (host 0) and
+            // odd keys on partition 1 (host 1)
+            assertEquals(3, volt0.handler.batchFrames.get() + volt1.handler.batchFrames.get());
+            assertEquals(8, volt0.handler.batchedInvocations.get() + volt1.handler.batchedInvocations.get());
+            assertTrue(volt0.handler.batchedProcedures.containsAll(Arrays.asList("sp0", "sp2", "sp4")));
+            assertTrue(volt1.handler.batchedProcedures.containsAll(Arrays.asList("sp1", "sp3", "sp5")));
+            assertFalse(volt0.handler.batchedProcedures.contains("sp1"));
+            assertFalse(volt1.handler.batchedProcedures.contains("sp0"));
+            // both multi-partition invocations share one frame
+            MockInputHandler mpHost = volt0.handler.batchedProcedures.contains("mp6") ? volt0.handler : volt1.handler;
+            assertEquals(2, mpHost.batchFrames.get());
+            assertTrue(mpHost.batchedProcedures.contains("mp7"));
+        }
+        finally {
+            if (volt0 != null) {
+                volt0.shutdown();
+                volt0.join();
+            }
+            if (volt1 != null) {
+                volt1.shutdown();
+                volt1.join();
+            }
+        }
+    }
+
     public void testUnresolvedHost() throws IOException {
         final String hostname = "doesnotexist";
         boolean threwException = false;
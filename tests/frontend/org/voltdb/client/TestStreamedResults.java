@@ -0,0 +1,127 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package org.voltdb.client;
+
+import java.lang.reflect.Method;
+
+import junit.framework.TestCase;
+
+import org.voltcore.network.MockConnection;
+import org.voltdb.ClientResponseImpl;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltType;
+
+public class TestStreamedResults extends TestCase {
+
+    static class PausingConnection extends MockConnection {
+        boolean m_reading = true;
+
+        @Override
+        public void disableReadSelection() {
+            m_reading = false;
+        }
+
+        @Override
+        public void enableReadSelection() {
+            m_reading = true;
+        }
+    }
+
+    private static VoltTable rows(long... ids) {
+        VoltTable t = new VoltTable(new VoltTable.ColumnInfo("ID", VoltType.BIGINT));
+        for (long id : ids) {
+            t.addRow(id);
+        }
+        return t;
+    }
+
+    private static ClientResponseImpl chunk(int tableIndex, VoltTable rows) throws Exception {
+        // chunks are only built by the server
+        Method resultChunk = ClientResponseImpl.class.getDeclaredMethod(
+                "resultChunk", long.class, int.class, VoltTable.class);
+        resultChunk.setAccessible(true);
+        return (ClientResponseImpl) resultChunk.invoke(null, 1L, tableIndex, rows);
+    }
+
+    public void testChunksThenResponse() throws Exception {
+        PausingConnection c = new PausingConnection();
+        StreamedResults results = new StreamedResults();
+        for (int ii = 0; ii < StreamedResults.MAX_BUFFERED_CHUNKS; ii++) {
+            results.receiver().chunkReceived(chunk(ii / 2, rows(ii)), c);
+        }
+        assertNull(results.waitForFirstMessage());
+        // the application fell behind
+        assertFalse(c.m_reading);
+
+        for (int ii = 0; ii < StreamedResults.MAX_BUFFERED_CHUNKS; ii++) {
+            assertTrue(results.hasNext());
+            VoltTable t = results.next();
+            assertEquals(ii / 2, results.getTableIndex());
+            assertEquals(ii, t.fetchRow(0).getLong(0));
+        }
+        assertTrue(c.m_reading);
+
+        results.receiver().clientCallback(new ClientResponseImpl(
+                ClientResponse.SUCCESS, new VoltTable[] { rows(), rows() }, null));
+        assertFalse(results.hasNext());
+        assertEquals(ClientResponse.SUCCESS, results.getResponse().getStatus());
+    }
+
+    public void testUnstreamedResponse() throws Exception {
+        StreamedResults results = new StreamedResults();
+        ClientResponseImpl response = new ClientResponseImpl(
+                ClientResponse.SUCCESS, new VoltTable[] { rows(1, 2), rows(), rows(3) }, null);
+        results.receiver().clientCallback(response);
+        assertSame(response, results.waitForFirstMessage());
+
+        assertEquals(2, results.next().getRowCount());
+        assertEquals(0, results.getTableIndex());
+        assertEquals(1, results.next().getRowCount());
+        assertEquals(2, results.getTableIndex());
+        assertFalse(results.hasNext());
+    }
+
+    public void testCutShortAndClose() throws Exception {
+        PausingConnection c = new PausingConnection();
+        StreamedResults results = new StreamedResults();
+        results.receiver().chunkReceived(chunk(0, rows(1)), c);
+        results.receiver().clientCallback(new ClientResponseImpl(
+                ClientResponse.CONNECTION_LOST, new VoltTable[0], "lost"));
+        results.next();
+        try {
+            results.hasNext();
+            fail();
+        } catch (IllegalStateException e) {}
+
+        results = new StreamedResults();
+        for (int ii = 0; ii < StreamedResults.MAX_BUFFERED_CHUNKS; ii++) {
+            results.receiver().chunkReceived(chunk(0, rows(ii)), c);
+        }
+        assertFalse(c.m_reading);
+        results.close();
+        assertTrue(c.m_reading);
+        assertFalse(results.hasNext());
+    }
+}
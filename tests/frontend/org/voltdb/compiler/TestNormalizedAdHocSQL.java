@@ -0,0 +1,96 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.compiler;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class TestNormalizedAdHocSQL extends TestCase {
+
+    public void testLiteralsOnlyDiffer() {
+        NormalizedAdHocSQL a = NormalizedAdHocSQL.normalize(
+                "select * from T where A = 1 and B = 'x' and C > 2.5");
+        NormalizedAdHocSQL b = NormalizedAdHocSQL.normalize(
+                "SELECT *\n  FROM t -- trailing comment\n WHERE a=17 AND b = 'it''s' /* c */ AND c>1e3");
+        assertEquals("SELECT * FROM T WHERE A = ?I AND B = ?S AND C > ?D", a.key);
+        assertTrue(Arrays.equals(new String[] { "1", "x", "2.5" }, a.literals));
+        assertTrue(Arrays.equals(new String[] { "17", "it's", "1e3" }, b.literals));
+        // float and decimal literals don't share a key
+        assertFalse(a.key.equals(b.key));
+        assertEquals(a.key, NormalizedAdHocSQL.normalize(
+                "select * from T where A = 2 and B = 'y' and C > 0.1").key);
+    }
+
+    public void testTokenBoundariesKept() {
+        assertFalse(NormalizedAdHocSQL.normalize("select * from T where A <= 1").key.equals(
+                    NormalizedAdHocSQL.normalize("select * from T where A < = 1").key));
+        assertFalse(NormalizedAdHocSQL.normalize("select * from T where A = 1").key.equals(
+                    NormalizedAdHocSQL.normalize("select * from T where A = 10000000000").key));
+        // quoted identifiers keep their case
+        assertEquals("SELECT \"a\" FROM T WHERE B = ?S",
+                     NormalizedAdHocSQL.normalize("select \"a\" from t where b = 'q'").key);
+    }
+
+    public void testNotNormalized() {
+        // no literals
+        assertNull(NormalizedAdHocSQL.normalize("select * from T"));
+        // user parameters
+        assertNull(NormalizedAdHocSQL.normalize("select * from T where A = ? and B = 1"));
+        // hex literals, unterminated quotes and comments
+        assertNull(NormalizedAdHocSQL.normalize("select * from T where V = X'00'"));
+        assertNull(NormalizedAdHocSQL.normalize("select * from T where B = 'x"));
+        assertNull(NormalizedAdHocSQL.normalize("select * from T where A = 1 /* oops"));
+        assertNull(NormalizedAdHocSQL.normalize("select * from T where A = 1x"));
+    }
+
+    public void testParameterOrderCheckedOnEveryParse() {
+        AdHocCompilerCache cache = new AdHocCompilerCache(10, 10);
+        NormalizedAdHocSQL first = NormalizedAdHocSQL.normalize("select * from T where A = 1 and B = 2");
+
+        // repeated or unmatched literals can't be traced to parameters
+        cache.putNormalized(NormalizedAdHocSQL.normalize("select * from T where A = 1 and B = 1"),
+                            "token", new String[] { "1", "1" });
+        assertNull(cache.getWithNormalizedSQL(first.key));
+        cache.putNormalized(first, "token", new String[] { "2", "3" });
+        assertNull(cache.getWithNormalizedSQL(first.key));
+
+        cache.putNormalized(first, "token", new String[] { "2", "1" });
+        AdHocCompilerCache.NormalizedStatement known = cache.getWithNormalizedSQL(first.key);
+        assertTrue(known.isUsable());
+        assertTrue(Arrays.equals(new String[] { "4", "3" }, known.bindLiterals(new String[] { "3", "4" })));
+
+        // a parse with repeated literals that fits the known order keeps it
+        cache.putNormalized(NormalizedAdHocSQL.normalize("select * from T where A = 5 and B = 5"),
+                            "token", new String[] { "5", "5" });
+        assertTrue(cache.getWithNormalizedSQL(first.key).isUsable());
+
+        // a parse that binds the literals in another order makes the statement unusable
+        cache.putNormalized(NormalizedAdHocSQL.normalize("select * from T where A = 6 and B = 7"),
+                            "token", new String[] { "6", "7" });
+        assertFalse(cache.getWithNormalizedSQL(first.key).isUsable());
+        cache.putNormalized(first, "token", new String[] { "2", "1" });
+        assertFalse(cache.getWithNormalizedSQL(first.key).isUsable());
+    }
+}
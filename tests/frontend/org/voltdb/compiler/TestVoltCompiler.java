@@ -2571,6 +2571,53 @@ public class TestVoltCompiler extends TestCase {
                 );
     }
 
+    public void testGoodDictionaryEncode() throws Exception {
+        Database db;
+
+        db = goodDDLAgainstSimpleSchema(
+                "create table d1 (id integer, f1 varchar(200), f2 varchar(200), f3 varchar(16));",
+                "dictionary encode table d1 on column f1;",
+                "DiCtIoNaRy EnCoDe TaBlE D1 oN cOlUmN F3;"
+                );
+        Table t = db.getTables().getIgnoreCase("d1");
+        assertTrue(t.getColumns().getIgnoreCase("f1").getDictionaryencoded());
+        assertFalse(t.getColumns().getIgnoreCase("f2").getDictionaryencoded());
+        assertTrue(t.getColumns().getIgnoreCase("f3").getDictionaryencoded());
+    }
+
+    public void testBadDictionaryEncode() throws Exception {
+
+        badDDLAgainstSimpleSchema(".+DICTIONARY ENCODE has unknown TABLE.*",
+                "dictionary encode table non_existant on column f1;"
+                );
+
+        badDDLAgainstSimpleSchema(".+DICTIONARY ENCODE has unknown COLUMN.*",
+                "create table d1 (id integer, f1 varchar(200));",
+                "dictionary encode table d1 on column non_existant;"
+                );
+
+        badDDLAgainstSimpleSchema(".+Only VARCHAR columns can be dictionary encoded.*",
+                "create table d1 (id integer, f1 varchar(200));",
+                "dictionary encode table d1 on column id;"
+                );
+
+        badDDLAgainstSimpleSchema(".+Invalid DICTIONARY ENCODE statement.*",
+                "create table d1 (id integer, f1 varchar(200));",
+                "dictionary encode table d1 column f1;"
+                );
+
+        badDDLAgainstSimpleSchema(".+Invalid DICTIONARY ENCODE statement.*",
+                "create table d1 (id integer, f1 varchar(200), f2 varchar(200));",
+                "dictionary encode table d1 on column f1, f2;"
+                );
+
+        badDDLAgainstSimpleSchema(".+Column \"d1.F1\" is already dictionary encoded.*",
+                "create table d1 (id integer, f1 varchar(200));",
+                "dictionary encode table d1 on column f1;",
+                "dictionary encode table d1 on column F1;"
+                );
+    }
+
     public void testCompileFromDDL() throws IOException {
         final String simpleSchema1 =
             "create table table1r_el  (pkey integer, column2_integer integer, PRIMARY KEY(pkey));\n" +
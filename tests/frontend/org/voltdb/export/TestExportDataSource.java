@@ -34,6 +34,8 @@ import static org.voltdb.export.ExportMatchers.ackPayloadIs;
 import java.io.File;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -474,6 +476,66 @@ public class TestExportDataSource extends TestCase {
         assertEquals(MAGIC_TUPLE_SIZE * 10, m.m_data.remaining() - 4);
     }
 
+    public void testSubscribe() throws Exception
+    {
+        VoltDB.replaceVoltDBInstanceForTest(m_mockVoltDB);
+        Table table = m_mockVoltDB.getCatalogContext().database.getTables().get("TableName");
+        ExportDataSource s = new ExportDataSource(
+                                            Mockito.mock(Runnable.class),
+                                            "database",
+                                            table.getTypeName(),
+                                            m_part,
+                                            m_site,
+                                            table.getSignature(),
+                                            0,
+                                            table.getColumns(),
+                                            "/tmp"
+                                            );
+
+        final List<ExportProtoMessage> pushed = new ArrayList<ExportProtoMessage>();
+        ExportStateBlock esb = new ExportStateBlock() {
+            @Override
+            public void event(ExportProtoMessage m) {
+                pushed.add(m);
+            }
+        };
+
+        // the window fits two blocks
+        ExportProtoMessage m = new ExportProtoMessage( 0, m_part, table.getSignature());
+        m.subscribe(MAGIC_TUPLE_SIZE * 2);
+        s.exportAction(new ExportInternalMessage(esb, m)).get();
+        assertTrue(pushed.isEmpty());
+        assertTrue(s.isSubscribed());
+
+        for (int ii = 0; ii < 4; ii++) {
+            s.pushExportBuffer(MAGIC_TUPLE_SIZE * ii, 0, ByteBuffer.allocate(MAGIC_TUPLE_SIZE), false, false);
+        }
+        // waits for the pushes to be processed
+        s.sizeInBytes();
+        assertEquals(2, pushed.size());
+        assertEquals(MAGIC_TUPLE_SIZE, pushed.get(0).getAckOffset());
+        assertEquals(MAGIC_TUPLE_SIZE * 2, pushed.get(1).getAckOffset());
+        assertEquals(MAGIC_TUPLE_SIZE * 2, s.getUnackedBytes());
+
+        // one cumulative ack makes room for the rest
+        m = new ExportProtoMessage( 0, m_part, table.getSignature());
+        m.ack(MAGIC_TUPLE_SIZE * 2);
+        s.exportAction(new ExportInternalMessage(esb, m)).get();
+        assertEquals(4, pushed.size());
+        assertEquals(MAGIC_TUPLE_SIZE * 4, pushed.get(3).getAckOffset());
+        assertEquals(MAGIC_TUPLE_SIZE * 2, s.getUnackedBytes());
+        assertTrue(s.getPendingBytes() >= MAGIC_TUPLE_SIZE * 2);
+
+        // after closing, nothing more is pushed
+        m = new ExportProtoMessage( 0, m_part, table.getSignature());
+        m.close();
+        s.exportAction(new ExportInternalMessage(esb, m)).get();
+        assertFalse(s.isSubscribed());
+        s.pushExportBuffer(MAGIC_TUPLE_SIZE * 4, 0, ByteBuffer.allocate(MAGIC_TUPLE_SIZE), false, false);
+        s.sizeInBytes();
+        assertEquals(4, pushed.size());
+    }
+
     /**
      * Test that attempting to release uncommitted bytes only releases what
      * is committed
@@ -103,6 +103,22 @@ public class TestExportProtoMessage extends TestCase {
         assertMsgType(m, ExportProtoMessage.kError);
     }
 
+    public void testIsSubscribe() throws IOException {
+        ExportProtoMessage m = new ExportProtoMessage( 0, 1, "foo");
+        m.subscribe(4096).ack(1024);
+        assertTrue(m.isSubscribe());
+        assertTrue(m.isAck());
+        assertEquals(4096, m.getWindowBytes());
+        assertMsgType(m, ExportProtoMessage.kSubscribe | ExportProtoMessage.kAck);
+
+        ByteBuffer b = m.toBuffer();
+        b.getInt();
+        ExportProtoMessage m2 = ExportProtoMessage.readExternal(new FastDeserializer(b));
+        assertTrue(m2.isSubscribe());
+        assertEquals(4096, m2.getWindowBytes());
+        assertEquals(1024, m2.getAckOffset());
+    }
+
     // also tests toBuffer, serializableBytes()
     // serialize with bytebuffer data
     public void testReadExternal1() throws IOException {
@@ -0,0 +1,209 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.exportclient;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.TimeZone;
+
+import junit.framework.TestCase;
+
+import org.voltdb.VoltDB;
+import org.voltdb.VoltType;
+import org.voltdb.exportclient.ExportToFileClient.BinaryEncoding;
+import org.voltdb.utils.Encoder;
+
+import au.com.bytecode.opencsv_voltpatches.CSVWriter;
+
+public class TestDelimitedRowFormatter extends TestCase {
+
+    static final VoltType[] TYPES = {
+        VoltType.TINYINT, VoltType.SMALLINT, VoltType.INTEGER, VoltType.BIGINT,
+        VoltType.FLOAT, VoltType.TIMESTAMP, VoltType.STRING, VoltType.VARBINARY,
+        VoltType.DECIMAL
+    };
+
+    static final TimeZone TZ = TimeZone.getTimeZone("America/New_York");
+
+    static final Object[][] ROWS = {
+        { (byte) 1, (short) -2, 3, Long.MIN_VALUE, 1.5, 1357000000123456L,
+          "plain", new byte[] { 0, (byte) 0xAB }, new BigDecimal("12.500000000000") },
+        { (byte) -128, (short) 32767, Integer.MIN_VALUE, Long.MAX_VALUE, -1.0E-10, -1001L,
+          "say \"hi\", \u00e9t\u00e9", new byte[0], new BigDecimal("-0.000000000012") },
+        { null, null, null, null, null, null, null, null, null },
+        { (byte) 0, (short) 0, 0, 0L, 0.0, 0L,
+          "", new byte[] { 1 }, new BigDecimal("0.000000000000") },
+        { (byte) 7, (short) 7, 7, 7L, Double.NaN, 999L,
+          "back\\slash", new byte[] { 2 }, new BigDecimal("0.123456000000") },
+    };
+
+    static ArrayList<VoltType> schema() {
+        return new ArrayList<VoltType>(Arrays.asList(TYPES));
+    }
+
+    /**
+     * A row in the export encoding, null flags first.
+     */
+    static byte[] encode(Object[] values) {
+        ByteBuffer buf = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] nullFlags = new byte[(values.length + 7) / 8];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                nullFlags[i >> 3] |= (byte) (0x80 >>> (i % 8));
+            }
+        }
+        buf.put(nullFlags);
+        for (int i = 0; i < values.length; i++) {
+            Object v = values[i];
+            if (v == null) {
+                continue;
+            }
+            switch (TYPES[i]) {
+            case FLOAT:
+                buf.putDouble((Double) v);
+                break;
+            case STRING:
+                byte[] s = ((String) v).getBytes(VoltDB.UTF8ENCODING);
+                buf.putInt(s.length).put(s);
+                break;
+            case VARBINARY:
+                buf.putInt(((byte[]) v).length).put((byte[]) v);
+                break;
+            case DECIMAL:
+                byte[] d = ((BigDecimal) v).toPlainString().getBytes(VoltDB.UTF8ENCODING);
+                buf.putInt(d.length).put(d);
+                break;
+            default:
+                buf.putLong(((Number) v).longValue());
+            }
+        }
+        return Arrays.copyOf(buf.array(), buf.position());
+    }
+
+    /**
+     * The fields the file client used to build from decoded rows.
+     */
+    static String[] fields(Object[] values, int firstField, BinaryEncoding be) {
+        SimpleDateFormat sdf = new SimpleDateFormat(VoltDB.ODBC_DATE_FORMAT_STRING);
+        sdf.setTimeZone(TZ);
+        String[] fields = new String[values.length - firstField];
+        for (int i = firstField; i < values.length; i++) {
+            Object v = values[i];
+            String field;
+            if (v == null) {
+                field = "NULL";
+            } else if (TYPES[i] == VoltType.VARBINARY) {
+                field = be == BinaryEncoding.HEX ?
+                        Encoder.hexEncode((byte[]) v) : Encoder.base64Encode((byte[]) v);
+            } else if (TYPES[i] == VoltType.TIMESTAMP) {
+                long micros = (Long) v;
+                field = sdf.format(new Date((micros - micros % 1000) / 1000));
+            } else if (TYPES[i] == VoltType.DECIMAL) {
+                field = new BigDecimal(((BigDecimal) v).toPlainString()).toString();
+            } else {
+                field = v.toString();
+            }
+            fields[i - firstField] = field;
+        }
+        return fields;
+    }
+
+    static String format(DelimitedRowFormatter formatter, Object[] values) throws Exception {
+        byte[] row = encode(values);
+        // surround the row to check the formatter stays inside it
+        ByteBuffer block = ByteBuffer.allocate(row.length + 8).order(ByteOrder.LITTLE_ENDIAN);
+        block.putInt(42).put(row).putInt(43);
+        block.position(4);
+        ByteBuffer dst = ByteBuffer.allocateDirect(formatter.maxFormattedSize(row.length));
+        formatter.format(block, dst);
+        assertEquals(4 + row.length, block.position());
+        assertEquals(43, block.getInt());
+        dst.flip();
+        byte[] out = new byte[dst.remaining()];
+        dst.get(out);
+        return new String(out, VoltDB.UTF8ENCODING);
+    }
+
+    public void testMatchesCSVWriter() throws Exception {
+        for (BinaryEncoding be : BinaryEncoding.values()) {
+            for (int firstField = 0; firstField < 3; firstField++) {
+                DelimitedRowFormatter formatter = new DelimitedRowFormatter(schema(), firstField,
+                        ',', CSVWriter.DEFAULT_QUOTE_CHARACTER, CSVWriter.DEFAULT_ESCAPE_CHARACTER,
+                        CSVWriter.DEFAULT_LINE_END, null, be, TZ);
+                for (Object[] values : ROWS) {
+                    StringWriter expected = new StringWriter();
+                    CSVWriter writer = new CSVWriter(expected, ',');
+                    writer.writeNext(fields(values, firstField, be));
+                    writer.flush();
+                    assertEquals(expected.toString(), format(formatter, values));
+                }
+            }
+        }
+    }
+
+    public void testCustomDelimiters() throws Exception {
+        // a non-ASCII escape, no quoting and a custom line end
+        DelimitedRowFormatter formatter = new DelimitedRowFormatter(schema(), 0,
+                '|', CSVWriter.NO_QUOTE_CHARACTER, '\u00e9', "\r\n", null, BinaryEncoding.HEX, TZ);
+        for (Object[] values : ROWS) {
+            StringWriter expected = new StringWriter();
+            CSVWriter writer = new CSVWriter(expected, '|', CSVWriter.NO_QUOTE_CHARACTER, '\u00e9', "\r\n");
+            writer.writeNext(fields(values, 0, BinaryEncoding.HEX));
+            writer.flush();
+            assertEquals(expected.toString(), format(formatter, values));
+        }
+    }
+
+    public void testTSV() throws Exception {
+        DelimitedRowFormatter formatter = new DelimitedRowFormatter(schema(), 6,
+                '\t', CSVWriter.NO_QUOTE_CHARACTER, '\\', CSVWriter.DEFAULT_LINE_END,
+                new char[] { '\r', '\n' }, BinaryEncoding.HEX, TZ);
+        Object[] values = ROWS[0].clone();
+        values[6] = "two\nlines\tand a \\";
+        assertEquals("two\\\nlines\tand a \\\\\t00AB\t12.500000000000\n", format(formatter, values));
+    }
+
+    public void testSecondBoundaries() throws Exception {
+        DelimitedRowFormatter formatter = new DelimitedRowFormatter(schema(), 5,
+                ',', CSVWriter.NO_QUOTE_CHARACTER, CSVWriter.NO_ESCAPE_CHARACTER,
+                CSVWriter.DEFAULT_LINE_END, null, BinaryEncoding.HEX, TimeZone.getTimeZone("GMT"));
+        long[] micros = { 999999L, 1000000L, 1000999L, -1L, -999L, -1000L, -1000001L };
+        String[] expected = {
+            "1970-01-01 00:00:00.999", "1970-01-01 00:00:01.000", "1970-01-01 00:00:01.000",
+            "1970-01-01 00:00:00.000", "1970-01-01 00:00:00.000", "1969-12-31 23:59:59.999",
+            "1969-12-31 23:59:59.000"
+        };
+        for (int i = 0; i < micros.length; i++) {
+            Object[] values = ROWS[0].clone();
+            values[5] = micros[i];
+            assertEquals(expected[i] + ",plain,00AB,12.500000000000\n", format(formatter, values));
+        }
+    }
+}
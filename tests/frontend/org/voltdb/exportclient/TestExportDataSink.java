@@ -108,4 +108,55 @@ public class TestExportDataSink extends TestCase {
         assertTrue(m.isAck());
         assertEquals(m.getAckOffset(), 10);
     }
+
+    public void testWindowedStream()
+    {
+        String CONN_NAME = "active";
+        String REPLICA_NAME = "replica";
+        ExportDataSink dut =
+            new ExportDataSink( 0, PARTITION_ID, TABLE_SIGNATURE, "coffeetable",
+                           new TestExportDecoder(new AdvertisedDataSource(PARTITION_ID,
+                                                                          TABLE_SIGNATURE,
+                                                                          "coffeetable", 0, 32,
+                                                                          null, null, null)),
+                           1024);
+        dut.addExportConnection(CONN_NAME, 0);
+        dut.addExportConnection(REPLICA_NAME, 1);
+        dut.work();
+        ExportProtoMessage m = dut.getTxQueue(CONN_NAME).poll();
+        assertTrue(m.isSubscribe());
+        assertFalse(m.isPoll());
+        assertEquals(1024, m.getWindowBytes());
+        assertEquals(Long.MIN_VALUE, m.getAckOffset());
+        assertNull(dut.getTxQueue(CONN_NAME).poll());
+        assertNull(dut.getTxQueue(REPLICA_NAME).poll());
+
+        // nothing is sent while no data arrives
+        dut.work();
+        assertNull(dut.getTxQueue(CONN_NAME).poll());
+
+        // several pushed blocks are acked together, on every connection
+        m = new ExportProtoMessage( 0, PARTITION_ID, TABLE_SIGNATURE);
+        m.pollResponse(10, makeFakePollData(10));
+        dut.getRxQueue(CONN_NAME).offer(m);
+        m = new ExportProtoMessage( 0, PARTITION_ID, TABLE_SIGNATURE);
+        m.pollResponse(30, makeFakePollData(20));
+        dut.getRxQueue(CONN_NAME).offer(m);
+        dut.work();
+        for (String name : new String[] { CONN_NAME, REPLICA_NAME }) {
+            m = dut.getTxQueue(name).poll();
+            assertTrue(m.isAck());
+            assertFalse(m.isPoll());
+            assertEquals(30, m.getAckOffset());
+            assertNull(dut.getTxQueue(name).poll());
+        }
+
+        // a reconnected sink subscribes again from the last ack
+        dut.connectionClosed();
+        dut.addExportConnection(CONN_NAME, 0);
+        dut.work();
+        m = dut.getTxQueue(CONN_NAME).poll();
+        assertTrue(m.isSubscribe());
+        assertEquals(30, m.getAckOffset());
+    }
 }
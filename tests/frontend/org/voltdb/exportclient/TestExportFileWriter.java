@@ -0,0 +1,104 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.exportclient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import junit.framework.TestCase;
+
+public class TestExportFileWriter extends TestCase {
+
+    File m_file;
+
+    @Override
+    public void setUp() throws IOException {
+        m_file = File.createTempFile("TestExportFileWriter", ".csv");
+    }
+
+    @Override
+    public void tearDown() {
+        m_file.delete();
+    }
+
+    static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            out.write(chunk, 0, read);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes chunks of random sizes, some bigger than a buffer, flushing now
+     * and then, and returns what the file should hold.
+     */
+    static byte[] writeChunks(ExportFileWriter writer) throws IOException {
+        Random r = new Random(0);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int i = 0; i < 200; i++) {
+            int size = i % 50 == 7 ?
+                    ExportFileWriter.BUFFER_SIZE + r.nextInt(1000) : r.nextInt(64 * 1024);
+            byte[] chunk = new byte[size];
+            r.nextBytes(chunk);
+            ByteBuffer buf = writer.buffer(size);
+            assertTrue(buf.remaining() >= size);
+            buf.put(chunk);
+            expected.write(chunk);
+            if (i % 30 == 0) {
+                writer.flush();
+            }
+        }
+        return expected.toByteArray();
+    }
+
+    public void testWrite() throws Exception {
+        ExportFileWriter writer = new ExportFileWriter(m_file, false);
+        byte[] expected = writeChunks(writer);
+        writer.flush();
+        assertEquals(expected.length, m_file.length());
+        writer.close();
+        writer.close();
+        assertTrue(Arrays.equals(expected, readAll(new FileInputStream(m_file))));
+    }
+
+    public void testCompressedWrite() throws Exception {
+        ExportFileWriter writer = new ExportFileWriter(m_file, true);
+        byte[] expected = writeChunks(writer);
+        writer.close();
+        assertTrue(m_file.length() < expected.length + expected.length / 100);
+        assertTrue(Arrays.equals(expected,
+                   readAll(new GZIPInputStream(new FileInputStream(m_file)))));
+    }
+}
@@ -23,12 +23,230 @@
 
 package org.voltdb.iv2;
 
-import junit.framework.TestCase;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
-public class Iv2TestInitiatorMailbox extends TestCase {
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.zookeeper_voltpatches.ZooKeeper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.voltcore.messaging.HostMessenger;
+import org.voltcore.messaging.VoltMessage;
+import org.voltcore.zk.ZKTestBase;
+import org.voltdb.VoltDB;
+import org.voltdb.VoltDBInterface;
+import org.voltdb.VoltZK;
+import org.voltdb.messaging.InitiateResponseMessage;
+import org.voltdb.messaging.Iv2InitiateTaskBatchMessage;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+import org.voltdb.messaging.Iv2ReplicationBatchMessage;
+
+public class Iv2TestInitiatorMailbox extends ZKTestBase {
+
+    static final long LEADER = 1L;
+    static final long REPLICA = 2L;
+    static final long OTHER_REPLICA = 3L;
+
+    HostMessenger m_hm;
+    VoltDBInterface m_voltdb;
+    Scheduler m_scheduler;
+    SiteTaskerQueue m_queue;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        setUpZK(1);
+        ZooKeeper zk = getClient(0);
+        VoltZK.createPersistentZKNodes(zk);
+        LeaderCache leaders = new LeaderCache(zk, VoltZK.iv2masters);
+        leaders.start(true);
+        leaders.put(0, LEADER);
+        leaders.shutdown();
+
+        m_hm = mock(HostMessenger.class);
+        when(m_hm.getZK()).thenReturn(m_messengers.get(0).getZK());
+        m_voltdb = mock(VoltDBInterface.class);
+        VoltDB.replaceVoltDBInstanceForTest(m_voltdb);
+
+        m_queue = new SiteTaskerQueue();
+        m_scheduler = mock(Scheduler.class);
+        when(m_scheduler.getQueue()).thenReturn(m_queue);
+        when(m_scheduler.sequenceForReplay(any(VoltMessage.class))).thenReturn(true);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        tearDownZK();
+    }
+
+    private InitiatorMailbox createMailbox(long hsId) throws InterruptedException
+    {
+        InitiatorMailbox mailbox =
+            new InitiatorMailbox(0, m_scheduler, m_hm, mock(RepairLog.class), null);
+        mailbox.setHSId(hsId);
+        // the leader cache loads in the background
+        Thread.sleep(500);
+        return mailbox;
+    }
+
+    /** Have the scheduler answer every delivery with a response to the leader */
+    private void respondToLeader(final InitiatorMailbox mailbox)
+    {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                mailbox.send(LEADER, new InitiateResponseMessage());
+                return null;
+            }
+        }).when(m_scheduler).deliver(any(VoltMessage.class));
+    }
+
+    private void deliverTasks(InitiatorMailbox mailbox, int count)
+    {
+        for (int i = 0; i < count; i++) {
+            mailbox.deliver(mock(Iv2InitiateTaskMessage.class));
+        }
+    }
+
+    private List<VoltMessage> sentTo(long hsId, int times)
+    {
+        ArgumentCaptor<VoltMessage> sent = ArgumentCaptor.forClass(VoltMessage.class);
+        verify(m_hm, times(times)).send(eq(hsId), sent.capture());
+        return sent.getAllValues();
+    }
+
+    @Test
     public void testWhereAreMyPants()
     {
         boolean pants = false;
         assertFalse(pants);
     }
+
+    @Test
+    public void testAcksSentWhenQueueIsEmpty() throws Exception
+    {
+        InitiatorMailbox mailbox = createMailbox(REPLICA);
+        respondToLeader(mailbox);
+
+        // nothing more to do, so each response goes out with its delivery
+        deliverTasks(mailbox, 2);
+        List<VoltMessage> sent = sentTo(LEADER, 2);
+        assertTrue(sent.get(0) instanceof InitiateResponseMessage);
+        assertTrue(sent.get(1) instanceof InitiateResponseMessage);
+        verify(m_voltdb, never()).scheduleWork(any(Runnable.class), anyLong(), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void testAcksHeldUntilDeadline() throws Exception
+    {
+        InitiatorMailbox mailbox = createMailbox(REPLICA);
+        respondToLeader(mailbox);
+        m_queue.offer(mock(SiteTasker.class));
+
+        // queued work will produce more responses, hold them and schedule one flush
+        deliverTasks(mailbox, 3);
+        verify(m_hm, never()).send(anyLong(), any(VoltMessage.class));
+        ArgumentCaptor<Runnable> flusher = ArgumentCaptor.forClass(Runnable.class);
+        verify(m_voltdb, times(1)).scheduleWork(flusher.capture(),
+                eq(InitiatorMailbox.ACK_FLUSH_DELAY_MICROS), eq(-1L), eq(TimeUnit.MICROSECONDS));
+
+        // the deadline flushes all three in one message
+        flusher.getValue().run();
+        List<VoltMessage> sent = sentTo(LEADER, 1);
+        assertEquals(3, ((Iv2ReplicationBatchMessage) sent.get(0)).getMessages().size());
+
+        // a flush with nothing pending sends nothing
+        flusher.getValue().run();
+        sentTo(LEADER, 1);
+    }
+
+    @Test
+    public void testAcksFlushedWhenBatchIsFull() throws Exception
+    {
+        InitiatorMailbox mailbox = createMailbox(REPLICA);
+        respondToLeader(mailbox);
+        m_queue.offer(mock(SiteTasker.class));
+
+        deliverTasks(mailbox, InitiatorMailbox.MAX_COALESCED_MESSAGES + 1);
+        List<VoltMessage> sent = sentTo(LEADER, 1);
+        assertEquals(InitiatorMailbox.MAX_COALESCED_MESSAGES,
+                     ((Iv2ReplicationBatchMessage) sent.get(0)).getMessages().size());
+    }
+
+    @Test
+    public void testOtherTrafficFlushesPendingAcks() throws Exception
+    {
+        final InitiatorMailbox mailbox = createMailbox(REPLICA);
+        respondToLeader(mailbox);
+        m_queue.offer(mock(SiteTasker.class));
+
+        deliverTasks(mailbox, 2);
+        verify(m_hm, never()).send(anyLong(), any(VoltMessage.class));
+
+        // a message that isn't coalesced goes out after what is pending for its destination
+        final VoltMessage other = mock(VoltMessage.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                mailbox.send(LEADER, other);
+                return null;
+            }
+        }).when(m_scheduler).deliver(any(VoltMessage.class));
+        mailbox.deliver(mock(Iv2InitiateTaskMessage.class));
+        List<VoltMessage> sent = sentTo(LEADER, 2);
+        assertEquals(2, ((Iv2ReplicationBatchMessage) sent.get(0)).getMessages().size());
+        assertTrue(sent.get(1) == other);
+    }
+
+    @Test
+    public void testLeaderForwardsBatchOncePerReplica() throws Exception
+    {
+        final InitiatorMailbox mailbox = createMailbox(LEADER);
+        mailbox.updateReplicas(Arrays.asList(REPLICA, OTHER_REPLICA));
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                mailbox.send(new long[] { REPLICA, OTHER_REPLICA },
+                             (VoltMessage) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(m_scheduler).deliver(any(VoltMessage.class));
+
+        List<Iv2InitiateTaskMessage> tasks = new ArrayList<Iv2InitiateTaskMessage>();
+        for (int i = 0; i < 5; i++) {
+            tasks.add(mock(Iv2InitiateTaskMessage.class));
+        }
+        mailbox.deliver(new Iv2InitiateTaskBatchMessage(tasks));
+
+        // forwarded work isn't held for the queue, it goes when the delivery ends
+        for (long replica : new long[] { REPLICA, OTHER_REPLICA }) {
+            List<VoltMessage> sent = sentTo(replica, 1);
+            assertEquals(tasks, ((Iv2ReplicationBatchMessage) sent.get(0)).getMessages());
+        }
+        verify(m_hm, never()).send(any(long[].class), any(VoltMessage.class));
+
+        // a single initiation is forwarded as is
+        mailbox.deliver(mock(Iv2InitiateTaskMessage.class));
+        List<VoltMessage> sent = sentTo(REPLICA, 2);
+        assertFalse(sent.get(1) instanceof Iv2ReplicationBatchMessage);
+    }
 }
@@ -0,0 +1,398 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package org.voltdb.jni;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.voltdb.CLIConfig;
+import org.voltdb.FragmentPlanSource;
+import org.voltdb.LegacyHashinator;
+import org.voltdb.ParameterSet;
+import org.voltdb.TheHashinator.HashinatorType;
+import org.voltdb.VoltDB;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltType;
+import org.voltdb.catalog.Catalog;
+import org.voltdb.catalog.Database;
+import org.voltdb.catalog.PlanFragment;
+import org.voltdb.catalog.Procedure;
+import org.voltdb.catalog.Statement;
+import org.voltdb.compiler.VoltProjectBuilder;
+import org.voltdb.utils.BuildDirectoryUtils;
+import org.voltdb.utils.CatalogUtil;
+import org.voltdb.utils.Encoder;
+
+/**
+ * Drives a single native execution engine directly, with no HostMessenger,
+ * initiators or sites, so that storage and executor changes can be measured
+ * without the noise of a running server. The catalog is compiled by
+ * VoltCompiler as usual and each workload executes the plan fragments of one
+ * single statement procedure through ExecutionEngineJNI, reporting fragment
+ * throughput, a latency histogram and the ThreadLocalPool allocations left
+ * behind by the run.
+ *
+ * Run with the native library on java.library.path, e.g.
+ * ant eebenchmark -Deebenchmark.args="--workloads=lookup,insert --iterations=500000"
+ */
+public class EEBenchmark implements FragmentPlanSource {
+
+    static final String SCHEMA =
+        "CREATE TABLE KV (" +
+        " ID BIGINT NOT NULL, GRP INTEGER NOT NULL, VAL VARCHAR(64), AMOUNT BIGINT," +
+        " PRIMARY KEY (ID));" +
+        "CREATE INDEX KV_GRP_ID ON KV (GRP, ID);" +
+        "CREATE TABLE EVENTS (" +
+        " ID BIGINT NOT NULL, GRP INTEGER NOT NULL, VAL VARCHAR(64), AMOUNT BIGINT," +
+        " PRIMARY KEY (ID));" +
+        "CREATE VIEW EVENTS_BY_GRP (GRP, EVENTS, TOTAL) AS" +
+        " SELECT GRP, COUNT(*), SUM(AMOUNT) FROM EVENTS GROUP BY GRP;" +
+        "CREATE TABLE BULK (" +
+        " ID BIGINT NOT NULL, GRP INTEGER NOT NULL, VAL VARCHAR(64), AMOUNT BIGINT," +
+        " PRIMARY KEY (ID));";
+
+    static class EEBenchmarkConfig extends CLIConfig {
+        @Option(desc = "Comma separated workloads: lookup, range, insert, matview, load.")
+        String workloads = "lookup,range,insert,matview,load";
+
+        @Option(desc = "Rows preloaded into KV before the read workloads.")
+        int rows = 100000;
+
+        @Option(desc = "Distinct GRP values.")
+        int groups = 100;
+
+        @Option(desc = "Rows returned by each range scan.")
+        int rangesize = 50;
+
+        @Option(desc = "Rows per loadTable call in the load workload.")
+        int batchsize = 1000;
+
+        @Option(desc = "Timed executions per workload, or rows for the load workload.")
+        int iterations = 200000;
+
+        @Option(desc = "Untimed executions per workload before timing starts, or rows for the load workload.")
+        int warmup = 20000;
+
+        @Override
+        public void validate() {
+            if (rows <= 0) exitWithMessageAndUsage("rows must be > 0");
+            if (groups <= 0) exitWithMessageAndUsage("groups must be > 0");
+            if (rangesize <= 0) exitWithMessageAndUsage("rangesize must be > 0");
+            if (batchsize <= 0) exitWithMessageAndUsage("batchsize must be > 0");
+            if (iterations <= 0) exitWithMessageAndUsage("iterations must be > 0");
+            if (warmup < 0) exitWithMessageAndUsage("warmup must be >= 0");
+        }
+    }
+
+    /**
+     * Latencies in power of two nanosecond buckets, which is plenty of
+     * resolution to compare two builds of the engine.
+     */
+    static class LatencyHistogram {
+        final long[] m_buckets = new long[64];
+        long m_count = 0;
+        long m_total = 0;
+        long m_max = 0;
+
+        void record(long nanos) {
+            m_buckets[64 - Long.numberOfLeadingZeros(Math.max(nanos, 1))]++;
+            m_count++;
+            m_total += nanos;
+            m_max = Math.max(m_max, nanos);
+        }
+
+        /** @return the upper bound of the bucket holding the given percentile */
+        long percentile(double pct) {
+            long target = (long) Math.ceil(m_count * pct / 100.0);
+            long seen = 0;
+            for (int ii = 0; ii < m_buckets.length; ii++) {
+                seen += m_buckets[ii];
+                if (seen >= target) {
+                    return Math.min(1L << ii, m_max);
+                }
+            }
+            return m_max;
+        }
+
+        String summary() {
+            return String.format("avg %,d ns, p50 <= %,d ns, p99 <= %,d ns, p99.9 <= %,d ns, max %,d ns",
+                    m_count == 0 ? 0 : m_total / m_count,
+                    percentile(50), percentile(99), percentile(99.9), m_max);
+        }
+
+        String buckets() {
+            StringBuilder sb = new StringBuilder();
+            for (int ii = 0; ii < m_buckets.length; ii++) {
+                if (m_buckets[ii] > 0) {
+                    sb.append(String.format("    <= %,14d ns: %,d%n", 1L << ii, m_buckets[ii]));
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    /** The fragments of one statement, with the ids they were registered under */
+    static class Fragments {
+        final String name;
+        final long[] fragmentIds;
+        final long[] inputDepIds;
+
+        Fragments(String name, long[] fragmentIds) {
+            this.name = name;
+            this.fragmentIds = fragmentIds;
+            this.inputDepIds = new long[fragmentIds.length];
+        }
+    }
+
+    final EEBenchmarkConfig m_config;
+    final Random m_random = new Random(0);
+    final Map<Long, byte[]> m_plansById = new HashMap<Long, byte[]>();
+    final Map<String, Fragments> m_statements = new HashMap<String, Fragments>();
+    Catalog m_catalog;
+    ExecutionEngine m_ee;
+    long m_nextFragId = 1;
+    long m_txnId = 1;
+    long m_nextKey = 0;
+
+    EEBenchmark(EEBenchmarkConfig config) {
+        m_config = config;
+    }
+
+    @Override
+    public byte[] planForFragmentId(long fragmentId) {
+        return m_plansById.get(fragmentId);
+    }
+
+    void compileCatalog() throws Exception {
+        VoltProjectBuilder project = new VoltProjectBuilder();
+        project.addLiteralSchema(SCHEMA);
+        project.addPartitionInfo("KV", "ID");
+        project.addPartitionInfo("EVENTS", "ID");
+        project.addPartitionInfo("BULK", "ID");
+        project.addStmtProcedure("Lookup", "SELECT VAL, AMOUNT FROM KV WHERE ID = ?;", "KV.ID: 0");
+        project.addStmtProcedure("Range",
+                "SELECT ID, VAL FROM KV WHERE GRP = ? AND ID >= ? ORDER BY GRP, ID LIMIT " +
+                m_config.rangesize + ";", "KV.ID: 1");
+        project.addStmtProcedure("Insert", "INSERT INTO KV VALUES (?, ?, ?, ?);", "KV.ID: 0");
+        project.addStmtProcedure("MatView", "INSERT INTO EVENTS VALUES (?, ?, ?, ?);", "EVENTS.ID: 0");
+
+        String jarPath = BuildDirectoryUtils.getBuildDirectoryPath() + File.separator + "eebenchmark.jar";
+        if (!project.compile(jarPath, 1, 0)) {
+            throw new RuntimeException("Failed to compile the benchmark catalog");
+        }
+        String serializedCatalog =
+            CatalogUtil.loadCatalogFromJar(CatalogUtil.toBytes(new File(jarPath)), null);
+        m_catalog = new Catalog();
+        m_catalog.execute(serializedCatalog);
+
+        // register every fragment the way a site would, keyed by a local id
+        for (Procedure proc : database().getProcedures()) {
+            for (Statement stmt : proc.getStatements()) {
+                List<Long> ids = new ArrayList<Long>();
+                for (PlanFragment frag : stmt.getFragments()) {
+                    long id = m_nextFragId++;
+                    m_plansById.put(id, Encoder.base64Decode(frag.getPlannodetree()));
+                    ids.add(id);
+                }
+                long[] fragmentIds = new long[ids.size()];
+                for (int ii = 0; ii < fragmentIds.length; ii++) {
+                    fragmentIds[ii] = ids.get(ii);
+                }
+                m_statements.put(proc.getTypeName(), new Fragments(proc.getTypeName(), fragmentIds));
+            }
+        }
+    }
+
+    Database database() {
+        return m_catalog.getClusters().get("cluster").getDatabases().get("database");
+    }
+
+    int tableId(String name) {
+        return database().getTables().get(name).getRelativeIndex();
+    }
+
+    VoltTable[] execute(Fragments stmt, Object... params) {
+        final long txnId = m_txnId++;
+        final Object[] paramSets = new Object[stmt.fragmentIds.length];
+        final ParameterSet ps = ParameterSet.fromArrayNoCopy(params);
+        for (int ii = 0; ii < paramSets.length; ii++) {
+            paramSets[ii] = ps;
+        }
+        VoltTable[] results = m_ee.executePlanFragments(stmt.fragmentIds.length,
+                stmt.fragmentIds, stmt.inputDepIds, paramSets,
+                txnId, txnId - 1, txnId, txnId);
+        m_ee.releaseUndoToken(txnId);
+        return results;
+    }
+
+    VoltTable newRows() {
+        return new VoltTable(
+                new VoltTable.ColumnInfo("ID", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("GRP", VoltType.INTEGER),
+                new VoltTable.ColumnInfo("VAL", VoltType.STRING),
+                new VoltTable.ColumnInfo("AMOUNT", VoltType.BIGINT));
+    }
+
+    void addRow(VoltTable table, long id) {
+        table.addRow(id, (int) (id % m_config.groups), "value" + id, id);
+    }
+
+    void preload() {
+        final int kvId = tableId("KV");
+        VoltTable rows = newRows();
+        for (long id = 0; id < m_config.rows; id++) {
+            addRow(rows, id);
+            if (rows.getRowCount() == 10000) {
+                m_ee.loadTable(kvId, rows, 0, 0);
+                rows = newRows();
+            }
+        }
+        if (rows.getRowCount() > 0) {
+            m_ee.loadTable(kvId, rows, 0, 0);
+        }
+        m_nextKey = m_config.rows;
+    }
+
+    /** One execution of a workload, returning the number of rows it touched */
+    interface Step {
+        int run();
+    }
+
+    Step step(String workload) {
+        if (workload.equals("lookup")) {
+            final Fragments stmt = m_statements.get("Lookup");
+            return new Step() {
+                @Override
+                public int run() {
+                    long id = (long) m_random.nextInt(m_config.rows);
+                    return execute(stmt, id)[0].getRowCount();
+                }
+            };
+        }
+        if (workload.equals("range")) {
+            final Fragments stmt = m_statements.get("Range");
+            return new Step() {
+                @Override
+                public int run() {
+                    long id = (long) m_random.nextInt(m_config.rows);
+                    return execute(stmt, (int) (id % m_config.groups), id)[0].getRowCount();
+                }
+            };
+        }
+        if (workload.equals("insert") || workload.equals("matview")) {
+            final Fragments stmt = m_statements.get(workload.equals("insert") ? "Insert" : "MatView");
+            return new Step() {
+                @Override
+                public int run() {
+                    long id = m_nextKey++;
+                    execute(stmt, id, (int) (id % m_config.groups), "value" + id, id);
+                    return 1;
+                }
+            };
+        }
+        if (workload.equals("load")) {
+            final int bulkId = tableId("BULK");
+            return new Step() {
+                @Override
+                public int run() {
+                    VoltTable rows = newRows();
+                    for (int ii = 0; ii < m_config.batchsize; ii++) {
+                        addRow(rows, m_nextKey++);
+                    }
+                    final long txnId = m_txnId++;
+                    m_ee.loadTable(bulkId, rows, txnId, txnId - 1);
+                    return rows.getRowCount();
+                }
+            };
+        }
+        throw new IllegalArgumentException("Unknown workload " + workload);
+    }
+
+    /**
+     * Executions of a workload for a count of the options. Each execution
+     * of the load workload loads a batch, so its counts are rows.
+     */
+    int executions(String workload, int count) {
+        if (workload.equals("load")) {
+            return (count + m_config.batchsize - 1) / m_config.batchsize;
+        }
+        return count;
+    }
+
+    void runWorkload(String workload) {
+        final Step step = step(workload);
+        final int warmup = executions(workload, m_config.warmup);
+        final int iterations = executions(workload, m_config.iterations);
+        for (int ii = 0; ii < warmup; ii++) {
+            step.run();
+        }
+
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final long poolBefore = m_ee.getThreadLocalPoolAllocations();
+        long rows = 0;
+        final long start = System.nanoTime();
+        for (int ii = 0; ii < iterations; ii++) {
+            final long stepStart = System.nanoTime();
+            rows += step.run();
+            histogram.record(System.nanoTime() - stepStart);
+        }
+        final long elapsed = System.nanoTime() - start;
+        final long poolAfter = m_ee.getThreadLocalPoolAllocations();
+
+        System.out.printf("%s: %,d executions in %,d ms, %,.0f executions/s, %,.0f rows/s%n",
+                workload, iterations, elapsed / 1000000,
+                iterations * 1e9 / elapsed, rows * 1e9 / elapsed);
+        System.out.println("  latency: " + histogram.summary());
+        System.out.print(histogram.buckets());
+        System.out.printf("  ThreadLocalPool allocations: %,d bytes after, %+,d bytes during the run%n",
+                poolAfter, poolAfter - poolBefore);
+    }
+
+    void run() throws Exception {
+        compileCatalog();
+        m_ee = new ExecutionEngineJNI(0, 0, 0, 0, "", 100,
+                HashinatorType.LEGACY, LegacyHashinator.getConfigureBytes(1), this);
+        try {
+            m_ee.loadCatalog(0, m_catalog.serialize());
+            preload();
+            for (String workload : m_config.workloads.split(",")) {
+                runWorkload(workload.trim());
+            }
+        } finally {
+            m_ee.release();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        EEBenchmarkConfig config = new EEBenchmarkConfig();
+        config.parse(EEBenchmark.class.getName(), args);
+        VoltDB.instance().readBuildInfo("Test");
+        new EEBenchmark(config).run();
+    }
+}
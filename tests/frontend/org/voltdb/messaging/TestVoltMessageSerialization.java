@@ -25,6 +25,8 @@ package org.voltdb.messaging;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 import junit.framework.TestCase;
 
@@ -105,6 +107,71 @@ public class TestVoltMessageSerialization extends TestCase {
         assertTrue(itask.isForReplay());
     }
 
+    public void testIv2InitiateTaskBatch() throws IOException {
+        List<Iv2InitiateTaskMessage> tasks = new ArrayList<Iv2InitiateTaskMessage>();
+        for (int ii = 0; ii < 3; ii++) {
+            StoredProcedureInvocation spi = new StoredProcedureInvocation();
+            spi.setClientHandle(25 + ii);
+            spi.setProcName("johnisgreat" + ii);
+            spi.setParams(57 + ii, "gooniestoo", "dudemandude");
+            tasks.add(new Iv2InitiateTaskMessage(23, 8, Iv2InitiateTaskMessage.UNUSED_TRUNC_HANDLE,
+                    Iv2InitiateTaskMessage.UNUSED_MP_TXNID, 0, ii == 1, true, spi, 2101 + ii, 3101, false));
+        }
+
+        Iv2InitiateTaskBatchMessage batch = new Iv2InitiateTaskBatchMessage(tasks);
+        Iv2InitiateTaskBatchMessage batch2 = (Iv2InitiateTaskBatchMessage) checkVoltMessage(batch);
+
+        assertEquals(3, batch2.getTasks().size());
+        for (int ii = 0; ii < 3; ii++) {
+            Iv2InitiateTaskMessage itask = tasks.get(ii);
+            Iv2InitiateTaskMessage itask2 = batch2.getTasks().get(ii);
+            assertEquals(itask.getInitiatorHSId(), itask2.getInitiatorHSId());
+            assertEquals(itask.getCoordinatorHSId(), itask2.getCoordinatorHSId());
+            assertEquals(itask.isReadOnly(), itask2.isReadOnly());
+            assertTrue(itask2.isSinglePartition());
+            assertEquals(itask.getStoredProcedureName(), itask2.getStoredProcedureName());
+            assertEquals(57 + ii, ((Number)itask2.getParameters()[0]).intValue());
+            assertEquals(itask.getClientInterfaceHandle(), itask2.getClientInterfaceHandle());
+            assertEquals(itask.getStoredProcedureInvocation().getClientHandle(),
+                         itask2.getStoredProcedureInvocation().getClientHandle());
+        }
+    }
+
+    public void testIv2ReplicationBatch() throws IOException {
+        StoredProcedureInvocation spi = new StoredProcedureInvocation();
+        spi.setClientHandle(25);
+        spi.setProcName("johnisgreat");
+        spi.setParams(57, "gooniestoo", "dudemandude");
+        Iv2InitiateTaskMessage itask = new Iv2InitiateTaskMessage(23, 8, Iv2InitiateTaskMessage.UNUSED_TRUNC_HANDLE,
+                Iv2InitiateTaskMessage.UNUSED_MP_TXNID, 0, false, true, spi, 2101, 3101, false);
+        itask.setSpHandle(31337);
+
+        FragmentTaskMessage ft = new FragmentTaskMessage(9, 70654312, -75, 99, true, false, false);
+        ft.addFragment(new byte[20], 12, ByteBuffer.allocate(0));
+        ft.setFragmentTaskType(FragmentTaskMessage.SYS_PROC_PER_PARTITION);
+
+        List<VoltMessage> messages = new ArrayList<VoltMessage>();
+        messages.add(itask);
+        messages.add(ft);
+        messages.add(itask);
+
+        Iv2ReplicationBatchMessage batch = new Iv2ReplicationBatchMessage(messages);
+        Iv2ReplicationBatchMessage batch2 = (Iv2ReplicationBatchMessage) checkVoltMessage(batch);
+
+        assertEquals(3, batch2.getMessages().size());
+        for (int ii = 0; ii < 3; ii += 2) {
+            Iv2InitiateTaskMessage itask2 = (Iv2InitiateTaskMessage) batch2.getMessages().get(ii);
+            assertEquals(itask.getInitiatorHSId(), itask2.getInitiatorHSId());
+            assertEquals(itask.getSpHandle(), itask2.getSpHandle());
+            assertEquals(itask.getStoredProcedureName(), itask2.getStoredProcedureName());
+            assertEquals(itask.getClientInterfaceHandle(), itask2.getClientInterfaceHandle());
+        }
+        FragmentTaskMessage ft2 = (FragmentTaskMessage) batch2.getMessages().get(1);
+        assertEquals(ft.getTxnId(), ft2.getTxnId());
+        assertEquals(ft.getFragmentCount(), ft2.getFragmentCount());
+        assertEquals(ft.getFragmentTaskType(), ft2.getFragmentTaskType());
+    }
+
     public void testInitiateResponse() throws IOException {
         StoredProcedureInvocation spi = new StoredProcedureInvocation();
         spi.setClientHandle(25);
@@ -62,6 +62,7 @@ public class PlannerTestAideDeCamp {
     int compileCounter = 0;
 
     private CompiledPlan m_currentPlan = null;
+    private final DatabaseEstimates m_estimates = new DatabaseEstimates();
 
     /**
      * Loads the schema at ddlurl and setups a voltcompiler / hsql instance.
@@ -86,6 +87,18 @@ public class PlannerTestAideDeCamp {
         return db;
     }
 
+    /**
+     * Plan subsequent statements as if the table statistics reported the
+     * given tuple count for the table.
+     */
+    public void setTupleCount(String tableName, long tupleCount) {
+        m_estimates.setTupleCount(tableName, tupleCount);
+    }
+
+    public void setDistinctKeys(String tableName, String indexName, long keys) {
+        m_estimates.setDistinctKeys(tableName, indexName, keys);
+    }
+
     /**
      * Compile a statement and return the head of the plan.
      * @param sql
@@ -135,7 +148,7 @@ public class PlannerTestAideDeCamp {
         // name will look like "basename-stmt-#"
         String name = catalogStmt.getParent().getTypeName() + "-" + catalogStmt.getTypeName();
 
-        DatabaseEstimates estimates = new DatabaseEstimates();
+        DatabaseEstimates estimates = m_estimates;
         TrivialCostModel costModel = new TrivialCostModel();
         PartitioningForStatement partitioning = new PartitioningForStatement(partitionParameter, true, true);
         QueryPlanner planner =
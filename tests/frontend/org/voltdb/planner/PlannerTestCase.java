@@ -211,4 +211,12 @@ public class PlannerTestCase extends TestCase {
         return m_aide.getDatabase();
     }
 
+    void setTupleCount(String tableName, long tupleCount) {
+        m_aide.setTupleCount(tableName, tupleCount);
+    }
+
+    void setDistinctKeys(String tableName, String indexName, long keys) {
+        m_aide.setDistinctKeys(tableName, indexName, keys);
+    }
+
 }
@@ -137,4 +137,27 @@ public class TestCoveringIndexPlans extends PlannerTestCase {
         assertTrue(pn instanceof IndexScanPlanNode);
     }
 
+    // Only indexed columns are selected or filtered,
+    // so the scan can be run from the index keys.
+    public void testIndexOnlyScan()
+    {
+        AbstractPlanNode pn = compile("select b from t where a = ? and b < ?;");
+        pn = pn.getChild(0);
+        assertTrue(pn instanceof IndexScanPlanNode);
+        IndexScanPlanNode ispn = (IndexScanPlanNode)pn;
+        assertEquals("COVER2_TREE", ispn.getTargetIndexName());
+        assertTrue(ispn.isIndexOnly());
+        assertTrue(ispn.toExplainPlanString().contains("(index only)"));
+    }
+
+    public void testIndexScanReadsTuples()
+    {
+        AbstractPlanNode pn = compile("select e from t where a = ? and b < ?;");
+        pn = pn.getChild(0);
+        assertTrue(pn instanceof IndexScanPlanNode);
+        IndexScanPlanNode ispn = (IndexScanPlanNode)pn;
+        assertFalse(ispn.isIndexOnly());
+        assertFalse(ispn.toExplainPlanString().contains("(index only)"));
+    }
+
 }
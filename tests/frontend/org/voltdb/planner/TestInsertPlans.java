@@ -0,0 +1,123 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package org.voltdb.planner;
+
+import java.util.List;
+
+import org.voltdb.plannodes.AbstractPlanNode;
+import org.voltdb.plannodes.InsertPlanNode;
+import org.voltdb.plannodes.MaterializePlanNode;
+import org.voltdb.plannodes.ProjectionPlanNode;
+import org.voltdb.plannodes.UpsertPlanNode;
+import org.voltdb.types.PlanNodeType;
+
+public class TestInsertPlans extends PlannerTestCase {
+    @Override
+    protected void setUp() throws Exception {
+        setupSchema(getClass().getResource("testplans-insert-ddl.sql"),
+                    "testinsert", false);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    private static InsertPlanNode insertNode(AbstractPlanNode fragment) {
+        List<AbstractPlanNode> inserts = fragment.findAllNodesOfType(PlanNodeType.INSERT);
+        assertEquals(1, inserts.size());
+        return (InsertPlanNode) inserts.get(0);
+    }
+
+    public void testSingleRowIsSinglePartition() {
+        List<AbstractPlanNode> pn = compileToFragments("INSERT INTO P1 (ID, VAL) VALUES (1, 2)");
+        assertEquals(1, pn.size());
+        MaterializePlanNode mat = (MaterializePlanNode) insertNode(pn.get(0)).getChild(0);
+        assertEquals(1, mat.getRowCount());
+    }
+
+    public void testMultiRowValues() {
+        List<AbstractPlanNode> pn = compileToFragments("INSERT INTO P1 (ID, VAL) VALUES (1, 2), (3, 4), (5, ?)");
+        // the rows may belong to different partitions
+        assertEquals(2, pn.size());
+        InsertPlanNode insert = insertNode(pn.get(1));
+        assertTrue(insert.getMultiPartition());
+        MaterializePlanNode mat = (MaterializePlanNode) insert.getChild(0);
+        assertEquals(3, mat.getRowCount());
+        for (List<?> row : mat.getAdditionalRows()) {
+            // NAME is filled in from its default
+            assertEquals(3, row.size());
+        }
+
+        pn = compileSinglePartitionToFragments("INSERT INTO P1 (ID, VAL) VALUES (1, 2), (3, 4)");
+        assertEquals(1, pn.size());
+        assertFalse(insertNode(pn.get(0)).getMultiPartition());
+    }
+
+    public void testInsertSelectFromReplicated() {
+        List<AbstractPlanNode> pn = compileToFragments("INSERT INTO P1 (VAL, ID) SELECT VAL, ID FROM R1 WHERE VAL > 5");
+        assertEquals(2, pn.size());
+        InsertPlanNode insert = insertNode(pn.get(1));
+        assertTrue(insert.getMultiPartition());
+        // the selected columns are projected into the table's column order
+        ProjectionPlanNode proj = (ProjectionPlanNode) insert.getChild(0);
+        assertEquals("ID", proj.getOutputSchema().getColumns().get(0).getColumnName());
+        assertEquals("NAME", proj.getOutputSchema().getColumns().get(1).getColumnName());
+        assertEquals("VAL", proj.getOutputSchema().getColumns().get(2).getColumnName());
+        assertFalse(proj.findAllNodesOfType(PlanNodeType.SEQSCAN).isEmpty() &&
+                    proj.findAllNodesOfType(PlanNodeType.INDEXSCAN).isEmpty());
+        assertTrue(pn.get(1).findAllNodesOfType(PlanNodeType.RECEIVE).isEmpty());
+
+        // a replicated target takes all of the rows at every partition
+        pn = compileToFragments("INSERT INTO R1 SELECT ID, NAME, VAL FROM R1 WHERE ID < 0");
+        assertEquals(2, pn.size());
+    }
+
+    public void testInsertSelectFromPartitioned() {
+        List<AbstractPlanNode> pn = compileSinglePartitionToFragments("INSERT INTO P2 SELECT ID, VAL FROM P1");
+        assertEquals(1, pn.size());
+        assertFalse(insertNode(pn.get(0)).getMultiPartition());
+
+        failToCompile("INSERT INTO P2 SELECT ID, VAL FROM P1", "single-partition procedure");
+    }
+
+    public void testUpsert() {
+        List<AbstractPlanNode> pn = compileToFragments("UPSERT INTO P1 (ID, VAL) VALUES (1, 2)");
+        assertEquals(1, pn.size());
+        List<AbstractPlanNode> upserts = pn.get(0).findAllNodesOfType(PlanNodeType.UPSERT);
+        assertEquals(1, upserts.size());
+        // an existing row keeps its NAME
+        List<Integer> updateColumns = ((UpsertPlanNode) upserts.get(0)).getUpdateColumns();
+        assertEquals(2, updateColumns.size());
+        assertEquals(0, updateColumns.get(0).intValue());
+        assertEquals(2, updateColumns.get(1).intValue());
+
+        pn = compileToFragments("UPSERT INTO R1 SELECT ID, NAME, VAL FROM R1 WHERE ID < 0");
+        assertEquals(1, pn.get(pn.size() - 1).findAllNodesOfType(PlanNodeType.UPSERT).size());
+
+        failToCompile("UPSERT INTO NOKEY VALUES (1, 2)", "primary key");
+        failToCompile("UPSERT INTO P1 (NAME, VAL) VALUES ('a', 2)", "primary key column 'ID'");
+    }
+}
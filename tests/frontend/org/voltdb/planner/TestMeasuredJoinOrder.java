@@ -0,0 +1,118 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.planner;
+
+import java.util.List;
+
+import org.voltdb.compiler.DatabaseEstimates;
+import org.voltdb.compiler.DeterminismMode;
+import org.voltdb.plannodes.AbstractPlanNode;
+import org.voltdb.plannodes.AbstractScanPlanNode;
+import org.voltdb.plannodes.IndexScanPlanNode;
+import org.voltdb.plannodes.NestLoopIndexPlanNode;
+import org.voltdb.types.PlanNodeType;
+
+public class TestMeasuredJoinOrder extends PlannerTestCase {
+    @Override
+    protected void setUp() throws Exception {
+        setupSchema(getClass().getResource("testplans-measuredjoin-ddl.sql"),
+                    "testmeasuredjoin", false);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    private static AbstractPlanNode onlyNode(AbstractPlanNode root, PlanNodeType type) {
+        List<AbstractPlanNode> nodes = root.findAllNodesOfType(type);
+        assertEquals(1, nodes.size());
+        return nodes.get(0);
+    }
+
+    // planned the way ad hoc statements are, the only ones planned with statistics
+    private AbstractPlanNode plan(String sql) {
+        return compileAdHocPlan(sql, DeterminismMode.FASTER).rootPlanGraph;
+    }
+
+    private static String outerTable(AbstractPlanNode join) {
+        return ((AbstractScanPlanNode) join.getChild(0)).getTargetTableName();
+    }
+
+    public void testSmallerTableOnTheOutside() {
+        setTupleCount("BIG", 1000000);
+        setTupleCount("MID", 100);
+        assertEquals("MID", outerTable(onlyNode(
+                plan("SELECT * FROM BIG, MID WHERE BIG.VAL = MID.VAL"), PlanNodeType.NESTLOOP)));
+        assertEquals("MID", outerTable(onlyNode(
+                plan("SELECT * FROM MID, BIG WHERE BIG.VAL = MID.VAL"), PlanNodeType.NESTLOOP)));
+
+        setTupleCount("BIG", 100);
+        setTupleCount("MID", 1000000);
+        assertEquals("BIG", outerTable(onlyNode(
+                plan("SELECT * FROM BIG, MID WHERE BIG.VAL = MID.VAL"), PlanNodeType.NESTLOOP)));
+        assertEquals("BIG", outerTable(onlyNode(
+                plan("SELECT * FROM MID, BIG WHERE BIG.VAL = MID.VAL"), PlanNodeType.NESTLOOP)));
+    }
+
+    public void testIndexKeyDistinctness() {
+        String sql = "SELECT * FROM BIG, SMALL WHERE BIG.SMALL_ID = SMALL.ID";
+        setTupleCount("BIG", 1000000);
+        setTupleCount("SMALL", 100);
+
+        // a few rows per key: look the big table up from the small one
+        setDistinctKeys("BIG", "BIG_SMALL_ID", 100);
+        NestLoopIndexPlanNode join =
+            (NestLoopIndexPlanNode) onlyNode(plan(sql), PlanNodeType.NESTLOOPINDEX);
+        assertEquals("SMALL", outerTable(join));
+        assertEquals("BIG_SMALL_ID",
+                     ((IndexScanPlanNode) join.getInlinePlanNode(PlanNodeType.INDEXSCAN)).getTargetIndexName());
+
+        // half the table per key: scan the big table and look up the small one
+        setDistinctKeys("BIG", "BIG_SMALL_ID", 2);
+        join = (NestLoopIndexPlanNode) onlyNode(plan(sql), PlanNodeType.NESTLOOPINDEX);
+        assertEquals("BIG", outerTable(join));
+    }
+
+    public void testMaterialChange() {
+        DatabaseEstimates before = new DatabaseEstimates();
+        before.setTupleCount("BIG", 1000000);
+        before.setTupleCount("SMALL", 10);
+        before.setDistinctKeys("BIG", "BIG_SMALL_ID", 10);
+
+        DatabaseEstimates after = new DatabaseEstimates();
+        after.setTupleCount("BIG", 1500000);
+        after.setTupleCount("SMALL", 900);
+        after.setDistinctKeys("BIG", "BIG_SMALL_ID", 900);
+        // small counts are compared as if they were the floor
+        assertFalse(after.differsMateriallyFrom(before));
+
+        after.setDistinctKeys("BIG", "BIG_SMALL_ID", 5000);
+        assertTrue(after.differsMateriallyFrom(before));
+        after.setDistinctKeys("BIG", "BIG_SMALL_ID", 900);
+        after.setTupleCount("BIG", 2000000);
+        assertTrue(after.differsMateriallyFrom(before));
+        assertTrue(new DatabaseEstimates().differsMateriallyFrom(before));
+    }
+}
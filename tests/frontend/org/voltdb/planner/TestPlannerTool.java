@@ -25,13 +25,16 @@ package org.voltdb.planner;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 
 import junit.framework.TestCase;
 
 import org.voltdb.CatalogContext;
 import org.voltdb.benchmark.tpcc.TPCCProjectBuilder;
 import org.voltdb.catalog.Catalog;
+import org.voltdb.compiler.AdHocCompilerCache;
 import org.voltdb.compiler.AdHocPlannedStatement;
+import org.voltdb.compiler.NormalizedAdHocSQL;
 import org.voltdb.compiler.PlannerTool;
 import org.voltdb.compiler.VoltProjectBuilder;
 import org.voltdb.utils.CatalogUtil;
@@ -40,28 +43,24 @@ public class TestPlannerTool extends TestCase {
 
     PlannerTool m_pt = null;
 
-    public void testSimple() throws IOException {
+    private void setUpTPCCSchema() throws IOException {
         TPCCProjectBuilder builder = new TPCCProjectBuilder();
         builder.addAllDefaults();
         final File jar = new File("tpcc-oop.jar");
         jar.deleteOnExit();
-
-        //long start = System.nanoTime();
-        //for (int i = 0; i < 10000; i++) {
         builder.compile("tpcc-oop.jar");
-        /*    long end = System.nanoTime();
-            System.err.printf("Took %.3f seconds to compile.\n",
-                    (end - start) / 1000000000.0);
-            start = end;
-        }*/
-
         byte[] bytes = CatalogUtil.toBytes(new File("tpcc-oop.jar"));
         String serializedCatalog = CatalogUtil.loadCatalogFromJar(bytes, null);
         Catalog catalog = new Catalog();
         catalog.execute(serializedCatalog);
         CatalogContext context = new CatalogContext(0, 0, catalog, bytes, 0, 0, 0);
 
+        AdHocCompilerCache.clearVersionCache();
         m_pt = new PlannerTool(context.cluster, context.database, 0);
+    }
+
+    public void testSimple() throws IOException {
+        setUpTPCCSchema();
 
         AdHocPlannedStatement result = null;
         result = m_pt.planSql("select * from warehouse;", false, true, false);
@@ -129,6 +128,118 @@ public class TestPlannerTool extends TestCase {
         System.out.println(result);
     }
 
+    public void testNormalizedCacheHit() throws IOException {
+        setUpTPCCSchema();
+
+        AdHocPlannedStatement first =
+            m_pt.planSql("select W_NAME from WAREHOUSE where W_ID = 1", null, true, false);
+        String key = NormalizedAdHocSQL.normalize("select W_NAME from WAREHOUSE where W_ID = 1").key;
+        assertTrue(AdHocCompilerCache.getCacheForCatalogVersion(0).getWithNormalizedSQL(key).isUsable());
+
+        // differs only in literal, case and spacing: served from the normalized statement
+        AdHocPlannedStatement second =
+            m_pt.planSql("SELECT w_name\n FROM warehouse WHERE w_id=7", null, true, false);
+        assertSame(first.core, second.core);
+        assertEquals(7, ((Number) second.extractedParamValues.toArray()[0]).intValue());
+        assertEquals(7, ((Number) second.partitionParam).intValue());
+    }
+
+    public void testNormalizedCacheRebindsReorderedLiterals() throws IOException {
+        setUpTPCCSchema();
+        AdHocCompilerCache cache = AdHocCompilerCache.getCacheForCatalogVersion(0);
+
+        // with equal literals the parse can't show which literal went to which
+        // parameter, so the statement isn't remembered
+        String sql = "select W_NAME from WAREHOUSE where W_TAX = 1 and W_ID = 1";
+        m_pt.planSql(sql, null, true, false);
+        String key = NormalizedAdHocSQL.normalize(sql).key;
+        assertNull(cache.getWithNormalizedSQL(key));
+
+        // HSQL puts the index condition on W_ID first, so the parameters
+        // don't follow the statement order
+        AdHocPlannedStatement parsed =
+            m_pt.planSql("select W_NAME from WAREHOUSE where W_TAX = 2 and W_ID = 7", null, true, false);
+        assertEquals(7, ((Number) parsed.partitionParam).intValue());
+        AdHocCompilerCache.NormalizedStatement known = cache.getWithNormalizedSQL(key);
+        assertTrue(known.isUsable());
+        assertTrue(Arrays.equals(new String[] { "5", "3" }, known.bindLiterals(new String[] { "3", "5" })));
+
+        // served from the normalized statement, with the literals in parameter order
+        AdHocPlannedStatement cached =
+            m_pt.planSql("select W_NAME from WAREHOUSE where W_TAX = 3 and W_ID = 5", null, true, false);
+        assertSame(parsed.core, cached.core);
+        assertEquals(5, ((Number) cached.extractedParamValues.toArray()[0]).intValue());
+        assertEquals(3, ((Number) cached.extractedParamValues.toArray()[1]).intValue());
+        assertEquals(5, ((Number) cached.partitionParam).intValue());
+    }
+
+    public void testUserParameterPartitioning() throws IOException {
+        setUpTPCCSchema();
+
+        // prepared statements are partitioned by the value bound at execution
+        AdHocPlannedStatement result =
+            m_pt.planSql("select W_NAME from WAREHOUSE where W_NAME = ? and W_ID = ?", null, true, true);
+        assertNull(result.core.collectorFragment);
+        assertEquals(2, result.core.parameterTypes.length);
+        assertEquals(1, result.core.partitioningParamIndex);
+        assertNull(result.partitionParam);
+    }
+
+    private void setUpInsertSelectSchema() throws IOException {
+        VoltProjectBuilder builder = new VoltProjectBuilder();
+        builder.addLiteralSchema("CREATE TABLE P (ID BIGINT NOT NULL, VAL INTEGER NOT NULL, PRIMARY KEY(ID));");
+        builder.addPartitionInfo("P", "ID");
+        builder.addLiteralSchema("CREATE TABLE R (ID BIGINT NOT NULL, VAL INTEGER NOT NULL, PRIMARY KEY(ID));");
+        builder.addStmtProcedure("MakeCompileHappy",
+                                 "SELECT * FROM P WHERE ID = ?;",
+                                 "P.ID: 0");
+
+        final File jar = new File("testinsertselect-oop.jar");
+        jar.deleteOnExit();
+        builder.compile("testinsertselect-oop.jar");
+        byte[] bytes = CatalogUtil.toBytes(new File("testinsertselect-oop.jar"));
+        String serializedCatalog = CatalogUtil.loadCatalogFromJar(bytes, null);
+        Catalog catalog = new Catalog();
+        catalog.execute(serializedCatalog);
+        CatalogContext context = new CatalogContext(0, 0, catalog, bytes, 0, 0, 0);
+
+        AdHocCompilerCache.clearVersionCache();
+        m_pt = new PlannerTool(context.cluster, context.database, 0);
+    }
+
+    public void testInsertSelectWithLiterals() throws IOException {
+        setUpInsertSelectSchema();
+
+        // the literals of the nested select are parameters of the insert
+        AdHocPlannedStatement result =
+            m_pt.planSql("INSERT INTO P (ID, VAL) SELECT ID + 1000, VAL FROM R WHERE VAL > 5", null, true, false);
+        assertEquals(2, result.extractedParamValues.size());
+
+        try {
+            m_pt.planSql("INSERT INTO R (ID, VAL) SELECT ID + 1000, VAL FROM P", null, true, false);
+            fail();
+        }
+        catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("single-partition procedure"));
+        }
+    }
+
+    public void testUpsertSelectWithLiterals() throws IOException {
+        setUpInsertSelectSchema();
+
+        AdHocPlannedStatement result =
+            m_pt.planSql("UPSERT INTO P (ID, VAL) SELECT ID, VAL + 100 FROM R WHERE ID < 200", null, true, false);
+        assertEquals(2, result.extractedParamValues.size());
+
+        try {
+            m_pt.planSql("UPSERT INTO R (ID, VAL) SELECT ID, VAL + 100 FROM P WHERE ID < 200", null, true, false);
+            fail();
+        }
+        catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("single-partition procedure"));
+        }
+    }
+
     public void testBadDDL() throws IOException
     {
         // semicolons in in-lined comments are bad
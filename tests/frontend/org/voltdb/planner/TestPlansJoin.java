@@ -305,6 +305,29 @@ public class TestPlansJoin extends PlannerTestCase {
 
     }
 
+    public void testIndexOnlyJoin() {
+        // Only the indexed column of R3 is used
+        AbstractPlanNode pn = compile("select R2.C, R3.A FROM R3 JOIN R2 ON R3.A = R2.A WHERE R3.A > 0");
+        AbstractPlanNode n = pn.getChild(0).getChild(0);
+        assertTrue(n instanceof NestLoopIndexPlanNode);
+        IndexScanPlanNode indexScan = (IndexScanPlanNode)n.getInlinePlanNode(PlanNodeType.INDEXSCAN);
+        assertTrue(indexScan.isIndexOnly());
+
+        // R3.C is output
+        pn = compile("select R2.C, R3.C FROM R3 JOIN R2 ON R3.A = R2.A");
+        n = pn.getChild(0).getChild(0);
+        assertTrue(n instanceof NestLoopIndexPlanNode);
+        indexScan = (IndexScanPlanNode)n.getInlinePlanNode(PlanNodeType.INDEXSCAN);
+        assertFalse(indexScan.isIndexOnly());
+
+        // R3.C is filtered
+        pn = compile("select R2.C FROM R3 JOIN R2 ON R3.A = R2.A WHERE R3.C > 0");
+        n = pn.getChild(0).getChild(0);
+        assertTrue(n instanceof NestLoopIndexPlanNode);
+        indexScan = (IndexScanPlanNode)n.getInlinePlanNode(PlanNodeType.INDEXSCAN);
+        assertFalse(indexScan.isIndexOnly());
+    }
+
     public void testFunctionJoinConditions() {
         AbstractPlanNode pn = compile("select * FROM R1 JOIN R2 ON ABS(R1.A) = ABS(R2.A) ");
         AbstractPlanNode n = pn.getChild(0).getChild(0);
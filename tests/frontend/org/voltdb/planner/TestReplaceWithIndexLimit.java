@@ -0,0 +1,158 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package org.voltdb.planner;
+
+import java.util.List;
+
+import org.voltdb.planner.microoptimizations.ReplaceWithIndexLimit;
+import org.voltdb.plannodes.AbstractPlanNode;
+import org.voltdb.plannodes.AggregatePlanNode;
+import org.voltdb.plannodes.IndexScanPlanNode;
+import org.voltdb.plannodes.LimitPlanNode;
+import org.voltdb.plannodes.SeqScanPlanNode;
+import org.voltdb.types.ExpressionType;
+import org.voltdb.types.IndexLookupType;
+import org.voltdb.types.PlanNodeType;
+import org.voltdb.types.SortDirectionType;
+
+public class TestReplaceWithIndexLimit extends PlannerTestCase {
+    @Override
+    protected void setUp() throws Exception {
+        setupSchema(getClass().getResource("testplans-indexlimit-ddl.sql"),
+                    "testindexlimit", false);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    public void testMinOfIndexedColumn() {
+        List<AbstractPlanNode> pn = compileToFragments("SELECT min(B) from T");
+        checkIndexLimit(pn.get(0), "IDX_T_B", SortDirectionType.ASC);
+    }
+
+    public void testMaxOfIndexedColumn() {
+        List<AbstractPlanNode> pn = compileToFragments("SELECT max(B) from T");
+        checkIndexLimit(pn.get(0), "IDX_T_B", SortDirectionType.DESC);
+    }
+
+    public void testMaxOfPartitionedTable() {
+        List<AbstractPlanNode> pn = compileToFragments("SELECT max(SCORE) from P");
+        // each partition seeks its own maximum for the coordinator to combine
+        checkIndexLimit(pn.get(1), "IDX_P_SCORE", SortDirectionType.DESC);
+    }
+
+    public void testMinAfterEqualityPrefix() {
+        List<AbstractPlanNode> pn = compileToFragments("SELECT min(C) from T where A = ?");
+        checkIndexLimit(pn.get(0), "IDX_T_A_C", SortDirectionType.INVALID);
+    }
+
+    public void testEqualityLookupNeedsEndExpression() {
+        // the seek to an equality prefix is stopped by its end expression
+        AggregatePlanNode agg = minOverPrefixScan();
+        IndexScanPlanNode isp = (IndexScanPlanNode) agg.getChild(0);
+        assertEquals(IndexLookupType.GTE, isp.getLookupType());
+        assertNotNull(isp.getEndExpression());
+        optimize(agg);
+        assertNotNull(isp.getInlinePlanNode(PlanNodeType.LIMIT));
+
+        // an EQ lookup without one would not be, so it is left alone
+        agg = minOverPrefixScan();
+        isp = (IndexScanPlanNode) agg.getChild(0);
+        isp.setLookupType(IndexLookupType.EQ);
+        isp.setEndExpression(null);
+        optimize(agg);
+        assertNull(isp.getInlinePlanNode(PlanNodeType.LIMIT));
+        assertNull(isp.getPredicate());
+    }
+
+    private void optimize(AbstractPlanNode root) {
+        CompiledPlan plan = new CompiledPlan();
+        plan.rootPlanGraph = root;
+        new ReplaceWithIndexLimit().apply(plan, getDatabase());
+    }
+
+    /**
+     * @return a MIN(C) over the unoptimized seek to A = ? that the planner
+     * builds for MAX(C), which it leaves alone
+     */
+    private AggregatePlanNode minOverPrefixScan() {
+        List<AbstractPlanNode> pn = compileToFragments("SELECT max(C) from T where A = ?");
+        List<AbstractPlanNode> scans = pn.get(0).findAllNodesOfType(PlanNodeType.INDEXSCAN);
+        assertEquals(1, scans.size());
+        IndexScanPlanNode isp = (IndexScanPlanNode) scans.get(0);
+        assertNull(isp.getPredicate());
+        AggregatePlanNode max = (AggregatePlanNode) isp.getParent(0);
+        AggregatePlanNode min = new AggregatePlanNode();
+        min.addAggregate(ExpressionType.AGGREGATE_MIN, false, 0, max.getFirstAggregateExpression());
+        isp.removeFromGraph();
+        min.addAndLinkChild(isp);
+        return min;
+    }
+
+    public void testNotReplaced() {
+        // MAX after an equality prefix would need a backward seek
+        checkNoIndexLimit(compileToFragments("SELECT max(C) from T where A = ?"));
+        // not the leading column of any tree index, C only leads a hash index
+        checkNoIndexLimit(compileToFragments("SELECT min(ID + 1) from T"));
+        checkNoIndexLimit(compileToFragments("SELECT max(C) from T"));
+        // filtered rows may not be in index order
+        checkNoIndexLimit(compileToFragments("SELECT min(B) from T where C > 5"));
+        // more than one aggregate, or a grouped one
+        checkNoIndexLimit(compileToFragments("SELECT min(B), max(B) from T"));
+        checkNoIndexLimit(compileToFragments("SELECT A, min(B) from T group by A"));
+        checkNoIndexLimit(compileToFragments("SELECT count(B) from T"));
+    }
+
+    private void checkIndexLimit(AbstractPlanNode root, String indexName, SortDirectionType direction) {
+        AbstractPlanNode p = root.getChild(0);
+        while ( ! (p instanceof AggregatePlanNode)) {
+            p = p.getChild(0);
+        }
+        p = p.getChild(0);
+        assertTrue(p instanceof IndexScanPlanNode);
+        IndexScanPlanNode isp = (IndexScanPlanNode) p;
+        assertEquals(indexName, isp.getTargetIndexName());
+        assertEquals(direction, isp.getSortDirection());
+        // nulls sort first and are not candidates
+        assertEquals(ExpressionType.OPERATOR_NOT, isp.getPredicate().getExpressionType());
+        LimitPlanNode limit = (LimitPlanNode) isp.getInlinePlanNode(PlanNodeType.LIMIT);
+        assertNotNull(limit);
+        assertEquals(1, limit.getLimit());
+    }
+
+    private void checkNoIndexLimit(List<AbstractPlanNode> pn) {
+        for (AbstractPlanNode root : pn) {
+            for (AbstractPlanNode scan : root.findAllNodesOfType(PlanNodeType.INDEXSCAN)) {
+                assertNull(scan.getInlinePlanNode(PlanNodeType.LIMIT));
+            }
+            for (AbstractPlanNode scan : root.findAllNodesOfType(PlanNodeType.SEQSCAN)) {
+                assertTrue(scan instanceof SeqScanPlanNode);
+                assertNull(scan.getInlinePlanNode(PlanNodeType.LIMIT));
+            }
+        }
+    }
+}
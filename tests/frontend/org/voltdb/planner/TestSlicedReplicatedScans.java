@@ -0,0 +1,108 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package org.voltdb.planner;
+
+import java.util.List;
+
+import org.voltdb.expressions.PartitionSliceExpression;
+import org.voltdb.plannodes.AbstractPlanNode;
+import org.voltdb.plannodes.AbstractScanPlanNode;
+import org.voltdb.plannodes.AggregatePlanNode;
+import org.voltdb.plannodes.SendPlanNode;
+import org.voltdb.types.PlanNodeType;
+
+public class TestSlicedReplicatedScans extends PlannerTestCase {
+    @Override
+    protected void setUp() throws Exception {
+        setupSchema(getClass().getResource("testplans-slicedscan-ddl.sql"),
+                    "testslicedscan", false);
+        setTupleCount("R1", PlanAssembler.SLICED_SCAN_MIN_TUPLES);
+        setTupleCount("R2", PlanAssembler.SLICED_SCAN_MIN_TUPLES * 10);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    private static AbstractScanPlanNode slicedScan(AbstractPlanNode fragment) {
+        List<AbstractPlanNode> scans = fragment.findAllNodesOfType(PlanNodeType.SEQSCAN);
+        scans.addAll(fragment.findAllNodesOfType(PlanNodeType.INDEXSCAN));
+        assertEquals(1, scans.size());
+        AbstractScanPlanNode scan = (AbstractScanPlanNode) scans.get(0);
+        assertNotNull(scan.getPredicate());
+        assertTrue(scan.getPredicate().hasAnySubexpressionOfClass(PartitionSliceExpression.class));
+        return scan;
+    }
+
+    public void testLargeScanIsSliced() {
+        List<AbstractPlanNode> pn = compileToFragments("SELECT NAME FROM R1 WHERE VAL > 5");
+        assertEquals(2, pn.size());
+        assertEquals(1, pn.get(0).findAllNodesOfType(PlanNodeType.RECEIVE).size());
+        assertTrue(pn.get(1) instanceof SendPlanNode);
+        slicedScan(pn.get(1));
+    }
+
+    public void testSliceColumn() {
+        // the leading primary key column, else the first column that hashes
+        assertEquals("ID", PlanAssembler.getSliceColumn(getDatabase().getTables().get("R1")).getTypeName());
+        assertEquals("CODE", PlanAssembler.getSliceColumn(getDatabase().getTables().get("R2")).getTypeName());
+
+        List<AbstractPlanNode> pn = compileToFragments("SELECT RATIO FROM R2");
+        assertEquals(2, pn.size());
+        PartitionSliceExpression slice = (PartitionSliceExpression) slicedScan(pn.get(1)).getPredicate();
+        assertEquals(1, slice.getHashColumnIndex());
+    }
+
+    public void testAggregatesArePushedDown() {
+        List<AbstractPlanNode> pn = compileToFragments("SELECT SUM(VAL) FROM R1 WHERE NAME = 'x'");
+        assertEquals(2, pn.size());
+        assertTrue(pn.get(0).getChild(0) instanceof AggregatePlanNode);
+        assertTrue(pn.get(1).getChild(0) instanceof AggregatePlanNode);
+        slicedScan(pn.get(1));
+    }
+
+    public void testSmallTableIsNotSliced() {
+        setTupleCount("R1", PlanAssembler.SLICED_SCAN_MIN_TUPLES - 1);
+        assertEquals(1, compileToFragments("SELECT NAME FROM R1 WHERE VAL > 5").size());
+    }
+
+    public void testNotSliced() {
+        // answered from the tuple count
+        assertEquals(1, compileToFragments("SELECT COUNT(*) FROM R1").size());
+        // unique key lookup
+        assertEquals(1, compileToFragments("SELECT NAME FROM R1 WHERE ID = 5").size());
+        // joins
+        assertEquals(1, compileToFragments("SELECT R1.NAME FROM R1, R2 WHERE R1.NAME = R2.CODE").size());
+        List<AbstractPlanNode> pn = compileToFragments("SELECT R1.NAME FROM R1, P1 WHERE R1.ID = P1.R1_ID");
+        assertEquals(2, pn.size());
+        assertFalse(pn.get(1).findAllNodesOfType(PlanNodeType.SEQSCAN).isEmpty() &&
+                    pn.get(1).findAllNodesOfType(PlanNodeType.INDEXSCAN).isEmpty());
+        // single partition statements
+        assertEquals(1, compileSinglePartitionToFragments("SELECT NAME FROM R1 WHERE VAL > 5").size());
+        // unions
+        assertEquals(1, compileToFragments("SELECT NAME FROM R1 UNION SELECT CODE FROM R2").size());
+    }
+}
@@ -0,0 +1,20 @@
+CREATE TABLE T (
+	ID INTEGER NOT NULL,
+	A INTEGER NOT NULL,
+	B INTEGER,
+	C INTEGER,
+	PRIMARY KEY (ID)
+);
+create index idx_t_b on T (B);
+create index idx_t_a_c on T (A, C);
+create index idx_t_b_c on T (B, C);
+create index idx_t_hash on T (C);
+
+CREATE TABLE P (
+	ID INTEGER NOT NULL,
+	SCORE INTEGER NOT NULL,
+	PRIMARY KEY (ID)
+);
+create index idx_p_score on P (SCORE);
+
+PARTITION TABLE P ON COLUMN ID;
@@ -0,0 +1,26 @@
+CREATE TABLE P1 (
+	ID BIGINT NOT NULL,
+	NAME VARCHAR(32) DEFAULT 'none',
+	VAL INTEGER NOT NULL,
+	PRIMARY KEY (ID)
+);
+PARTITION TABLE P1 ON COLUMN ID;
+
+CREATE TABLE P2 (
+	ID BIGINT NOT NULL,
+	VAL INTEGER NOT NULL,
+	PRIMARY KEY (ID)
+);
+PARTITION TABLE P2 ON COLUMN ID;
+
+CREATE TABLE R1 (
+	ID BIGINT NOT NULL,
+	NAME VARCHAR(32) NOT NULL,
+	VAL INTEGER NOT NULL,
+	PRIMARY KEY (ID)
+);
+
+CREATE TABLE NOKEY (
+	ID BIGINT NOT NULL,
+	VAL INTEGER NOT NULL
+);
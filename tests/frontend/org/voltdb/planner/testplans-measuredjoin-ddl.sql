@@ -0,0 +1,18 @@
+CREATE TABLE BIG (
+	ID BIGINT NOT NULL,
+	SMALL_ID BIGINT NOT NULL,
+	VAL INTEGER NOT NULL,
+	PRIMARY KEY (ID)
+);
+CREATE INDEX BIG_SMALL_ID ON BIG (SMALL_ID);
+
+CREATE TABLE SMALL (
+	ID BIGINT NOT NULL,
+	NAME VARCHAR(16) NOT NULL,
+	PRIMARY KEY (ID)
+);
+
+CREATE TABLE MID (
+	ID BIGINT NOT NULL,
+	VAL INTEGER NOT NULL
+);
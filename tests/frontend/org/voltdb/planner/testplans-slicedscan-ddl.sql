@@ -0,0 +1,19 @@
+CREATE TABLE R1 (
+	ID BIGINT NOT NULL,
+	NAME VARCHAR(32) NOT NULL,
+	VAL INTEGER NOT NULL,
+	PRIMARY KEY (ID)
+);
+CREATE INDEX R1_VAL_TREE ON R1 (VAL);
+
+CREATE TABLE R2 (
+	RATIO FLOAT NOT NULL,
+	CODE VARCHAR(8) NOT NULL
+);
+
+CREATE TABLE P1 (
+	ID BIGINT NOT NULL,
+	R1_ID BIGINT NOT NULL,
+	PRIMARY KEY (ID)
+);
+PARTITION TABLE P1 ON COLUMN ID;
@@ -0,0 +1,148 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb.regressionsuites;
+
+import java.io.IOException;
+
+import junit.framework.Test;
+
+import org.voltdb.BackendTarget;
+import org.voltdb.VoltTable;
+import org.voltdb.client.Client;
+import org.voltdb.client.ProcCallException;
+import org.voltdb.compiler.VoltProjectBuilder;
+
+public class TestMultiRowInsertSuite extends RegressionSuite {
+
+    static final String SCHEMA =
+        "CREATE TABLE R (ID INTEGER NOT NULL, VAL INTEGER NOT NULL, PRIMARY KEY (ID));" +
+        "CREATE TABLE P (ID INTEGER NOT NULL, VAL INTEGER NOT NULL, PRIMARY KEY (ID));";
+
+    public TestMultiRowInsertSuite(String name) {
+        super(name);
+    }
+
+    private static long scalar(Client client, String sql) throws Exception {
+        return client.callProcedure("@AdHoc", sql).getResults()[0].asScalarLong();
+    }
+
+    private static void assertIds(Client client, String table, long... ids) throws Exception {
+        VoltTable result = client.callProcedure("@AdHoc", "SELECT ID FROM " + table + " ORDER BY ID").getResults()[0];
+        assertEquals(ids.length, result.getRowCount());
+        for (long id : ids) {
+            assertTrue(result.advanceRow());
+            assertEquals(id, result.getLong(0));
+        }
+    }
+
+    public void testRetryAfterDuplicateKey() throws Exception {
+        Client client = getClient();
+
+        assertEquals(2, client.callProcedure("InsertTwoR", 1, 1, 2, 2).getResults()[0].asScalarLong());
+
+        // the second row collides with row 1, the whole statement fails
+        try {
+            client.callProcedure("InsertTwoR", 3, 3, 1, 1);
+            fail();
+        }
+        catch (ProcCallException e) {}
+        assertIds(client, "R", 1, 2);
+
+        // running the same statement again inserts only its own rows
+        assertEquals(2, client.callProcedure("InsertTwoR", 4, 4, 5, 5).getResults()[0].asScalarLong());
+        assertIds(client, "R", 1, 2, 4, 5);
+        assertEquals(0, scalar(client, "SELECT COUNT(*) FROM R WHERE ID = 3"));
+    }
+
+    public void testRetryAfterNullValue() throws Exception {
+        Client client = getClient();
+
+        try {
+            client.callProcedure("InsertTwoR", 1, 1, 2, null);
+            fail();
+        }
+        catch (ProcCallException e) {}
+        assertIds(client, "R");
+
+        assertEquals(2, client.callProcedure("InsertTwoR", 3, 3, 4, 4).getResults()[0].asScalarLong());
+        assertIds(client, "R", 3, 4);
+
+        // a multi-row UPSERT runs the same batch
+        try {
+            client.callProcedure("UpsertTwoR", 3, 30, 5, null);
+            fail();
+        }
+        catch (ProcCallException e) {}
+        assertIds(client, "R", 3, 4);
+        assertEquals(0, scalar(client, "SELECT COUNT(*) FROM R WHERE VAL = 30"));
+
+        assertEquals(2, client.callProcedure("UpsertTwoR", 4, 40, 6, 6).getResults()[0].asScalarLong());
+        assertIds(client, "R", 3, 4, 6);
+        assertEquals(1, scalar(client, "SELECT COUNT(*) FROM R WHERE VAL = 40"));
+    }
+
+    public void testRetryInsertSelect() throws Exception {
+        Client client = getClient();
+
+        client.callProcedure("InsertTwoR", 1, 1, 2, 2);
+        client.callProcedure("@AdHoc", "INSERT INTO P VALUES (2, 0)");
+
+        // row 2 is already in P
+        try {
+            client.callProcedure("@AdHoc", "INSERT INTO P SELECT ID, VAL + 10 FROM R");
+            fail();
+        }
+        catch (ProcCallException e) {}
+        assertIds(client, "P", 2);
+
+        client.callProcedure("@AdHoc", "DELETE FROM P");
+        assertEquals(2, scalar(client, "INSERT INTO P SELECT ID, VAL + 10 FROM R"));
+        assertIds(client, "P", 1, 2);
+        assertEquals(2, scalar(client, "SELECT COUNT(*) FROM P WHERE VAL > 10"));
+    }
+
+    static public Test suite() throws IOException {
+        VoltServerConfig config = null;
+        MultiConfigSuiteBuilder builder = new MultiConfigSuiteBuilder(TestMultiRowInsertSuite.class);
+
+        VoltProjectBuilder project = new VoltProjectBuilder();
+        project.addLiteralSchema(SCHEMA);
+        project.addPartitionInfo("P", "ID");
+        project.addStmtProcedure("InsertTwoR", "INSERT INTO R VALUES (?, ?), (?, ?);");
+        project.addStmtProcedure("UpsertTwoR", "UPSERT INTO R VALUES (?, ?), (?, ?);");
+
+        boolean success;
+
+        config = new LocalCluster("multirowinsert-onesite.jar", 1, 1, 0, BackendTarget.NATIVE_EE_JNI);
+        success = config.compile(project);
+        assertTrue(success);
+        builder.addServerConfig(config);
+
+        config = new LocalCluster("multirowinsert-twosites.jar", 2, 1, 0, BackendTarget.NATIVE_EE_JNI);
+        success = config.compile(project);
+        assertTrue(success);
+        builder.addServerConfig(config);
+
+        return builder;
+    }
+}
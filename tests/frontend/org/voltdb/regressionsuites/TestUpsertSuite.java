@@ -0,0 +1,155 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb.regressionsuites;
+
+import java.io.IOException;
+
+import junit.framework.Test;
+
+import org.voltdb.BackendTarget;
+import org.voltdb.VoltTable;
+import org.voltdb.client.Client;
+import org.voltdb.client.ProcCallException;
+import org.voltdb.compiler.VoltProjectBuilder;
+
+public class TestUpsertSuite extends RegressionSuite {
+
+    static final String SCHEMA =
+        "CREATE TABLE KV (ID INTEGER NOT NULL, GRP INTEGER NOT NULL, VAL VARCHAR(16), PRIMARY KEY (ID));" +
+        "CREATE INDEX KV_GRP ON KV (GRP);" +
+        "CREATE TABLE R (ID INTEGER NOT NULL, GRP INTEGER NOT NULL, VAL VARCHAR(16) NOT NULL, PRIMARY KEY (ID));" +
+        "CREATE INDEX R_GRP ON R (GRP);" +
+        "CREATE UNIQUE INDEX R_VAL ON R (VAL);";
+
+    public TestUpsertSuite(String name) {
+        super(name);
+    }
+
+    private static long scalar(Client client, String sql) throws Exception {
+        return client.callProcedure("@AdHoc", sql).getResults()[0].asScalarLong();
+    }
+
+    public void testUpsertInsertsAndUpdates() throws Exception {
+        Client client = getClient();
+
+        // no row with the key yet: inserted
+        assertEquals(1, client.callProcedure("UpsertKV", 1, 10, "a").getResults()[0].asScalarLong());
+        assertEquals(1, client.callProcedure("UpsertKV", 2, 10, "b").getResults()[0].asScalarLong());
+        assertEquals(2, scalar(client, "SELECT COUNT(*) FROM KV"));
+
+        // the key exists: updated in place, the secondary index follows GRP
+        assertEquals(1, client.callProcedure("UpsertKV", 1, 20, "c").getResults()[0].asScalarLong());
+        assertEquals(2, scalar(client, "SELECT COUNT(*) FROM KV"));
+        assertEquals(1, scalar(client, "SELECT COUNT(*) FROM KV WHERE GRP = 10"));
+        assertEquals(1, scalar(client, "SELECT COUNT(*) FROM KV WHERE GRP = 20"));
+        VoltTable table = client.callProcedure("@AdHoc", "SELECT GRP, VAL FROM KV WHERE ID = 1").getResults()[0];
+        assertTrue(table.advanceRow());
+        assertEquals(20, table.getLong(0));
+        assertEquals("c", table.getString(1));
+
+        // an update only writes the columns the statement names
+        client.callProcedure("@AdHoc", "UPSERT INTO KV (ID, GRP) VALUES (2, 30)");
+        table = client.callProcedure("@AdHoc", "SELECT GRP, VAL FROM KV WHERE ID = 2").getResults()[0];
+        assertTrue(table.advanceRow());
+        assertEquals(30, table.getLong(0));
+        assertEquals("b", table.getString(1));
+        assertEquals(0, scalar(client, "SELECT COUNT(*) FROM KV WHERE GRP = 10"));
+    }
+
+    public void testUpsertRollback() throws Exception {
+        Client client = getClient();
+
+        client.callProcedure("@AdHoc", "INSERT INTO R VALUES (1, 1, 'a')");
+        client.callProcedure("@AdHoc", "INSERT INTO R VALUES (2, 2, 'b')");
+
+        // the update of row 1 is undone when the new row 3 violates R_VAL
+        try {
+            client.callProcedure("@AdHoc", "UPSERT INTO R VALUES (1, 5, 'c'), (3, 3, 'b')");
+            fail();
+        }
+        catch (ProcCallException e) {}
+
+        assertEquals(2, scalar(client, "SELECT COUNT(*) FROM R"));
+        assertEquals(1, scalar(client, "SELECT COUNT(*) FROM R WHERE GRP = 1"));
+        assertEquals(0, scalar(client, "SELECT COUNT(*) FROM R WHERE GRP = 5"));
+        assertEquals(1, scalar(client, "SELECT COUNT(*) FROM R WHERE VAL = 'a'"));
+        assertEquals(0, scalar(client, "SELECT COUNT(*) FROM R WHERE VAL = 'c'"));
+
+        // the undone index entries don't get in the way of later updates
+        client.callProcedure("@AdHoc", "UPSERT INTO R VALUES (1, 5, 'c')");
+        assertEquals(1, scalar(client, "SELECT COUNT(*) FROM R WHERE GRP = 5"));
+        assertEquals(1, scalar(client, "SELECT COUNT(*) FROM R WHERE VAL = 'c'"));
+        assertEquals(0, scalar(client, "SELECT COUNT(*) FROM R WHERE VAL = 'a'"));
+    }
+
+    public void testUpsertSelectWithLiterals() throws Exception {
+        Client client = getClient();
+
+        for (int i = 0; i < 10; i++) {
+            client.callProcedure("@AdHoc", "INSERT INTO R VALUES (" + i * 50 + ", " + i + ", 'v" + i + "')");
+        }
+        client.callProcedure("UpsertKV", 0, 7, "old");
+
+        // rows 0, 50, 100 and 150: row 0 is updated, the others inserted
+        assertEquals(4, scalar(client, "UPSERT INTO KV (ID, GRP, VAL) SELECT ID, GRP + 100, VAL FROM R WHERE ID < 200"));
+        assertEquals(4, scalar(client, "SELECT COUNT(*) FROM KV"));
+        assertEquals(4, scalar(client, "SELECT COUNT(*) FROM KV WHERE GRP >= 100"));
+        assertEquals(0, scalar(client, "SELECT COUNT(*) FROM KV WHERE GRP = 7"));
+        assertEquals(1, scalar(client, "SELECT COUNT(*) FROM KV WHERE VAL = 'v0'"));
+
+        // a select from a partitioned table is refused rather than left unanswered
+        try {
+            client.callProcedure("@AdHoc", "UPSERT INTO R (ID, GRP, VAL) SELECT ID + 1000, GRP, VAL FROM KV");
+            fail();
+        }
+        catch (ProcCallException e) {
+            assertTrue(e.getMessage().contains("single-partition procedure"));
+        }
+    }
+
+    static public Test suite() throws IOException {
+        VoltServerConfig config = null;
+        MultiConfigSuiteBuilder builder = new MultiConfigSuiteBuilder(TestUpsertSuite.class);
+
+        VoltProjectBuilder project = new VoltProjectBuilder();
+        project.addLiteralSchema(SCHEMA);
+        project.addPartitionInfo("KV", "ID");
+        project.addStmtProcedure("UpsertKV", "UPSERT INTO KV VALUES (?, ?, ?);", "KV.ID: 0");
+
+        boolean success;
+
+        // one site
+        config = new LocalCluster("upsert-onesite.jar", 1, 1, 0, BackendTarget.NATIVE_EE_JNI);
+        success = config.compile(project);
+        assertTrue(success);
+        builder.addServerConfig(config);
+
+        // two sites, so that multi-partition upserts split their rows
+        config = new LocalCluster("upsert-twosites.jar", 2, 1, 0, BackendTarget.NATIVE_EE_JNI);
+        success = config.compile(project);
+        assertTrue(success);
+        builder.addServerConfig(config);
+
+        return builder;
+    }
+}
@@ -0,0 +1,103 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltcore.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Reads length prefixed messages off a channel and splits them into
+ * frames, the way VoltProtocolHandler does for every client request.
+ * Lives in the network package to reach the stream's framing methods.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class NIOReadStreamBenchmark {
+
+    @Param({ "64", "1024" })
+    public int messageSize;
+
+    @Param({ "64" })
+    public int messages;
+
+    private final NetworkDBBPool m_pool = new NetworkDBBPool();
+    private byte[] m_wire;
+
+    @Setup
+    public void setup() {
+        ByteBuffer wire = ByteBuffer.allocate(messages * (messageSize + 4));
+        for (int ii = 0; ii < messages; ii++) {
+            wire.putInt(messageSize);
+            wire.put(new byte[messageSize]);
+        }
+        m_wire = wire.array();
+    }
+
+    @Benchmark
+    public int readFrames() throws IOException {
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(m_wire));
+        NIOReadStream stream = new NIOReadStream();
+        int frames = 0;
+        int nextLength = 0;
+        while (stream.read(channel, Integer.MAX_VALUE, m_pool) > 0 || stream.dataAvailable() > 0) {
+            while (true) {
+                if (nextLength == 0 && stream.dataAvailable() >= 4) {
+                    nextLength = stream.getInt();
+                }
+                if (nextLength == 0 || stream.dataAvailable() < nextLength) {
+                    break;
+                }
+                byte[] message = new byte[nextLength];
+                stream.getBytes(message);
+                nextLength = 0;
+                frames++;
+            }
+            if (frames == messages) {
+                break;
+            }
+        }
+        stream.shutdown();
+        return frames;
+    }
+}
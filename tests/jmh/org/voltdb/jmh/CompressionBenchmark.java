@@ -0,0 +1,98 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.jmh;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Param;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltType;
+import org.voltdb.utils.CompressionService;
+
+/**
+ * Compresses and decompresses a serialized table, the kind of buffer
+ * snapshots and rejoin stream.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({ "65536" })
+    public int size;
+
+    private ByteBuffer m_uncompressed;
+    private ByteBuffer m_compressed;
+    private ByteBuffer m_output;
+
+    @Setup
+    public void setup() throws IOException {
+        VoltTable table = new VoltTable(
+                new VoltTable.ColumnInfo("ID", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("NAME", VoltType.STRING));
+        for (long ii = 0; table.getSerializedSize() < size; ii++) {
+            table.addRow(ii, "name" + (ii % 100));
+        }
+        ByteBuffer serialized = table.getBuffer();
+        m_uncompressed = ByteBuffer.allocateDirect(serialized.remaining());
+        m_uncompressed.put(serialized);
+        m_uncompressed.flip();
+
+        m_output = ByteBuffer.allocateDirect(
+                Math.max(CompressionService.maxCompressedLength(m_uncompressed.remaining()),
+                         m_uncompressed.remaining()));
+        int length = CompressionService.compressBuffer(m_uncompressed.duplicate(), m_output);
+        m_compressed = ByteBuffer.allocateDirect(length);
+        m_output.limit(length);
+        m_compressed.put(m_output);
+        m_compressed.flip();
+    }
+
+    @Benchmark
+    public int compress() throws IOException {
+        m_output.clear();
+        return CompressionService.compressBuffer(m_uncompressed.duplicate(), m_output);
+    }
+
+    @Benchmark
+    public int decompress() throws IOException {
+        m_output.clear();
+        return CompressionService.decompressBuffer(m_compressed.duplicate(), m_output);
+    }
+}
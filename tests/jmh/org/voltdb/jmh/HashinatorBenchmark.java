@@ -0,0 +1,93 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Param;
+import org.voltdb.TheHashinator;
+import org.voltdb.TheHashinator.HashinatorType;
+
+/**
+ * Maps partitioning values to partitions with each hashinator.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class HashinatorBenchmark {
+
+    private static final int KEYS = 1024;
+
+    @Param({ "LEGACY", "ELASTIC" })
+    public String hashinator;
+
+    @Param({ "8" })
+    public int partitions;
+
+    private Long[] m_longs;
+    private String[] m_strings;
+    private int m_next = 0;
+
+    @Setup
+    public void setup() {
+        HashinatorType type = HashinatorType.valueOf(hashinator);
+        TheHashinator.setConfiguredHashinatorType(type);
+        TheHashinator.initialize(TheHashinator.getConfiguredHashinatorClass(),
+                                 TheHashinator.getConfigureBytes(partitions));
+
+        Random random = new Random(0);
+        m_longs = new Long[KEYS];
+        m_strings = new String[KEYS];
+        for (int ii = 0; ii < KEYS; ii++) {
+            m_longs[ii] = random.nextLong();
+            m_strings[ii] = "key" + random.nextInt();
+        }
+    }
+
+    @Benchmark
+    public int hashLong() {
+        m_next = (m_next + 1) & (KEYS - 1);
+        return TheHashinator.hashToPartition(m_longs[m_next]);
+    }
+
+    @Benchmark
+    public int hashString() {
+        m_next = (m_next + 1) & (KEYS - 1);
+        return TheHashinator.hashToPartition(m_strings[m_next]);
+    }
+}
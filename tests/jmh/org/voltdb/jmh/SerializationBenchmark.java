@@ -0,0 +1,94 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2013 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.jmh;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.voltdb.messaging.FastDeserializer;
+import org.voltdb.messaging.FastSerializer;
+
+/**
+ * Writes and reads back a mix of the field types messages are made of.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final String STRING = "a string of a typical column width";
+    private static final byte[] VARBINARY = new byte[64];
+    private static final long[] LONGS = new long[16];
+
+    private FastSerializer m_out;
+    private byte[] m_serialized;
+
+    @Setup
+    public void setup() throws IOException {
+        m_out = new FastSerializer();
+        m_serialized = serialize();
+    }
+
+    private byte[] serialize() throws IOException {
+        m_out.clear();
+        m_out.writeLong(1L);
+        m_out.writeInt(2);
+        m_out.writeShort(3);
+        m_out.writeByte(4);
+        m_out.writeDouble(5.0);
+        m_out.writeString(STRING);
+        m_out.writeVarbinary(VARBINARY);
+        m_out.writeArray(LONGS);
+        return m_out.getBytes();
+    }
+
+    @Benchmark
+    public byte[] fastSerializer() throws IOException {
+        return serialize();
+    }
+
+    @Benchmark
+    public long fastDeserializer() throws IOException {
+        FastDeserializer in = new FastDeserializer(m_serialized);
+        long sum = in.readLong() + in.readInt() + in.readShort() + in.readByte();
+        sum += (long) in.readDouble();
+        sum += in.readString().length();
+        sum += in.readVarbinary().length;
+        sum += ((long[]) in.readArray(long.class)).length;
+        return sum;
+    }
+}